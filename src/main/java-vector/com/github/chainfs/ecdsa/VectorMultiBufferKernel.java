@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link MultiBufferKernel} on jdk.incubator.vector: one IntVector of the
+ * preferred species holds a word of every lane, so a compression is the
+ * usual 64 rounds with each operation applied to 4, 8 or 16 messages.
+ *
+ * Compiled only by the {@code vector} Maven profile; SHA256MultiBuffer loads
+ * it by name and falls back to the scalar kernel when it is missing.
+ */
+final class VectorMultiBufferKernel implements MultiBufferKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    VectorMultiBufferKernel() {
+    }
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public void compress(int[] state, int[] w) {
+        int n = SPECIES.length();
+        // the schedule stays in w: vectors kept in an array would be boxed
+        for (int t = 16; t < 64; t++) {
+            IntVector w2 = IntVector.fromArray(SPECIES, w, (t - 2) * n);
+            IntVector w15 = IntVector.fromArray(SPECIES, w, (t - 15) * n);
+            IntVector s0 = ror(w15, 7).lanewise(VectorOperators.XOR, ror(w15, 18))
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.LSHR, 3));
+            IntVector s1 = ror(w2, 17).lanewise(VectorOperators.XOR, ror(w2, 19))
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.LSHR, 10));
+            IntVector.fromArray(SPECIES, w, (t - 16) * n).add(s0)
+                    .add(IntVector.fromArray(SPECIES, w, (t - 7) * n)).add(s1)
+                    .intoArray(w, t * n);
+        }
+
+        IntVector a = IntVector.fromArray(SPECIES, state, 0);
+        IntVector b = IntVector.fromArray(SPECIES, state, n);
+        IntVector c = IntVector.fromArray(SPECIES, state, 2 * n);
+        IntVector d = IntVector.fromArray(SPECIES, state, 3 * n);
+        IntVector e = IntVector.fromArray(SPECIES, state, 4 * n);
+        IntVector f = IntVector.fromArray(SPECIES, state, 5 * n);
+        IntVector g = IntVector.fromArray(SPECIES, state, 6 * n);
+        IntVector h = IntVector.fromArray(SPECIES, state, 7 * n);
+
+        for (int t = 0; t < 64; t++) {
+            IntVector sigma1 = ror(e, 6).lanewise(VectorOperators.XOR, ror(e, 11))
+                    .lanewise(VectorOperators.XOR, ror(e, 25));
+            IntVector ch = g.lanewise(VectorOperators.XOR, e.and(f.lanewise(VectorOperators.XOR, g)));
+            IntVector t1 = h.add(sigma1).add(ch).add(SHA256Hash.K[t]).add(IntVector.fromArray(SPECIES, w, t * n));
+            IntVector sigma0 = ror(a, 2).lanewise(VectorOperators.XOR, ror(a, 13))
+                    .lanewise(VectorOperators.XOR, ror(a, 22));
+            IntVector maj = a.and(b).or(c.and(a.or(b)));
+            h = g;
+            g = f;
+            f = e;
+            e = d.add(t1);
+            d = c;
+            c = b;
+            b = a;
+            a = t1.add(sigma0).add(maj);
+        }
+
+        a.add(IntVector.fromArray(SPECIES, state, 0)).intoArray(state, 0);
+        b.add(IntVector.fromArray(SPECIES, state, n)).intoArray(state, n);
+        c.add(IntVector.fromArray(SPECIES, state, 2 * n)).intoArray(state, 2 * n);
+        d.add(IntVector.fromArray(SPECIES, state, 3 * n)).intoArray(state, 3 * n);
+        e.add(IntVector.fromArray(SPECIES, state, 4 * n)).intoArray(state, 4 * n);
+        f.add(IntVector.fromArray(SPECIES, state, 5 * n)).intoArray(state, 5 * n);
+        g.add(IntVector.fromArray(SPECIES, state, 6 * n)).intoArray(state, 6 * n);
+        h.add(IntVector.fromArray(SPECIES, state, 7 * n)).intoArray(state, 7 * n);
+    }
+
+    private static IntVector ror(IntVector v, int bits) {
+        return v.lanewise(VectorOperators.ROR, bits);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Complete addition and doubling for prime-order curves with a = -3 (the NIST
+ * curves) in homogeneous projective coordinates, Algorithms 4 and 6 of
+ * Renes, Costello and Batina, "Complete addition formulas for prime order
+ * elliptic curves" (2016).
+ *
+ * A point is a long[][] {X, Y, Z} of {@link PrimeField} elements with
+ * x = X/Z, y = Y/Z; the identity is (0 : 1 : 0).  Unlike
+ * {@link LimbJacobianArithmetic} the formulas have no exceptional cases: the
+ * same straight-line sequence of 12 multiplications (add) or 8
+ * multiplications and 3 squarings (double) handles P + Q, P + P, P + (-P)
+ * and the identity.  With the masked table lookup in
+ * {@link #multiplyConstantTime(BigInteger, long[][], int)} the scalar
+ * multiplication has no branches or memory accesses that depend on the
+ * scalar.
+ */
+public final class CompleteProjectiveArithmetic {
+
+    private static final ConcurrentHashMap<ECCurve, CompleteProjectiveArithmetic> INSTANCES = new ConcurrentHashMap<>();
+
+    private static final int WINDOW = 4;
+
+    private final PrimeField field;
+    private final long[] b;
+
+    public CompleteProjectiveArithmetic(ECCurve curve) {
+        BigInteger m = curve.getP();
+        if (!curve.getA().mod(m).equals(m.subtract(BigInteger.valueOf(3)))) {
+            throw new IllegalArgumentException("complete formulas are implemented for a = -3 only");
+        }
+        this.field = PrimeField.forModulus(m);
+        this.b = field.fromBigInteger(curve.getB());
+    }
+
+    // Shared instance for curve
+    public static CompleteProjectiveArithmetic forCurve(ECCurve curve) {
+        return INSTANCES.computeIfAbsent(curve, CompleteProjectiveArithmetic::new);
+    }
+
+    public PrimeField getField() {
+        return field;
+    }
+
+    public long[][] newPoint() {
+        int n = field.getLimbCount();
+        return new long[][]{new long[n], new long[n], new long[n]};
+    }
+
+    public long[][] identity() {
+        long[][] r = newPoint();
+        field.setOne(r[1]);
+        return r;
+    }
+
+    public long[][] fromAffine(BigInteger x, BigInteger y) {
+        long[][] r = newPoint();
+        r[0] = field.fromBigInteger(x);
+        r[1] = field.fromBigInteger(y);
+        field.setOne(r[2]);
+        return r;
+    }
+
+    public boolean isIdentity(long[][] p) {
+        return field.isZero(p[2]);
+    }
+
+    // {x, y} of p with one inversion, null for the identity
+    public BigInteger[] toAffineCoordinates(long[][] p) {
+        if (isIdentity(p)) {
+            return null;
+        }
+        long[] zInv = field.newElement();
+        long[] t = field.newElement();
+        field.invert(zInv, p[2]);
+        field.mul(t, p[0], zInv);
+        BigInteger x = field.toBigInteger(t);
+        field.mul(t, p[1], zInv);
+        return new BigInteger[]{x, field.toBigInteger(t)};
+    }
+
+    // r = p + q, Algorithm 4; r may alias p or q
+    public void add(long[][] r, long[][] p, long[][] q) {
+        PrimeField f = field;
+        long[] X1 = p[0], Y1 = p[1], Z1 = p[2];
+        long[] X2 = q[0], Y2 = q[1], Z2 = q[2];
+        long[] t0 = f.newElement();
+        long[] t1 = f.newElement();
+        long[] t2 = f.newElement();
+        long[] t3 = f.newElement();
+        long[] t4 = f.newElement();
+        long[] X3 = f.newElement();
+        long[] Y3 = f.newElement();
+        long[] Z3 = f.newElement();
+
+        f.mul(t0, X1, X2);
+        f.mul(t1, Y1, Y2);
+        f.mul(t2, Z1, Z2);
+        f.add(t3, X1, Y1);
+        f.add(t4, X2, Y2);
+        f.mul(t3, t3, t4);
+        f.add(t4, t0, t1);
+        f.sub(t3, t3, t4);
+        f.add(t4, Y1, Z1);
+        f.add(X3, Y2, Z2);
+        f.mul(t4, t4, X3);
+        f.add(X3, t1, t2);
+        f.sub(t4, t4, X3);
+        f.add(X3, X1, Z1);
+        f.add(Y3, X2, Z2);
+        f.mul(X3, X3, Y3);
+        f.add(Y3, t0, t2);
+        f.sub(Y3, X3, Y3);
+        f.mul(Z3, b, t2);
+        f.sub(X3, Y3, Z3);
+        f.add(Z3, X3, X3);
+        f.add(X3, X3, Z3);
+        f.sub(Z3, t1, X3);
+        f.add(X3, t1, X3);
+        f.mul(Y3, b, Y3);
+        f.add(t1, t2, t2);
+        f.add(t2, t1, t2);
+        f.sub(Y3, Y3, t2);
+        f.sub(Y3, Y3, t0);
+        f.add(t1, Y3, Y3);
+        f.add(Y3, t1, Y3);
+        f.add(t1, t0, t0);
+        f.add(t0, t1, t0);
+        f.sub(t0, t0, t2);
+        f.mul(t1, t4, Y3);
+        f.mul(t2, t0, Y3);
+        f.mul(Y3, X3, Z3);
+        f.add(Y3, Y3, t2);
+        f.mul(X3, X3, t3);
+        f.sub(X3, X3, t1);
+        f.mul(Z3, t4, Z3);
+        f.mul(t1, t3, t0);
+        f.add(Z3, Z3, t1);
+
+        f.set(r[0], X3);
+        f.set(r[1], Y3);
+        f.set(r[2], Z3);
+    }
+
+    // r = 2p, Algorithm 6; r may alias p
+    public void doublePoint(long[][] r, long[][] p) {
+        PrimeField f = field;
+        long[] X = p[0], Y = p[1], Z = p[2];
+        long[] t0 = f.newElement();
+        long[] t1 = f.newElement();
+        long[] t2 = f.newElement();
+        long[] t3 = f.newElement();
+        long[] X3 = f.newElement();
+        long[] Y3 = f.newElement();
+        long[] Z3 = f.newElement();
+
+        f.sqr(t0, X);
+        f.sqr(t1, Y);
+        f.sqr(t2, Z);
+        f.mul(t3, X, Y);
+        f.add(t3, t3, t3);
+        f.mul(Z3, X, Z);
+        f.add(Z3, Z3, Z3);
+        f.mul(Y3, b, t2);
+        f.sub(Y3, Y3, Z3);
+        f.add(X3, Y3, Y3);
+        f.add(Y3, X3, Y3);
+        f.sub(X3, t1, Y3);
+        f.add(Y3, t1, Y3);
+        f.mul(Y3, X3, Y3);
+        f.mul(X3, X3, t3);
+        f.add(t3, t2, t2);
+        f.add(t2, t2, t3);
+        f.mul(Z3, b, Z3);
+        f.sub(Z3, Z3, t2);
+        f.sub(Z3, Z3, t0);
+        f.add(t3, Z3, Z3);
+        f.add(Z3, Z3, t3);
+        f.add(t3, t0, t0);
+        f.add(t0, t3, t0);
+        f.sub(t0, t0, t2);
+        f.mul(t0, t0, Z3);
+        f.add(Y3, Y3, t0);
+        f.mul(t0, Y, Z);
+        f.add(t0, t0, t0);
+        f.mul(Z3, t0, Z3);
+        f.sub(X3, X3, Z3);
+        f.mul(Z3, t0, t1);
+        f.add(Z3, Z3, Z3);
+        f.add(Z3, Z3, Z3);
+
+        f.set(r[0], X3);
+        f.set(r[1], Y3);
+        f.set(r[2], Z3);
+    }
+
+    /**
+     * k * p for 0 <= k < 2^bits with a fixed 4-bit window: always bits / 4
+     * windows of four doublings and one addition, and every table entry is
+     * read for every window.  Only the conversion of k into window digits
+     * goes through BigInteger, which is not itself constant time.
+     */
+    public long[][] multiplyConstantTime(BigInteger k, long[][] p, int bits) {
+        int size = 1 << WINDOW;
+        long[][][] table = new long[size][][];
+        table[0] = identity();
+        table[1] = newPoint();
+        copy(table[1], p);
+        for (int i = 2; i < size; i++) {
+            table[i] = newPoint();
+            add(table[i], table[i - 1], p);
+        }
+
+        int windows = (bits + WINDOW - 1) / WINDOW;
+        int[] digits = new int[windows];
+        for (int i = 0; i < windows; i++) {
+            int d = 0;
+            for (int j = WINDOW - 1; j >= 0; j--) {
+                d = (d << 1) | (k.testBit(i * WINDOW + j) ? 1 : 0);
+            }
+            digits[i] = d;
+        }
+
+        long[][] acc = identity();
+        long[][] selected = newPoint();
+        for (int i = windows - 1; i >= 0; i--) {
+            for (int j = 0; j < WINDOW; j++) {
+                doublePoint(acc, acc);
+            }
+            select(selected, table, digits[i]);
+            add(acc, acc, selected);
+        }
+        return acc;
+    }
+
+    // r = table[index], reading every entry and keeping the one whose mask is set
+    public static void select(long[][] r, long[][][] table, int index) {
+        int coords = r.length;
+        int limbs = r[0].length;
+        for (int c = 0; c < coords; c++) {
+            for (int l = 0; l < limbs; l++) {
+                r[c][l] = 0;
+            }
+        }
+        for (int i = 0; i < table.length; i++) {
+            long mask = ((long) (i ^ index) - 1) >> 63; // -1 when i == index, else 0
+            for (int c = 0; c < coords; c++) {
+                long[] src = table[i][c];
+                long[] dst = r[c];
+                for (int l = 0; l < limbs; l++) {
+                    dst[l] |= src[l] & mask;
+                }
+            }
+        }
+    }
+
+    private void copy(long[][] r, long[][] p) {
+        for (int i = 0; i < 3; i++) {
+            field.set(r[i], p[i]);
+        }
+    }
+}
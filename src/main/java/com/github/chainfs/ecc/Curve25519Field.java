@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * GF(2^255 - 19) in five unsaturated 51-bit limbs (radix 2^51), the usual
+ * representation for Curve25519 and Ed25519.
+ *
+ * Since 2^255 = 19 mod p, the upper half of a product is folded back by
+ * multiplying it by 19, and a carry out of the top limb re-enters limb 0 the
+ * same way.  Limbs are kept below about 2^52, so a product column of five
+ * terms stays far below 2^128 and additions need no carry chain of their own.
+ *
+ * Like {@link Mersenne521Field}, elements are loosely reduced; the canonical
+ * value is produced by {@link #toBigInteger(long[])}, {@link #isZero(long[])},
+ * {@link #equal(long[], long[])} and {@link #toBytes(long[])}.
+ */
+public final class Curve25519Field extends PrimeField {
+
+    public static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+
+    private static final int LIMBS = 5;
+    private static final long M51 = (1L << 51) - 1;
+
+    // 4p in limbs, added before subtracting so no limb goes negative
+    private static final long FOUR_P0 = (1L << 53) - 76;
+    private static final long FOUR_PI = (1L << 53) - 4;
+
+    public Curve25519Field() {
+        super(P);
+    }
+
+    @Override
+    public int getLimbCount() {
+        return LIMBS;
+    }
+
+    @Override
+    public long[] fromBigInteger(BigInteger x) {
+        BigInteger v = x.mod(P);
+        long[] r = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = v.shiftRight(51 * i).longValue() & M51;
+        }
+        return r;
+    }
+
+    @Override
+    public BigInteger toBigInteger(long[] a) {
+        long[] c = canonical(a);
+        BigInteger r = BigInteger.ZERO;
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            r = r.shiftLeft(51).or(BigInteger.valueOf(c[i]));
+        }
+        return r;
+    }
+
+    /**
+     * Element from 32 little-endian bytes.  Bit 255 is ignored, as RFC 8032
+     * and RFC 7748 require; values from p to 2^255 - 1 are reduced.
+     */
+    public long[] fromBytes(byte[] b, int offset) {
+        long[] r = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            int bit = 51 * i;
+            long v = 0;
+            for (int j = 0; j < 8 && (bit >> 3) + j < 32; j++) {
+                v |= (b[offset + (bit >> 3) + j] & 0xFFL) << (8 * j);
+            }
+            r[i] = (v >>> (bit & 7)) & M51;
+        }
+        return r;
+    }
+
+    // The canonical value as 32 little-endian bytes
+    public byte[] toBytes(long[] a) {
+        long[] c = canonical(a);
+        byte[] out = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            int bit = 8 * i;
+            int limb = bit / 51;
+            int shift = bit % 51;
+            long v = c[limb] >>> shift;
+            if (shift > 43 && limb + 1 < LIMBS) {
+                v |= c[limb + 1] << (51 - shift);
+            }
+            out[i] = (byte) v;
+        }
+        return out;
+    }
+
+    @Override
+    public void setOne(long[] r) {
+        r[0] = 1;
+        for (int i = 1; i < LIMBS; i++) {
+            r[i] = 0;
+        }
+    }
+
+    @Override
+    public boolean isZero(long[] a) {
+        long[] c = canonical(a);
+        return (c[0] | c[1] | c[2] | c[3] | c[4]) == 0;
+    }
+
+    @Override
+    public boolean equal(long[] a, long[] b) {
+        long[] x = canonical(a);
+        long[] y = canonical(b);
+        return ((x[0] ^ y[0]) | (x[1] ^ y[1]) | (x[2] ^ y[2]) | (x[3] ^ y[3]) | (x[4] ^ y[4])) == 0;
+    }
+
+    // Low bit of the canonical value, the "sign" of x in the Ed25519 point encoding
+    public int isNegative(long[] a) {
+        return (int) (canonical(a)[0] & 1);
+    }
+
+    @Override
+    public void add(long[] r, long[] a, long[] b) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] + b[i];
+        }
+        carry(r);
+    }
+
+    @Override
+    public void sub(long[] r, long[] a, long[] b) {
+        r[0] = a[0] - b[0] + FOUR_P0;
+        for (int i = 1; i < LIMBS; i++) {
+            r[i] = a[i] - b[i] + FOUR_PI;
+        }
+        carry(r);
+    }
+
+    // r = a * b; product columns above 2^255 come back multiplied by 19
+    @Override
+    public void mul(long[] r, long[] a, long[] b) {
+        long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4];
+        long b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3], b4 = b[4];
+        long b1_19 = 19 * b1, b2_19 = 19 * b2, b3_19 = 19 * b3, b4_19 = 19 * b4;
+
+        // each column as a 128-bit (hi, lo) pair
+        long l0 = 0, h0 = 0;
+        long l1 = 0, h1 = 0;
+        long l2 = 0, h2 = 0;
+        long l3 = 0, h3 = 0;
+        long l4 = 0, h4 = 0;
+        long p, s;
+
+        p = a0 * b0;    s = l0 + p; h0 += Math.multiplyHigh(a0, b0) + carryOut(l0, p, s); l0 = s;
+        p = a1 * b4_19; s = l0 + p; h0 += Math.multiplyHigh(a1, b4_19) + carryOut(l0, p, s); l0 = s;
+        p = a2 * b3_19; s = l0 + p; h0 += Math.multiplyHigh(a2, b3_19) + carryOut(l0, p, s); l0 = s;
+        p = a3 * b2_19; s = l0 + p; h0 += Math.multiplyHigh(a3, b2_19) + carryOut(l0, p, s); l0 = s;
+        p = a4 * b1_19; s = l0 + p; h0 += Math.multiplyHigh(a4, b1_19) + carryOut(l0, p, s); l0 = s;
+
+        p = a0 * b1;    s = l1 + p; h1 += Math.multiplyHigh(a0, b1) + carryOut(l1, p, s); l1 = s;
+        p = a1 * b0;    s = l1 + p; h1 += Math.multiplyHigh(a1, b0) + carryOut(l1, p, s); l1 = s;
+        p = a2 * b4_19; s = l1 + p; h1 += Math.multiplyHigh(a2, b4_19) + carryOut(l1, p, s); l1 = s;
+        p = a3 * b3_19; s = l1 + p; h1 += Math.multiplyHigh(a3, b3_19) + carryOut(l1, p, s); l1 = s;
+        p = a4 * b2_19; s = l1 + p; h1 += Math.multiplyHigh(a4, b2_19) + carryOut(l1, p, s); l1 = s;
+
+        p = a0 * b2;    s = l2 + p; h2 += Math.multiplyHigh(a0, b2) + carryOut(l2, p, s); l2 = s;
+        p = a1 * b1;    s = l2 + p; h2 += Math.multiplyHigh(a1, b1) + carryOut(l2, p, s); l2 = s;
+        p = a2 * b0;    s = l2 + p; h2 += Math.multiplyHigh(a2, b0) + carryOut(l2, p, s); l2 = s;
+        p = a3 * b4_19; s = l2 + p; h2 += Math.multiplyHigh(a3, b4_19) + carryOut(l2, p, s); l2 = s;
+        p = a4 * b3_19; s = l2 + p; h2 += Math.multiplyHigh(a4, b3_19) + carryOut(l2, p, s); l2 = s;
+
+        p = a0 * b3;    s = l3 + p; h3 += Math.multiplyHigh(a0, b3) + carryOut(l3, p, s); l3 = s;
+        p = a1 * b2;    s = l3 + p; h3 += Math.multiplyHigh(a1, b2) + carryOut(l3, p, s); l3 = s;
+        p = a2 * b1;    s = l3 + p; h3 += Math.multiplyHigh(a2, b1) + carryOut(l3, p, s); l3 = s;
+        p = a3 * b0;    s = l3 + p; h3 += Math.multiplyHigh(a3, b0) + carryOut(l3, p, s); l3 = s;
+        p = a4 * b4_19; s = l3 + p; h3 += Math.multiplyHigh(a4, b4_19) + carryOut(l3, p, s); l3 = s;
+
+        p = a0 * b4;    s = l4 + p; h4 += Math.multiplyHigh(a0, b4) + carryOut(l4, p, s); l4 = s;
+        p = a1 * b3;    s = l4 + p; h4 += Math.multiplyHigh(a1, b3) + carryOut(l4, p, s); l4 = s;
+        p = a2 * b2;    s = l4 + p; h4 += Math.multiplyHigh(a2, b2) + carryOut(l4, p, s); l4 = s;
+        p = a3 * b1;    s = l4 + p; h4 += Math.multiplyHigh(a3, b1) + carryOut(l4, p, s); l4 = s;
+        p = a4 * b0;    s = l4 + p; h4 += Math.multiplyHigh(a4, b0) + carryOut(l4, p, s); l4 = s;
+
+        // carry each column into the next; columns are below 2^112, so carries fit in a long
+        long c;
+        c = (l0 >>> 51) | (h0 << 13); long r0 = l0 & M51;
+        s = l1 + c; h1 += carryOut(l1, c, s); l1 = s;
+        c = (l1 >>> 51) | (h1 << 13); long r1 = l1 & M51;
+        s = l2 + c; h2 += carryOut(l2, c, s); l2 = s;
+        c = (l2 >>> 51) | (h2 << 13); long r2 = l2 & M51;
+        s = l3 + c; h3 += carryOut(l3, c, s); l3 = s;
+        c = (l3 >>> 51) | (h3 << 13); long r3 = l3 & M51;
+        s = l4 + c; h4 += carryOut(l4, c, s); l4 = s;
+        c = (l4 >>> 51) | (h4 << 13); long r4 = l4 & M51;
+
+        r0 += 19 * c;
+        r1 += r0 >>> 51;
+        r0 &= M51;
+        r[0] = r0;
+        r[1] = r1;
+        r[2] = r2;
+        r[3] = r3;
+        r[4] = r4;
+    }
+
+    @Override
+    public void invert(long[] r, long[] a) {
+        BigInteger inverse = SafeGcdInverse.forModulus(P).invert(toBigInteger(a));
+        System.arraycopy(fromBigInteger(inverse), 0, r, 0, LIMBS);
+    }
+
+    // Carry of the unsigned addition x + y = s
+    private static long carryOut(long x, long y, long s) {
+        return ((x & y) | ((x | y) & ~s)) >>> 63;
+    }
+
+    private static void carry(long[] r) {
+        r[1] += r[0] >>> 51;
+        r[0] &= M51;
+        r[2] += r[1] >>> 51;
+        r[1] &= M51;
+        r[3] += r[2] >>> 51;
+        r[2] &= M51;
+        r[4] += r[3] >>> 51;
+        r[3] &= M51;
+        r[0] += 19 * (r[4] >>> 51);
+        r[4] &= M51;
+        r[1] += r[0] >>> 51;
+        r[0] &= M51;
+    }
+
+    // The unique representative in [0, p)
+    private static long[] canonical(long[] a) {
+        long[] c = a.clone();
+        carry(c);
+        carry(c);
+        // c < 2^255 now; add 19 and look at bit 255 to see whether c >= p
+        long q = (c[0] + 19) >>> 51;
+        q = (c[1] + q) >>> 51;
+        q = (c[2] + q) >>> 51;
+        q = (c[3] + q) >>> 51;
+        q = (c[4] + q) >>> 51;
+        c[0] += 19 * q;
+        c[1] += c[0] >>> 51;
+        c[0] &= M51;
+        c[2] += c[1] >>> 51;
+        c[1] &= M51;
+        c[3] += c[2] >>> 51;
+        c[2] &= M51;
+        c[4] += c[3] >>> 51;
+        c[3] &= M51;
+        c[4] &= M51;
+        return c;
+    }
+}
@@ -18,27 +18,67 @@ package com.github.chainfs.ecc;
 import java.math.BigInteger;
 import java.util.Objects;
 
+/**
+ * A point on an {@link ECCurve}.
+ *
+ * Internally the point is kept in Jacobian coordinates {X, Y, Z}, so add,
+ * doublePoint and multiply never invert.  The affine x and y are computed
+ * with one inversion the first time getX, getY, equals, hashCode or
+ * toString needs them, and cached.
+ */
 public class ECPoint {
-    private final BigInteger x;
-    private final BigInteger y;
+    private final BigInteger[] jacobian; // {X, Y, Z}, Z = 0 for the point at infinity
     private final ECCurve curve;
+    private volatile BigInteger[] affine; // {x, y} once normalized, {null, null} at infinity
 
     public ECPoint(BigInteger x, BigInteger y, ECCurve curve) {
-        this.x = x;
-        this.y = y;
         this.curve = curve;
+        if (x == null && y == null) {
+            this.jacobian = JacobianArithmetic.infinity();
+        } else {
+            this.jacobian = new BigInteger[]{x, y, BigInteger.ONE};
+        }
+        this.affine = new BigInteger[]{x, y};
+    }
+
+    ECPoint(BigInteger[] jacobian, ECCurve curve) {
+        this.jacobian = jacobian;
+        this.curve = curve;
+        if (JacobianArithmetic.isInfinity(jacobian)) {
+            this.affine = new BigInteger[]{null, null};
+        } else if (jacobian[2].equals(BigInteger.ONE)) {
+            this.affine = new BigInteger[]{jacobian[0], jacobian[1]};
+        }
     }
 
     public BigInteger getX() {
-        return x;
+        return normalized()[0];
     }
 
     public BigInteger getY() {
-        return y;
+        return normalized()[1];
+    }
+
+    public ECCurve getCurve() {
+        return curve;
+    }
+
+    BigInteger[] jacobian() {
+        return jacobian;
+    }
+
+    private BigInteger[] normalized() {
+        BigInteger[] a = affine;
+        if (a == null) {
+            ECPoint p = JacobianArithmetic.toAffine(curve, jacobian);
+            a = p.affine;
+            affine = a;
+        }
+        return a;
     }
 
     public boolean isInfinity() {
-        return x == null && y == null;
+        return JacobianArithmetic.isInfinity(jacobian);
     }
 
     public boolean isOnCurve() {
@@ -47,6 +87,8 @@ public class ECPoint {
         BigInteger p = curve.getP();
         BigInteger a = curve.getA();
         BigInteger b = curve.getB();
+        BigInteger x = getX();
+        BigInteger y = getY();
 
         BigInteger lhs = y.modPow(BigInteger.TWO, p);
         BigInteger rhs = x.modPow(BigInteger.valueOf(3), p)
@@ -57,7 +99,7 @@ public class ECPoint {
     public ECPoint negate() {
         if (isInfinity()) return this;
         BigInteger p = curve.getP();
-        return new ECPoint(x, p.subtract(y).mod(p), curve);
+        return new ECPoint(new BigInteger[]{jacobian[0], p.subtract(jacobian[1]).mod(p), jacobian[2]}, curve);
     }
 
     public ECPoint add(ECPoint q) {
@@ -68,59 +110,35 @@ public class ECPoint {
         if (this.isInfinity()) return q;
         if (q.isInfinity()) return this;
 
-        BigInteger p = curve.getP();
-
-        if (x.equals(q.x)) {
-            if (!y.equals(q.y)) {
-                return curve.getInfinity(); // P + (-P) = O
-            } else {
-                return doublePoint(); // P + P
-            }
-        }
-
-        BigInteger lambda = q.y.subtract(y)
-                .multiply(q.x.subtract(x).modInverse(p))
-                .mod(p);
-
-        BigInteger xr = lambda.pow(2).subtract(x).subtract(q.x).mod(p);
-        BigInteger yr = lambda.multiply(x.subtract(xr)).subtract(y).mod(p);
-
-        return new ECPoint(xr, yr, curve);
+        return new ECPoint(JacobianArithmetic.add(curve, jacobian, q.jacobian), curve);
     }
 
     public ECPoint doublePoint() {
         if (isInfinity()) return this;
 
-        BigInteger p = curve.getP();
-        BigInteger a = curve.getA();
-
-        if (y.equals(BigInteger.ZERO)) {
-            return curve.getInfinity(); // tangent is vertical
-        }
-
-        BigInteger lambda = x.pow(2).multiply(BigInteger.valueOf(3)).add(a)
-                .multiply(y.multiply(BigInteger.TWO).modInverse(p))
-                .mod(p);
-
-        BigInteger xr = lambda.pow(2).subtract(x.multiply(BigInteger.TWO)).mod(p);
-        BigInteger yr = lambda.multiply(x.subtract(xr)).subtract(y).mod(p);
-
-        return new ECPoint(xr, yr, curve);
+        return new ECPoint(JacobianArithmetic.doublePoint(curve, jacobian), curve);
     }
 
     public ECPoint multiply(BigInteger k) {
-        ECPoint result = curve.getInfinity();
-        ECPoint addend = this;
+        if (k.signum() < 0) {
+            return negate().multiply(k.negate());
+        }
+        if (k.signum() == 0 || isInfinity()) {
+            return curve.getInfinity();
+        }
 
-        while (k.signum() != 0) {
-            if (k.testBit(0)) {
-                result = result.add(addend);
+        // left to right, adding the normalized point so every addition is a mixed one
+        BigInteger x = getX();
+        BigInteger y = getY();
+        BigInteger[] result = JacobianArithmetic.infinity();
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            result = JacobianArithmetic.doublePoint(curve, result);
+            if (k.testBit(i)) {
+                result = JacobianArithmetic.addMixed(curve, result, x, y);
             }
-            addend = addend.doublePoint();
-            k = k.shiftRight(1);
         }
 
-        return result;
+        return new ECPoint(result, curve);
     }
 
     @Override
@@ -128,19 +146,19 @@ public class ECPoint {
         if (!(obj instanceof ECPoint)) return false;
         ECPoint other = (ECPoint) obj;
         if (this.isInfinity() && other.isInfinity()) return true;
-        return Objects.equals(this.x, other.x)
-            && Objects.equals(this.y, other.y)
+        return Objects.equals(this.getX(), other.getX())
+            && Objects.equals(this.getY(), other.getY())
             && this.curve.equals(other.curve);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y, curve);
+        return Objects.hash(getX(), getY(), curve);
     }
 
     @Override
     public String toString() {
         if (isInfinity()) return "Point(Infinity)";
-        return "Point(" + x.toString(16) + ", " + y.toString(16) + ")";
+        return "Point(" + getX().toString(16) + ", " + getY().toString(16) + ")";
     }
 }
@@ -0,0 +1,418 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Windowed precomputation for multiplying one fixed point, normally a generator.
+ *
+ * The scalar is cut into windows of w bits and window i stores the affine
+ * points d * 2^(w*i) * B for d = 1 .. 2^w - 1.  k * B is then the sum of one
+ * table entry per non-zero window: for a 256-bit order and w = 4 that is at
+ * most 64 mixed additions and no doublings.
+ *
+ * Tables are built on first use by {@link #forPoint(ECPoint, int)} and shared.
+ * When the system property {@code chainfs.ecc.fixedBaseCacheDir} names a
+ * directory, tables are also written there and read back by later runs.
+ * A file is named after the SHA-256 of its curve, base, scalar size and
+ * window, and ends with the SHA-256 of everything before it.  That digest
+ * is not keyed: it catches truncated or damaged files, not deliberate
+ * edits.  What makes a loaded table trustworthy is that every entry is
+ * checked against its neighbours: entry d of a row must be entry d - 1 plus
+ * the row's base, and each row's base must be 2^w times the one before,
+ * starting from the base point.  Each check is a few field multiplications
+ * with no inversion, and the limbs it works on are kept for
+ * multiplication.  A table that fails either check is rebuilt.
+ */
+public final class FixedBaseTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FixedBaseTable.class);
+
+    private static final String WINDOW_PROPERTY = "chainfs.ecc.fixedBaseWindow";
+
+    // Widest window the property may ask for: 2^8 - 1 entries per row
+    private static final int MAX_DEFAULT_WINDOW = 8;
+
+    public static final int DEFAULT_WINDOW = defaultWindow();
+
+    private static final String CACHE_DIR_PROPERTY = "chainfs.ecc.fixedBaseCacheDir";
+
+    private static final int FILE_MAGIC = 0x46425432; // "FBT2", FBT1 had no digest
+
+    private static final ConcurrentHashMap<String, FixedBaseTable> TABLES = new ConcurrentHashMap<>();
+
+    private final ECPoint base;
+    private final ECCurve curve;
+    private final int bits;
+    private final int window;
+    private final ECPoint[][] table;
+    private volatile long[][][][] limbTable; // table as affine field elements, built on first use
+
+    /**
+     * Builds the table for k * base with 0 <= k < 2^bits.
+     */
+    public FixedBaseTable(ECPoint base, int bits, int window) {
+        this(base, bits, window, null);
+    }
+
+    private FixedBaseTable(ECPoint base, int bits, int window, ECPoint[][] table) {
+        if (base.isInfinity()) {
+            throw new IllegalArgumentException("Base point must not be the point at infinity");
+        }
+        if (window < 1 || window > 16) {
+            throw new IllegalArgumentException("Unsupported window width: " + window);
+        }
+        this.base = base;
+        this.curve = base.getCurve();
+        this.bits = bits;
+        this.window = window;
+        this.table = table != null ? table : build();
+    }
+
+    // chainfs.ecc.fixedBaseWindow, 4 if unset or outside 1 .. MAX_DEFAULT_WINDOW
+    private static int defaultWindow() {
+        int window = Integer.getInteger(WINDOW_PROPERTY, 4);
+        if (window < 1 || window > MAX_DEFAULT_WINDOW) {
+            logger.warn("Ignoring {}={}, expected 1 to {}; using 4", WINDOW_PROPERTY, window, MAX_DEFAULT_WINDOW);
+            return 4;
+        }
+        return window;
+    }
+
+    /**
+     * The shared table for base, built (or loaded from the cache directory) on first use.
+     */
+    public static FixedBaseTable forPoint(ECPoint base, int bits) {
+        return TABLES.computeIfAbsent(key(base, bits, DEFAULT_WINDOW),
+                k -> loadOrBuild(base, bits, DEFAULT_WINDOW, k));
+    }
+
+    public ECPoint getBase() {
+        return base;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * k * base.  Scalars outside [0, 2^bits) fall back to {@link ECPoint#multiply(BigInteger)}.
+     */
+    public ECPoint multiply(BigInteger k) {
+        if (!inRange(k)) {
+            return base.multiply(k);
+        }
+        return JacobianArithmetic.toAffine(curve, multiplyJacobian(k));
+    }
+
+    // k * base left in Jacobian coordinates, for callers that batch the final inversion; same range rule as multiply
+    public BigInteger[] multiplyJacobian(BigInteger k) {
+        if (!inRange(k)) {
+            return JacobianArithmetic.toJacobian(base.multiply(k));
+        }
+        LimbJacobianArithmetic arithmetic = LimbJacobianArithmetic.forCurve(curve);
+        long[][][][] t = limbTable(arithmetic);
+        long[][] acc = arithmetic.newPoint();
+        arithmetic.setInfinity(acc);
+        for (int i = 0; i < t.length; i++) {
+            int digit = 0;
+            int offset = i * window;
+            for (int j = window - 1; j >= 0; j--) {
+                digit = (digit << 1) | (k.testBit(offset + j) ? 1 : 0);
+            }
+            if (digit != 0 && t[i][digit - 1] != null) {
+                arithmetic.addMixed(acc, acc, t[i][digit - 1]);
+            }
+        }
+        return arithmetic.toJacobian(acc);
+    }
+
+    // The table covers exactly 0 <= k < 2^bits
+    private boolean inRange(BigInteger k) {
+        return k.signum() >= 0 && k.bitLength() <= bits;
+    }
+
+    private long[][][][] limbTable(LimbJacobianArithmetic arithmetic) {
+        long[][][][] t = limbTable;
+        if (t == null) {
+            t = new long[table.length][][][];
+            for (int i = 0; i < table.length; i++) {
+                t[i] = new long[table[i].length][][];
+                for (int d = 0; d < table[i].length; d++) {
+                    t[i][d] = arithmetic.toAffineLimbs(table[i][d]);
+                }
+            }
+            limbTable = t;
+        }
+        return t;
+    }
+
+    private ECPoint[][] build() {
+        int windows = (bits + window - 1) / window;
+        int entries = (1 << window) - 1;
+        ECPoint[][] result = new ECPoint[windows][];
+        ECPoint b = base;
+        for (int i = 0; i < windows; i++) {
+            BigInteger[][] row = new BigInteger[entries][];
+            row[0] = JacobianArithmetic.toJacobian(b);
+            for (int d = 1; d < entries; d++) {
+                row[d] = JacobianArithmetic.addMixed(curve, row[d - 1], b);
+            }
+            result[i] = JacobianArithmetic.normalizeAll(curve, row);
+            // next window base: 2^w * b = (2^w - 1) * b + b
+            b = JacobianArithmetic.toAffine(curve, JacobianArithmetic.addMixed(
+                    curve, JacobianArithmetic.toJacobian(result[i][entries - 1]), b));
+        }
+        return result;
+    }
+
+    private static String key(ECPoint base, int bits, int window) {
+        ECCurve c = base.getCurve();
+        return c.getP().toString(16) + ":" + c.getA().toString(16) + ":" + c.getB().toString(16)
+                + ":" + base.getX().toString(16) + ":" + base.getY().toString(16) + ":" + bits + ":" + window;
+    }
+
+    private static FixedBaseTable loadOrBuild(ECPoint base, int bits, int window, String key) {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir == null) {
+            return new FixedBaseTable(base, bits, window);
+        }
+        Path file = Paths.get(dir, "fixedbase-" + hex(sha256().digest(key.getBytes(StandardCharsets.UTF_8))) + ".tbl");
+        if (Files.isRegularFile(file)) {
+            try {
+                FixedBaseTable loaded = load(file, base, bits, window);
+                if (loaded != null) {
+                    return loaded;
+                }
+                logger.warn("Rebuilding fixed-base table {}: other parameters or failed integrity check", file);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not read fixed-base table {}: {}", file, e.toString());
+            }
+        }
+        FixedBaseTable built = new FixedBaseTable(base, bits, window);
+        try {
+            built.save(file);
+        } catch (IOException e) {
+            logger.warn("Could not store fixed-base table {}: {}", file, e.toString());
+        }
+        return built;
+    }
+
+    /**
+     * Writes the table to file, replacing it atomically.
+     */
+    public void save(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "fixedbase", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                write(out, key(base, bits, window));
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #save(Path)}, or returns null if the file
+     * was written for another base point, curve, scalar size or window, or
+     * fails the integrity checks.
+     */
+    public static FixedBaseTable load(Path file, ECPoint base, int bits, int window) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, base, bits, window, key(base, bits, window));
+        }
+    }
+
+    private void write(OutputStream out, String key) throws IOException {
+        MessageDigest digest = sha256();
+        DataOutputStream data = new DataOutputStream(new DigestOutputStream(new BufferedOutputStream(out), digest));
+        data.writeInt(FILE_MAGIC);
+        data.writeUTF(key);
+        data.writeInt(table.length);
+        data.writeInt(table[0].length);
+        for (ECPoint[] row : table) {
+            for (ECPoint point : row) {
+                writeBigInteger(data, point.getX());
+                writeBigInteger(data, point.getY());
+            }
+        }
+        data.flush();
+        out.write(digest.digest());
+        out.flush();
+    }
+
+    // The table stored in in, or null if it was written for another key or fails the checks
+    private static FixedBaseTable read(InputStream in, ECPoint base, int bits, int window, String key) throws IOException {
+        InputStream buffered = new BufferedInputStream(in);
+        MessageDigest digest = sha256();
+        DataInputStream data = new DataInputStream(new DigestInputStream(buffered, digest));
+        if (data.readInt() != FILE_MAGIC || !key.equals(data.readUTF())) {
+            return null;
+        }
+        int windows = data.readInt();
+        int entries = data.readInt();
+        if (windows != (bits + window - 1) / window || entries != (1 << window) - 1) {
+            return null;
+        }
+        ECCurve curve = base.getCurve();
+        ECPoint[][] table = new ECPoint[windows][entries];
+        for (int i = 0; i < windows; i++) {
+            for (int d = 0; d < entries; d++) {
+                table[i][d] = new ECPoint(readBigInteger(data), readBigInteger(data), curve);
+            }
+        }
+        byte[] expected = digest.digest();
+        byte[] stored = new byte[expected.length];
+        new DataInputStream(buffered).readFully(stored);
+        if (!MessageDigest.isEqual(expected, stored)) {
+            return null;
+        }
+        long[][][][] limbs = checkedLimbs(curve, base, table);
+        if (limbs == null) {
+            return null;
+        }
+        FixedBaseTable loaded = new FixedBaseTable(base, bits, window, table);
+        loaded.limbTable = limbs;
+        return loaded;
+    }
+
+    /**
+     * table in limbs if it holds exactly the multiples build() would compute,
+     * otherwise null.  By induction from table[0][0] = base: each entry is the
+     * previous one plus the row base, and each row base is the last entry of
+     * the row before plus that row's base.  Points off the curve cannot pass.
+     */
+    private static long[][][][] checkedLimbs(ECCurve curve, ECPoint base, ECPoint[][] table) {
+        if (!base.isOnCurve() || !table[0][0].equals(base)) {
+            return null;
+        }
+        LimbJacobianArithmetic arithmetic = LimbJacobianArithmetic.forCurve(curve);
+        PrimeField f = arithmetic.getField();
+        int entries = table[0].length;
+        long[][][][] limbs = new long[table.length][entries][][];
+        for (int i = 0; i < table.length; i++) {
+            for (int d = 0; d < entries; d++) {
+                if (table[i][d].isInfinity()) {
+                    return null;
+                }
+                limbs[i][d] = arithmetic.toAffineLimbs(table[i][d]);
+            }
+        }
+        long[] a = f.fromBigInteger(curve.getA());
+        long[][] scratch = {f.newElement(), f.newElement(), f.newElement(), f.newElement()};
+        for (int i = 0; i < limbs.length; i++) {
+            long[][] b = limbs[i][0];
+            for (int d = 1; d < entries; d++) {
+                if (!isSum(f, a, limbs[i][d - 1], b, limbs[i][d], scratch)) {
+                    return null;
+                }
+            }
+            if (i + 1 < limbs.length && !isSum(f, a, limbs[i][entries - 1], b, limbs[i + 1][0], scratch)) {
+                return null;
+            }
+        }
+        return limbs;
+    }
+
+    /**
+     * p + q == r for affine points, without inversions: with slope num / den
+     * of the chord (or tangent when p == q), x_r = (num / den)^2 - x_p - x_q
+     * and y_r = (num / den)(x_p - x_r) - y_p, both multiplied out by den.
+     */
+    private static boolean isSum(PrimeField f, long[] a, long[][] p, long[][] q, long[][] r, long[][] scratch) {
+        long[] num = scratch[0], den = scratch[1], t = scratch[2], u = scratch[3];
+        f.sub(den, q[0], p[0]);
+        f.sub(num, q[1], p[1]);
+        if (f.isZero(den)) {
+            if (!f.isZero(num)) {
+                return false;          // q = -p
+            }
+            f.sqr(t, p[0]);            // tangent: (3 x^2 + a) / 2y
+            f.add(num, t, t);
+            f.add(num, num, t);
+            f.add(num, num, a);
+            f.add(den, p[1], p[1]);
+            if (f.isZero(den)) {
+                return false;
+            }
+        }
+        f.sqr(t, den);                 // (x_p + x_q + x_r) den^2 == num^2
+        f.add(u, p[0], q[0]);
+        f.add(u, u, r[0]);
+        f.mul(u, u, t);
+        f.sqr(t, num);
+        if (!f.equal(u, t)) {
+            return false;
+        }
+        f.add(t, r[1], p[1]);          // (y_r + y_p) den == num (x_p - x_r)
+        f.mul(t, t, den);
+        f.sub(u, p[0], r[0]);
+        f.mul(u, u, num);
+        return f.equal(t, u);
+    }
+
+    private static void writeBigInteger(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readBigInteger(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * Jacobian point formulas for short Weierstrass curves y^2 = x^3 + ax + b.
+ *
+ * A point is a BigInteger[] {X, Y, Z} standing for the affine point
+ * (X / Z^2, Y / Z^3); Z = 0 is the point at infinity.  None of the formulas
+ * invert anything, so a chain of operations costs a single inversion at the
+ * end in {@link #toAffine(ECCurve, BigInteger[])} or, for many points at once,
+ * in {@link #normalizeAll(ECCurve, BigInteger[][])}.
+ */
+public final class JacobianArithmetic {
+
+    private static final BigInteger THREE = BigInteger.valueOf(3);
+
+    private JacobianArithmetic() {
+    }
+
+    public static BigInteger[] infinity() {
+        return new BigInteger[]{BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO};
+    }
+
+    public static boolean isInfinity(BigInteger[] p) {
+        return p[2].signum() == 0;
+    }
+
+    // Jacobian coordinates of point, without normalizing it
+    public static BigInteger[] toJacobian(ECPoint point) {
+        return point.jacobian().clone();
+    }
+
+    public static ECPoint toAffine(ECCurve curve, BigInteger[] p) {
+        if (isInfinity(p)) {
+            return curve.getInfinity();
+        }
+        BigInteger m = curve.getP();
+        BigInteger zInv = SafeGcdInverse.forModulus(m).invert(p[2]);
+        BigInteger zInv2 = zInv.multiply(zInv).mod(m);
+        BigInteger x = p[0].multiply(zInv2).mod(m);
+        BigInteger y = p[1].multiply(zInv2).multiply(zInv).mod(m);
+        return new ECPoint(x, y, curve);
+    }
+
+    /**
+     * Affine forms of all points with one modular inversion (Montgomery's trick).
+     * Points at infinity are allowed and come back as the curve's infinity.
+     */
+    public static ECPoint[] normalizeAll(ECCurve curve, BigInteger[][] points) {
+        BigInteger m = curve.getP();
+        int count = points.length;
+        ECPoint[] result = new ECPoint[count];
+
+        // prefix[i] = product of the non-zero Z of points[0..i]
+        BigInteger[] prefix = new BigInteger[count];
+        BigInteger acc = BigInteger.ONE;
+        for (int i = 0; i < count; i++) {
+            if (!isInfinity(points[i])) {
+                acc = acc.multiply(points[i][2]).mod(m);
+            }
+            prefix[i] = acc;
+        }
+        BigInteger inv = SafeGcdInverse.forModulus(m).invert(acc);
+
+        for (int i = count - 1; i >= 0; i--) {
+            BigInteger[] p = points[i];
+            if (isInfinity(p)) {
+                result[i] = curve.getInfinity();
+                continue;
+            }
+            BigInteger zInv = i == 0 ? inv : inv.multiply(prefix[i - 1]).mod(m);
+            inv = inv.multiply(p[2]).mod(m);
+            BigInteger zInv2 = zInv.multiply(zInv).mod(m);
+            result[i] = new ECPoint(
+                    p[0].multiply(zInv2).mod(m),
+                    p[1].multiply(zInv2).multiply(zInv).mod(m),
+                    curve);
+        }
+        return result;
+    }
+
+    // 2p for any a, with M = 3 * X1^2 + a * Z1^4
+    public static BigInteger[] doublePoint(ECCurve curve, BigInteger[] p) {
+        if (isInfinity(p) || p[1].signum() == 0) {
+            return infinity();
+        }
+        BigInteger m = curve.getP();
+        BigInteger X1 = p[0], Y1 = p[1], Z1 = p[2];
+
+        BigInteger XX = X1.multiply(X1).mod(m);
+        BigInteger YY = Y1.multiply(Y1).mod(m);
+        BigInteger YYYY = YY.multiply(YY).mod(m);
+        BigInteger S = X1.multiply(YY).shiftLeft(2).mod(m);            // 4 * X1 * Y1^2
+        BigInteger M = XX.multiply(THREE);
+        if (curve.getA().signum() != 0) {
+            BigInteger ZZ = Z1.multiply(Z1).mod(m);
+            M = M.add(curve.getA().multiply(ZZ.multiply(ZZ).mod(m)));
+        }
+        M = M.mod(m);
+
+        BigInteger X3 = M.multiply(M).subtract(S.shiftLeft(1)).mod(m);
+        BigInteger Y3 = M.multiply(S.subtract(X3)).subtract(YYYY.shiftLeft(3)).mod(m);
+        BigInteger Z3 = Y1.multiply(Z1).shiftLeft(1).mod(m);
+        return new BigInteger[]{X3, Y3, Z3};
+    }
+
+    // p + (x2, y2) with the second point affine, madd-2004-hmv
+    public static BigInteger[] addMixed(ECCurve curve, BigInteger[] p, BigInteger x2, BigInteger y2) {
+        if (isInfinity(p)) {
+            return new BigInteger[]{x2, y2, BigInteger.ONE};
+        }
+        BigInteger m = curve.getP();
+        BigInteger X1 = p[0], Y1 = p[1], Z1 = p[2];
+
+        BigInteger Z1Z1 = Z1.multiply(Z1).mod(m);
+        BigInteger U2 = x2.multiply(Z1Z1).mod(m);
+        BigInteger S2 = y2.multiply(Z1).multiply(Z1Z1).mod(m);
+        BigInteger H = U2.subtract(X1).mod(m);
+        BigInteger R = S2.subtract(Y1).mod(m);
+
+        if (H.signum() == 0) {
+            if (R.signum() == 0) {
+                return doublePoint(curve, p); // same point
+            }
+            return infinity(); // p + (-p)
+        }
+
+        BigInteger HH = H.multiply(H).mod(m);
+        BigInteger HHH = H.multiply(HH).mod(m);
+        BigInteger V = X1.multiply(HH).mod(m);
+
+        BigInteger X3 = R.multiply(R).subtract(HHH).subtract(V.shiftLeft(1)).mod(m);
+        BigInteger Y3 = R.multiply(V.subtract(X3)).subtract(Y1.multiply(HHH)).mod(m);
+        BigInteger Z3 = Z1.multiply(H).mod(m);
+        return new BigInteger[]{X3, Y3, Z3};
+    }
+
+    // p + q with both points Jacobian, add-1998-cmo-2 (12M + 4S)
+    public static BigInteger[] add(ECCurve curve, BigInteger[] p, BigInteger[] q) {
+        if (isInfinity(p)) {
+            return q;
+        }
+        if (isInfinity(q)) {
+            return p;
+        }
+        if (q[2].equals(BigInteger.ONE)) {
+            return addMixed(curve, p, q[0], q[1]);
+        }
+        BigInteger m = curve.getP();
+        BigInteger X1 = p[0], Y1 = p[1], Z1 = p[2];
+        BigInteger X2 = q[0], Y2 = q[1], Z2 = q[2];
+
+        BigInteger Z1Z1 = Z1.multiply(Z1).mod(m);
+        BigInteger Z2Z2 = Z2.multiply(Z2).mod(m);
+        BigInteger U1 = X1.multiply(Z2Z2).mod(m);
+        BigInteger U2 = X2.multiply(Z1Z1).mod(m);
+        BigInteger S1 = Y1.multiply(Z2).multiply(Z2Z2).mod(m);
+        BigInteger S2 = Y2.multiply(Z1).multiply(Z1Z1).mod(m);
+        BigInteger H = U2.subtract(U1).mod(m);
+        BigInteger R = S2.subtract(S1).mod(m);
+
+        if (H.signum() == 0) {
+            if (R.signum() == 0) {
+                return doublePoint(curve, p); // same point
+            }
+            return infinity(); // p + (-p)
+        }
+
+        BigInteger HH = H.multiply(H).mod(m);
+        BigInteger HHH = H.multiply(HH).mod(m);
+        BigInteger V = U1.multiply(HH).mod(m);
+
+        BigInteger X3 = R.multiply(R).subtract(HHH).subtract(V.shiftLeft(1)).mod(m);
+        BigInteger Y3 = R.multiply(V.subtract(X3)).subtract(S1.multiply(HHH)).mod(m);
+        BigInteger Z3 = Z1.multiply(Z2).multiply(H).mod(m);
+        return new BigInteger[]{X3, Y3, Z3};
+    }
+
+    public static BigInteger[] addMixed(ECCurve curve, BigInteger[] p, ECPoint q) {
+        if (q.isInfinity()) {
+            return p;
+        }
+        return addMixed(curve, p, q.getX(), q.getY());
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The formulas of {@link JacobianArithmetic} on {@link PrimeField} elements
+ * instead of BigIntegers.
+ *
+ * A point is a long[][] {X, Y, Z} of field elements, Z zero at infinity; an
+ * affine point is a long[][] {x, y}.  Results go into the first argument,
+ * which may be the same array as the input point.  Curves with a = -3 (the
+ * NIST curves) double with the cheaper 3 * (X - Z^2) * (X + Z^2) form.
+ */
+public final class LimbJacobianArithmetic {
+
+    private static final ConcurrentHashMap<ECCurve, LimbJacobianArithmetic> INSTANCES = new ConcurrentHashMap<>();
+
+    private final ECCurve curve;
+    private final PrimeField field;
+    private final long[] a;
+    private final boolean aIsZero;
+    private final boolean aIsMinusThree;
+
+    public LimbJacobianArithmetic(ECCurve curve) {
+        this.curve = curve;
+        this.field = PrimeField.forModulus(curve.getP());
+        BigInteger m = curve.getP();
+        BigInteger aValue = curve.getA().mod(m);
+        this.a = field.fromBigInteger(aValue);
+        this.aIsZero = aValue.signum() == 0;
+        this.aIsMinusThree = aValue.equals(m.subtract(BigInteger.valueOf(3)));
+    }
+
+    // Shared instance for curve
+    public static LimbJacobianArithmetic forCurve(ECCurve curve) {
+        return INSTANCES.computeIfAbsent(curve, LimbJacobianArithmetic::new);
+    }
+
+    public PrimeField getField() {
+        return field;
+    }
+
+    public long[][] newPoint() {
+        int n = field.getLimbCount();
+        return new long[][]{new long[n], new long[n], new long[n]};
+    }
+
+    public boolean isInfinity(long[][] p) {
+        return field.isZero(p[2]);
+    }
+
+    public void setInfinity(long[][] p) {
+        field.setOne(p[0]);
+        field.setOne(p[1]);
+        Arrays.fill(p[2], 0L);
+    }
+
+    // Affine {x, y} of an ECPoint, null for the point at infinity
+    public long[][] toAffineLimbs(ECPoint point) {
+        if (point.isInfinity()) {
+            return null;
+        }
+        return new long[][]{field.fromBigInteger(point.getX()), field.fromBigInteger(point.getY())};
+    }
+
+    public long[][] fromJacobian(BigInteger[] p) {
+        if (JacobianArithmetic.isInfinity(p)) {
+            long[][] r = newPoint();
+            setInfinity(r);
+            return r;
+        }
+        return new long[][]{field.fromBigInteger(p[0]), field.fromBigInteger(p[1]), field.fromBigInteger(p[2])};
+    }
+
+    // Back to the BigInteger Jacobian form of JacobianArithmetic
+    public BigInteger[] toJacobian(long[][] p) {
+        if (isInfinity(p)) {
+            return JacobianArithmetic.infinity();
+        }
+        return new BigInteger[]{field.toBigInteger(p[0]), field.toBigInteger(p[1]), field.toBigInteger(p[2])};
+    }
+
+    public ECPoint toAffine(long[][] p) {
+        BigInteger[] xy = toAffineCoordinates(p);
+        return xy == null ? curve.getInfinity() : new ECPoint(xy[0], xy[1], curve);
+    }
+
+    // {x, y} of p with one inversion, null for the point at infinity
+    public BigInteger[] toAffineCoordinates(long[][] p) {
+        if (isInfinity(p)) {
+            return null;
+        }
+        long[] zInv = field.newElement();
+        long[] zInv2 = field.newElement();
+        long[] t = field.newElement();
+        field.invert(zInv, p[2]);
+        field.sqr(zInv2, zInv);
+        field.mul(t, p[0], zInv2);
+        BigInteger x = field.toBigInteger(t);
+        field.mul(t, p[1], zInv2);
+        field.mul(t, t, zInv);
+        return new BigInteger[]{x, field.toBigInteger(t)};
+    }
+
+    // r = 2p
+    public void doublePoint(long[][] r, long[][] p) {
+        PrimeField f = field;
+        if (isInfinity(p) || f.isZero(p[1])) {
+            setInfinity(r);
+            return;
+        }
+        long[] X1 = p[0], Y1 = p[1], Z1 = p[2];
+        long[] m = f.newElement();
+        long[] t = f.newElement();
+        long[] yy = f.newElement();
+        long[] s = f.newElement();
+
+        if (aIsMinusThree) {
+            // M = 3 * (X1 - Z1^2) * (X1 + Z1^2)
+            f.sqr(t, Z1);
+            f.sub(m, X1, t);
+            f.add(t, X1, t);
+            f.mul(m, m, t);
+            f.add(t, m, m);
+            f.add(m, t, m);
+        } else {
+            // M = 3 * X1^2 + a * Z1^4
+            f.sqr(t, X1);
+            f.add(m, t, t);
+            f.add(m, m, t);
+            if (!aIsZero) {
+                f.sqr(t, Z1);
+                f.sqr(t, t);
+                f.mul(t, t, a);
+                f.add(m, m, t);
+            }
+        }
+
+        f.sqr(yy, Y1);
+        f.mul(s, X1, yy);          // S = 4 * X1 * Y1^2
+        f.add(s, s, s);
+        f.add(s, s, s);
+
+        long[] z3 = f.newElement();
+        f.mul(z3, Y1, Z1);         // Z3 = 2 * Y1 * Z1
+        f.add(z3, z3, z3);
+
+        long[] x3 = f.newElement();
+        f.sqr(x3, m);              // X3 = M^2 - 2S
+        f.sub(x3, x3, s);
+        f.sub(x3, x3, s);
+
+        f.sqr(yy, yy);             // Y3 = M * (S - X3) - 8 * Y1^4
+        f.add(yy, yy, yy);
+        f.add(yy, yy, yy);
+        f.add(yy, yy, yy);
+        f.sub(t, s, x3);
+        f.mul(t, m, t);
+        f.sub(r[1], t, yy);
+        f.set(r[0], x3);
+        f.set(r[2], z3);
+    }
+
+    // r = p + (x2, y2), madd-2004-hmv
+    public void addMixed(long[][] r, long[][] p, long[] x2, long[] y2) {
+        PrimeField f = field;
+        if (isInfinity(p)) {
+            f.set(r[0], x2);
+            f.set(r[1], y2);
+            f.setOne(r[2]);
+            return;
+        }
+        long[] X1 = p[0], Y1 = p[1], Z1 = p[2];
+        long[] t = f.newElement();
+        long[] h = f.newElement();
+        long[] rr = f.newElement();
+
+        f.sqr(t, Z1);              // Z1Z1
+        f.mul(h, x2, t);           // U2
+        f.sub(h, h, X1);           // H = U2 - X1
+        f.mul(rr, t, Z1);
+        f.mul(rr, rr, y2);         // S2
+        f.sub(rr, rr, Y1);         // R = S2 - Y1
+
+        if (f.isZero(h)) {
+            if (f.isZero(rr)) {
+                doublePoint(r, p); // same point
+            } else {
+                setInfinity(r);    // p + (-p)
+            }
+            return;
+        }
+
+        long[] hh = f.newElement();
+        long[] hhh = f.newElement();
+        long[] v = f.newElement();
+        f.sqr(hh, h);
+        f.mul(hhh, h, hh);
+        f.mul(v, X1, hh);
+
+        long[] x3 = f.newElement();
+        f.sqr(x3, rr);             // X3 = R^2 - HHH - 2V
+        f.sub(x3, x3, hhh);
+        f.sub(x3, x3, v);
+        f.sub(x3, x3, v);
+
+        f.sub(v, v, x3);           // Y3 = R * (V - X3) - Y1 * HHH
+        f.mul(v, rr, v);
+        f.mul(hhh, Y1, hhh);
+        f.mul(r[2], Z1, h);        // Z3 = Z1 * H
+        f.sub(r[1], v, hhh);
+        f.set(r[0], x3);
+    }
+
+    public void addMixed(long[][] r, long[][] p, long[][] q) {
+        addMixed(r, p, q[0], q[1]);
+    }
+
+    // r = p + q for two Jacobian points, add-1998-cmo-2 (12M + 4S)
+    public void add(long[][] r, long[][] p, long[][] q) {
+        PrimeField f = field;
+        if (isInfinity(q)) {
+            copy(r, p);
+            return;
+        }
+        if (isInfinity(p)) {
+            copy(r, q);
+            return;
+        }
+        long[] z1z1 = f.newElement();
+        long[] z2z2 = f.newElement();
+        long[] u1 = f.newElement();
+        long[] h = f.newElement();
+        long[] s1 = f.newElement();
+        long[] rr = f.newElement();
+
+        f.sqr(z1z1, p[2]);
+        f.sqr(z2z2, q[2]);
+        f.mul(u1, p[0], z2z2);        // U1 = X1 Z2^2
+        f.mul(h, q[0], z1z1);
+        f.sub(h, h, u1);              // H = U2 - U1
+        f.mul(s1, p[1], q[2]);
+        f.mul(s1, s1, z2z2);          // S1 = Y1 Z2^3
+        f.mul(rr, q[1], p[2]);
+        f.mul(rr, rr, z1z1);
+        f.sub(rr, rr, s1);            // R = S2 - S1
+
+        if (f.isZero(h)) {
+            if (f.isZero(rr)) {
+                doublePoint(r, p);    // same point
+            } else {
+                setInfinity(r);       // p + (-p)
+            }
+            return;
+        }
+
+        long[] hh = f.newElement();
+        long[] hhh = f.newElement();
+        long[] v = f.newElement();
+        f.sqr(hh, h);
+        f.mul(hhh, h, hh);
+        f.mul(v, u1, hh);
+
+        long[] x3 = f.newElement();
+        f.sqr(x3, rr);                // X3 = R^2 - HHH - 2V
+        f.sub(x3, x3, hhh);
+        f.sub(x3, x3, v);
+        f.sub(x3, x3, v);
+
+        f.sub(v, v, x3);              // Y3 = R (V - X3) - S1 HHH
+        f.mul(v, rr, v);
+        f.mul(hhh, s1, hhh);
+        long[] z3 = f.newElement();
+        f.mul(z3, p[2], q[2]);        // Z3 = Z1 Z2 H
+        f.mul(r[2], z3, h);
+        f.sub(r[1], v, hhh);
+        f.set(r[0], x3);
+    }
+
+    public void copy(long[][] r, long[][] p) {
+        field.set(r[0], p[0]);
+        field.set(r[1], p[1]);
+        field.set(r[2], p[2]);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * GF(2^521 - 1), the P-521 field, in nine unsaturated 58-bit limbs.
+ *
+ * Because 2^521 = 1 mod p, bits above 521 fold back in with a shift and an
+ * add: a product column that lands at 2^(58 * (9 + k)) = 2 * 2^(58 * k) is
+ * simply added, doubled, into column k.  The 6 spare bits per limb absorb
+ * additions without carrying, and every operation leaves the limbs below
+ * about 2^58, which keeps the nine-term columns of a product under 2^121.
+ *
+ * Elements are only loosely reduced (a value below 2^522, not necessarily
+ * below p); {@link #toBigInteger(long[])}, {@link #isZero(long[])} and
+ * {@link #equal(long[], long[])} compare the canonical form.
+ */
+public final class Mersenne521Field extends PrimeField {
+
+    public static final BigInteger P = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+
+    private static final int LIMBS = 9;
+    private static final long M58 = (1L << 58) - 1;
+    private static final long M57 = (1L << 57) - 1;
+
+    // 8p in limbs that each exceed any reduced limb, added before subtracting so no limb goes negative
+    private static final long EIGHT_P0 = (1L << 60) - 8;
+    private static final long EIGHT_PI = (1L << 60) - 4;
+
+    public Mersenne521Field() {
+        super(P);
+    }
+
+    @Override
+    public int getLimbCount() {
+        return LIMBS;
+    }
+
+    @Override
+    public long[] fromBigInteger(BigInteger x) {
+        BigInteger v = x.mod(P);
+        long[] r = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = v.shiftRight(58 * i).longValue() & M58;
+        }
+        return r;
+    }
+
+    @Override
+    public BigInteger toBigInteger(long[] a) {
+        long[] c = canonical(a);
+        BigInteger r = BigInteger.ZERO;
+        for (int i = LIMBS - 1; i >= 0; i--) {
+            r = r.shiftLeft(58).or(BigInteger.valueOf(c[i]));
+        }
+        return r;
+    }
+
+    @Override
+    public void setOne(long[] r) {
+        r[0] = 1;
+        for (int i = 1; i < LIMBS; i++) {
+            r[i] = 0;
+        }
+    }
+
+    @Override
+    public boolean isZero(long[] a) {
+        long[] c = canonical(a);
+        long acc = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            acc |= c[i];
+        }
+        return acc == 0;
+    }
+
+    @Override
+    public boolean equal(long[] a, long[] b) {
+        long[] x = canonical(a);
+        long[] y = canonical(b);
+        long acc = 0;
+        for (int i = 0; i < LIMBS; i++) {
+            acc |= x[i] ^ y[i];
+        }
+        return acc == 0;
+    }
+
+    @Override
+    public void add(long[] r, long[] a, long[] b) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] + b[i];
+        }
+        carry(r);
+    }
+
+    @Override
+    public void sub(long[] r, long[] a, long[] b) {
+        r[0] = a[0] - b[0] + EIGHT_P0;
+        for (int i = 1; i < LIMBS; i++) {
+            r[i] = a[i] - b[i] + EIGHT_PI;
+        }
+        carry(r);
+    }
+
+    // r = a * b, schoolbook columns with the upper half folded in doubled
+    @Override
+    public void mul(long[] r, long[] a, long[] b) {
+        long[] b2 = new long[LIMBS];
+        for (int i = 0; i < LIMBS; i++) {
+            b2[i] = b[i] << 1;
+        }
+        long[] out = new long[LIMBS];
+        long carryLo = 0;
+        for (int k = 0; k < LIMBS; k++) {
+            // 128-bit column sum in (hi, lo), starting from the previous carry
+            long lo = carryLo;
+            long hi = 0;
+            for (int i = 0; i <= k; i++) {
+                long x = a[i], y = b[k - i];
+                long pl = x * y;
+                hi += Math.multiplyHigh(x, y);
+                long s = lo + pl;
+                hi += ((lo & pl) | ((lo | pl) & ~s)) >>> 63;
+                lo = s;
+            }
+            for (int i = k + 1; i < LIMBS; i++) {
+                long x = a[i], y = b2[k + LIMBS - i];
+                long pl = x * y;
+                hi += Math.multiplyHigh(x, y);
+                long s = lo + pl;
+                hi += ((lo & pl) | ((lo | pl) & ~s)) >>> 63;
+                lo = s;
+            }
+            out[k] = lo & M58;
+            carryLo = (lo >>> 58) | (hi << 6);
+        }
+        // carryLo * 2^522 = 2 * carryLo mod p, added as two pieces so nothing overflows
+        out[0] += (carryLo & M58) << 1;
+        out[1] += (carryLo >>> 58) << 1;
+        out[1] += out[0] >>> 58;
+        out[0] &= M58;
+        out[2] += out[1] >>> 58;
+        out[1] &= M58;
+        System.arraycopy(out, 0, r, 0, LIMBS);
+    }
+
+    @Override
+    public void invert(long[] r, long[] a) {
+        BigInteger inverse = SafeGcdInverse.forModulus(P).invert(toBigInteger(a));
+        System.arraycopy(fromBigInteger(inverse), 0, r, 0, LIMBS);
+    }
+
+    // Carries every limb into the next and folds the top carry back into limb 0
+    private static void carry(long[] r) {
+        for (int i = 0; i < LIMBS - 1; i++) {
+            r[i + 1] += r[i] >>> 58;
+            r[i] &= M58;
+        }
+        long top = r[LIMBS - 1] >>> 58;
+        r[LIMBS - 1] &= M58;
+        r[0] += top << 1;
+        r[1] += r[0] >>> 58;
+        r[0] &= M58;
+    }
+
+    // The unique representative in [0, p), fully carried
+    private static long[] canonical(long[] a) {
+        long[] c = a.clone();
+        for (int pass = 0; pass < 3; pass++) {
+            for (int i = 0; i < LIMBS - 1; i++) {
+                c[i + 1] += c[i] >>> 58;
+                c[i] &= M58;
+            }
+            // fold at 2^521: the top limb holds bits 464..520 only
+            long top = c[LIMBS - 1] >>> 57;
+            c[LIMBS - 1] &= M57;
+            c[0] += top;
+        }
+        for (int i = 0; i < LIMBS - 1; i++) {
+            c[i + 1] += c[i] >>> 58;
+            c[i] &= M58;
+        }
+        // now c < 2^521; p itself is the only value left that is not reduced
+        long allOnes = c[LIMBS - 1] ^ M57;
+        for (int i = 0; i < LIMBS - 1; i++) {
+            allOnes |= c[i] ^ M58;
+        }
+        long mask = ((allOnes | -allOnes) >> 63); // -1 unless c == p
+        for (int i = 0; i < LIMBS; i++) {
+            c[i] &= mask;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * GF(p) for any odd p, with elements in Montgomery form a * R mod p,
+ * R = 2^(64 * limbs), stored as little-endian 64-bit words in [0, p).
+ *
+ * Multiplication is word-by-word Montgomery (CIOS): each outer step adds one
+ * word of the product and cancels the lowest word with a multiple of p, so
+ * no division is ever needed.  Additions and subtractions end with a masked
+ * correction instead of a branch.  Inversion goes through
+ * {@link SafeGcdInverse}.  The multiplication accumulator and the inversion
+ * working space are per-thread buffers, so neither allocates.
+ */
+public final class MontgomeryField extends PrimeField {
+
+    private static final long M62 = -1L >>> 2;
+
+    private final int limbs;
+    private final long[] p;
+    private final long n0;        // -p^-1 mod 2^64
+    private final long[] r2;      // R^2 mod p, plain
+    private final long[] r3;      // R^3 mod p, plain
+    private final long[] one;     // R mod p, that is 1 in Montgomery form
+    private final SafeGcdInverse inverse;
+    private final ThreadLocal<Scratch> scratch;
+
+    // Working space of one thread
+    private final class Scratch {
+        final long[] t = new long[limbs + 2];                      // mul accumulator
+        final long[] v = new long[inverse.getLimbCount()];         // invert input and output, 62-bit limbs
+        final SafeGcdInverse.Scratch gcd = inverse.newScratch();
+    }
+
+    public MontgomeryField(BigInteger modulus) {
+        super(modulus);
+        if (modulus.signum() <= 0 || !modulus.testBit(0)) {
+            throw new IllegalArgumentException("Modulus must be positive and odd");
+        }
+        this.limbs = (modulus.bitLength() + 63) / 64;
+        this.p = toWords(modulus);
+
+        long inv = p[0]; // inverse mod 2^3 for odd p[0], each Newton step doubles the bits
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - p[0] * inv;
+        }
+        this.n0 = -inv;
+
+        BigInteger r = BigInteger.ONE.shiftLeft(64 * limbs);
+        this.r2 = toWords(r.multiply(r).mod(modulus));
+        this.r3 = toWords(r.multiply(r).multiply(r).mod(modulus));
+        this.one = toWords(r.mod(modulus));
+        this.inverse = SafeGcdInverse.forModulus(modulus);
+        this.scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    @Override
+    public int getLimbCount() {
+        return limbs;
+    }
+
+    @Override
+    public long[] fromBigInteger(BigInteger x) {
+        long[] r = toWords(x.mod(modulus));
+        mul(r, r, r2);
+        return r;
+    }
+
+    @Override
+    public BigInteger toBigInteger(long[] a) {
+        long[] plain = new long[limbs];
+        plain[0] = 1;
+        mul(plain, a, plain);
+        BigInteger r = BigInteger.ZERO;
+        for (int i = limbs - 1; i >= 0; i--) {
+            r = r.shiftLeft(64).or(unsigned(plain[i]));
+        }
+        return r;
+    }
+
+    @Override
+    public void setOne(long[] r) {
+        System.arraycopy(one, 0, r, 0, limbs);
+    }
+
+    @Override
+    public boolean isZero(long[] a) {
+        long acc = 0;
+        for (int i = 0; i < limbs; i++) {
+            acc |= a[i];
+        }
+        return acc == 0;
+    }
+
+    @Override
+    public boolean equal(long[] a, long[] b) {
+        long acc = 0;
+        for (int i = 0; i < limbs; i++) {
+            acc |= a[i] ^ b[i];
+        }
+        return acc == 0;
+    }
+
+    @Override
+    public void add(long[] r, long[] a, long[] b) {
+        long carry = 0;
+        for (int i = 0; i < limbs; i++) {
+            long x = a[i], y = b[i];
+            long s = x + y + carry;
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            r[i] = s;
+        }
+        subtractPIfAtLeast(r, carry);
+    }
+
+    @Override
+    public void sub(long[] r, long[] a, long[] b) {
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long x = a[i], y = b[i];
+            long d = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+            r[i] = d;
+        }
+        // went below zero: add p back
+        long mask = -borrow;
+        long carry = 0;
+        for (int i = 0; i < limbs; i++) {
+            long x = r[i], y = p[i] & mask;
+            long s = x + y + carry;
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            r[i] = s;
+        }
+    }
+
+    // r = a * b * R^-1 mod p
+    @Override
+    public void mul(long[] r, long[] a, long[] b) {
+        int s = limbs;
+        long[] t = scratch.get().t;
+        Arrays.fill(t, 0L);
+        for (int i = 0; i < s; i++) {
+            // t += a * b[i]
+            long bi = b[i];
+            long c = 0;
+            for (int j = 0; j < s; j++) {
+                long lo = a[j] * bi;
+                long hi = unsignedMultiplyHigh(a[j], bi);
+                lo += t[j];
+                hi += Long.compareUnsigned(lo, t[j]) < 0 ? 1 : 0;
+                lo += c;
+                hi += Long.compareUnsigned(lo, c) < 0 ? 1 : 0;
+                t[j] = lo;
+                c = hi;
+            }
+            long sum = t[s] + c;
+            t[s + 1] = Long.compareUnsigned(sum, c) < 0 ? 1 : 0;
+            t[s] = sum;
+
+            // t = (t + m * p) / 2^64 with m chosen to clear the low word
+            long m = t[0] * n0;
+            long lo = m * p[0];
+            long hi = unsignedMultiplyHigh(m, p[0]);
+            lo += t[0];
+            c = hi + (Long.compareUnsigned(lo, t[0]) < 0 ? 1 : 0);
+            for (int j = 1; j < s; j++) {
+                lo = m * p[j];
+                hi = unsignedMultiplyHigh(m, p[j]);
+                lo += t[j];
+                hi += Long.compareUnsigned(lo, t[j]) < 0 ? 1 : 0;
+                lo += c;
+                hi += Long.compareUnsigned(lo, c) < 0 ? 1 : 0;
+                t[j - 1] = lo;
+                c = hi;
+            }
+            sum = t[s] + c;
+            t[s - 1] = sum;
+            t[s] = t[s + 1] + (Long.compareUnsigned(sum, c) < 0 ? 1 : 0);
+        }
+        System.arraycopy(t, 0, r, 0, s);
+        subtractPIfAtLeast(r, t[s]);
+    }
+
+    // r = a^-1 * R mod p for a = x * R: invert the plain value x * R, then scale by R^3
+    @Override
+    public void invert(long[] r, long[] a) {
+        Scratch s = scratch.get();
+        toSigned62(s.v, a);
+        inverse.invert(s.v, s.gcd);
+        fromSigned62(r, s.v);
+        mul(r, r, r3);
+    }
+
+    // Subtracts p once if the value hi * 2^(64 * limbs) + r is at least p
+    private void subtractPIfAtLeast(long[] r, long hi) {
+        long borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long x = r[i], y = p[i];
+            long diff = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & diff)) >>> 63;
+        }
+        long mask = -(hi | (borrow ^ 1));
+        borrow = 0;
+        for (int i = 0; i < limbs; i++) {
+            long x = r[i], y = p[i] & mask;
+            long diff = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & diff)) >>> 63;
+            r[i] = diff;
+        }
+    }
+
+    private long[] toWords(BigInteger x) {
+        long[] r = new long[limbs];
+        for (int i = 0; i < limbs; i++) {
+            r[i] = x.shiftRight(64 * i).longValue();
+        }
+        return r;
+    }
+
+    // 64-bit words of a to limbs of 62 bits in r, filling all of r
+    private void toSigned62(long[] r, long[] a) {
+        Arrays.fill(r, 0L);
+        for (int i = 0; i < r.length; i++) {
+            int offset = 62 * i;
+            int w = offset >>> 6;
+            int sh = offset & 63;
+            if (w >= limbs) {
+                break;
+            }
+            long v = a[w] >>> sh;
+            if (sh > 2 && w + 1 < limbs) {
+                v |= a[w + 1] << (64 - sh);
+            }
+            r[i] = v & M62;
+        }
+    }
+
+    // Limbs of 62 bits, normalized to [0, p), back to 64-bit words
+    private void fromSigned62(long[] r, long[] v) {
+        Arrays.fill(r, 0, limbs, 0L);
+        for (int i = 0; i < v.length; i++) {
+            int offset = 62 * i;
+            int w = offset >>> 6;
+            int sh = offset & 63;
+            if (w >= limbs) {
+                break;
+            }
+            r[w] |= v[i] << sh;
+            if (sh > 2 && w + 1 < limbs) {
+                r[w + 1] |= v[i] >>> (64 - sh);
+            }
+        }
+    }
+
+    private static long unsignedMultiplyHigh(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+
+    private static BigInteger unsigned(long x) {
+        BigInteger r = BigInteger.valueOf(x & Long.MAX_VALUE);
+        return x < 0 ? r.setBit(63) : r;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arithmetic in GF(p) on fixed-size long[] elements.
+ *
+ * What an element's limbs mean is up to the implementation (Montgomery form,
+ * unsaturated limbs, ...); callers only create elements with
+ * {@link #newElement()} or {@link #fromBigInteger(BigInteger)} and read them
+ * back with {@link #toBigInteger(long[])}.  Results are written into the first
+ * argument, which may alias any operand.
+ *
+ * {@link #forModulus(BigInteger)} hands out one shared instance per modulus,
+ * using a dedicated reduction where there is one and Montgomery
+ * multiplication otherwise.  Instances hold no mutable state and are thread safe.
+ */
+public abstract class PrimeField {
+
+    private static final ConcurrentHashMap<BigInteger, PrimeField> FIELDS = new ConcurrentHashMap<>();
+
+    protected final BigInteger modulus;
+
+    protected PrimeField(BigInteger modulus) {
+        this.modulus = modulus;
+    }
+
+    // Shared field for modulus
+    public static PrimeField forModulus(BigInteger modulus) {
+        return FIELDS.computeIfAbsent(modulus, PrimeField::create);
+    }
+
+    private static PrimeField create(BigInteger modulus) {
+        if (modulus.equals(Mersenne521Field.P)) {
+            return new Mersenne521Field();
+        }
+        if (modulus.equals(Curve25519Field.P)) {
+            return new Curve25519Field();
+        }
+        return new MontgomeryField(modulus);
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    // Number of longs in an element
+    public abstract int getLimbCount();
+
+    // A new element set to zero
+    public long[] newElement() {
+        return new long[getLimbCount()];
+    }
+
+    // x mod p as an element; x may be negative or larger than p
+    public abstract long[] fromBigInteger(BigInteger x);
+
+    // The value of a in [0, p)
+    public abstract BigInteger toBigInteger(long[] a);
+
+    public abstract void setOne(long[] r);
+
+    public void set(long[] r, long[] a) {
+        System.arraycopy(a, 0, r, 0, getLimbCount());
+    }
+
+    public abstract boolean isZero(long[] a);
+
+    public abstract boolean equal(long[] a, long[] b);
+
+    // r = a + b
+    public abstract void add(long[] r, long[] a, long[] b);
+
+    // r = a - b
+    public abstract void sub(long[] r, long[] a, long[] b);
+
+    // r = a * b
+    public abstract void mul(long[] r, long[] a, long[] b);
+
+    // r = a^2
+    public void sqr(long[] r, long[] a) {
+        mul(r, a, a);
+    }
+
+    // r = -a
+    public void neg(long[] r, long[] a) {
+        sub(r, newElement(), a);
+    }
+
+    // r = a^-1, zero maps to zero
+    public abstract void invert(long[] r, long[] a);
+
+    // r = a^e for e >= 0, left to right
+    public void pow(long[] r, long[] a, BigInteger e) {
+        long[] base = a.clone();
+        long[] acc = newElement();
+        setOne(acc);
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            sqr(acc, acc);
+            if (e.testBit(i)) {
+                mul(acc, acc, base);
+            }
+        }
+        set(r, acc);
+    }
+
+    // One-off operations on BigIntegers, for callers that are not worth converting
+
+    public BigInteger modAdd(BigInteger a, BigInteger b) {
+        long[] x = fromBigInteger(a);
+        add(x, x, fromBigInteger(b));
+        return toBigInteger(x);
+    }
+
+    public BigInteger modSub(BigInteger a, BigInteger b) {
+        long[] x = fromBigInteger(a);
+        sub(x, x, fromBigInteger(b));
+        return toBigInteger(x);
+    }
+
+    public BigInteger modMul(BigInteger a, BigInteger b) {
+        long[] x = fromBigInteger(a);
+        mul(x, x, fromBigInteger(b));
+        return toBigInteger(x);
+    }
+
+    public BigInteger modInv(BigInteger a) {
+        long[] x = fromBigInteger(a);
+        invert(x, x);
+        return toBigInteger(x);
+    }
+
+    public BigInteger modPow(BigInteger a, BigInteger e) {
+        long[] x = fromBigInteger(a);
+        pow(x, x, e);
+        return toBigInteger(x);
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modular inversion by Bernstein-Yang "safegcd" divsteps, modelled on
+ * libsecp256k1's modinv64.
+ *
+ * Numbers are held as signed 62-bit limbs.  Each round runs 59 divsteps on
+ * the low 64 bits of f and g only, collects them in a 2x2 transition matrix
+ * and then applies the matrix to the full f, g and to the Bezout
+ * coefficients d, e.  The number of rounds depends only on the size of the
+ * modulus and nothing branches on secret data, so the running time does not
+ * depend on the value being inverted.
+ *
+ * The modulus must be odd.  Instances are immutable and thread safe; the
+ * working arrays are kept per thread, or passed in as a {@link Scratch}.
+ */
+public final class SafeGcdInverse {
+
+    private static final long M62 = -1L >>> 2;
+
+    private static final int DIVSTEPS_PER_ROUND = 59;
+
+    private static final ConcurrentHashMap<BigInteger, SafeGcdInverse> INSTANCES = new ConcurrentHashMap<>();
+
+    private final BigInteger modulus;
+    private final int limbs;
+    private final long[] m;      // modulus in signed-62 form
+    private final long mInv62;   // modulus^-1 mod 2^62
+    private final int rounds;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(this::newScratch);
+
+    public SafeGcdInverse(BigInteger modulus) {
+        if (modulus.signum() <= 0 || !modulus.testBit(0)) {
+            throw new IllegalArgumentException("Modulus must be positive and odd");
+        }
+        this.modulus = modulus;
+        int bits = modulus.bitLength();
+        this.limbs = bits / 62 + 1;
+        this.m = toSigned62(modulus, limbs);
+
+        long inv = modulus.longValue(); // correct to 3 bits for odd values, Newton doubles that
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - modulus.longValue() * inv;
+        }
+        this.mInv62 = inv & M62;
+
+        // Divsteps needed to reach g = 0: 590 for moduli up to 256 bits (the
+        // bound libsecp256k1 proves), otherwise the general bound of the paper
+        int divsteps;
+        if (bits <= 256) {
+            divsteps = 590;
+        } else {
+            divsteps = (49 * bits + 57) / 17;
+        }
+        this.rounds = (divsteps + DIVSTEPS_PER_ROUND - 1) / DIVSTEPS_PER_ROUND;
+    }
+
+    // Shared instance for modulus
+    public static SafeGcdInverse forModulus(BigInteger modulus) {
+        return INSTANCES.computeIfAbsent(modulus, SafeGcdInverse::new);
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    // Number of signed-62 limbs used for this modulus
+    public int getLimbCount() {
+        return limbs;
+    }
+
+    /**
+     * x^-1 mod modulus.  x is reduced first; zero and values sharing a factor
+     * with the modulus give zero.
+     */
+    public BigInteger invert(BigInteger x) {
+        long[] v = toSigned62(x.mod(modulus), limbs);
+        invert(v, scratch.get());
+        return fromSigned62(v);
+    }
+
+    /**
+     * Inverts x in place.  x holds a value in [0, modulus) as limbs of 62 bits,
+     * least significant first, and receives the result in the same form.
+     * Returns false, leaving x zero, when x shares a factor with the modulus.
+     */
+    public boolean invert(long[] x) {
+        return invert(x, scratch.get());
+    }
+
+    // As invert(x), with the working space of the caller; nothing is allocated
+    public boolean invert(long[] x, Scratch s) {
+        if (s.limbs != limbs) {
+            throw new IllegalArgumentException("Scratch has " + s.limbs + " limbs, modulus needs " + limbs);
+        }
+        long[] d = s.d;
+        long[] e = s.e;
+        long[] f = s.f;
+        long[] g = s.g;
+        long[] t = s.t;
+        Arrays.fill(d, 0);
+        Arrays.fill(e, 0);
+        System.arraycopy(m, 0, f, 0, limbs);
+        System.arraycopy(x, 0, g, 0, limbs);
+        e[0] = 1;
+        long zeta = -1; // -(delta + 1/2), delta = 1/2
+
+        for (int i = 0; i < rounds; i++) {
+            zeta = divsteps59(zeta, f[0], g[0], t);
+            updateDE(d, e, t);
+            updateFG(f, g, t);
+        }
+
+        // g is zero now and f = +-gcd; with gcd 1 the sign of f fixes the sign of d
+        long sign = f[limbs - 1];
+        normalize(d, sign);
+        if (!isUnit(f, sign)) {
+            Arrays.fill(x, 0, limbs, 0);
+            return false;
+        }
+        System.arraycopy(d, 0, x, 0, limbs);
+        return true;
+    }
+
+    // Working space for invert(long[], Scratch); not thread safe
+    public Scratch newScratch() {
+        return new Scratch(limbs);
+    }
+
+    // |f| == 1, without branching on the limbs; f is overwritten
+    private boolean isUnit(long[] f, long sign) {
+        long negate = sign >> 63;
+        for (int i = 0; i < limbs; i++) {
+            f[i] = (f[i] ^ negate) - negate;
+        }
+        propagate(f);
+        long diff = f[0] ^ 1;
+        for (int i = 1; i < limbs; i++) {
+            diff |= f[i];
+        }
+        return diff == 0;
+    }
+
+    // 59 branch-free divsteps on the low bits of f and g; t = {u, v, q, r} scaled by 2^62
+    private static long divsteps59(long zeta, long f0, long g0, long[] t) {
+        long u = 8, v = 0, q = 0, r = 8;
+        long f = f0, g = g0;
+        for (int i = 3; i < 62; i++) {
+            long c1 = zeta >> 63;       // -1 if zeta < 0, that is delta > 0
+            long c2 = -(g & 1);         // -1 if g is odd
+            long x = (f ^ c1) - c1;
+            long y = (u ^ c1) - c1;
+            long z = (v ^ c1) - c1;
+            g += x & c2;
+            q += y & c2;
+            r += z & c2;
+            c1 &= c2;
+            zeta = (zeta ^ c1) - 1;
+            f += g & c1;
+            u += q & c1;
+            v += r & c1;
+            g >>= 1;
+            u <<= 1;
+            v <<= 1;
+        }
+        t[0] = u;
+        t[1] = v;
+        t[2] = q;
+        t[3] = r;
+        return zeta;
+    }
+
+    // [d, e] = t * [d, e] / 2^62 mod modulus, keeping both in (-2 * modulus, modulus)
+    private void updateDE(long[] d, long[] e, long[] t) {
+        long u = t[0], v = t[1], q = t[2], r = t[3];
+        long sd = d[limbs - 1] >> 63;
+        long se = e[limbs - 1] >> 63;
+        long md = (u & sd) + (v & se);
+        long me = (q & sd) + (r & se);
+
+        // signed 128-bit accumulators as (hi, lo) pairs
+        long d0 = d[0], e0 = e[0];
+        long cdLo = u * d0, cdHi = Math.multiplyHigh(u, d0);
+        long p = v * e0, sum = cdLo + p;
+        cdHi += Math.multiplyHigh(v, e0) + carry(cdLo, p, sum);
+        cdLo = sum;
+        long ceLo = q * d0, ceHi = Math.multiplyHigh(q, d0);
+        p = r * e0;
+        sum = ceLo + p;
+        ceHi += Math.multiplyHigh(r, e0) + carry(ceLo, p, sum);
+        ceLo = sum;
+        // choose md, me so that the low 62 bits of t*[d,e] + modulus*[md,me] are zero
+        md -= (mInv62 * cdLo + md) & M62;
+        me -= (mInv62 * ceLo + me) & M62;
+        p = m[0] * md;
+        sum = cdLo + p;
+        cdHi += Math.multiplyHigh(m[0], md) + carry(cdLo, p, sum);
+        cdLo = (sum >>> 62) | (cdHi << 2);
+        cdHi >>= 62;
+        p = m[0] * me;
+        sum = ceLo + p;
+        ceHi += Math.multiplyHigh(m[0], me) + carry(ceLo, p, sum);
+        ceLo = (sum >>> 62) | (ceHi << 2);
+        ceHi >>= 62;
+
+        for (int i = 1; i < limbs; i++) {
+            long di = d[i], ei = e[i], mi = m[i];
+            p = u * di;
+            sum = cdLo + p;
+            cdHi += Math.multiplyHigh(u, di) + carry(cdLo, p, sum);
+            p = v * ei;
+            cdLo = sum + p;
+            cdHi += Math.multiplyHigh(v, ei) + carry(sum, p, cdLo);
+            p = q * di;
+            sum = ceLo + p;
+            ceHi += Math.multiplyHigh(q, di) + carry(ceLo, p, sum);
+            p = r * ei;
+            ceLo = sum + p;
+            ceHi += Math.multiplyHigh(r, ei) + carry(sum, p, ceLo);
+            if (mi != 0) {
+                p = mi * md;
+                sum = cdLo + p;
+                cdHi += Math.multiplyHigh(mi, md) + carry(cdLo, p, sum);
+                cdLo = sum;
+                p = mi * me;
+                sum = ceLo + p;
+                ceHi += Math.multiplyHigh(mi, me) + carry(ceLo, p, sum);
+                ceLo = sum;
+            }
+            d[i - 1] = cdLo & M62;
+            e[i - 1] = ceLo & M62;
+            cdLo = (cdLo >>> 62) | (cdHi << 2);
+            cdHi >>= 62;
+            ceLo = (ceLo >>> 62) | (ceHi << 2);
+            ceHi >>= 62;
+        }
+        d[limbs - 1] = cdLo;
+        e[limbs - 1] = ceLo;
+    }
+
+    // [f, g] = t * [f, g] / 2^62, exact
+    private void updateFG(long[] f, long[] g, long[] t) {
+        long u = t[0], v = t[1], q = t[2], r = t[3];
+        long cfLo = 0, cfHi = 0, cgLo = 0, cgHi = 0;
+        for (int i = 0; i < limbs; i++) {
+            long fi = f[i], gi = g[i];
+            long p = u * fi;
+            long sum = cfLo + p;
+            cfHi += Math.multiplyHigh(u, fi) + carry(cfLo, p, sum);
+            p = v * gi;
+            cfLo = sum + p;
+            cfHi += Math.multiplyHigh(v, gi) + carry(sum, p, cfLo);
+            p = q * fi;
+            sum = cgLo + p;
+            cgHi += Math.multiplyHigh(q, fi) + carry(cgLo, p, sum);
+            p = r * gi;
+            cgLo = sum + p;
+            cgHi += Math.multiplyHigh(r, gi) + carry(sum, p, cgLo);
+            if (i > 0) {
+                f[i - 1] = cfLo & M62;
+                g[i - 1] = cgLo & M62;
+            }
+            cfLo = (cfLo >>> 62) | (cfHi << 2);
+            cfHi >>= 62;
+            cgLo = (cgLo >>> 62) | (cgHi << 2);
+            cgHi >>= 62;
+        }
+        f[limbs - 1] = cfLo;
+        g[limbs - 1] = cgLo;
+    }
+
+    // Carry out of the unsigned 64-bit sum s = x + y
+    private static long carry(long x, long y, long s) {
+        return ((x & y) | ((x | y) & ~s)) >>> 63;
+    }
+
+    // Brings r from (-2 * modulus, modulus) to [0, modulus), negating it first if sign < 0
+    private void normalize(long[] r, long sign) {
+        long condAdd = r[limbs - 1] >> 63;
+        for (int i = 0; i < limbs; i++) {
+            r[i] += m[i] & condAdd;
+        }
+        long condNegate = sign >> 63;
+        for (int i = 0; i < limbs; i++) {
+            r[i] = (r[i] ^ condNegate) - condNegate;
+        }
+        propagate(r);
+
+        condAdd = r[limbs - 1] >> 63;
+        for (int i = 0; i < limbs; i++) {
+            r[i] += m[i] & condAdd;
+        }
+        propagate(r);
+    }
+
+    private void propagate(long[] r) {
+        for (int i = 0; i < limbs - 1; i++) {
+            r[i + 1] += r[i] >> 62;
+            r[i] &= M62;
+        }
+    }
+
+    public static long[] toSigned62(BigInteger x, int limbs) {
+        long[] r = new long[limbs];
+        for (int i = 0; i < limbs; i++) {
+            r[i] = x.shiftRight(62 * i).longValue() & M62;
+        }
+        return r;
+    }
+
+    public static BigInteger fromSigned62(long[] x) {
+        BigInteger r = BigInteger.ZERO;
+        for (int i = x.length - 1; i >= 0; i--) {
+            r = r.shiftLeft(62).add(BigInteger.valueOf(x[i]));
+        }
+        return r;
+    }
+
+    /**
+     * The arrays one inversion works in, for {@link #invert(long[], Scratch)};
+     * from {@link SafeGcdInverse#newScratch()}.
+     */
+    public static final class Scratch {
+        final int limbs;
+        final long[] d;
+        final long[] e;
+        final long[] f;
+        final long[] g;
+        final long[] t = new long[4];
+
+        Scratch(int limbs) {
+            this.limbs = limbs;
+            this.d = new long[limbs];
+            this.e = new long[limbs];
+            this.f = new long[limbs];
+            this.g = new long[limbs];
+        }
+    }
+}
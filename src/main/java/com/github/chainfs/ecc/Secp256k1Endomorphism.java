@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * The GLV endomorphism of secp256k1.
+ *
+ * phi(x, y) = (beta * x, y) is the same as multiplying by lambda, where beta
+ * and lambda are cube roots of unity mod p and mod n.  A scalar k is split
+ * into k1 + k2 * lambda with |k1|, |k2| around 2^128, so k * P becomes
+ * k1 * P + k2 * phi(P): two half-length scalars sharing one chain of about
+ * 128 doublings instead of 256.
+ */
+public final class Secp256k1Endomorphism {
+
+    public static final BigInteger N = new BigInteger(
+            "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    public static final BigInteger BETA = new BigInteger(
+            "7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16);
+
+    public static final BigInteger LAMBDA = new BigInteger(
+            "5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+
+    // Short basis {(A1, B1), (A2, B2)} of the lattice {(x, y) : x + y * lambda = 0 mod n}
+    private static final BigInteger A1 = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+    private static final BigInteger B1 = new BigInteger("-e4437ed6010e88286f547fa90abfe4c3", 16);
+    private static final BigInteger A2 = new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16);
+    private static final BigInteger B2 = A1;
+
+    private static final BigInteger HALF_N = N.shiftRight(1);
+
+    private Secp256k1Endomorphism() {
+    }
+
+    // True if curve is y^2 = x^3 + 7 over the secp256k1 field
+    public static boolean isSecp256k1(ECCurve curve) {
+        ECCurve k1 = ECCurve.getSecp256k1();
+        return curve == k1 || (curve.getP().equals(k1.getP())
+                && curve.getA().signum() == 0 && curve.getB().equals(k1.getB()));
+    }
+
+    // phi(P) = lambda * P
+    public static ECPoint apply(ECPoint p) {
+        if (p.isInfinity()) return p;
+        ECCurve curve = p.getCurve();
+        return new ECPoint(p.getX().multiply(BETA).mod(curve.getP()), p.getY(), curve);
+    }
+
+    /**
+     * {k1, k2} with k = k1 + k2 * lambda (mod n) and both halves of about 128 bits.
+     * The halves may be negative.
+     */
+    public static BigInteger[] decompose(BigInteger k) {
+        k = k.mod(N);
+        BigInteger c1 = roundDiv(B2.multiply(k));
+        BigInteger c2 = roundDiv(B1.negate().multiply(k));
+        BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+        BigInteger k2 = c1.multiply(B1).add(c2.multiply(B2)).negate();
+        return new BigInteger[]{k1, k2};
+    }
+
+    // round(x / n) for x >= 0
+    private static BigInteger roundDiv(BigInteger x) {
+        return x.add(HALF_N).divide(N);
+    }
+
+    // k * P for a point on secp256k1
+    public static ECPoint multiply(ECPoint p, BigInteger k) {
+        WnafTable table = new WnafTable(p, StraussShamir.DEFAULT_WINDOW);
+        return JacobianArithmetic.toAffine(p.getCurve(),
+                multiplyJacobian(new WnafTable[]{table}, new BigInteger[]{k}));
+    }
+
+    /**
+     * Sum of scalars[i] * P_i with each scalar split by {@link #decompose(BigInteger)},
+     * so the interleaved multiplication runs over 2 * tables.length half-length scalars.
+     */
+    public static BigInteger[] multiplyJacobian(WnafTable[] tables, BigInteger[] scalars) {
+        WnafTable[] split = new WnafTable[2 * tables.length];
+        BigInteger[] halves = new BigInteger[2 * tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            BigInteger[] k = decompose(scalars[i]);
+            split[2 * i] = tables[i];
+            split[2 * i + 1] = tables[i].mapX(BETA);
+            halves[2 * i] = k[0];
+            halves[2 * i + 1] = k[1];
+        }
+        return StraussShamir.multiplyJacobian(split, halves);
+    }
+}
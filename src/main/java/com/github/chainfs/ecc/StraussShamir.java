@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * Interleaved wNAF multi-scalar multiplication k1*P1 + k2*P2 + ... (Strauss / Shamir's trick).
+ *
+ * All scalars share one chain of doublings, so a*G + b*Q costs about as many
+ * doublings as a single multiplication plus the sparse wNAF additions of both
+ * scalars.  Everything stays in Jacobian coordinates on {@link PrimeField}
+ * limbs until the end.
+ */
+public final class StraussShamir {
+
+    public static final int DEFAULT_WINDOW = 5;
+
+    private StraussShamir() {
+    }
+
+    // a * P + b * Q
+    public static ECPoint multiply(ECPoint p, BigInteger a, ECPoint q, BigInteger b) {
+        WnafTable[] tables = {new WnafTable(p, DEFAULT_WINDOW), new WnafTable(q, DEFAULT_WINDOW)};
+        return JacobianArithmetic.toAffine(p.getCurve(), multiplyJacobian(tables, new BigInteger[]{a, b}));
+    }
+
+    /**
+     * Sum of scalars[i] * (point of tables[i]) in Jacobian coordinates.  Scalars may be
+     * negative; tables may have different windows but must be on the same curve.
+     */
+    public static BigInteger[] multiplyJacobian(WnafTable[] tables, BigInteger[] scalars) {
+        if (tables.length != scalars.length) {
+            throw new IllegalArgumentException("Need one scalar per table");
+        }
+        ECCurve curve = tables[0].getCurve();
+        int[][] digits = new int[tables.length][];
+        int length = 0;
+        for (int i = 0; i < tables.length; i++) {
+            digits[i] = WnafTable.recode(scalars[i], tables[i].getWindow());
+            length = Math.max(length, digits[i].length);
+        }
+
+        LimbJacobianArithmetic arithmetic = LimbJacobianArithmetic.forCurve(curve);
+        long[][] acc = arithmetic.newPoint();
+        arithmetic.setInfinity(acc);
+        for (int bit = length - 1; bit >= 0; bit--) {
+            if (!arithmetic.isInfinity(acc)) {
+                arithmetic.doublePoint(acc, acc);
+            }
+            for (int i = 0; i < tables.length; i++) {
+                if (bit < digits[i].length && digits[i][bit] != 0) {
+                    long[][] q = tables[i].getLimbs(arithmetic, digits[i][bit]);
+                    if (q != null) {
+                        arithmetic.addMixed(acc, acc, q);
+                    }
+                }
+            }
+        }
+        return arithmetic.toJacobian(acc);
+    }
+}
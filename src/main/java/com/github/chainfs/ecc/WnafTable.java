@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecc;
+
+import java.math.BigInteger;
+
+/**
+ * The affine odd multiples P, 3P, ..., (2^(w-1) - 1)P of a point and their
+ * negations, for adding width-w NAF digits.
+ *
+ * The multiples are computed in Jacobian coordinates and normalized together,
+ * so building a table costs one inversion.  Tables are immutable and can be
+ * kept for points that are multiplied often, such as a generator.
+ */
+public final class WnafTable {
+
+    private final ECCurve curve;
+    private final int window;
+    private final ECPoint[] positive;
+    private final ECPoint[] negative;
+    private final BigInteger factor; // x multiplier this table was mapped with, null for a table built from a point
+    private volatile long[][][] limbs; // positive then negative multiples as field elements, built on first use
+    private volatile WnafTable mapped; // last result of mapX, kept for the next call with the same factor
+
+    public WnafTable(ECPoint point, int window) {
+        if (window < 2 || window > 16) {
+            throw new IllegalArgumentException("Unsupported wNAF window: " + window);
+        }
+        this.curve = point.getCurve();
+        this.window = window;
+        this.factor = null;
+        int count = 1 << (window - 2);
+        this.positive = new ECPoint[count];
+        this.negative = new ECPoint[count];
+
+        BigInteger[][] jacobian = new BigInteger[count][];
+        jacobian[0] = JacobianArithmetic.toJacobian(point);
+        if (count > 1) {
+            ECPoint twice = JacobianArithmetic.toAffine(curve, JacobianArithmetic.doublePoint(curve, jacobian[0]));
+            for (int i = 1; i < count; i++) {
+                jacobian[i] = JacobianArithmetic.addMixed(curve, jacobian[i - 1], twice);
+            }
+        }
+        ECPoint[] affine = JacobianArithmetic.normalizeAll(curve, jacobian);
+        for (int i = 0; i < count; i++) {
+            positive[i] = affine[i];
+            negative[i] = affine[i].negate();
+        }
+    }
+
+    private WnafTable(ECCurve curve, int window, ECPoint[] positive, ECPoint[] negative, BigInteger factor) {
+        this.curve = curve;
+        this.window = window;
+        this.factor = factor;
+        this.positive = positive;
+        this.negative = negative;
+    }
+
+    /**
+     * The table of the point (factor * x, y), built without any point arithmetic.
+     * Used for endomorphisms of the form (x, y) -> (beta * x, y).  The result
+     * is cached, so a table kept for a generator maps its points only once.
+     */
+    public WnafTable mapX(BigInteger factor) {
+        WnafTable cached = mapped;
+        if (cached != null && cached.factor.equals(factor)) {
+            return cached;
+        }
+        BigInteger m = curve.getP();
+        ECPoint[] pos = new ECPoint[positive.length];
+        ECPoint[] neg = new ECPoint[negative.length];
+        for (int i = 0; i < pos.length; i++) {
+            if (positive[i].isInfinity()) {
+                pos[i] = positive[i];
+                neg[i] = negative[i];
+                continue;
+            }
+            BigInteger x = positive[i].getX().multiply(factor).mod(m);
+            pos[i] = new ECPoint(x, positive[i].getY(), curve);
+            neg[i] = new ECPoint(x, negative[i].getY(), curve);
+        }
+        cached = new WnafTable(curve, window, pos, neg, factor);
+        mapped = cached;
+        return cached;
+    }
+
+    /**
+     * Recodes k into width-w NAF digits, least significant first: every
+     * non-zero digit is odd with |d| < 2^(w-1) and is followed by at least
+     * w - 1 zeros.  A negative k gives the digits of |k| with their signs flipped.
+     */
+    public static int[] recode(BigInteger k, int w) {
+        if (w < 2 || w > 31) {
+            throw new IllegalArgumentException("Unsupported wNAF window: " + w);
+        }
+        int sign = k.signum() < 0 ? -1 : 1;
+        k = k.abs();
+        int len = k.bitLength() + 1;
+        int[] digits = new int[len];
+        int carry = 0;
+        int bit = 0;
+        while (bit < len) {
+            if ((k.testBit(bit) ? 1 : 0) == carry) {
+                bit++;
+                continue;
+            }
+            int now = Math.min(w, len - bit);
+            int word = carry;
+            for (int j = 0; j < now; j++) {
+                if (k.testBit(bit + j)) {
+                    word += 1 << j;
+                }
+            }
+            carry = (word >> (w - 1)) & 1;
+            word -= carry << w;
+            digits[bit] = sign * word;
+            bit += now;
+        }
+        return digits;
+    }
+
+    public ECCurve getCurve() {
+        return curve;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    // digit * P for an odd digit with |digit| < 2^(w-1)
+    public ECPoint get(int digit) {
+        return digit > 0 ? positive[(digit - 1) >> 1] : negative[(-digit - 1) >> 1];
+    }
+
+    // digit * P as affine field elements of arithmetic, null for the point at infinity
+    public long[][] getLimbs(LimbJacobianArithmetic arithmetic, int digit) {
+        long[][][] t = limbs;
+        if (t == null) {
+            int count = positive.length;
+            t = new long[2 * count][][];
+            for (int i = 0; i < count; i++) {
+                t[i] = arithmetic.toAffineLimbs(positive[i]);
+                t[count + i] = arithmetic.toAffineLimbs(negative[i]);
+            }
+            limbs = t;
+        }
+        return digit > 0 ? t[(digit - 1) >> 1] : t[positive.length + ((-digit - 1) >> 1)];
+    }
+}
@@ -57,50 +57,44 @@ public class Ed25519Curve {
 
     // Modular inverse
     public static BigInteger modInv(BigInteger a) {
-        return a.modInverse(P);
+        return Ed25519Extended.FIELD.modInv(a);
     }
 
-    // Point addition on twisted Edwards curve
-    // Formula:
+    // Check -x^2 + y^2 = 1 + d x^2 y^2
+    public static boolean isOnCurve(EdPoint p) {
+        BigInteger x2 = modMul(p.x, p.x);
+        BigInteger y2 = modMul(p.y, p.y);
+        return modSub(y2, x2).equals(modAdd(BigInteger.ONE, modMul(D, modMul(x2, y2))));
+    }
+
+    // Point addition on the twisted Edwards curve with a = -1:
     // x3 = (x1*y2 + y1*x2) / (1 + d*x1*x2*y1*y2)
-    // y3 = (y1*y2 - x1*x2) / (1 - d*x1*x2*y1*y2)
+    // y3 = (y1*y2 + x1*x2) / (1 - d*x1*x2*y1*y2)
+    // computed in extended coordinates with a single inversion
     public static EdPoint pointAdd(EdPoint P1, EdPoint P2) {
-        BigInteger x1 = P1.x, y1 = P1.y;
-        BigInteger x2 = P2.x, y2 = P2.y;
-
-        BigInteger x1x2 = modMul(x1, x2);
-        BigInteger y1y2 = modMul(y1, y2);
-        BigInteger dxy = modMul(D, modMul(x1x2, y1y2));
-
-        BigInteger numeratorX = modAdd(modMul(x1, y2), modMul(y1, x2));
-        BigInteger denominatorX = modAdd(BigInteger.ONE, dxy);
-
-        BigInteger numeratorY = modSub(y1y2, x1x2);
-        BigInteger denominatorY = modSub(BigInteger.ONE, dxy);
-
-        BigInteger x3 = modMul(numeratorX, modInv(denominatorX));
-        BigInteger y3 = modMul(numeratorY, modInv(denominatorY));
-
-        return new EdPoint(x3, y3);
+        long[][] r = Ed25519Extended.fromAffine(P1.x, P1.y);
+        Ed25519Extended.add(r, r, Ed25519Extended.fromAffine(P2.x, P2.y));
+        return toEdPoint(r);
     }
 
-    // Point doubling is pointAdd(P, P)
+    // Point doubling with the dedicated doubling formula
     public static EdPoint pointDouble(EdPoint P) {
-        return pointAdd(P, P);
+        long[][] r = Ed25519Extended.fromAffine(P.x, P.y);
+        Ed25519Extended.doublePoint(r, r);
+        return toEdPoint(r);
     }
 
-    // Scalar multiplication (double and add)
+    // Scalar multiplication; multiples of the base point come from the fixed-base table
     public static EdPoint scalarMultiply(BigInteger k, EdPoint P) {
-        EdPoint result = IDENTITY;
-        EdPoint addend = P;
-
-        for (int i = k.bitLength() - 1; i >= 0; i--) {
-            result = pointDouble(result);
-            if (k.testBit(i)) {
-                result = pointAdd(result, addend);
-            }
+        if (P.x.equals(BASE_X) && P.y.equals(BASE_Y)) {
+            return toEdPoint(Ed25519Extended.multiplyBase(k));
         }
-        return result;
+        return toEdPoint(Ed25519Extended.multiply(k, Ed25519Extended.fromAffine(P.x, P.y)));
+    }
+
+    private static EdPoint toEdPoint(long[][] p) {
+        BigInteger[] xy = Ed25519Extended.toAffine(p);
+        return new EdPoint(xy[0], xy[1]);
     }
 
     // Example usage
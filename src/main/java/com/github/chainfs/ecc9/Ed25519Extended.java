@@ -0,0 +1,525 @@
+/*
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chainfs.ecc9;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.github.chainfs.ecc.Curve25519Field;
+import com.github.chainfs.ecc.PrimeField;
+
+/**
+ * Ed25519 point arithmetic in extended twisted Edwards coordinates
+ * (Hisil-Wong-Carter-Dawson 2008) over the radix-2^51 {@link Curve25519Field}.
+ *
+ * A point is a long[][] {X, Y, Z, T} with x = X/Z, y = Y/Z and T = XY/Z; the
+ * identity is (0 : 1 : 1 : 0).  For the curve -x^2 + y^2 = 1 + d x^2 y^2
+ * (a = -1) the addition is unified, so it is also correct for doubling and
+ * for the identity, and costs 8 multiplications; the dedicated doubling costs
+ * 4 multiplications and 4 squarings.  Nothing inverts until a point is turned
+ * back into affine coordinates.
+ *
+ * Points that are added many times are kept in "cached" form
+ * {Y + X, Y - X, 2Z, 2dT}, which saves the work that depends on the second
+ * point alone.  The base point has a fixed-base table of such points with
+ * Z = 1, one row per 4-bit window of the scalar, so k * B needs at most 64
+ * additions and no doublings.
+ */
+public final class Ed25519Extended {
+
+    public static final Curve25519Field FIELD = (Curve25519Field) PrimeField.forModulus(Curve25519Field.P);
+
+    // Order of the base point, 2^252 + 27742317777372353535851937790883648493
+    public static final BigInteger L = BigInteger.ONE.shiftLeft(252)
+            .add(new BigInteger("27742317777372353535851937790883648493"));
+
+    private static final long[] D = FIELD.fromBigInteger(Ed25519Curve.D);
+    private static final long[] D2 = FIELD.fromBigInteger(Ed25519Curve.D.shiftLeft(1));
+
+    // sqrt(-1) = 2^((p - 1) / 4)
+    private static final long[] SQRT_M1 = FIELD.fromBigInteger(
+            BigInteger.valueOf(2).modPow(Curve25519Field.P.shiftRight(2), Curve25519Field.P));
+
+    private static final int BASE_WINDOW = 4;
+
+    private Ed25519Extended() {
+    }
+
+    public static long[][] newPoint() {
+        return new long[][]{FIELD.newElement(), FIELD.newElement(), FIELD.newElement(), FIELD.newElement()};
+    }
+
+    public static long[][] identity() {
+        long[][] r = newPoint();
+        setIdentity(r);
+        return r;
+    }
+
+    public static void setIdentity(long[][] r) {
+        Arrays.fill(r[0], 0L);
+        FIELD.setOne(r[1]);
+        FIELD.setOne(r[2]);
+        Arrays.fill(r[3], 0L);
+    }
+
+    public static long[][] fromAffine(BigInteger x, BigInteger y) {
+        long[][] r = newPoint();
+        r[0] = FIELD.fromBigInteger(x);
+        r[1] = FIELD.fromBigInteger(y);
+        FIELD.setOne(r[2]);
+        FIELD.mul(r[3], r[0], r[1]);
+        return r;
+    }
+
+    // {x, y} with one inversion
+    public static BigInteger[] toAffine(long[][] p) {
+        long[] zInv = FIELD.newElement();
+        long[] t = FIELD.newElement();
+        FIELD.invert(zInv, p[2]);
+        FIELD.mul(t, p[0], zInv);
+        BigInteger x = FIELD.toBigInteger(t);
+        FIELD.mul(t, p[1], zInv);
+        return new BigInteger[]{x, FIELD.toBigInteger(t)};
+    }
+
+    public static void set(long[][] r, long[][] p) {
+        for (int i = 0; i < 4; i++) {
+            FIELD.set(r[i], p[i]);
+        }
+    }
+
+    public static boolean isIdentity(long[][] p) {
+        return FIELD.isZero(p[0]) && FIELD.equal(p[1], p[2]);
+    }
+
+    // Projective equality: X1 Z2 = X2 Z1 and Y1 Z2 = Y2 Z1
+    public static boolean equal(long[][] p, long[][] q) {
+        long[] a = FIELD.newElement();
+        long[] b = FIELD.newElement();
+        FIELD.mul(a, p[0], q[2]);
+        FIELD.mul(b, q[0], p[2]);
+        if (!FIELD.equal(a, b)) {
+            return false;
+        }
+        FIELD.mul(a, p[1], q[2]);
+        FIELD.mul(b, q[1], p[2]);
+        return FIELD.equal(a, b);
+    }
+
+    // r = -p
+    public static void negate(long[][] r, long[][] p) {
+        FIELD.neg(r[0], p[0]);
+        FIELD.set(r[1], p[1]);
+        FIELD.set(r[2], p[2]);
+        FIELD.neg(r[3], p[3]);
+    }
+
+    // r = p + q, add-2008-hwcd-3 (unified for a = -1)
+    public static void add(long[][] r, long[][] p, long[][] q) {
+        addCached(r, p, toCached(q));
+    }
+
+    // {Y + X, Y - X, 2Z, 2dT} of p
+    public static long[][] toCached(long[][] p) {
+        long[][] c = newPoint();
+        FIELD.add(c[0], p[1], p[0]);
+        FIELD.sub(c[1], p[1], p[0]);
+        FIELD.add(c[2], p[2], p[2]);
+        FIELD.mul(c[3], p[3], D2);
+        return c;
+    }
+
+    // r = p + q for q in cached form; a q with Z = 1 may carry 2 in the third slot
+    public static void addCached(long[][] r, long[][] p, long[][] q) {
+        Curve25519Field f = FIELD;
+        long[] a = f.newElement();
+        long[] b = f.newElement();
+        long[] c = f.newElement();
+        long[] d = f.newElement();
+
+        f.sub(a, p[1], p[0]);
+        f.mul(a, a, q[1]);        // A = (Y1 - X1)(Y2 - X2)
+        f.add(b, p[1], p[0]);
+        f.mul(b, b, q[0]);        // B = (Y1 + X1)(Y2 + X2)
+        f.mul(c, p[3], q[3]);     // C = 2d T1 T2
+        f.mul(d, p[2], q[2]);     // D = 2 Z1 Z2
+        finish(r, a, b, c, d);
+    }
+
+    // r = p - q for q in cached form
+    public static void subCached(long[][] r, long[][] p, long[][] q) {
+        Curve25519Field f = FIELD;
+        long[] a = f.newElement();
+        long[] b = f.newElement();
+        long[] c = f.newElement();
+        long[] d = f.newElement();
+
+        // -q swaps Y + X with Y - X and negates T
+        f.sub(a, p[1], p[0]);
+        f.mul(a, a, q[0]);
+        f.add(b, p[1], p[0]);
+        f.mul(b, b, q[1]);
+        f.mul(c, p[3], q[3]);
+        f.neg(c, c);
+        f.mul(d, p[2], q[2]);
+        finish(r, a, b, c, d);
+    }
+
+    // E = B - A, F = D - C, G = D + C, H = B + A; X3 = EF, Y3 = GH, T3 = EH, Z3 = FG
+    private static void finish(long[][] r, long[] a, long[] b, long[] c, long[] d) {
+        Curve25519Field f = FIELD;
+        long[] e = f.newElement();
+        long[] h = f.newElement();
+        f.sub(e, b, a);
+        f.add(h, b, a);
+        f.sub(a, d, c);           // F
+        f.add(b, d, c);           // G
+        f.mul(r[0], e, a);
+        f.mul(r[1], b, h);
+        f.mul(r[3], e, h);
+        f.mul(r[2], a, b);
+    }
+
+    // r = 2p, dbl-2008-hwcd with a = -1
+    public static void doublePoint(long[][] r, long[][] p) {
+        Curve25519Field f = FIELD;
+        long[] a = f.newElement();
+        long[] b = f.newElement();
+        long[] c = f.newElement();
+        long[] e = f.newElement();
+
+        f.sqr(a, p[0]);           // A = X1^2
+        f.sqr(b, p[1]);           // B = Y1^2
+        f.sqr(c, p[2]);
+        f.add(c, c, c);           // C = 2 Z1^2
+        f.add(e, p[0], p[1]);
+        f.sqr(e, e);
+        f.sub(e, e, a);
+        f.sub(e, e, b);           // E = (X1 + Y1)^2 - A - B
+        long[] g = f.newElement();
+        long[] h = f.newElement();
+        f.sub(g, b, a);           // G = -A + B
+        f.add(h, a, b);
+        f.neg(h, h);              // H = -A - B
+        f.sub(c, g, c);           // F = G - C
+        f.mul(r[0], e, c);
+        f.mul(r[1], g, h);
+        f.mul(r[3], e, h);
+        f.mul(r[2], c, g);
+    }
+
+    // RFC 8032 encoding: y in little-endian with the low bit of x in bit 255
+    public static byte[] encode(long[][] p) {
+        Curve25519Field f = FIELD;
+        long[] zInv = f.newElement();
+        long[] x = f.newElement();
+        long[] y = f.newElement();
+        f.invert(zInv, p[2]);
+        f.mul(x, p[0], zInv);
+        f.mul(y, p[1], zInv);
+        byte[] out = f.toBytes(y);
+        out[31] |= (byte) (f.isNegative(x) << 7);
+        return out;
+    }
+
+    /**
+     * Point from its 32-byte encoding at offset (RFC 8032 section 5.1.3), or
+     * null if y is not below p or no x fits.  The point is not checked to be
+     * in the prime-order subgroup.
+     */
+    public static long[][] decode(byte[] b, int offset) {
+        Curve25519Field f = FIELD;
+        int sign = (b[offset + 31] >>> 7) & 1;
+        long[] y = f.fromBytes(b, offset);
+        byte[] canonical = f.toBytes(y);
+        for (int i = 0; i < 32; i++) {
+            int expected = i == 31 ? b[offset + i] & 0x7f : b[offset + i] & 0xff;
+            if ((canonical[i] & 0xff) != expected) {
+                return null;
+            }
+        }
+
+        // x^2 = u / v with u = y^2 - 1, v = d y^2 + 1
+        long[] u = f.newElement();
+        long[] v = f.newElement();
+        long[] one = f.newElement();
+        f.setOne(one);
+        f.sqr(u, y);
+        f.mul(v, u, D);
+        f.sub(u, u, one);
+        f.add(v, v, one);
+
+        // x = u v^3 (u v^7)^((p - 5) / 8)
+        long[] v3 = f.newElement();
+        long[] x = f.newElement();
+        f.sqr(v3, v);
+        f.mul(v3, v3, v);
+        f.sqr(x, v3);
+        f.mul(x, x, v);
+        f.mul(x, x, u);
+        pow22523(x, x);
+        f.mul(x, x, v3);
+        f.mul(x, x, u);
+
+        long[] check = f.newElement();
+        f.sqr(check, x);
+        f.mul(check, check, v);
+        if (!f.equal(check, u)) {
+            f.neg(u, u);
+            if (!f.equal(check, u)) {
+                return null;
+            }
+            f.mul(x, x, SQRT_M1);
+        }
+        if (f.isZero(x) && sign == 1) {
+            return null;
+        }
+        if (f.isNegative(x) != sign) {
+            f.neg(x, x);
+        }
+
+        long[][] r = newPoint();
+        f.set(r[0], x);
+        f.set(r[1], y);
+        f.setOne(r[2]);
+        f.mul(r[3], x, y);
+        return r;
+    }
+
+    // r = z^(2^252 - 3), the addition chain from the ref10 implementation
+    private static void pow22523(long[] r, long[] z) {
+        Curve25519Field f = FIELD;
+        long[] t0 = f.newElement();
+        long[] t1 = f.newElement();
+        long[] t2 = f.newElement();
+        f.sqr(t0, z);
+        sqrTimes(t1, t0, 2);
+        f.mul(t1, z, t1);           // z^9
+        f.mul(t0, t0, t1);          // z^11
+        f.sqr(t0, t0);
+        f.mul(t0, t1, t0);          // z^(2^5 - 1)
+        sqrTimes(t1, t0, 5);
+        f.mul(t0, t1, t0);          // z^(2^10 - 1)
+        sqrTimes(t1, t0, 10);
+        f.mul(t1, t1, t0);          // z^(2^20 - 1)
+        sqrTimes(t2, t1, 20);
+        f.mul(t1, t2, t1);          // z^(2^40 - 1)
+        sqrTimes(t1, t1, 10);
+        f.mul(t0, t1, t0);          // z^(2^50 - 1)
+        sqrTimes(t1, t0, 50);
+        f.mul(t1, t1, t0);          // z^(2^100 - 1)
+        sqrTimes(t2, t1, 100);
+        f.mul(t1, t2, t1);          // z^(2^200 - 1)
+        sqrTimes(t1, t1, 50);
+        f.mul(t0, t1, t0);          // z^(2^250 - 1)
+        sqrTimes(t0, t0, 2);
+        f.mul(r, t0, z);
+    }
+
+    private static void sqrTimes(long[] r, long[] a, int n) {
+        FIELD.sqr(r, a);
+        for (int i = 1; i < n; i++) {
+            FIELD.sqr(r, r);
+        }
+    }
+
+    /**
+     * k * p by a fixed 4-bit window over a table of cached multiples of p.
+     * k may be any non-negative integer; nothing is reduced mod L, so this
+     * is also right for points outside the prime-order subgroup.
+     */
+    public static long[][] multiply(BigInteger k, long[][] p) {
+        if (k.signum() < 0) {
+            long[][] r = multiply(k.negate(), p);
+            negate(r, r);
+            return r;
+        }
+        long[][][] table = new long[16][][];
+        long[][] acc = newPoint();
+        set(acc, p);
+        table[1] = toCached(acc);
+        for (int i = 2; i < 16; i++) {
+            addCached(acc, acc, table[1]);
+            table[i] = toCached(acc);
+        }
+
+        setIdentity(acc);
+        int windows = (k.bitLength() + 3) / 4;
+        for (int i = windows - 1; i >= 0; i--) {
+            doublePoint(acc, acc);
+            doublePoint(acc, acc);
+            doublePoint(acc, acc);
+            doublePoint(acc, acc);
+            int digit = nibble(k, i);
+            if (digit != 0) {
+                addCached(acc, acc, table[digit]);
+            }
+        }
+        return acc;
+    }
+
+    // k * B for the Ed25519 base point, from the precomputed table
+    public static long[][] multiplyBase(BigInteger k) {
+        k = k.mod(L);
+        long[][][][] table = BaseTable.TABLE;
+        long[][] acc = identity();
+        for (int i = 0; i < table.length; i++) {
+            int digit = nibble(k, i);
+            if (digit != 0) {
+                addCached(acc, acc, table[i][digit - 1]);
+            }
+        }
+        return acc;
+    }
+
+    private static int nibble(BigInteger k, int window) {
+        return digit(k, window * BASE_WINDOW, BASE_WINDOW);
+    }
+
+    /**
+     * sum of k[i] * p[i] by Pippenger's bucket method: each c-bit window of
+     * every scalar drops its point into one of 2^c - 1 buckets, and a running
+     * sum over the buckets weights bucket j by j.  Costs about
+     * (bits / c) * (n + 2^(c + 1)) additions, against roughly 64 per point for
+     * separate multiplications.  Scalars must be non-negative.
+     */
+    public static long[][] multiScalarMultiply(BigInteger[] k, long[][][] p) {
+        int n = k.length;
+        int bits = 0;
+        for (BigInteger s : k) {
+            bits = Math.max(bits, s.bitLength());
+        }
+        int c = windowFor(n);
+        long[][][] cached = new long[n][][];
+        for (int i = 0; i < n; i++) {
+            cached[i] = toCached(p[i]);
+        }
+
+        long[][] acc = identity();
+        long[][][] buckets = new long[(1 << c) - 1][][];
+        for (int j = 0; j < buckets.length; j++) {
+            buckets[j] = newPoint();
+        }
+        long[][] sum = newPoint();
+        long[][] total = newPoint();
+        int windows = (bits + c - 1) / c;
+        for (int w = windows - 1; w >= 0; w--) {
+            for (int i = 0; i < c; i++) {
+                doublePoint(acc, acc);
+            }
+            for (long[][] bucket : buckets) {
+                setIdentity(bucket);
+            }
+            for (int i = 0; i < n; i++) {
+                int digit = digit(k[i], w * c, c);
+                if (digit != 0) {
+                    addCached(buckets[digit - 1], buckets[digit - 1], cached[i]);
+                }
+            }
+            setIdentity(sum);
+            setIdentity(total);
+            for (int j = buckets.length - 1; j >= 0; j--) {
+                add(sum, sum, buckets[j]);
+                add(total, total, sum);
+            }
+            add(acc, acc, total);
+        }
+        return acc;
+    }
+
+    // Bucket window width, about ln(n)
+    static int windowFor(int n) {
+        if (n < 4) {
+            return 2;
+        }
+        return Math.min(16, (int) Math.ceil(Math.log(n)));
+    }
+
+    private static int digit(BigInteger k, int offset, int width) {
+        int d = 0;
+        for (int j = width - 1; j >= 0; j--) {
+            d = (d << 1) | (k.testBit(offset + j) ? 1 : 0);
+        }
+        return d;
+    }
+
+    // Built on first use of multiplyBase
+    private static final class BaseTable {
+        static final long[][][][] TABLE = build();
+
+        // row i holds d * 16^i * B for d = 1..15, cached with Z = 1
+        private static long[][][][] build() {
+            int windows = (253 + BASE_WINDOW - 1) / BASE_WINDOW;
+            int entries = (1 << BASE_WINDOW) - 1;
+            long[][][][] rows = new long[windows][entries][][];
+            long[][] b = fromAffine(Ed25519Curve.BASE_X, Ed25519Curve.BASE_Y);
+            long[][][] points = new long[windows * entries][][];
+            for (int i = 0; i < windows; i++) {
+                long[][] cached = toCached(b);
+                long[][] acc = newPoint();
+                set(acc, b);
+                points[i * entries] = copy(acc);
+                for (int d = 1; d < entries; d++) {
+                    addCached(acc, acc, cached);
+                    points[i * entries + d] = copy(acc);
+                }
+                addCached(b, acc, cached); // 16^(i+1) * B
+            }
+            normalizeAll(points);
+            for (int i = 0; i < windows; i++) {
+                for (int d = 0; d < entries; d++) {
+                    rows[i][d] = toCached(points[i * entries + d]);
+                }
+            }
+            return rows;
+        }
+
+        private static long[][] copy(long[][] p) {
+            long[][] r = newPoint();
+            set(r, p);
+            return r;
+        }
+    }
+
+    // Scales every point to Z = 1 with a single inversion (Montgomery's trick)
+    static void normalizeAll(long[][][] points) {
+        Curve25519Field f = FIELD;
+        int n = points.length;
+        long[][] prefix = new long[n][];
+        long[] acc = f.newElement();
+        f.setOne(acc);
+        for (int i = 0; i < n; i++) {
+            f.mul(acc, acc, points[i][2]);
+            prefix[i] = acc.clone();
+        }
+        long[] inv = f.newElement();
+        f.invert(inv, acc);
+        long[] zInv = f.newElement();
+        for (int i = n - 1; i >= 0; i--) {
+            long[][] p = points[i];
+            if (i > 0) {
+                f.mul(zInv, inv, prefix[i - 1]);
+            } else {
+                f.set(zInv, inv);
+            }
+            f.mul(inv, inv, p[2]);
+            f.mul(p[0], p[0], zInv);
+            f.mul(p[1], p[1], zInv);
+            f.setOne(p[2]);
+            f.mul(p[3], p[0], p[1]);
+        }
+    }
+}
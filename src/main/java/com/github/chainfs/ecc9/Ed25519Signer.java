@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.chainfs.ecc9;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import com.github.chainfs.ecdsa.SHA512Hash;
+
+/**
+ * Ed25519 signatures as specified in RFC 8032 section 5.1 (pure Ed25519, no
+ * context or prehash), on {@link Ed25519Extended}.
+ *
+ * Keys are the 32-byte secret seed and the 32-byte encoded public point;
+ * signatures are R || S, 64 bytes.  Verification uses the cofactored
+ * equation [8][S]B = [8]R + [8][k]A, which RFC 8032 permits and which is the
+ * only form a batch check can agree with on every input.
+ *
+ * {@link #verifyBatch(byte[][], byte[][], byte[][])} checks n signatures with
+ * one multi-scalar multiplication over 2n points: with random 128-bit z_i it
+ * tests [8]((sum z_i S_i) B - sum z_i R_i - sum (z_i k_i) A_i) = 0.  A batch
+ * with a bad signature passes with probability about 2^-128; when it fails,
+ * the caller can fall back to {@link #verify(byte[], byte[], byte[])} to find
+ * the culprit.
+ */
+public final class Ed25519Signer {
+
+    private static final BigInteger L = Ed25519Extended.L;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private Ed25519Signer() {
+    }
+
+    public static byte[] publicKey(byte[] secretKey) {
+        checkSecretKey(secretKey);
+        byte[] h = SHA512Hash.sha512(secretKey);
+        return Ed25519Extended.encode(Ed25519Extended.multiplyBase(clamp(h)));
+    }
+
+    public static byte[] sign(byte[] secretKey, byte[] message) {
+        checkSecretKey(secretKey);
+        byte[] h = SHA512Hash.sha512(secretKey);
+        BigInteger a = clamp(h);
+        byte[] publicKey = Ed25519Extended.encode(Ed25519Extended.multiplyBase(a));
+        byte[] prefix = Arrays.copyOfRange(h, 32, 64);
+
+        BigInteger r = scalarFromHash(SHA512Hash.sha512(prefix, message));
+        byte[] encodedR = Ed25519Extended.encode(Ed25519Extended.multiplyBase(r));
+        BigInteger k = scalarFromHash(SHA512Hash.sha512(encodedR, publicKey, message));
+        BigInteger s = r.add(k.multiply(a)).mod(L);
+
+        byte[] signature = new byte[64];
+        System.arraycopy(encodedR, 0, signature, 0, 32);
+        System.arraycopy(toLittleEndian(s), 0, signature, 32, 32);
+        return signature;
+    }
+
+    public static boolean verify(byte[] publicKey, byte[] message, byte[] signature) {
+        if (publicKey.length != 32 || signature.length != 64) {
+            return false;
+        }
+        long[][] a = Ed25519Extended.decode(publicKey, 0);
+        long[][] r = Ed25519Extended.decode(signature, 0);
+        BigInteger s = fromLittleEndian(signature, 32, 32);
+        if (a == null || r == null || s.compareTo(L) >= 0) {
+            return false;
+        }
+        BigInteger k = scalarFromHash(SHA512Hash.sha512(Arrays.copyOf(signature, 32), publicKey, message));
+
+        // [S]B - [k]A - R
+        Ed25519Extended.negate(a, a);
+        long[][] check = Ed25519Extended.multiply(k, a);
+        Ed25519Extended.add(check, check, Ed25519Extended.multiplyBase(s));
+        Ed25519Extended.negate(r, r);
+        Ed25519Extended.add(check, check, r);
+        return isSmallOrder(check);
+    }
+
+    /**
+     * true only if every signature verifies (up to probability 2^-128 of a
+     * false accept); the arrays are parallel and must have the same length.
+     */
+    public static boolean verifyBatch(byte[][] publicKeys, byte[][] messages, byte[][] signatures) {
+        int n = signatures.length;
+        if (publicKeys.length != n || messages.length != n) {
+            throw new IllegalArgumentException("publicKeys, messages and signatures differ in length");
+        }
+        BigInteger[] scalars = new BigInteger[2 * n];
+        long[][][] points = new long[2 * n][][];
+        BigInteger sumS = BigInteger.ZERO;
+        for (int i = 0; i < n; i++) {
+            byte[] publicKey = publicKeys[i];
+            byte[] signature = signatures[i];
+            if (publicKey.length != 32 || signature.length != 64) {
+                return false;
+            }
+            long[][] a = Ed25519Extended.decode(publicKey, 0);
+            long[][] r = Ed25519Extended.decode(signature, 0);
+            BigInteger s = fromLittleEndian(signature, 32, 32);
+            if (a == null || r == null || s.compareTo(L) >= 0) {
+                return false;
+            }
+            BigInteger k = scalarFromHash(SHA512Hash.sha512(Arrays.copyOf(signature, 32), publicKey, messages[i]));
+            BigInteger z = new BigInteger(128, RANDOM);
+
+            Ed25519Extended.negate(r, r);
+            Ed25519Extended.negate(a, a);
+            points[2 * i] = r;
+            scalars[2 * i] = z;
+            points[2 * i + 1] = a;
+            scalars[2 * i + 1] = z.multiply(k).mod(L);
+            sumS = sumS.add(z.multiply(s));
+        }
+        long[][] check = Ed25519Extended.multiScalarMultiply(scalars, points);
+        Ed25519Extended.add(check, check, Ed25519Extended.multiplyBase(sumS.mod(L)));
+        return isSmallOrder(check);
+    }
+
+    private static void checkSecretKey(byte[] secretKey) {
+        if (secretKey.length != 32) {
+            throw new IllegalArgumentException("Ed25519 secret key must be 32 bytes, got " + secretKey.length);
+        }
+    }
+
+    // [8]p is the identity
+    private static boolean isSmallOrder(long[][] p) {
+        Ed25519Extended.doublePoint(p, p);
+        Ed25519Extended.doublePoint(p, p);
+        Ed25519Extended.doublePoint(p, p);
+        return Ed25519Extended.isIdentity(p);
+    }
+
+    // The secret scalar: the low 32 bytes of the hash with bits 0-2 and 255 cleared and bit 254 set
+    private static BigInteger clamp(byte[] h) {
+        byte[] a = Arrays.copyOf(h, 32);
+        a[0] &= (byte) 0xf8;
+        a[31] &= 0x7f;
+        a[31] |= 0x40;
+        return fromLittleEndian(a, 0, 32);
+    }
+
+    private static BigInteger scalarFromHash(byte[] hash) {
+        return fromLittleEndian(hash, 0, hash.length).mod(L);
+    }
+
+    private static BigInteger fromLittleEndian(byte[] b, int offset, int length) {
+        byte[] be = new byte[length + 1];
+        for (int i = 0; i < length; i++) {
+            be[length - i] = b[offset + i];
+        }
+        return new BigInteger(be);
+    }
+
+    private static byte[] toLittleEndian(BigInteger v) {
+        byte[] be = v.toByteArray();
+        byte[] out = new byte[32];
+        for (int i = 0; i < be.length && i < 32; i++) {
+            out[i] = be[be.length - 1 - i];
+        }
+        return out;
+    }
+}
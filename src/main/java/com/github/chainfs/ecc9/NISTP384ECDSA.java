@@ -2,6 +2,14 @@ package com.github.chainfs.ecc9;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+import com.github.chainfs.ecc.JacobianArithmetic;
+import com.github.chainfs.ecc.SafeGcdInverse;
+import com.github.chainfs.ecc.StraussShamir;
+import com.github.chainfs.ecc.WnafTable;
+
 public class NISTP384ECDSA {
 
     // NIST P-384 curve parameters (from FIPS 186-4)
@@ -10,16 +18,23 @@ public class NISTP384ECDSA {
     private static final BigInteger a = new BigInteger(
         "39402006196394479212279040100143613805079739270465446667948293404245721771496870329047266088258938001861606973112316");
     private static final BigInteger b = new BigInteger(
-        "2758019355995970587784901184038904809305690585636156851859984789222565518657039532736447567559084803210947145401434");
+        "27580193559959705877849011840389048093056905856361568521428707301988689241309860865136260764883745107765439761230575");
     public static final BigInteger n = new BigInteger(
         "39402006196394479212279040100143613805079739270465446667946905279627659399113263569398956308152294913554433653942643");
     private static final BigInteger h = BigInteger.ONE;
 
     // Base point G
     private static final BigInteger Gx = new BigInteger(
-        "262470350957996892686231567445669818918529234911092133878156159143631564581264057974512640204691201504757157150376");
+        "26247035095799689268623156744566981891852923491109213387815615900925518854738050089022388053975719786650872476732087");
     private static final BigInteger Gy = new BigInteger(
-        "832571096148902998554675128952010817928785304886131559470920590248050319988441922109253522505279899881839844012124");
+        "8325710961489029985546751289520108179287853048861315594709205902480503199884419224438643760392947333078086511627871");
+
+    private static final ECCurve CURVE = new ECCurve(p, a, b);
+    private static final SafeGcdInverse N_INVERSE = SafeGcdInverse.forModulus(n);
+    private static final ECPoint G = CURVE.createPoint(Gx, Gy);
+
+    // Odd multiples of G for the interleaved wNAF in verify, built on first use
+    private static volatile WnafTable gWnafTable;
 
     // Private key d and public key Q = dG
     private BigInteger d;
@@ -34,7 +49,7 @@ public class NISTP384ECDSA {
         } while (d.compareTo(BigInteger.ONE) < 0 || d.compareTo(n) >= 0);
 
         // Calculate public key Q = dG
-        Q = scalarMultiply(new ECPoint(Gx, Gy), d);
+        Q = multiplyG(d);
     }
 
     // Signing a message hash z (should be a hash integer mod n)
@@ -46,11 +61,11 @@ public class NISTP384ECDSA {
                 k = new BigInteger(n.bitLength(), random);
             } while (k.compareTo(BigInteger.ONE) < 0 || k.compareTo(n) >= 0);
 
-            ECPoint p = scalarMultiply(new ECPoint(Gx, Gy), k);
-            r = p.x.mod(n);
+            ECPoint p = multiplyG(k);
+            r = p.getX().mod(n);
         } while (r.equals(BigInteger.ZERO));
 
-        BigInteger kInv = k.modInverse(n);
+        BigInteger kInv = N_INVERSE.invert(k);
         s = kInv.multiply(z.add(d.multiply(r))).mod(n);
 
         if (s.equals(BigInteger.ZERO)) {
@@ -67,72 +82,32 @@ public class NISTP384ECDSA {
         if (r.compareTo(BigInteger.ONE) < 0 || r.compareTo(n) >= 0) return false;
         if (s.compareTo(BigInteger.ONE) < 0 || s.compareTo(n) >= 0) return false;
 
-        BigInteger w = s.modInverse(n);
+        BigInteger w = N_INVERSE.invert(s);
         BigInteger u1 = z.multiply(w).mod(n);
         BigInteger u2 = r.multiply(w).mod(n);
 
-        ECPoint G = new ECPoint(Gx, Gy);
-        ECPoint point = pointAdd(scalarMultiply(G, u1), scalarMultiply(Q, u2));
+        // u1*G + u2*Q with one shared chain of doublings
+        WnafTable[] tables = {generatorWnafTable(), new WnafTable(Q, StraussShamir.DEFAULT_WINDOW)};
+        ECPoint point = JacobianArithmetic.toAffine(CURVE,
+                StraussShamir.multiplyJacobian(tables, new BigInteger[]{u1, u2}));
         if (point.isInfinity()) return false;
 
-        BigInteger v = point.x.mod(n);
+        BigInteger v = point.getX().mod(n);
         return v.equals(r);
     }
 
-    // Elliptic curve point addition
-    private static ECPoint pointAdd(ECPoint P, ECPoint Q) {
-        if (P.isInfinity()) return Q;
-        if (Q.isInfinity()) return P;
-
-        BigInteger lambda;
-        if (P.x.equals(Q.x)) {
-            if (P.y.add(Q.y).mod(p).equals(BigInteger.ZERO)) {
-                return ECPoint.INFINITY;
-            }
-            // Point doubling
-            BigInteger numerator = P.x.pow(2).multiply(BigInteger.valueOf(3)).add(a).mod(p);
-            BigInteger denominator = P.y.multiply(BigInteger.valueOf(2)).modInverse(p);
-            lambda = numerator.multiply(denominator).mod(p);
-        } else {
-            // Point addition
-            BigInteger numerator = Q.y.subtract(P.y).mod(p);
-            BigInteger denominator = Q.x.subtract(P.x).mod(p).modInverse(p);
-            lambda = numerator.multiply(denominator).mod(p);
-        }
-
-        BigInteger xr = lambda.pow(2).subtract(P.x).subtract(Q.x).mod(p);
-        BigInteger yr = lambda.multiply(P.x.subtract(xr)).subtract(P.y).mod(p);
-
-        return new ECPoint(xr, yr);
+    // k * G from the precomputed multiples of G
+    private static ECPoint multiplyG(BigInteger k) {
+        return FixedBaseTable.forPoint(G, n.bitLength()).multiply(k);
     }
 
-    // Elliptic curve scalar multiplication (double-and-add)
-    private static ECPoint scalarMultiply(ECPoint P, BigInteger k) {
-        ECPoint R = ECPoint.INFINITY;
-        ECPoint addend = P;
-
-        for (int i = k.bitLength() - 1; i >= 0; i--) {
-            R = pointAdd(R, R);
-            if (k.testBit(i)) {
-                R = pointAdd(R, addend);
-            }
-        }
-        return R;
-    }
-
-    // Point representation
-    private static class ECPoint {
-        BigInteger x, y;
-        static final ECPoint INFINITY = new ECPoint(null, null);
-
-        ECPoint(BigInteger x, BigInteger y) {
-            this.x = x;
-            this.y = y;
-        }
-
-        boolean isInfinity() {
-            return x == null && y == null;
+    private static WnafTable generatorWnafTable() {
+        WnafTable table = gWnafTable;
+        if (table == null) {
+            table = new WnafTable(G, 7);
+            gWnafTable = table;
         }
+        return table;
     }
 
     // Signature pair
@@ -148,11 +123,11 @@ public class NISTP384ECDSA {
 
     // For testing convenience: get public key coordinates
     public BigInteger getPublicKeyX() {
-        return Q.x;
+        return Q.getX();
     }
 
     public BigInteger getPublicKeyY() {
-        return Q.y;
+        return Q.getY();
     }
 
     public BigInteger getPrivateKey() {
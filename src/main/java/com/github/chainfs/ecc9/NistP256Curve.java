@@ -1,6 +1,11 @@
 package com.github.chainfs.ecc9;
 import java.math.BigInteger;
 
+import com.github.chainfs.ecc.CompleteProjectiveArithmetic;
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.LimbJacobianArithmetic;
+import com.github.chainfs.ecc.PrimeField;
+
 public class NistP256Curve {
 
     // Prime modulus p = 2^256 - 2^224 + 2^192 + 2^96 - 1
@@ -16,7 +21,7 @@ public class NistP256Curve {
     public static final BigInteger Gx = new BigInteger(
             "6b17d1f2e12c4247f8bce6e563a440f277037d812deb33a0f4a13945d898c296", 16);
     public static final BigInteger Gy = new BigInteger(
-            "4fe342e2fe1a7f9b8ee7eb4a7c0f9e162cbce33576b315ececbb6406837bf51f", 16);
+            "4fe342e2fe1a7f9b8ee7eb4a7c0f9e162bce33576b315ececbb6406837bf51f5", 16);
 
     // Order of the base point
     public static final BigInteger N = new BigInteger(
@@ -25,6 +30,16 @@ public class NistP256Curve {
     // Identity point (point at infinity) represented as null
     public static final ECPoint INFINITY = null;
 
+    // Field arithmetic and Jacobian formulas on long[] limbs, shared with the other curves
+    private static final PrimeField FIELD = PrimeField.forModulus(P);
+    private static final ECCurve CURVE = new ECCurve(P, A, B);
+    private static final LimbJacobianArithmetic JACOBIAN = LimbJacobianArithmetic.forCurve(CURVE);
+
+    // Exception-free projective formulas, used by pointAdd, pointDouble and the constant-time mode
+    private static final CompleteProjectiveArithmetic COMPLETE = CompleteProjectiveArithmetic.forCurve(CURVE);
+
+    private static volatile boolean constantTime = false;
+
     public static class ECPoint {
         public final BigInteger x;
         public final BigInteger y;
@@ -52,6 +67,11 @@ public class NistP256Curve {
         }
     }
 
+    // The curve as an ecc.ECCurve, for the shared limb arithmetic
+    public static ECCurve getCurve() {
+        return CURVE;
+    }
+
     // Modular addition
     public static BigInteger modAdd(BigInteger a, BigInteger b) {
         return a.add(b).mod(P);
@@ -69,7 +89,7 @@ public class NistP256Curve {
 
     // Modular inversion
     public static BigInteger modInv(BigInteger a) {
-        return a.modInverse(P);
+        return FIELD.modInv(a);
     }
 
     // Modular exponentiation
@@ -77,60 +97,65 @@ public class NistP256Curve {
         return base.modPow(exp, P);
     }
 
-    // Point addition on the curve
+    // Point addition on the curve, with the complete formulas: no special cases and one inversion
     public static ECPoint pointAdd(ECPoint p1, ECPoint p2) {
-        if (p1 == INFINITY) return p2;
-        if (p2 == INFINITY) return p1;
-
-        if (p1.x.equals(p2.x)) {
-            if (p1.y.equals(p2.y)) {
-                return pointDouble(p1);
-            } else {
-                // p1.x == p2.x but y1 != y2, result is infinity
-                return INFINITY;
-            }
-        }
-
-        BigInteger lambda = modMul(
-                modSub(p2.y, p1.y),
-                modInv(modSub(p2.x, p1.x))
-        );
-
-        BigInteger x3 = modSub(modSub(modPow(lambda, BigInteger.TWO), p1.x), p2.x);
-        BigInteger y3 = modSub(modMul(lambda, modSub(p1.x, x3)), p1.y);
-
-        return new ECPoint(x3, y3);
+        long[][] r = toProjective(p1);
+        COMPLETE.add(r, r, toProjective(p2));
+        return fromProjective(r);
     }
 
     // Point doubling on the curve
     public static ECPoint pointDouble(ECPoint p) {
-        if (p == INFINITY) return INFINITY;
+        long[][] r = toProjective(p);
+        COMPLETE.doublePoint(r, r);
+        return fromProjective(r);
+    }
 
-        BigInteger threeX2 = modMul(BigInteger.valueOf(3), modPow(p.x, BigInteger.TWO));
-        BigInteger lambda = modMul(
-                modAdd(threeX2, A),
-                modInv(modMul(BigInteger.valueOf(2), p.y))
-        );
+    private static long[][] toProjective(ECPoint p) {
+        return p == INFINITY ? COMPLETE.identity() : COMPLETE.fromAffine(p.x, p.y);
+    }
 
-        BigInteger x3 = modSub(modPow(lambda, BigInteger.TWO), modMul(BigInteger.valueOf(2), p.x));
-        BigInteger y3 = modSub(modMul(lambda, modSub(p.x, x3)), p.y);
+    private static ECPoint fromProjective(long[][] p) {
+        BigInteger[] affine = COMPLETE.toAffineCoordinates(p);
+        return affine == null ? INFINITY : new ECPoint(affine[0], affine[1]);
+    }
+
+    /**
+     * Switches scalarMultiply to the constant-time ladder: complete formulas,
+     * a fixed number of windows and masked table lookups, at some cost in speed.
+     */
+    public static void setConstantTime(boolean enabled) {
+        constantTime = enabled;
+    }
+
+    public static boolean isConstantTime() {
+        return constantTime;
+    }
 
-        return new ECPoint(x3, y3);
+    // k * point with no branches or table accesses that depend on k
+    public static ECPoint scalarMultiplyConstantTime(BigInteger k, ECPoint point) {
+        if (point == INFINITY) return INFINITY;
+        return fromProjective(COMPLETE.multiplyConstantTime(k.mod(N), toProjective(point), N.bitLength()));
     }
 
-    // Scalar multiplication using double-and-add
+    // Scalar multiplication using double-and-add, in Jacobian coordinates with one inversion at the end
     public static ECPoint scalarMultiply(BigInteger k, ECPoint point) {
-        ECPoint result = INFINITY;
-        ECPoint addend = point;
+        if (constantTime) return scalarMultiplyConstantTime(k, point);
+        if (point == INFINITY) return INFINITY;
+        long[] x = FIELD.fromBigInteger(point.x);
+        long[] y = FIELD.fromBigInteger(point.y);
+        long[][] result = JACOBIAN.newPoint();
+        JACOBIAN.setInfinity(result);
 
         int length = k.bitLength();
         for (int i = length - 1; i >= 0; i--) {
-            result = pointDouble(result);
+            JACOBIAN.doublePoint(result, result);
             if (k.testBit(i)) {
-                result = pointAdd(result, addend);
+                JACOBIAN.addMixed(result, result, x, y);
             }
         }
-        return result;
+        BigInteger[] affine = JACOBIAN.toAffineCoordinates(result);
+        return affine == null ? INFINITY : new ECPoint(affine[0], affine[1]);
     }
 
     // Check if point is on the curve
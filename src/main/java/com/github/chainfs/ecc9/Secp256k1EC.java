@@ -17,9 +17,17 @@
 package com.github.chainfs.ecc9;
 
 import java.math.BigInteger;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.chainfs.ecc.SafeGcdInverse;
 
 public class Secp256k1EC {
 
+    private static final Logger logger = LoggerFactory.getLogger(Secp256k1EC.class);
+
 	private static final BigInteger TWO = BigInteger.valueOf(2);
 
 	// secp256k1 field modulus p = 2^256 - 2^32 - 977
@@ -30,10 +38,83 @@ public class Secp256k1EC {
 
     static BigInteger N;    // Curve order
 
+    // Constant-time safegcd inversion mod p and mod n
+    private static final SafeGcdInverse P_INVERSE = SafeGcdInverse.forModulus(P);
+    private static final SafeGcdInverse ORDER_INVERSE = SafeGcdInverse.forModulus(CURVE_ORDER);
+
     public static final BigInteger GX = new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16);
     public static final BigInteger GY = new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16);
     public static final BigInteger[] G = new BigInteger[] {GX, GY};       // Generator point
 
+    /**
+     * Field arithmetic of the whole-point operations: scalarMultiply (plain
+     * and wNAF) and normalizeAll.  With LIMB_4X64 the coordinates are
+     * converted to limbs once on entry and back once on exit, and the
+     * double-and-add loop allocates nothing.  The single-step pointDouble
+     * and pointAddMixed take and return BigIntegers, so they always use
+     * BigInteger arithmetic; a conversion per call would cost more than it
+     * saves.
+     */
+    public enum FieldBackend {
+        BIG_INTEGER,  // immutable BigInteger with a generic mod(P)
+        LIMB_4X64     // Secp256k1FieldElement, four 64-bit limbs with the special reduction for P
+    }
+
+    private static volatile FieldBackend fieldBackend = initialFieldBackend();
+
+    public static FieldBackend getFieldBackend() {
+        return fieldBackend;
+    }
+
+    public static void setFieldBackend(FieldBackend backend) {
+        fieldBackend = backend;
+    }
+
+    // Window width of the wNAF used by scalarMultiply, 0 or 1 selects plain double-and-add
+    private static final int DEFAULT_WNAF_WINDOW = 5;
+
+    private static volatile int wnafWindow = initialWnafWindow();
+
+    public static int getWnafWindow() {
+        return wnafWindow;
+    }
+
+    public static void setWnafWindow(int window) {
+        if (!isSupportedWindow(window)) {
+            throw new IllegalArgumentException("Unsupported wNAF window: " + window);
+        }
+        wnafWindow = window;
+    }
+
+    private static boolean isSupportedWindow(int window) {
+        return window <= 1 || (window >= Secp256k1Wnaf.MIN_WINDOW && window <= Secp256k1Wnaf.MAX_WINDOW);
+    }
+
+    // chainfs.ecc9.wnafWindow, checked like setWnafWindow; a bad value keeps the default
+    private static int initialWnafWindow() {
+        int window = Integer.getInteger("chainfs.ecc9.wnafWindow", DEFAULT_WNAF_WINDOW);
+        if (!isSupportedWindow(window)) {
+            logger.warn("Ignoring chainfs.ecc9.wnafWindow={}, expected 0, 1 or {} to {}", window,
+                    Secp256k1Wnaf.MIN_WINDOW, Secp256k1Wnaf.MAX_WINDOW);
+            return DEFAULT_WNAF_WINDOW;
+        }
+        return window;
+    }
+
+    // chainfs.ecc9.fieldBackend in any case; a bad value keeps BIG_INTEGER rather than failing class loading
+    private static FieldBackend initialFieldBackend() {
+        String value = System.getProperty("chainfs.ecc9.fieldBackend");
+        if (value == null) {
+            return FieldBackend.BIG_INTEGER;
+        }
+        try {
+            return FieldBackend.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring chainfs.ecc9.fieldBackend={}, expected BIG_INTEGER or LIMB_4X64", value);
+            return FieldBackend.BIG_INTEGER;
+        }
+    }
+
     // Helper: modulo with wraparound
     static BigInteger mod(BigInteger x) {
         x = x.mod(P);
@@ -177,7 +258,7 @@ public class Secp256k1EC {
         if (Z.equals(BigInteger.ZERO)) {
             return new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO}; // Point at infinity
         }
-        BigInteger Zinv = Z.modInverse(P);
+        BigInteger Zinv = P_INVERSE.invert(Z);
         BigInteger Zinv2 = modSqr(Zinv);
         BigInteger Zinv3 = modMul(Zinv2, Zinv);
         BigInteger x = mod(modMul(X, Zinv2));
@@ -185,6 +266,56 @@ public class Secp256k1EC {
         return new BigInteger[]{x, y};
     }
 
+    /**
+     * Affine forms of many Jacobian points with a single inversion (Montgomery's
+     * simultaneous inversion: one inversion plus 3(n - 1) multiplications).
+     * Points at infinity (Z = 0) map to {0, 0}, as in toAffine.
+     */
+    public static BigInteger[][] normalizeAll(BigInteger[][] jacPoints) {
+        int count = jacPoints.length;
+        BigInteger[][] result = new BigInteger[count][];
+        if (fieldBackend == FieldBackend.LIMB_4X64) {
+            Secp256k1FieldElement[][] points = new Secp256k1FieldElement[count][];
+            Secp256k1FieldElement[][] affine = new Secp256k1FieldElement[count][];
+            for (int i = 0; i < count; i++) {
+                points[i] = Secp256k1LimbArithmetic.toLimbs(jacPoints[i]);
+                affine[i] = new Secp256k1FieldElement[] {
+                        new Secp256k1FieldElement(), new Secp256k1FieldElement()};
+            }
+            Secp256k1LimbArithmetic.get().normalizeAll(affine, points);
+            for (int i = 0; i < count; i++) {
+                result[i] = Secp256k1LimbArithmetic.toBigIntegers(affine[i]);
+            }
+            return result;
+        }
+
+        // prefix[i] = product of the non-zero Z of points 0..i
+        BigInteger[] prefix = new BigInteger[count];
+        BigInteger acc = BigInteger.ONE;
+        for (int i = 0; i < count; i++) {
+            BigInteger Z = jacPoints[i][2];
+            if (Z.signum() != 0) {
+                acc = modMul(acc, Z);
+            }
+            prefix[i] = acc;
+        }
+        BigInteger inv = P_INVERSE.invert(acc);
+
+        for (int i = count - 1; i >= 0; i--) {
+            BigInteger[] point = jacPoints[i];
+            if (point[2].signum() == 0) {
+                result[i] = new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO};
+                continue;
+            }
+            BigInteger Zinv = i == 0 ? inv : modMul(inv, prefix[i - 1]);
+            inv = modMul(inv, point[2]);
+            BigInteger Zinv2 = modSqr(Zinv);
+            BigInteger Zinv3 = modMul(Zinv2, Zinv);
+            result[i] = new BigInteger[]{modMul(point[0], Zinv2), modMul(point[1], Zinv3)};
+        }
+        return result;
+    }
+
     // Print point in affine form
     public static void printPoint(BigInteger[] point) {
         System.out.println("x = " + point[0].toString(16));
@@ -249,6 +380,18 @@ public class Secp256k1EC {
     }
 
     public static BigInteger[] scalarMultiply(BigInteger k, BigInteger x, BigInteger y) {
+        int window = wnafWindow;
+        if (window > 1) {
+            return Secp256k1Wnaf.multiply(k, x, y, window);
+        }
+        return scalarMultiplyDoubleAndAdd(k, x, y);
+    }
+
+    // Left-to-right binary double-and-add, one mixed addition per set bit of k
+    public static BigInteger[] scalarMultiplyDoubleAndAdd(BigInteger k, BigInteger x, BigInteger y) {
+        if (fieldBackend == FieldBackend.LIMB_4X64) {
+            return scalarMultiplyLimbs(k, x, y);
+        }
         BigInteger[] result = null; // Null means "point at infinity"
         BigInteger[] base = new BigInteger[]{x, y, BigInteger.ONE};
 
@@ -278,10 +421,43 @@ public class Secp256k1EC {
         return toAffine(result[0], result[1], result[2]);
     }
 
+    // Same double-and-add as scalarMultiplyDoubleAndAdd, kept in limbs from the first bit to the last
+    private static BigInteger[] scalarMultiplyLimbs(BigInteger k, BigInteger x, BigInteger y) {
+        Secp256k1LimbArithmetic arithmetic = Secp256k1LimbArithmetic.get();
+        Secp256k1FieldElement bx = new Secp256k1FieldElement(x);
+        Secp256k1FieldElement by = new Secp256k1FieldElement(y);
+        Secp256k1FieldElement[] result = Secp256k1LimbArithmetic.newPoint();
+        boolean infinity = true;
+
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            if (!infinity) {
+                arithmetic.pointDouble(result, result);
+            }
+            if (k.testBit(i)) {
+                if (infinity) {
+                    result[0].set(bx);
+                    result[1].set(by);
+                    result[2].setOne();
+                    infinity = false;
+                } else {
+                    arithmetic.pointAddMixed(result, result, bx, by);
+                }
+            }
+        }
+
+        if (infinity) {
+            return new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO};
+        }
+        Secp256k1FieldElement[] affine = new Secp256k1FieldElement[] {
+                new Secp256k1FieldElement(), new Secp256k1FieldElement()};
+        arithmetic.toAffine(affine, result);
+        return Secp256k1LimbArithmetic.toBigIntegers(affine);
+    }
+
     public static BigInteger[] scalarDivide(BigInteger divisor, BigInteger x, BigInteger y) {
         // Compute modular inverse of k modulo n
     	try {
-    		BigInteger inverseDivisor = divisor.modInverse(CURVE_ORDER);
+    		BigInteger inverseDivisor = inverseDivisor(divisor);
     		// Multiply point by modular inverse scalar
     		return scalarMultiply(inverseDivisor, x, y);
     	} catch (ArithmeticException e) {
@@ -540,8 +716,13 @@ public class Secp256k1EC {
 		return BigInteger.valueOf(i);
 	}
 
+	// divisor^-1 mod n, throwing like BigInteger.modInverse when there is none
 	private static BigInteger inverseDivisor(BigInteger divisor) {
-		return divisor.modInverse(CURVE_ORDER);
+		BigInteger inverse = ORDER_INVERSE.invert(divisor);
+		if (inverse.signum() == 0) {
+			throw new ArithmeticException("BigInteger not invertible.");
+		}
+		return inverse;
 	}
 
 	public static BigInteger[] fractionPoint(BigInteger[] p, int i, int j) {
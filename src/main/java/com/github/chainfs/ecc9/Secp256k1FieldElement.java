@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.chainfs.ecc9;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.github.chainfs.ecc.SafeGcdInverse;
+
+/**
+ * Mutable element of the secp256k1 base field, p = 2^256 - 2^32 - 977,
+ * held in four little-endian 64-bit limbs.
+ *
+ * Every operation writes its result into {@code this} and returns {@code this},
+ * so temporaries can be reused across a whole scalar multiplication without
+ * allocating.  Operands may alias the receiver.  Values are always kept fully
+ * reduced into [0, p).
+ */
+public final class Secp256k1FieldElement {
+
+    // p in limbs, least significant first
+    private static final long P0 = 0xFFFFFFFEFFFFFC2FL;
+    private static final long P1 = 0xFFFFFFFFFFFFFFFFL;
+    private static final long P2 = 0xFFFFFFFFFFFFFFFFL;
+    private static final long P3 = 0xFFFFFFFFFFFFFFFFL;
+
+    // 2^256 mod p = 2^32 + 977, used to fold the high half of a product back in
+    private static final long C = 0x1000003D1L;
+
+    private static final long M62 = -1L >>> 2;
+
+    private static final SafeGcdInverse P_INVERSE = SafeGcdInverse.forModulus(
+            new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16));
+
+    private static final BigInteger MASK64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    final long[] n = new long[4];
+
+    public Secp256k1FieldElement() {
+    }
+
+    public Secp256k1FieldElement(BigInteger value) {
+        set(value);
+    }
+
+    public Secp256k1FieldElement(Secp256k1FieldElement other) {
+        set(other);
+    }
+
+    public static Secp256k1FieldElement valueOf(BigInteger value) {
+        return new Secp256k1FieldElement(value);
+    }
+
+    public Secp256k1FieldElement set(Secp256k1FieldElement a) {
+        n[0] = a.n[0];
+        n[1] = a.n[1];
+        n[2] = a.n[2];
+        n[3] = a.n[3];
+        return this;
+    }
+
+    public Secp256k1FieldElement set(BigInteger value) {
+        if (value.signum() < 0 || value.compareTo(Secp256k1EC.P) >= 0) {
+            value = value.mod(Secp256k1EC.P);
+        }
+        n[0] = value.longValue();
+        n[1] = value.shiftRight(64).longValue();
+        n[2] = value.shiftRight(128).longValue();
+        n[3] = value.shiftRight(192).longValue();
+        return this;
+    }
+
+    public Secp256k1FieldElement setInt(int value) {
+        return set(BigInteger.valueOf(value));
+    }
+
+    public Secp256k1FieldElement setZero() {
+        n[0] = 0;
+        n[1] = 0;
+        n[2] = 0;
+        n[3] = 0;
+        return this;
+    }
+
+    public Secp256k1FieldElement setOne() {
+        n[0] = 1;
+        n[1] = 0;
+        n[2] = 0;
+        n[3] = 0;
+        return this;
+    }
+
+    public BigInteger toBigInteger() {
+        BigInteger r = BigInteger.valueOf(n[3]).and(MASK64);
+        r = r.shiftLeft(64).or(BigInteger.valueOf(n[2]).and(MASK64));
+        r = r.shiftLeft(64).or(BigInteger.valueOf(n[1]).and(MASK64));
+        return r.shiftLeft(64).or(BigInteger.valueOf(n[0]).and(MASK64));
+    }
+
+    public boolean isZero() {
+        return (n[0] | n[1] | n[2] | n[3]) == 0;
+    }
+
+    public boolean isOdd() {
+        return (n[0] & 1) != 0;
+    }
+
+    // this = a + b mod p
+    public Secp256k1FieldElement add(Secp256k1FieldElement a, Secp256k1FieldElement b) {
+        long s0 = a.n[0] + b.n[0];
+        long k = Long.compareUnsigned(s0, a.n[0]) < 0 ? 1 : 0;
+        long s1 = a.n[1] + b.n[1] + k;
+        k = carry(a.n[1], b.n[1], s1);
+        long s2 = a.n[2] + b.n[2] + k;
+        k = carry(a.n[2], b.n[2], s2);
+        long s3 = a.n[3] + b.n[3] + k;
+        k = carry(a.n[3], b.n[3], s3);
+        reduceOnce(s0, s1, s2, s3, k);
+        return this;
+    }
+
+    // this = a - b mod p
+    public Secp256k1FieldElement sub(Secp256k1FieldElement a, Secp256k1FieldElement b) {
+        long d0 = a.n[0] - b.n[0];
+        long k = Long.compareUnsigned(a.n[0], b.n[0]) < 0 ? 1 : 0;
+        long d1 = a.n[1] - b.n[1] - k;
+        k = borrow(a.n[1], b.n[1], d1);
+        long d2 = a.n[2] - b.n[2] - k;
+        k = borrow(a.n[2], b.n[2], d2);
+        long d3 = a.n[3] - b.n[3] - k;
+        k = borrow(a.n[3], b.n[3], d3);
+
+        // on borrow the limbs hold a - b + 2^256, so take C back off to get a - b + p
+        long c = -k & C;
+        long r0 = d0 - c;
+        k = Long.compareUnsigned(d0, c) < 0 ? 1 : 0;
+        long r1 = d1 - k;
+        k &= d1 == 0 ? 1 : 0;
+        long r2 = d2 - k;
+        k &= d2 == 0 ? 1 : 0;
+        n[0] = r0;
+        n[1] = r1;
+        n[2] = r2;
+        n[3] = d3 - k;
+        return this;
+    }
+
+    // this = -a mod p
+    public Secp256k1FieldElement negate(Secp256k1FieldElement a) {
+        long a0 = a.n[0], a1 = a.n[1], a2 = a.n[2], a3 = a.n[3];
+        n[0] = 0;
+        n[1] = 0;
+        n[2] = 0;
+        n[3] = 0;
+        if ((a0 | a1 | a2 | a3) == 0) {
+            return this;
+        }
+        long r0 = P0 - a0;
+        long k = Long.compareUnsigned(P0, a0) < 0 ? 1 : 0;
+        long r1 = P1 - a1 - k;
+        k = borrow(P1, a1, r1);
+        long r2 = P2 - a2 - k;
+        k = borrow(P2, a2, r2);
+        n[0] = r0;
+        n[1] = r1;
+        n[2] = r2;
+        n[3] = P3 - a3 - k;
+        return this;
+    }
+
+    // this = a * k mod p for a small non-negative k
+    public Secp256k1FieldElement mulInt(Secp256k1FieldElement a, int k) {
+        long m = k & 0xFFFFFFFFL;
+        long lo = a.n[0] * m;
+        long t0 = lo;
+        long c = Math.multiplyHigh(a.n[0], m) + ((a.n[0] >> 63) & m);
+        lo = a.n[1] * m;
+        long t1 = lo + c;
+        c = Math.multiplyHigh(a.n[1], m) + ((a.n[1] >> 63) & m) + (Long.compareUnsigned(t1, lo) < 0 ? 1 : 0);
+        lo = a.n[2] * m;
+        long t2 = lo + c;
+        c = Math.multiplyHigh(a.n[2], m) + ((a.n[2] >> 63) & m) + (Long.compareUnsigned(t2, lo) < 0 ? 1 : 0);
+        lo = a.n[3] * m;
+        long t3 = lo + c;
+        c = Math.multiplyHigh(a.n[3], m) + ((a.n[3] >> 63) & m) + (Long.compareUnsigned(t3, lo) < 0 ? 1 : 0);
+        reduce(t0, t1, t2, t3, c, 0, 0, 0);
+        return this;
+    }
+
+    // this = a * b mod p
+    public Secp256k1FieldElement mul(Secp256k1FieldElement a, Secp256k1FieldElement b) {
+        long a0 = a.n[0], a1 = a.n[1], a2 = a.n[2], a3 = a.n[3];
+        long b0 = b.n[0], b1 = b.n[1], b2 = b.n[2], b3 = b.n[3];
+        long c0 = 0, c1 = 0, c2 = 0, lo, hi;
+
+        // schoolbook product, one column at a time
+        lo = a0 * b0;
+        hi = Math.multiplyHigh(a0, b0) + ((a0 >> 63) & b0) + ((b0 >> 63) & a0);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t0 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        lo = a0 * b1;
+        hi = Math.multiplyHigh(a0, b1) + ((a0 >> 63) & b1) + ((b1 >> 63) & a0);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a1 * b0;
+        hi = Math.multiplyHigh(a1, b0) + ((a1 >> 63) & b0) + ((b0 >> 63) & a1);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t1 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        lo = a0 * b2;
+        hi = Math.multiplyHigh(a0, b2) + ((a0 >> 63) & b2) + ((b2 >> 63) & a0);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a1 * b1;
+        hi = Math.multiplyHigh(a1, b1) + ((a1 >> 63) & b1) + ((b1 >> 63) & a1);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a2 * b0;
+        hi = Math.multiplyHigh(a2, b0) + ((a2 >> 63) & b0) + ((b0 >> 63) & a2);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t2 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        lo = a0 * b3;
+        hi = Math.multiplyHigh(a0, b3) + ((a0 >> 63) & b3) + ((b3 >> 63) & a0);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a1 * b2;
+        hi = Math.multiplyHigh(a1, b2) + ((a1 >> 63) & b2) + ((b2 >> 63) & a1);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a2 * b1;
+        hi = Math.multiplyHigh(a2, b1) + ((a2 >> 63) & b1) + ((b1 >> 63) & a2);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a3 * b0;
+        hi = Math.multiplyHigh(a3, b0) + ((a3 >> 63) & b0) + ((b0 >> 63) & a3);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t3 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        lo = a1 * b3;
+        hi = Math.multiplyHigh(a1, b3) + ((a1 >> 63) & b3) + ((b3 >> 63) & a1);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a2 * b2;
+        hi = Math.multiplyHigh(a2, b2) + ((a2 >> 63) & b2) + ((b2 >> 63) & a2);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a3 * b1;
+        hi = Math.multiplyHigh(a3, b1) + ((a3 >> 63) & b1) + ((b1 >> 63) & a3);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t4 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        lo = a2 * b3;
+        hi = Math.multiplyHigh(a2, b3) + ((a2 >> 63) & b3) + ((b3 >> 63) & a2);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        lo = a3 * b2;
+        hi = Math.multiplyHigh(a3, b2) + ((a3 >> 63) & b2) + ((b2 >> 63) & a3);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t5 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        lo = a3 * b3;
+        hi = Math.multiplyHigh(a3, b3) + ((a3 >> 63) & b3) + ((b3 >> 63) & a3);
+        c0 += lo;
+        hi += Long.compareUnsigned(c0, lo) < 0 ? 1 : 0;
+        c1 += hi;
+        c2 += Long.compareUnsigned(c1, hi) < 0 ? 1 : 0;
+        long t6 = c0;
+        c0 = c1;
+        c1 = c2;
+        c2 = 0;
+        long t7 = c0;
+        reduce(t0, t1, t2, t3, t4, t5, t6, t7);
+        return this;
+    }
+
+    // this = a^2 mod p
+    public Secp256k1FieldElement sqr(Secp256k1FieldElement a) {
+        return mul(a, a);
+    }
+
+    // this = a^-1 mod p by safegcd on 62-bit limbs, zero maps to zero; allocates its working space
+    public Secp256k1FieldElement invert(Secp256k1FieldElement a) {
+        return invert(a, new InversionScratch());
+    }
+
+    // As invert(a), in the caller's working space
+    public Secp256k1FieldElement invert(Secp256k1FieldElement a, InversionScratch scratch) {
+        long a0 = a.n[0], a1 = a.n[1], a2 = a.n[2], a3 = a.n[3];
+        long[] v = scratch.v;
+        v[0] = a0 & M62;
+        v[1] = ((a0 >>> 62) | (a1 << 2)) & M62;
+        v[2] = ((a1 >>> 60) | (a2 << 4)) & M62;
+        v[3] = ((a2 >>> 58) | (a3 << 6)) & M62;
+        v[4] = a3 >>> 56;
+        P_INVERSE.invert(v, scratch.gcd);
+        n[0] = v[0] | (v[1] << 62);
+        n[1] = (v[1] >>> 2) | (v[2] << 60);
+        n[2] = (v[2] >>> 4) | (v[3] << 58);
+        n[3] = (v[3] >>> 6) | (v[4] << 56);
+        return this;
+    }
+
+    // Working arrays of one inversion, reusable and not thread safe
+    public static final class InversionScratch {
+        final long[] v = new long[5];
+        final SafeGcdInverse.Scratch gcd = P_INVERSE.newScratch();
+    }
+
+    // Compare in constant time with another reduced element
+    public boolean equalsElement(Secp256k1FieldElement a) {
+        return ((n[0] ^ a.n[0]) | (n[1] ^ a.n[1]) | (n[2] ^ a.n[2]) | (n[3] ^ a.n[3])) == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Secp256k1FieldElement)) return false;
+        return equalsElement((Secp256k1FieldElement) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(n);
+    }
+
+    @Override
+    public String toString() {
+        return toBigInteger().toString(16);
+    }
+
+    // Fold t = t7..t0 (512 bits) into [0, p) using 2^256 = C mod p
+    private void reduce(long t0, long t1, long t2, long t3, long t4, long t5, long t6, long t7) {
+        long lo, hi, c0, c1;
+
+        // r = t_low + t_high * C, five limbs
+        lo = t4 * C;
+        hi = Math.multiplyHigh(t4, C) + ((t4 >> 63) & C);
+        c0 = t0 + lo;
+        c1 = hi + (Long.compareUnsigned(c0, lo) < 0 ? 1 : 0);
+        long r0 = c0;
+
+        c0 = c1 + t1;
+        c1 = Long.compareUnsigned(c0, t1) < 0 ? 1 : 0;
+        lo = t5 * C;
+        hi = Math.multiplyHigh(t5, C) + ((t5 >> 63) & C);
+        c0 += lo;
+        c1 += hi + (Long.compareUnsigned(c0, lo) < 0 ? 1 : 0);
+        long r1 = c0;
+
+        c0 = c1 + t2;
+        c1 = Long.compareUnsigned(c0, t2) < 0 ? 1 : 0;
+        lo = t6 * C;
+        hi = Math.multiplyHigh(t6, C) + ((t6 >> 63) & C);
+        c0 += lo;
+        c1 += hi + (Long.compareUnsigned(c0, lo) < 0 ? 1 : 0);
+        long r2 = c0;
+
+        c0 = c1 + t3;
+        c1 = Long.compareUnsigned(c0, t3) < 0 ? 1 : 0;
+        lo = t7 * C;
+        hi = Math.multiplyHigh(t7, C) + ((t7 >> 63) & C);
+        c0 += lo;
+        c1 += hi + (Long.compareUnsigned(c0, lo) < 0 ? 1 : 0);
+        long r3 = c0;
+        long r4 = c1;
+
+        // fold the fifth limb (at most 34 bits) the same way
+        lo = r4 * C;
+        hi = Math.multiplyHigh(r4, C);
+        long s0 = r0 + lo;
+        long k = Long.compareUnsigned(s0, lo) < 0 ? 1 : 0;
+        long s1 = r1 + hi + k;
+        k = carry(r1, hi, s1);
+        long s2 = r2 + k;
+        k &= s2 == 0 ? 1 : 0;
+        long s3 = r3 + k;
+        k &= s3 == 0 ? 1 : 0;
+        reduceOnce(s0, s1, s2, s3, k);
+    }
+
+    // Store k * 2^256 + s, known to be below 2p, reduced into [0, p)
+    private void reduceOnce(long s0, long s1, long s2, long s3, long k) {
+        // s - p = s + C - 2^256, so s >= p exactly when s + C carries out
+        long u0 = s0 + C;
+        long c = Long.compareUnsigned(u0, C) < 0 ? 1 : 0;
+        long u1 = s1 + c;
+        c &= u1 == 0 ? 1 : 0;
+        long u2 = s2 + c;
+        c &= u2 == 0 ? 1 : 0;
+        long u3 = s3 + c;
+        c &= u3 == 0 ? 1 : 0;
+
+        long mask = -(k | c);
+        n[0] = (u0 & mask) | (s0 & ~mask);
+        n[1] = (u1 & mask) | (s1 & ~mask);
+        n[2] = (u2 & mask) | (s2 & ~mask);
+        n[3] = (u3 & mask) | (s3 & ~mask);
+    }
+
+    // Carry out of x + y + carry-in, where s is the 64-bit sum
+    private static long carry(long x, long y, long s) {
+        return ((x & y) | ((x | y) & ~s)) >>> 63;
+    }
+
+    // Borrow out of x - y - borrow-in, where d is the 64-bit difference
+    private static long borrow(long x, long y, long d) {
+        return ((~x & y) | ((~x | y) & d)) >>> 63;
+    }
+}
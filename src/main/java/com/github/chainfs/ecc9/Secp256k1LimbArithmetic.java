@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.chainfs.ecc9;
+
+import java.math.BigInteger;
+
+/**
+ * Jacobian point formulas for secp256k1 on {@link Secp256k1FieldElement}.
+ *
+ * Points are three-element arrays {X, Y, Z} like the BigInteger[] points of
+ * {@link Secp256k1EC}, and the formulas are the same ones, step for step, so
+ * both backends produce identical coordinates.  An instance owns the
+ * temporaries it needs and is not thread safe; use {@link #get()} for the
+ * calling thread's instance.
+ */
+public final class Secp256k1LimbArithmetic {
+
+    private static final ThreadLocal<Secp256k1LimbArithmetic> INSTANCE =
+            ThreadLocal.withInitial(Secp256k1LimbArithmetic::new);
+
+    private final Secp256k1FieldElement a = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement b = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement c = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement d = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement e = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement f = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement g = new Secp256k1FieldElement();
+    private final Secp256k1FieldElement.InversionScratch inversion = new Secp256k1FieldElement.InversionScratch();
+
+    public static Secp256k1LimbArithmetic get() {
+        return INSTANCE.get();
+    }
+
+    public static Secp256k1FieldElement[] newPoint() {
+        return new Secp256k1FieldElement[] {
+                new Secp256k1FieldElement(), new Secp256k1FieldElement(), new Secp256k1FieldElement()};
+    }
+
+    public static Secp256k1FieldElement[] toLimbs(BigInteger[] point) {
+        Secp256k1FieldElement[] r = new Secp256k1FieldElement[point.length];
+        for (int i = 0; i < point.length; i++) {
+            r[i] = new Secp256k1FieldElement(point[i]);
+        }
+        return r;
+    }
+
+    public static BigInteger[] toBigIntegers(Secp256k1FieldElement[] point) {
+        BigInteger[] r = new BigInteger[point.length];
+        for (int i = 0; i < point.length; i++) {
+            r[i] = point[i].toBigInteger();
+        }
+        return r;
+    }
+
+    public static void setInfinity(Secp256k1FieldElement[] r) {
+        r[0].setZero();
+        r[1].setOne();
+        r[2].setZero();
+    }
+
+    // r = 2p in Jacobian coordinates, r may be p
+    public void pointDouble(Secp256k1FieldElement[] r, Secp256k1FieldElement[] p) {
+        Secp256k1FieldElement X1 = p[0], Y1 = p[1], Z1 = p[2];
+
+        a.sqr(X1);                  // A = X1^2
+        b.sqr(Y1);                  // B = Y1^2
+        c.sqr(b);                   // C = B^2
+        d.mul(X1, b).mulInt(d, 4);  // D = 4 * X1 * B
+        e.mulInt(a, 3);             // E = 3 * A
+        f.sqr(e);                   // F = E^2
+
+        r[2].mul(Y1, Z1).mulInt(r[2], 2);    // Z3 = 2 * Y1 * Z1
+        r[0].sub(f, g.mulInt(d, 2));          // X3 = F - 2*D
+        g.sub(d, r[0]).mul(e, g);             // E*(D - X3)
+        r[1].sub(g, c.mulInt(c, 8));          // Y3 = E*(D - X3) - 8*C
+    }
+
+    // r = p + (x2, y2) with p Jacobian and (x2, y2) affine, r may be p
+    public void pointAddMixed(Secp256k1FieldElement[] r, Secp256k1FieldElement[] p,
+            Secp256k1FieldElement x2, Secp256k1FieldElement y2) {
+        Secp256k1FieldElement X1 = p[0], Y1 = p[1], Z1 = p[2];
+
+        a.sqr(Z1);                  // Z1Z1
+        b.mul(x2, a);               // U2
+        c.mul(Z1, a).mul(y2, c);    // S2
+        d.sub(b, X1);               // H
+        e.sub(c, Y1);               // r
+
+        if (d.isZero()) {
+            if (e.isZero()) {
+                pointDouble(r, p); // P == Q
+            } else {
+                setInfinity(r);
+            }
+            return;
+        }
+
+        f.sqr(d);                   // H2
+        g.mul(d, f);                // H3
+        a.mul(X1, f);               // V
+
+        r[2].mul(Z1, d);                      // Z3 = Z1 * H
+        b.sqr(e).sub(b, g);                   // r^2 - H3
+        c.mul(Y1, g);                         // Y1 * H3
+        r[0].sub(b, d.mulInt(a, 2));          // X3 = r^2 - H3 - 2*V
+        r[1].sub(a.sub(a, r[0]).mul(e, a), c); // Y3 = r*(V - X3) - Y1*H3
+    }
+
+    // r = affine {x, y} of Jacobian p, the point at infinity maps to {0, 0}
+    public void toAffine(Secp256k1FieldElement[] r, Secp256k1FieldElement[] p) {
+        if (p[2].isZero()) {
+            r[0].setZero();
+            r[1].setZero();
+            return;
+        }
+        a.invert(p[2], inversion);
+        b.sqr(a);
+        c.mul(b, a);
+        r[0].mul(p[0], b);
+        r[1].mul(p[1], c);
+    }
+
+    /**
+     * r[i] = affine {x, y} of p[i] for all i with one inversion; points at
+     * infinity map to {0, 0}.  r[i] may be p[i].
+     */
+    public void normalizeAll(Secp256k1FieldElement[][] r, Secp256k1FieldElement[][] p) {
+        int count = p.length;
+        // prefix[i] = product of the non-zero Z of p[0..i]
+        Secp256k1FieldElement[] prefix = new Secp256k1FieldElement[count];
+        Secp256k1FieldElement acc = new Secp256k1FieldElement().setOne();
+        for (int i = 0; i < count; i++) {
+            if (!p[i][2].isZero()) {
+                acc.mul(acc, p[i][2]);
+            }
+            prefix[i] = new Secp256k1FieldElement(acc);
+        }
+        Secp256k1FieldElement inv = acc.invert(acc, inversion);
+
+        for (int i = count - 1; i >= 0; i--) {
+            if (p[i][2].isZero()) {
+                r[i][0].setZero();
+                r[i][1].setZero();
+                continue;
+            }
+            if (i > 0) {
+                a.mul(inv, prefix[i - 1]);
+                inv.mul(inv, p[i][2]);
+            } else {
+                a.set(inv);
+            }
+            b.sqr(a);
+            c.mul(b, a);
+            r[i][0].mul(p[i][0], b);
+            r[i][1].mul(p[i][1], c);
+        }
+    }
+}
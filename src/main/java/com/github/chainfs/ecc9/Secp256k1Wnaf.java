@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.chainfs.ecc9;
+
+import java.math.BigInteger;
+
+import com.github.chainfs.ecc.WnafTable;
+
+/**
+ * Width-w NAF scalar multiplication for secp256k1.
+ *
+ * The scalar is recoded into signed odd digits |d| < 2^(w-1) with at least
+ * w - 1 zeros between non-zero digits, so a 256-bit scalar needs about
+ * 256 / (w + 1) additions instead of about 128.  The odd multiples
+ * P, 3P, ..., (2^(w-1) - 1)P are precomputed per call and brought to affine
+ * form with a single batch inversion so that every addition is a mixed one.
+ */
+public class Secp256k1Wnaf {
+
+    public static final int MIN_WINDOW = 2;
+
+    public static final int MAX_WINDOW = 8;
+
+    /**
+     * Recodes k >= 0 into width-w NAF digits, least significant first.
+     * The returned array has k.bitLength() + 1 entries; the top one takes a final carry.
+     */
+    public static int[] wnaf(BigInteger k, int w) {
+        checkWindow(w);
+        return WnafTable.recode(k, w);
+    }
+
+    /**
+     * k * (x, y) in affine coordinates, the point at infinity is {0, 0}.
+     * Uses the field backend currently selected in {@link Secp256k1EC}.
+     */
+    public static BigInteger[] multiply(BigInteger k, BigInteger x, BigInteger y, int w) {
+        checkWindow(w);
+        if (k.signum() < 0 || (x.signum() == 0 && y.signum() == 0)) {
+            return Secp256k1EC.scalarMultiplyDoubleAndAdd(k, x, y);
+        }
+        if (k.signum() == 0) {
+            return new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO};
+        }
+        int[] digits = wnaf(k, w);
+        if (Secp256k1EC.getFieldBackend() == Secp256k1EC.FieldBackend.LIMB_4X64) {
+            return multiplyLimbs(digits, w, k, x, y);
+        }
+        return multiplyBigInteger(digits, w, k, x, y);
+    }
+
+    private static BigInteger[] multiplyBigInteger(int[] digits, int w, BigInteger k, BigInteger x, BigInteger y) {
+        BigInteger[][] table = oddMultiples(x, y, 1 << (w - 2));
+        if (table == null) {
+            return Secp256k1EC.scalarMultiplyDoubleAndAdd(k, x, y);
+        }
+
+        BigInteger[] result = null; // null means the point at infinity
+        for (int i = digits.length - 1; i >= 0; i--) {
+            if (result != null) {
+                result = Secp256k1EC.pointDouble(result[0], result[1], result[2]);
+            }
+            int digit = digits[i];
+            if (digit == 0) continue;
+
+            BigInteger[] t = table[(Math.abs(digit) - 1) >> 1];
+            BigInteger ty = digit > 0 ? t[1] : Secp256k1EC.negateY(t[1]);
+            if (result == null) {
+                result = new BigInteger[]{t[0], ty, BigInteger.ONE};
+            } else {
+                result = Secp256k1EC.pointAddMixed(result[0], result[1], result[2], t[0], ty);
+                if (result[2].signum() == 0) {
+                    result = null;
+                }
+            }
+        }
+
+        if (result == null) {
+            return new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO};
+        }
+        return Secp256k1EC.toAffine(result[0], result[1], result[2]);
+    }
+
+    // Affine P, 3P, 5P, ... (2 * count - 1)P, or null if one of them is the point at infinity
+    private static BigInteger[][] oddMultiples(BigInteger x, BigInteger y, int count) {
+        BigInteger[][] jacobian = new BigInteger[count][];
+        jacobian[0] = new BigInteger[]{x, y, BigInteger.ONE};
+        if (count > 1) {
+            BigInteger[] twoP = Secp256k1EC.toAffinePoint(Secp256k1EC.pointDouble(x, y, BigInteger.ONE));
+            for (int i = 1; i < count; i++) {
+                BigInteger[] prev = jacobian[i - 1];
+                jacobian[i] = Secp256k1EC.pointAddMixed(prev[0], prev[1], prev[2], twoP[0], twoP[1]);
+                if (jacobian[i][2].signum() == 0) {
+                    return null;
+                }
+            }
+        }
+
+        return Secp256k1EC.normalizeAll(jacobian);
+    }
+
+    private static BigInteger[] multiplyLimbs(int[] digits, int w, BigInteger k, BigInteger x, BigInteger y) {
+        Secp256k1LimbArithmetic arithmetic = Secp256k1LimbArithmetic.get();
+        int count = 1 << (w - 2);
+        Secp256k1FieldElement[] tx = new Secp256k1FieldElement[count];
+        Secp256k1FieldElement[] ty = new Secp256k1FieldElement[count];
+        Secp256k1FieldElement[] tyNeg = new Secp256k1FieldElement[count];
+        if (!oddMultiplesLimbs(arithmetic, x, y, tx, ty)) {
+            return Secp256k1EC.scalarMultiplyDoubleAndAdd(k, x, y);
+        }
+        for (int i = 0; i < count; i++) {
+            tyNeg[i] = new Secp256k1FieldElement().negate(ty[i]);
+        }
+
+        Secp256k1FieldElement[] result = Secp256k1LimbArithmetic.newPoint();
+        boolean infinity = true;
+        for (int i = digits.length - 1; i >= 0; i--) {
+            if (!infinity) {
+                arithmetic.pointDouble(result, result);
+            }
+            int digit = digits[i];
+            if (digit == 0) continue;
+
+            int index = (Math.abs(digit) - 1) >> 1;
+            Secp256k1FieldElement y2 = digit > 0 ? ty[index] : tyNeg[index];
+            if (infinity) {
+                result[0].set(tx[index]);
+                result[1].set(y2);
+                result[2].setOne();
+                infinity = false;
+            } else {
+                arithmetic.pointAddMixed(result, result, tx[index], y2);
+                infinity = result[2].isZero();
+            }
+        }
+
+        if (infinity) {
+            return new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO};
+        }
+        Secp256k1FieldElement[] affine = new Secp256k1FieldElement[] {
+                new Secp256k1FieldElement(), new Secp256k1FieldElement()};
+        arithmetic.toAffine(affine, result);
+        return Secp256k1LimbArithmetic.toBigIntegers(affine);
+    }
+
+    private static boolean oddMultiplesLimbs(Secp256k1LimbArithmetic arithmetic, BigInteger x, BigInteger y,
+            Secp256k1FieldElement[] tx, Secp256k1FieldElement[] ty) {
+        int count = tx.length;
+        Secp256k1FieldElement[][] jacobian = new Secp256k1FieldElement[count][];
+        jacobian[0] = Secp256k1LimbArithmetic.newPoint();
+        jacobian[0][0].set(x);
+        jacobian[0][1].set(y);
+        jacobian[0][2].setOne();
+        if (count > 1) {
+            Secp256k1FieldElement[] twoP = Secp256k1LimbArithmetic.newPoint();
+            arithmetic.pointDouble(twoP, jacobian[0]);
+            arithmetic.toAffine(twoP, twoP);
+            for (int i = 1; i < count; i++) {
+                jacobian[i] = Secp256k1LimbArithmetic.newPoint();
+                arithmetic.pointAddMixed(jacobian[i], jacobian[i - 1], twoP[0], twoP[1]);
+                if (jacobian[i][2].isZero()) {
+                    return false;
+                }
+            }
+        }
+
+        arithmetic.normalizeAll(jacobian, jacobian);
+        for (int i = 0; i < count; i++) {
+            tx[i] = jacobian[i][0];
+            ty[i] = jacobian[i][1];
+        }
+        return true;
+    }
+
+    private static void checkWindow(int w) {
+        if (w < MIN_WINDOW || w > MAX_WINDOW) {
+            throw new IllegalArgumentException("wNAF window must be between " + MIN_WINDOW + " and " + MAX_WINDOW + ": " + w);
+        }
+    }
+}
@@ -17,6 +17,10 @@ package com.github.chainfs.ecdnist;
 
 import java.math.BigInteger;
 
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.LimbJacobianArithmetic;
+import com.github.chainfs.ecc.PrimeField;
+
 public class NistP521EC {
 
     // Field prime: p = 2^521 - 1
@@ -25,7 +29,7 @@ public class NistP521EC {
     // Curve order
     public static final BigInteger N = new BigInteger(
             "686479766013060971498190079908139321726943530014330540939446345918554318339765539424505774633321719753" +
-            "430986903069123103141175210916864000000000000000000000000000000000000000000000000001", 10);
+            "2963996371363321113864768612440380340372808892707005449", 10);
 
     // Curve parameters: y^2 = x^3 + ax + b
     public static final BigInteger A = BigInteger.valueOf(-3);
@@ -40,15 +44,26 @@ public class NistP521EC {
 
     public static final BigInteger[] G = new BigInteger[]{GX, GY};
 
+    // Field arithmetic and Jacobian formulas on long[] limbs
+    private static final PrimeField FIELD = PrimeField.forModulus(P);
+    private static final long[] A_LIMBS = FIELD.fromBigInteger(A);
+    private static final LimbJacobianArithmetic JACOBIAN = LimbJacobianArithmetic.forCurve(new ECCurve(P, A, B));
+
     public static BigInteger mod(BigInteger x) {
         x = x.mod(P);
         return x.signum() < 0 ? x.add(P) : x;
     }
 
     public static boolean isOnCurve(BigInteger x, BigInteger y) {
-        BigInteger left = mod(y.pow(2));
-        BigInteger right = mod(x.pow(3).add(A.multiply(x)).add(B));
-        return left.equals(right);
+        long[] fx = FIELD.fromBigInteger(x);
+        long[] left = FIELD.fromBigInteger(y);
+        FIELD.sqr(left, left);
+        long[] right = FIELD.newElement();
+        FIELD.sqr(right, fx);
+        FIELD.add(right, right, A_LIMBS);
+        FIELD.mul(right, right, fx);
+        FIELD.add(right, right, FIELD.fromBigInteger(B));
+        return FIELD.equal(left, right);
     }
 
     public static BigInteger[] pointAdd(BigInteger[] P1, BigInteger[] Q) {
@@ -66,10 +81,16 @@ public class NistP521EC {
             }
         }
 
-        BigInteger lambda = y2.subtract(y1).multiply(x2.subtract(x1).modInverse(P)).mod(P);
-        BigInteger x3 = mod(lambda.pow(2).subtract(x1).subtract(x2));
-        BigInteger y3 = mod(lambda.multiply(x1.subtract(x3)).subtract(y1));
-        return new BigInteger[]{x3, y3};
+        long[] fx1 = FIELD.fromBigInteger(x1);
+        long[] fy1 = FIELD.fromBigInteger(y1);
+        long[] fx2 = FIELD.fromBigInteger(x2);
+        long[] lambda = FIELD.fromBigInteger(y2);
+        long[] t = FIELD.newElement();
+        FIELD.sub(lambda, lambda, fy1);
+        FIELD.sub(t, fx2, fx1);
+        FIELD.invert(t, t);
+        FIELD.mul(lambda, lambda, t);
+        return affineResult(lambda, fx1, fy1, fx2);
     }
 
     public static BigInteger[] pointDouble(BigInteger[] Q) {
@@ -78,23 +99,47 @@ public class NistP521EC {
         BigInteger x = Q[0], y = Q[1];
         if (y.equals(BigInteger.ZERO)) return null; // Point at infinity
 
-        BigInteger lambda = x.pow(2).multiply(BigInteger.valueOf(3)).add(A)
-                .multiply(y.multiply(BigInteger.TWO).modInverse(P)).mod(P);
-        BigInteger x3 = mod(lambda.pow(2).subtract(x.multiply(BigInteger.TWO)));
-        BigInteger y3 = mod(lambda.multiply(x.subtract(x3)).subtract(y));
-        return new BigInteger[]{x3, y3};
+        long[] fx = FIELD.fromBigInteger(x);
+        long[] fy = FIELD.fromBigInteger(y);
+        long[] lambda = FIELD.newElement();
+        long[] t = FIELD.newElement();
+        FIELD.sqr(t, fx);
+        FIELD.add(lambda, t, t);
+        FIELD.add(lambda, lambda, t);
+        FIELD.add(lambda, lambda, A_LIMBS);
+        FIELD.add(t, fy, fy);
+        FIELD.invert(t, t);
+        FIELD.mul(lambda, lambda, t);
+        return affineResult(lambda, fx, fy, fx);
+    }
+
+    // {lambda^2 - x1 - x2, lambda * (x1 - x3) - y1}
+    private static BigInteger[] affineResult(long[] lambda, long[] x1, long[] y1, long[] x2) {
+        long[] x3 = FIELD.newElement();
+        long[] y3 = FIELD.newElement();
+        FIELD.sqr(x3, lambda);
+        FIELD.sub(x3, x3, x1);
+        FIELD.sub(x3, x3, x2);
+        FIELD.sub(y3, x1, x3);
+        FIELD.mul(y3, lambda, y3);
+        FIELD.sub(y3, y3, y1);
+        return new BigInteger[]{FIELD.toBigInteger(x3), FIELD.toBigInteger(y3)};
     }
 
+    // Left-to-right double-and-add in Jacobian coordinates, one inversion at the end
     public static BigInteger[] scalarMultiply(BigInteger k, BigInteger[] P) {
-        BigInteger[] result = null;
-        BigInteger[] addend = P;
+        if (P == null) return null;
+        long[] x = FIELD.fromBigInteger(P[0]);
+        long[] y = FIELD.fromBigInteger(P[1]);
+        long[][] result = JACOBIAN.newPoint();
+        JACOBIAN.setInfinity(result);
 
         for (int i = k.bitLength() - 1; i >= 0; i--) {
-            if (result != null) result = pointDouble(result);
-            if (k.testBit(i)) result = pointAdd(result, addend);
+            JACOBIAN.doublePoint(result, result);
+            if (k.testBit(i)) JACOBIAN.addMixed(result, result, x, y);
         }
 
-        return result;
+        return JACOBIAN.toAffineCoordinates(result);
     }
 
     public static void printPoint(BigInteger[] point) {
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+// SHA256Hash for one-shot hashes and SHA256Context for incremental ones
+final class BuiltinHashProvider implements HashProvider {
+
+    static final BuiltinHashProvider INSTANCE = new BuiltinHashProvider();
+
+    private BuiltinHashProvider() {
+    }
+
+    @Override
+    public String getName() {
+        return HashProviders.BUILTIN;
+    }
+
+    @Override
+    public SHA256Digest newSHA256() {
+        return new SHA256Context();
+    }
+
+    @Override
+    public void sha256(byte[] message, int offset, int length, byte[] out, int outOffset) {
+        SHA256Hash.sha256(message, offset, length, out, outOffset);
+    }
+}
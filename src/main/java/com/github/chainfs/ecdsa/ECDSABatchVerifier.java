@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.SafeGcdInverse;
+import com.github.chainfs.ecc9.Pippenger;
+
+/**
+ * Verifies many ECDSA signatures with one multi-scalar multiplication.
+ *
+ * A valid signature with recovery id has R = u1 * G + u2 * Q, where R is the
+ * point recovered from r.  For random 128-bit a_i the batch is accepted when
+ *
+ *   (sum a_i u1_i) * G + sum (a_i u2_i) * Q_i - sum a_i * R_i = O,
+ *
+ * a single {@link Pippenger} sum in which signatures under the same key
+ * share one Q term.  A batch with an invalid signature passes with
+ * probability about 2^-128.  When the sum is not the identity the batch is
+ * bisected, each half checked with fresh coefficients, down to
+ * {@link ECDSASigner#verify} on single signatures; so the result for every
+ * entry equals that of verify, including entries whose recovery id is wrong.
+ * Signatures without a recovery id are verified one by one.
+ *
+ * The s^-1 of the whole batch share one inversion mod n.  The curve prime
+ * must be 3 mod 4 (secp256k1 and P-256 are) so that R.y is one
+ * exponentiation.
+ */
+public final class ECDSABatchVerifier {
+
+    // Ranges this small are verified one signature at a time
+    private static final int SINGLE_THRESHOLD = 2;
+
+    private final ECDSASigner signer;
+    private final BigInteger n;
+    private final ECPoint G;
+    private final ECCurve curve;
+    private final BigInteger p;
+    private final BigInteger sqrtExponent;
+    private final SafeGcdInverse nInverse;
+    private final SecureRandom random = new SecureRandom();
+
+    public ECDSABatchVerifier(ECDSASigner signer) {
+        this.signer = signer;
+        this.n = signer.getOrder();
+        this.G = signer.getGenerator();
+        this.curve = G.getCurve();
+        this.p = curve.getP();
+        if (!(p.testBit(0) && p.testBit(1))) {
+            throw new IllegalArgumentException("Batch verification needs a field prime that is 3 mod 4");
+        }
+        this.sqrtExponent = p.add(BigInteger.ONE).shiftRight(2);
+        this.nInverse = SafeGcdInverse.forModulus(n);
+    }
+
+    // true when every signature[i] is valid for hash z[i] and public key q[i]
+    public boolean verifyAll(BigInteger[] z, ECPoint[] q, ECDSASignature[] signatures) {
+        for (boolean valid : verify(z, q, signatures)) {
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // For every i, whether signatures[i] is valid for hash z[i] and public key q[i]
+    public boolean[] verify(BigInteger[] z, ECPoint[] q, ECDSASignature[] signatures) {
+        int count = signatures.length;
+        if (z.length != count || q.length != count) {
+            throw new IllegalArgumentException("Hashes, keys and signatures differ in length");
+        }
+        boolean[] valid = new boolean[count];
+        BigInteger nMinusOne = n.subtract(BigInteger.ONE);
+
+        // Entries that go into the linear combination, and s^-1 for all of them with one inversion
+        int[] batch = new int[count];
+        BigInteger[][] R = new BigInteger[count][];
+        int batched = 0;
+        for (int i = 0; i < count; i++) {
+            ECDSASignature sig = signatures[i];
+            BigInteger r = sig.getR();
+            BigInteger s = sig.getS();
+            if (r.signum() <= 0 || r.compareTo(nMinusOne) > 0 || s.signum() <= 0 || s.compareTo(nMinusOne) > 0
+                    || q[i].isInfinity()) {
+                continue;
+            }
+            R[i] = sig.hasRecoveryId() ? recoverR(r, sig.getRecoveryId()) : null;
+            if (R[i] == null) {
+                valid[i] = signer.verify(z[i], q[i], r, s);
+            } else {
+                batch[batched++] = i;
+            }
+        }
+
+        BigInteger[] u1 = new BigInteger[count];
+        BigInteger[] u2 = new BigInteger[count];
+        BigInteger[] prefix = new BigInteger[batched];
+        BigInteger acc = BigInteger.ONE;
+        for (int j = 0; j < batched; j++) {
+            acc = acc.multiply(signatures[batch[j]].getS()).mod(n);
+            prefix[j] = acc;
+        }
+        BigInteger inv = batched == 0 ? BigInteger.ONE : nInverse.invert(acc);
+        for (int j = batched - 1; j >= 0; j--) {
+            int i = batch[j];
+            BigInteger w = j == 0 ? inv : inv.multiply(prefix[j - 1]).mod(n);
+            inv = inv.multiply(signatures[i].getS()).mod(n);
+            u1[i] = z[i].multiply(w).mod(n);
+            u2[i] = signatures[i].getR().multiply(w).mod(n);
+        }
+
+        check(z, q, signatures, batch, 0, batched, u1, u2, R, valid);
+        return valid;
+    }
+
+    // Marks batch[from, to) valid when their combination passes, bisecting otherwise
+    private void check(BigInteger[] z, ECPoint[] q, ECDSASignature[] signatures, int[] batch, int from, int to,
+            BigInteger[] u1, BigInteger[] u2, BigInteger[][] R, boolean[] valid) {
+        if (to - from <= SINGLE_THRESHOLD) {
+            for (int j = from; j < to; j++) {
+                int i = batch[j];
+                valid[i] = signer.verify(z[i], q[i], signatures[i].getR(), signatures[i].getS());
+            }
+            return;
+        }
+        if (combinationIsIdentity(q, batch, from, to, u1, u2, R)) {
+            for (int j = from; j < to; j++) {
+                valid[batch[j]] = true;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        check(z, q, signatures, batch, from, mid, u1, u2, R, valid);
+        check(z, q, signatures, batch, mid, to, u1, u2, R, valid);
+    }
+
+    private boolean combinationIsIdentity(ECPoint[] q, int[] batch, int from, int to,
+            BigInteger[] u1, BigInteger[] u2, BigInteger[][] R) {
+        BigInteger gScalar = BigInteger.ZERO;
+        Map<ECPoint, BigInteger> keyScalars = new LinkedHashMap<>();
+        BigInteger[] rScalars = new BigInteger[to - from];
+        BigInteger[][] rPoints = new BigInteger[to - from][];
+        for (int j = from; j < to; j++) {
+            int i = batch[j];
+            BigInteger a = randomCoefficient();
+            gScalar = gScalar.add(a.multiply(u1[i]));
+            keyScalars.merge(q[i], a.multiply(u2[i]), BigInteger::add);
+            rScalars[j - from] = a.negate();
+            rPoints[j - from] = R[i];
+        }
+
+        int terms = 1 + keyScalars.size() + rScalars.length;
+        BigInteger[] k = new BigInteger[terms];
+        BigInteger[][] points = new BigInteger[terms][];
+        k[0] = gScalar.mod(n);
+        points[0] = new BigInteger[]{G.getX(), G.getY()};
+        int t = 1;
+        for (Map.Entry<ECPoint, BigInteger> e : keyScalars.entrySet()) {
+            k[t] = e.getValue().mod(n);
+            points[t++] = new BigInteger[]{e.getKey().getX(), e.getKey().getY()};
+        }
+        System.arraycopy(rScalars, 0, k, t, rScalars.length);
+        System.arraycopy(rPoints, 0, points, t, rPoints.length);
+        return Pippenger.multiply(curve, k, points) == null;
+    }
+
+    private BigInteger randomCoefficient() {
+        BigInteger a;
+        do {
+            a = new BigInteger(128, random);
+        } while (a.signum() == 0);
+        return a;
+    }
+
+    // R as affine {x, y} from r and the recovery id, or null when no such point exists
+    private BigInteger[] recoverR(BigInteger r, int recoveryId) {
+        BigInteger x = (recoveryId & 2) != 0 ? r.add(n) : r;
+        if (x.compareTo(p) >= 0) {
+            return null;
+        }
+        BigInteger rhs = x.multiply(x).add(curve.getA()).multiply(x).add(curve.getB()).mod(p);
+        BigInteger y = rhs.modPow(sqrtExponent, p);
+        if (!y.multiply(y).mod(p).equals(rhs)) {
+            return null;
+        }
+        if (y.testBit(0) != ((recoveryId & 1) != 0)) {
+            y = p.subtract(y);
+        }
+        return new BigInteger[]{x, y};
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * An ECDSA signature (r, s) with an optional recovery id.
+ *
+ * The recovery id names the point R = k * G that r came from: bit 0 is the
+ * parity of R.y and bit 1 is set when R.x = r + n.  It is what lets
+ * {@link ECDSABatchVerifier} put R itself into a linear combination; -1
+ * means unknown.
+ */
+public final class ECDSASignature {
+
+    public static final int UNKNOWN_RECOVERY_ID = -1;
+
+    private final BigInteger r;
+    private final BigInteger s;
+    private final int recoveryId;
+
+    public ECDSASignature(BigInteger r, BigInteger s) {
+        this(r, s, UNKNOWN_RECOVERY_ID);
+    }
+
+    public ECDSASignature(BigInteger r, BigInteger s, int recoveryId) {
+        if (recoveryId < UNKNOWN_RECOVERY_ID || recoveryId > 3) {
+            throw new IllegalArgumentException("Recovery id must be -1 to 3: " + recoveryId);
+        }
+        this.r = r;
+        this.s = s;
+        this.recoveryId = recoveryId;
+    }
+
+    public BigInteger getR() {
+        return r;
+    }
+
+    public BigInteger getS() {
+        return s;
+    }
+
+    public int getRecoveryId() {
+        return recoveryId;
+    }
+
+    public boolean hasRecoveryId() {
+        return recoveryId != UNKNOWN_RECOVERY_ID;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ECDSASignature)) return false;
+        ECDSASignature other = (ECDSASignature) obj;
+        return r.equals(other.r) && s.equals(other.s) && recoveryId == other.recoveryId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(r, s, recoveryId);
+    }
+
+    @Override
+    public String toString() {
+        return "ECDSASignature(r=" + r.toString(16) + ", s=" + s.toString(16) + ", recoveryId=" + recoveryId + ")";
+    }
+}
@@ -16,42 +16,229 @@
 package com.github.chainfs.ecdsa;
 
 import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+import com.github.chainfs.ecc.JacobianArithmetic;
+import com.github.chainfs.ecc.SafeGcdInverse;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecc.StraussShamir;
+import com.github.chainfs.ecc.WnafTable;
 
 public class ECDSASigner {
 
+    private static final Logger logger = LoggerFactory.getLogger(ECDSASigner.class);
+
     private final BigInteger n;  // order of the curve
     private final ECPoint G;     // base point
-    private final RFC6979Nonce rfc6979;
+    private final ThreadLocal<RFC6979NonceGenerator> nonces; // one nonce generator, and its buffers, per signing thread
+    private final SafeGcdInverse nInverse; // constant-time inversion mod n for k^-1 and s^-1
+    private final boolean useEndomorphism; // split u1, u2 with the secp256k1 GLV endomorphism
+    private volatile FixedBaseTable gTable; // precomputed multiples of G, built on the first sign
+    private volatile WnafTable gWnafTable;  // odd multiples of G, built on the first verify
+    private volatile PublicKeyTableCache keyTables; // fixed-base tables for frequently verified keys
+
+    // wNAF window for G in verify; its table is kept, so it can be wider than the one for Q
+    private static final int G_WNAF_WINDOW = 7;
+
+    // Signatures per fork/join task in signBatch
+    private static final int BATCH_CHUNK = 64;
+
+    private static volatile int parallelThreshold = 256;
+
+    private static final boolean ENDOMORPHISM_DEFAULT =
+            Boolean.parseBoolean(System.getProperty("chainfs.ecdsa.endomorphism", "true"));
 
     public ECDSASigner(BigInteger n, ECPoint G) {
+        this(n, G, ENDOMORPHISM_DEFAULT);
+    }
+
+    // useEndomorphism only takes effect for secp256k1, other curves have no such map
+    public ECDSASigner(BigInteger n, ECPoint G, boolean useEndomorphism) {
         this.n = n;
         this.G = G;
-        this.rfc6979 = new RFC6979Nonce();
+        this.nonces = ThreadLocal.withInitial(() -> new RFC6979NonceGenerator(n));
+        this.nInverse = SafeGcdInverse.forModulus(n);
+        this.useEndomorphism = useEndomorphism
+                && n.equals(Secp256k1Endomorphism.N) && Secp256k1Endomorphism.isSecp256k1(G.getCurve());
+        this.keyTables = new PublicKeyTableCache(
+                PublicKeyTableCache.DEFAULT_CAPACITY, PublicKeyTableCache.DEFAULT_THRESHOLD, n.bitLength());
+    }
+
+    public PublicKeyTableCache getKeyTableCache() {
+        return keyTables;
+    }
+
+    // Replaces the cache of public key tables verify uses; a cache of capacity 0 turns it off
+    public void setKeyTableCache(PublicKeyTableCache cache) {
+        this.keyTables = cache;
     }
 
     // sign message hash z with private key d
     public BigInteger[] sign(BigInteger d, BigInteger z) {
-        BigInteger k = RFC6979Nonce.generateK(z, d, n);
+        ECDSASignature signature = signRecoverable(d, z);
+        return new BigInteger[]{signature.getR(), signature.getS()};
+    }
+
+    // sign message hash z with private key d, keeping the recovery id of R
+    public ECDSASignature signRecoverable(BigInteger d, BigInteger z) {
+        BigInteger k = nonces.get().generateK(z, d);
 
         // R = k * G
-        ECPoint R = G.multiply(k);
+        ECPoint R = generatorTable().multiply(k);
         BigInteger r = R.getX().mod(n);
         if (r.equals(BigInteger.ZERO)) {
             throw new RuntimeException("r is zero, try again");
         }
 
-        BigInteger kInv = k.modInverse(n);
+        BigInteger kInv = nInverse.invert(k);
         BigInteger s = kInv.multiply(z.add(r.multiply(d))).mod(n);
         if (s.equals(BigInteger.ZERO)) {
             throw new RuntimeException("s is zero, try again");
         }
-        System.out.println("Sign: k = " + k.toString(16));
-        System.out.println("Sign: R.x = " + R.getX().toString(16));
-        System.out.println("Sign: r = " + r.toString(16));
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sign: r = {}", r.toString(16));
+        }
+
+        return new ECDSASignature(r, s, recoveryId(R));
+    }
+
+    private int recoveryId(ECPoint R) {
+        return (R.getY().testBit(0) ? 1 : 0) | (R.getX().compareTo(n) >= 0 ? 2 : 0);
+    }
+
+    public BigInteger getOrder() {
+        return n;
+    }
 
-        return new BigInteger[]{r, s};
+    public ECPoint getGenerator() {
+        return G;
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    // Smallest batch that signBatch splits across the fork/join pool; Integer.MAX_VALUE disables it
+    public static void setParallelThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 2");
+        }
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * Signs hash z[i] with private key d[i] for every i, returning {r, s}
+     * pairs equal to those of {@link #sign(BigInteger, BigInteger)}.
+     *
+     * All R = k * G come from the shared fixed-base table in Jacobian
+     * coordinates and are made affine together with one inversion mod p, and
+     * the k^-1 mod n share one inversion the same way.  From the parallel
+     * threshold upwards the batch is cut into chunks signed on the common
+     * fork/join pool, each worker with its own nonce generator.
+     */
+    public BigInteger[][] signBatch(BigInteger[] d, BigInteger[] z) {
+        if (d.length != z.length) {
+            throw new IllegalArgumentException("Keys and hashes differ in length");
+        }
+        BigInteger[][] signatures = new BigInteger[d.length][];
+        if (d.length >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            ForkJoinPool.commonPool().invoke(new BatchTask(d, z, signatures, 0, d.length));
+        } else {
+            for (int from = 0; from < d.length; from += BATCH_CHUNK) {
+                signRange(d, z, signatures, from, Math.min(d.length, from + BATCH_CHUNK));
+            }
+        }
+        return signatures;
+    }
+
+    // Signs entries [from, to) with one inversion mod p for the R points and one mod n for the nonces
+    private void signRange(BigInteger[] d, BigInteger[] z, BigInteger[][] signatures, int from, int to) {
+        int count = to - from;
+        RFC6979NonceGenerator generator = nonces.get();
+        FixedBaseTable table = generatorTable();
+        BigInteger[] k = new BigInteger[count];
+        BigInteger[][] jacobian = new BigInteger[count][];
+        for (int i = 0; i < count; i++) {
+            k[i] = generator.generateK(z[from + i], d[from + i]);
+            jacobian[i] = table.multiplyJacobian(k[i]);
+        }
+        ECPoint[] R = JacobianArithmetic.normalizeAll(G.getCurve(), jacobian);
+
+        // prefix[i] = k[0] * ... * k[i] mod n, then peel one inverse off per entry
+        BigInteger[] prefix = new BigInteger[count];
+        BigInteger acc = BigInteger.ONE;
+        for (int i = 0; i < count; i++) {
+            acc = acc.multiply(k[i]).mod(n);
+            prefix[i] = acc;
+        }
+        BigInteger inv = nInverse.invert(acc);
+
+        for (int i = count - 1; i >= 0; i--) {
+            BigInteger kInv = i == 0 ? inv : inv.multiply(prefix[i - 1]).mod(n);
+            inv = inv.multiply(k[i]).mod(n);
+            BigInteger r = R[i].getX().mod(n);
+            if (r.equals(BigInteger.ZERO)) {
+                throw new RuntimeException("r is zero, try again");
+            }
+            BigInteger s = kInv.multiply(z[from + i].add(r.multiply(d[from + i]))).mod(n);
+            if (s.equals(BigInteger.ZERO)) {
+                throw new RuntimeException("s is zero, try again");
+            }
+            signatures[from + i] = new BigInteger[]{r, s};
+        }
+    }
+
+    // Splits the batch in halves down to BATCH_CHUNK signatures
+    private final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger[] d;
+        private final BigInteger[] z;
+        private final BigInteger[][] signatures;
+        private final int from;
+        private final int to;
+
+        BatchTask(BigInteger[] d, BigInteger[] z, BigInteger[][] signatures, int from, int to) {
+            this.d = d;
+            this.z = z;
+            this.signatures = signatures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_CHUNK) {
+                signRange(d, z, signatures, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(d, z, signatures, from, mid), new BatchTask(d, z, signatures, mid, to));
+        }
+    }
+
+    private FixedBaseTable generatorTable() {
+        FixedBaseTable table = gTable;
+        if (table == null) {
+            table = FixedBaseTable.forPoint(G, n.bitLength());
+            gTable = table;
+        }
+        return table;
+    }
+
+    private WnafTable generatorWnafTable() {
+        WnafTable table = gWnafTable;
+        if (table == null) {
+            table = new WnafTable(G, G_WNAF_WINDOW);
+            gWnafTable = table;
+        }
+        return table;
     }
 
     public boolean verify(BigInteger z, ECPoint Q, BigInteger r, BigInteger s) {
@@ -60,7 +247,7 @@ public class ECDSASigner {
         if (s.compareTo(BigInteger.ONE) < 0 || s.compareTo(n.subtract(BigInteger.ONE)) > 0) return false;
 
         // Compute w = s^(-1) mod n
-        BigInteger w = s.modInverse(n);
+        BigInteger w = nInverse.invert(s);
 
         // Compute u1 = z * w mod n
         BigInteger u1 = z.multiply(w).mod(n);
@@ -68,8 +255,15 @@ public class ECDSASigner {
         // Compute u2 = r * w mod n
         BigInteger u2 = r.multiply(w).mod(n);
 
-        // Calculate point: u1*G + u2*Q
-        ECPoint point = G.multiply(u1).add(Q.multiply(u2));
+        ECPoint point;
+        FixedBaseTable qTable = keyTables.lookup(Q);
+        if (qTable != null) {
+            // Q has a table of its own: two fixed-base multiplications and no doublings
+            point = JacobianArithmetic.toAffine(G.getCurve(), JacobianArithmetic.add(G.getCurve(),
+                    generatorTable().multiplyJacobian(u1), qTable.multiplyJacobian(u2)));
+        } else {
+            point = multiplyWnaf(Q, u1, u2);
+        }
 
         if (point.isInfinity()) return false;
 
@@ -78,4 +272,13 @@ public class ECDSASigner {
         return x1.equals(r);
     }
 
+    // u1*G + u2*Q with one shared chain of doublings
+    private ECPoint multiplyWnaf(ECPoint Q, BigInteger u1, BigInteger u2) {
+        WnafTable[] tables = {generatorWnafTable(), new WnafTable(Q, StraussShamir.DEFAULT_WINDOW)};
+        BigInteger[] scalars = {u1, u2};
+        return JacobianArithmetic.toAffine(G.getCurve(), useEndomorphism
+                ? Secp256k1Endomorphism.multiplyJacobian(tables, scalars)
+                : StraussShamir.multiplyJacobian(tables, scalars));
+    }
+
 }
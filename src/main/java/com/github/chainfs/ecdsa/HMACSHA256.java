@@ -15,37 +15,127 @@
  */
 package com.github.chainfs.ecdsa;
 
-public class HMACSHA256 {
+import java.util.Arrays;
+
+/**
+ * HMAC-SHA256 (RFC 2104).
+ *
+ * The static {@link #hmac(byte[], byte[])} is a one-shot MAC.  An instance
+ * is keyed once with {@link #init(byte[])}, which hashes the ipad and opad
+ * blocks and keeps the two resulting digests; every MAC under that key then
+ * restores those midstates, saving two of the compressions a fresh HMAC
+ * needs and every array the padding used to build.  The digests come from a
+ * {@link HashProvider}, by default {@link HashProviders#getDefault()}.  An
+ * instance is not thread safe.
+ */
+public class HMACSHA256 implements KeyedMac {
     private static final int BLOCK_SIZE = 64; // 512 bits = 64 bytes
 
-    // Compute HMAC-SHA256(key, message)
-    public static byte[] hmac(byte[] key, byte[] message) {
-        if (key.length > BLOCK_SIZE) {
-            key = SHA256Hash.sha256(key); // hash long keys first
-        }
+    public static final int MAC_LENGTH = SHA256Hash.DIGEST_LENGTH;
+
+    private final HashProvider provider;
+    private final SHA256Digest innerMidstate;
+    private final SHA256Digest outerMidstate;
+    private final SHA256Digest inner;
+    private final SHA256Digest outer;
+    private final byte[] pad = new byte[BLOCK_SIZE];
+    private final byte[] innerHash = new byte[MAC_LENGTH];
+    private boolean keyed;
 
-        // Pad key to BLOCK_SIZE with zeros
-        byte[] keyPadded = new byte[BLOCK_SIZE];
-        System.arraycopy(key, 0, keyPadded, 0, key.length);
+    public HMACSHA256() {
+        this(HashProviders.getDefault());
+    }
 
-        byte[] oKeyPad = new byte[BLOCK_SIZE];
-        byte[] iKeyPad = new byte[BLOCK_SIZE];
+    public HMACSHA256(HashProvider provider) {
+        this.provider = provider;
+        this.innerMidstate = provider.newSHA256();
+        this.outerMidstate = provider.newSHA256();
+        this.inner = provider.newSHA256();
+        this.outer = provider.newSHA256();
+    }
 
+    public HMACSHA256(byte[] key) {
+        this();
+        init(key);
+    }
+
+    public HashProvider getProvider() {
+        return provider;
+    }
+
+    // Sets the key and starts a new MAC
+    public HMACSHA256 init(byte[] key) {
+        return init(key, 0, key.length);
+    }
+
+    @Override
+    public HMACSHA256 init(byte[] key, int offset, int length) {
+        if (length > BLOCK_SIZE) {
+            provider.sha256(key, offset, length, pad, 0); // hash long keys first
+            Arrays.fill(pad, MAC_LENGTH, BLOCK_SIZE, (byte) 0);
+        } else {
+            System.arraycopy(key, offset, pad, 0, length);
+            Arrays.fill(pad, length, BLOCK_SIZE, (byte) 0);
+        }
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            pad[i] ^= 0x36;
+        }
+        innerMidstate.reset();
+        innerMidstate.update(pad, 0, BLOCK_SIZE);
         for (int i = 0; i < BLOCK_SIZE; i++) {
-            oKeyPad[i] = (byte)(keyPadded[i] ^ 0x5c);
-            iKeyPad[i] = (byte)(keyPadded[i] ^ 0x36);
+            pad[i] ^= 0x36 ^ 0x5c;
         }
+        outerMidstate.reset();
+        outerMidstate.update(pad, 0, BLOCK_SIZE);
+        Arrays.fill(pad, (byte) 0);
+        keyed = true;
+        inner.restore(innerMidstate);
+        return this;
+    }
 
-        // inner hash = SHA256(iKeyPad || message)
-        byte[] innerData = new byte[iKeyPad.length + message.length];
-        System.arraycopy(iKeyPad, 0, innerData, 0, iKeyPad.length);
-        System.arraycopy(message, 0, innerData, iKeyPad.length, message.length);
-        byte[] innerHash = SHA256Hash.sha256(innerData);
-
-        // outer hash = SHA256(oKeyPad || innerHash)
-        byte[] outerData = new byte[oKeyPad.length + innerHash.length];
-        System.arraycopy(oKeyPad, 0, outerData, 0, oKeyPad.length);
-        System.arraycopy(innerHash, 0, outerData, oKeyPad.length, innerHash.length);
-        return SHA256Hash.sha256(outerData);
+    @Override
+    public HMACSHA256 update(byte b) {
+        inner.update(b);
+        return this;
+    }
+
+    public HMACSHA256 update(byte[] data) {
+        inner.update(data, 0, data.length);
+        return this;
+    }
+
+    @Override
+    public HMACSHA256 update(byte[] data, int offset, int length) {
+        inner.update(data, offset, length);
+        return this;
+    }
+
+    // Writes the MAC of everything since init or the last doFinal, and starts a new MAC under the same key
+    @Override
+    public void doFinal(byte[] out, int offset) {
+        if (!keyed) {
+            throw new IllegalStateException("HMAC key not set");
+        }
+        inner.digest(innerHash, 0);
+        outer.restore(outerMidstate);
+        outer.update(innerHash, 0, MAC_LENGTH);
+        outer.digest(out, offset);
+        inner.restore(innerMidstate);
+    }
+
+    public byte[] doFinal() {
+        byte[] out = new byte[MAC_LENGTH];
+        doFinal(out, 0);
+        return out;
+    }
+
+    @Override
+    public int getMacLength() {
+        return MAC_LENGTH;
+    }
+
+    // Compute HMAC-SHA256(key, message)
+    public static byte[] hmac(byte[] key, byte[] message) {
+        return new HMACSHA256(key).update(message).doFinal();
     }
 }
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+/**
+ * The SHA-256 engine behind the hashing in this package: HMAC-SHA256 and so
+ * RFC 6979 nonces, BIP-340 tagged hashes and Schnorr challenges.
+ *
+ * {@link HashProviders#builtin()} is the pure-Java {@link SHA256Hash} and
+ * {@link SHA256Context}; {@link HashProviders#jdk()} delegates to
+ * {@code MessageDigest.getInstance("SHA-256")}, which HotSpot compiles to the
+ * SHA extensions of the CPU where it has them.  {@link HashProviders}
+ * chooses the default.
+ */
+public interface HashProvider {
+
+    // "builtin" or "jdk"
+    String getName();
+
+    SHA256Digest newSHA256();
+
+    // SHA-256 of message[offset, offset + length) into out[outOffset, outOffset + 32)
+    void sha256(byte[] message, int offset, int length, byte[] out, int outOffset);
+
+    default byte[] sha256(byte[] message) {
+        byte[] out = new byte[SHA256Hash.DIGEST_LENGTH];
+        sha256(message, 0, message.length, out, 0);
+        return out;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.VMOption;
+
+/**
+ * The two {@link HashProvider}s and the choice of default.
+ *
+ * The default comes from, in order: {@link #setDefault(HashProvider)}; the
+ * system property {@code chainfs.sha256.provider}, one of {@code builtin},
+ * {@code jdk} or {@code auto} in any case; and otherwise {@code auto}, which
+ * an unknown property value also falls back to with a warning.  Auto probes on
+ * first use.  On HotSpot it reads the UseSHA flag, which is on when the CPU
+ * has what the SHA-256 intrinsic needs (SHA extensions, or AVX2 on x86);
+ * then the JDK digest is several times faster once compiled, and without
+ * it the two are Java code of about the same speed, so the built-in engine
+ * is kept.  Elsewhere both providers hash 64-byte messages in alternating
+ * rounds and the faster best round wins; a timing this early in the life of
+ * the JVM mostly measures the interpreter, which is why the flag comes
+ * first.
+ *
+ * Objects that hold a digest, such as {@link HMACSHA256} and
+ * {@link TaggedHash}, take the default when they are created.
+ */
+public final class HashProviders {
+
+    public static final String BUILTIN = "builtin";
+
+    public static final String JDK = "jdk";
+
+    public static final String AUTO = "auto";
+
+    public static final String PROPERTY = "chainfs.sha256.provider";
+
+    private static final Logger logger = LoggerFactory.getLogger(HashProviders.class);
+
+    private static final String INTRINSIC_FLAG = "UseSHA";
+
+    private static final int PROBE_ROUNDS = 8;
+    private static final int PROBE_HASHES = 200;
+
+    private static volatile HashProvider jdk;
+    private static volatile HashProvider defaultProvider;
+
+    private HashProviders() {
+    }
+
+    public static HashProvider builtin() {
+        return BuiltinHashProvider.INSTANCE;
+    }
+
+    public static HashProvider jdk() {
+        HashProvider provider = jdk;
+        if (provider == null) {
+            JdkHashProvider.newMessageDigest(); // fail here if the JDK has no SHA-256
+            provider = new JdkHashProvider();
+            jdk = provider;
+        }
+        return provider;
+    }
+
+    // builtin, jdk, or the probe's choice for auto, in any case
+    public static HashProvider forName(String name) {
+        String choice = name.trim().toLowerCase(Locale.ROOT);
+        if (BUILTIN.equals(choice)) {
+            return builtin();
+        }
+        if (JDK.equals(choice)) {
+            return jdk();
+        }
+        if (AUTO.equals(choice)) {
+            return probe();
+        }
+        throw new IllegalArgumentException("Unknown hash provider " + name + ", expected builtin, jdk or auto");
+    }
+
+    public static HashProvider getDefault() {
+        HashProvider provider = defaultProvider;
+        if (provider == null) {
+            synchronized (HashProviders.class) {
+                provider = defaultProvider;
+                if (provider == null) {
+                    provider = fromProperty();
+                    defaultProvider = provider;
+                }
+            }
+        }
+        return provider;
+    }
+
+    // Never throws for a bad value: every HMAC and tagged hash goes through the default
+    private static HashProvider fromProperty() {
+        String name = System.getProperty(PROPERTY, AUTO);
+        try {
+            return forName(name);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring {}={}, using auto: {}", PROPERTY, name, e.getMessage());
+            return probe();
+        }
+    }
+
+    public static void setDefault(HashProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("Hash provider must not be null");
+        }
+        defaultProvider = provider;
+    }
+
+    /**
+     * The JDK provider when the VM has the SHA-256 intrinsic, otherwise the
+     * faster of the two on 64-byte messages; the built-in engine when the
+     * JDK has no usable SHA-256.
+     */
+    public static HashProvider probe() {
+        HashProvider builtin = builtin();
+        HashProvider jdk;
+        try {
+            jdk = jdk();
+        } catch (IllegalStateException e) {
+            logger.debug("No JDK SHA-256, using the built-in engine", e);
+            return builtin;
+        }
+        Boolean intrinsic = intrinsicFlag();
+        if (intrinsic != null) {
+            logger.debug("{} is {}", INTRINSIC_FLAG, intrinsic);
+            return intrinsic ? jdk : builtin;
+        }
+        byte[] message = new byte[SHA256Hash.BLOCK_SIZE];
+        byte[] out = new byte[SHA256Hash.DIGEST_LENGTH];
+        long bestBuiltin = Long.MAX_VALUE;
+        long bestJdk = Long.MAX_VALUE;
+        for (int round = 0; round < PROBE_ROUNDS; round++) {
+            bestBuiltin = Math.min(bestBuiltin, time(builtin, message, out));
+            bestJdk = Math.min(bestJdk, time(jdk, message, out));
+        }
+        HashProvider faster = bestJdk < bestBuiltin ? jdk : builtin;
+        logger.debug("SHA-256 probe: builtin {} ns, jdk {} ns per round, using {}", bestBuiltin, bestJdk,
+                faster.getName());
+        return faster;
+    }
+
+    // The HotSpot flag, or null when the VM does not report it
+    private static Boolean intrinsicFlag() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if (hotSpot == null) {
+                return null;
+            }
+            VMOption option = hotSpot.getVMOption(INTRINSIC_FLAG);
+            return Boolean.valueOf(option.getValue());
+        } catch (RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Hashes chain through message so that none of the work can be skipped
+    private static long time(HashProvider provider, byte[] message, byte[] out) {
+        long start = System.nanoTime();
+        for (int i = 0; i < PROBE_HASHES; i++) {
+            provider.sha256(message, 0, message.length, out, 0);
+            message[i & 31] ^= out[0];
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * MessageDigest SHA-256.  Midstates are clones of the digest, which the
+ * SUN provider supports; one-shot hashes use a digest kept per thread.
+ */
+final class JdkHashProvider implements HashProvider {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(JdkHashProvider::newMessageDigest);
+
+    @Override
+    public String getName() {
+        return HashProviders.JDK;
+    }
+
+    @Override
+    public SHA256Digest newSHA256() {
+        return new JdkDigest(newMessageDigest());
+    }
+
+    @Override
+    public void sha256(byte[] message, int offset, int length, byte[] out, int outOffset) {
+        MessageDigest md = digests.get();
+        md.update(message, offset, length);
+        finish(md, out, outOffset);
+    }
+
+    static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No " + ALGORITHM + " MessageDigest", e);
+        }
+    }
+
+    private static void finish(MessageDigest md, byte[] out, int offset) {
+        try {
+            md.digest(out, offset, SHA256Hash.DIGEST_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalArgumentException("Output buffer too short", e);
+        }
+    }
+
+    private static MessageDigest copyOf(MessageDigest md) {
+        try {
+            return (MessageDigest) md.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(md.getProvider() + " " + ALGORITHM + " cannot be cloned", e);
+        }
+    }
+
+    private static final class JdkDigest implements SHA256Digest {
+
+        private MessageDigest md;
+
+        JdkDigest(MessageDigest md) {
+            this.md = md;
+        }
+
+        @Override
+        public SHA256Digest update(byte b) {
+            md.update(b);
+            return this;
+        }
+
+        @Override
+        public SHA256Digest update(byte[] data, int offset, int length) {
+            md.update(data, offset, length);
+            return this;
+        }
+
+        @Override
+        public void digest(byte[] out, int offset) {
+            finish(md, out, offset);
+        }
+
+        @Override
+        public void reset() {
+            md.reset();
+        }
+
+        @Override
+        public SHA256Digest copy() {
+            return new JdkDigest(copyOf(md));
+        }
+
+        @Override
+        public void restore(SHA256Digest saved) {
+            md = copyOf(((JdkDigest) saved).md);
+        }
+    }
+}
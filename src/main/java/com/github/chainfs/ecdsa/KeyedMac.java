@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A reusable MAC that writes into caller buffers, the HMAC backend of
+ * {@link RFC6979NonceGenerator}.  {@link HMACSHA256} is the built-in one;
+ * {@link #fromJce(Mac)} adapts any javax.crypto HMAC.
+ */
+public interface KeyedMac {
+
+    // Sets the key and starts a new MAC
+    KeyedMac init(byte[] key, int offset, int length);
+
+    KeyedMac update(byte b);
+
+    KeyedMac update(byte[] data, int offset, int length);
+
+    // Writes getMacLength() bytes at out[offset] and starts a new MAC under the same key
+    void doFinal(byte[] out, int offset);
+
+    int getMacLength();
+
+    // A KeyedMac over a JCE Mac such as Mac.getInstance("HmacSHA512"); keys must not be empty
+    static KeyedMac fromJce(final Mac mac) {
+        return new KeyedMac() {
+            @Override
+            public KeyedMac init(byte[] key, int offset, int length) {
+                try {
+                    mac.init(new SecretKeySpec(key, offset, length, mac.getAlgorithm()));
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalArgumentException("Cannot key " + mac.getAlgorithm(), e);
+                }
+                return this;
+            }
+
+            @Override
+            public KeyedMac update(byte b) {
+                mac.update(b);
+                return this;
+            }
+
+            @Override
+            public KeyedMac update(byte[] data, int offset, int length) {
+                mac.update(data, offset, length);
+                return this;
+            }
+
+            @Override
+            public void doFinal(byte[] out, int offset) {
+                try {
+                    mac.doFinal(out, offset);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalArgumentException("Output buffer too short", e);
+                }
+            }
+
+            @Override
+            public int getMacLength() {
+                return mac.getMacLength();
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+/**
+ * One SHA-256 compression for several independent messages at once, the
+ * engine under {@link SHA256MultiBuffer}.
+ *
+ * Arrays are word-major: word j of lane l is at index j * lanes() + l.  The
+ * state holds the 8 chaining words of every lane; the schedule has room for
+ * 64 words per lane, of which the caller fills the first 16 with the block.
+ */
+interface MultiBufferKernel {
+
+    int lanes();
+
+    void compress(int[] state, int[] w);
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+
+/**
+ * Fixed-base tables for the public keys a verifier sees most, so that
+ * u2 * Q costs the same table lookups and mixed additions as u1 * G.
+ *
+ * Building a table costs about as much as two or three dozen verifications,
+ * so a key only gets one on its threshold-th sighting.  Both the tables and
+ * the sighting counts are bounded and evict the least recently used key; the
+ * counts track up to four times as many keys as there are tables.  A
+ * capacity of 0 disables the cache.  Thread safe: the maps are guarded by
+ * the cache and tables are built outside the lock.
+ */
+public final class PublicKeyTableCache {
+
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("chainfs.ecdsa.keyTableCapacity", 64);
+
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("chainfs.ecdsa.keyTableThreshold", 32);
+
+    private final int capacity;
+    private final int threshold;
+    private final int bits;
+    private final LinkedHashMap<ECPoint, FixedBaseTable> tables;
+    private final LinkedHashMap<ECPoint, Integer> sightings;
+    private long hits;
+    private long builds;
+
+    // Tables for scalars of up to bits bits, built on a key's threshold-th sighting
+    public PublicKeyTableCache(int capacity, int threshold, int bits) {
+        if (capacity < 0 || threshold < 1) {
+            throw new IllegalArgumentException("Capacity must be non-negative and threshold positive");
+        }
+        this.capacity = capacity;
+        this.threshold = threshold;
+        this.bits = bits;
+        this.tables = new LinkedHashMap<ECPoint, FixedBaseTable>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ECPoint, FixedBaseTable> eldest) {
+                return size() > PublicKeyTableCache.this.capacity;
+            }
+        };
+        final int countCapacity = 4 * capacity;
+        this.sightings = new LinkedHashMap<ECPoint, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ECPoint, Integer> eldest) {
+                return size() > countCapacity;
+            }
+        };
+    }
+
+    /**
+     * Records a sighting of q and returns its table, building it when this
+     * sighting reaches the threshold; null while q is below the threshold.
+     */
+    public FixedBaseTable lookup(ECPoint q) {
+        if (capacity == 0 || q.isInfinity()) {
+            return null;
+        }
+        synchronized (this) {
+            FixedBaseTable table = tables.get(q);
+            if (table != null) {
+                hits++;
+                return table;
+            }
+            Integer seen = sightings.get(q);
+            int count = seen == null ? 1 : seen + 1;
+            if (count < threshold) {
+                sightings.put(q, count);
+                return null;
+            }
+            sightings.remove(q);
+        }
+        FixedBaseTable built = new FixedBaseTable(q, bits, FixedBaseTable.DEFAULT_WINDOW);
+        synchronized (this) {
+            builds++;
+            FixedBaseTable raced = tables.get(q);
+            if (raced != null) {
+                return raced;
+            }
+            tables.put(q, built);
+        }
+        return built;
+    }
+
+    public synchronized int size() {
+        return tables.size();
+    }
+
+    public synchronized boolean contains(ECPoint q) {
+        return tables.containsKey(q);
+    }
+
+    // Lookups answered from a cached table
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getBuilds() {
+        return builds;
+    }
+
+    public synchronized void clear() {
+        tables.clear();
+        sightings.clear();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Deterministic nonces per RFC 6979 section 3.2 for one group order, with
+ * all scratch space allocated once.
+ *
+ * V, K, the encoded private key and hash and the T buffer are sized from the
+ * order and the MAC length when the generator is built.  The integers are
+ * written into them directly rather than through toByteArray, and every HMAC
+ * is an update/doFinal on the one {@link KeyedMac}.  The only object a
+ * call allocates is the returned k.
+ *
+ * A generator is not thread safe: keep one per thread, as
+ * {@link ECDSASigner} and {@link RFC6979Nonce} do.
+ */
+public final class RFC6979NonceGenerator {
+
+    private final BigInteger n;
+    private final int qlen;
+    private final int rlen;
+    private final int hlen;
+    private final KeyedMac mac;
+    private final byte[] v;
+    private final byte[] k;
+    private final byte[] t;
+    private final byte[] xOctets;
+    private final byte[] hOctets;
+
+    // HMAC-SHA256, the MAC ECDSASigner uses
+    public RFC6979NonceGenerator(BigInteger n) {
+        this(n, new HMACSHA256());
+    }
+
+    public RFC6979NonceGenerator(BigInteger n, KeyedMac mac) {
+        if (n.signum() <= 0) {
+            throw new IllegalArgumentException("Group order must be positive");
+        }
+        this.n = n;
+        this.qlen = n.bitLength();
+        this.rlen = (qlen + 7) / 8;
+        this.mac = mac;
+        this.hlen = mac.getMacLength();
+        this.v = new byte[hlen];
+        this.k = new byte[hlen];
+        this.t = new byte[(rlen + hlen - 1) / hlen * hlen];
+        this.xOctets = new byte[rlen];
+        this.hOctets = new byte[rlen];
+    }
+
+    public BigInteger getOrder() {
+        return n;
+    }
+
+    /**
+     * The nonce for private key x (1 <= x < n) and message hash h1, already
+     * converted to an integer; bits2octets reduces it mod n.
+     */
+    public BigInteger generateK(BigInteger h1, BigInteger x) {
+        int2octets(x, xOctets);
+        int2octets(h1.signum() < 0 || h1.compareTo(n) >= 0 ? h1.mod(n) : h1, hOctets);
+
+        Arrays.fill(v, (byte) 0x01);
+        Arrays.fill(k, (byte) 0x00);
+
+        // K = HMAC_K(V || 0x00 || int2octets(x) || bits2octets(h1)), V = HMAC_K(V)
+        mac.init(k, 0, hlen);
+        seed((byte) 0x00);
+        // K = HMAC_K(V || 0x01 || int2octets(x) || bits2octets(h1)), V = HMAC_K(V)
+        seed((byte) 0x01);
+
+        while (true) {
+            for (int tlen = 0; tlen < rlen; tlen += hlen) {
+                nextV();
+                System.arraycopy(v, 0, t, tlen, hlen);
+            }
+            BigInteger candidate = bits2int();
+            if (candidate.signum() > 0 && candidate.compareTo(n) < 0) {
+                return candidate;
+            }
+            // K = HMAC_K(V || 0x00), V = HMAC_K(V)
+            mac.update(v, 0, hlen).update((byte) 0x00).doFinal(k, 0);
+            mac.init(k, 0, hlen);
+            nextV();
+        }
+    }
+
+    private void seed(byte separator) {
+        mac.update(v, 0, hlen).update(separator)
+                .update(xOctets, 0, rlen).update(hOctets, 0, rlen)
+                .doFinal(k, 0);
+        mac.init(k, 0, hlen);
+        nextV();
+    }
+
+    // V = HMAC_K(V), in place
+    private void nextV() {
+        mac.update(v, 0, hlen).doFinal(v, 0);
+    }
+
+    // The leftmost qlen bits of T
+    private BigInteger bits2int() {
+        BigInteger candidate = new BigInteger(1, t, 0, rlen);
+        int excess = 8 * rlen - qlen;
+        return excess == 0 ? candidate : candidate.shiftRight(excess);
+    }
+
+    // Big-endian, out.length bytes, reading the bits of v in place instead of through toByteArray
+    private static void int2octets(BigInteger v, byte[] out) {
+        int len = out.length;
+        for (int i = 0; i < len; i++) {
+            int b = 0;
+            for (int j = 7; j >= 0; j--) {
+                b = (b << 1) | (v.testBit(8 * i + j) ? 1 : 0);
+            }
+            out[len - 1 - i] = (byte) b;
+        }
+    }
+}
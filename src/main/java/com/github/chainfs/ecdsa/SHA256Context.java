@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Incremental SHA-256: feed the message in pieces with the update methods
+ * and finish with {@link #digest()}, in constant memory whatever the input
+ * size.
+ *
+ * Whole blocks are compressed where they lie, whether in an array or in a
+ * ByteBuffer; a direct or memory-mapped buffer is read word by word with
+ * absolute gets and never copied to the heap.  Only a block that straddles
+ * two updates goes through the 64-byte internal buffer.  For example, a file
+ * can be hashed through {@code FileChannel.map} one region at a time.
+ *
+ * A context is not thread safe.  After digest() it is reset and can be
+ * reused.  It is the {@link SHA256Digest} of {@link HashProviders#builtin()}.
+ */
+public final class SHA256Context implements SHA256Digest {
+
+    private static final int BLOCK_SIZE = SHA256Hash.BLOCK_SIZE;
+
+    private final int[] h = new int[8];
+    private final int[] w = new int[64];
+    private final byte[] buffer = new byte[2 * BLOCK_SIZE];
+    private int buffered;
+    private long length;
+
+    public SHA256Context() {
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        System.arraycopy(SHA256Hash.H, 0, h, 0, 8);
+        buffered = 0;
+        length = 0;
+    }
+
+    // Continues from a saved chaining value after length bytes, a multiple of the block size
+    void restore(int[] state, long length) {
+        System.arraycopy(state, 0, h, 0, 8);
+        this.buffered = 0;
+        this.length = length;
+    }
+
+    @Override
+    public SHA256Context copy() {
+        SHA256Context copy = new SHA256Context();
+        copy.restore(this);
+        return copy;
+    }
+
+    @Override
+    public void restore(SHA256Digest saved) {
+        SHA256Context context = (SHA256Context) saved;
+        System.arraycopy(context.h, 0, h, 0, 8);
+        System.arraycopy(context.buffer, 0, buffer, 0, context.buffered);
+        buffered = context.buffered;
+        length = context.length;
+    }
+
+    @Override
+    public SHA256Context update(byte b) {
+        buffer[buffered++] = b;
+        length++;
+        if (buffered == BLOCK_SIZE) {
+            SHA256Hash.compress(h, w, buffer, 0);
+            buffered = 0;
+        }
+        return this;
+    }
+
+    @Override
+    public SHA256Context update(byte[] data) {
+        return update(data, 0, data.length);
+    }
+
+    @Override
+    public SHA256Context update(byte[] data, int offset, int len) {
+        if (offset < 0 || len < 0 || offset > data.length - len) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + len + ", array " + data.length);
+        }
+        length += len;
+        int end = offset + len;
+        if (buffered > 0) {
+            int n = Math.min(BLOCK_SIZE - buffered, len);
+            System.arraycopy(data, offset, buffer, buffered, n);
+            buffered += n;
+            offset += n;
+            if (buffered < BLOCK_SIZE) {
+                return this;
+            }
+            SHA256Hash.compress(h, w, buffer, 0);
+            buffered = 0;
+        }
+        for (; end - offset >= BLOCK_SIZE; offset += BLOCK_SIZE) {
+            SHA256Hash.compress(h, w, data, offset);
+        }
+        System.arraycopy(data, offset, buffer, 0, end - offset);
+        buffered = end - offset;
+        return this;
+    }
+
+    /**
+     * Hashes the remaining bytes of data and advances its position to the
+     * limit.  Heap buffers go through their backing array, other buffers are
+     * read in place.
+     */
+    public SHA256Context update(ByteBuffer data) {
+        int len = data.remaining();
+        if (data.hasArray()) {
+            update(data.array(), data.arrayOffset() + data.position(), len);
+            data.position(data.limit());
+            return this;
+        }
+        length += len;
+        int pos = data.position();
+        int end = data.limit();
+        if (buffered > 0) {
+            int n = Math.min(BLOCK_SIZE - buffered, len);
+            for (int i = 0; i < n; i++) {
+                buffer[buffered + i] = data.get(pos + i);
+            }
+            buffered += n;
+            pos += n;
+            if (buffered < BLOCK_SIZE) {
+                data.position(pos);
+                return this;
+            }
+            SHA256Hash.compress(h, w, buffer, 0);
+            buffered = 0;
+        }
+        boolean bigEndian = data.order() == ByteOrder.BIG_ENDIAN;
+        for (; end - pos >= BLOCK_SIZE; pos += BLOCK_SIZE) {
+            for (int t = 0; t < 16; t++) {
+                int word = data.getInt(pos + 4 * t);
+                w[t] = bigEndian ? word : Integer.reverseBytes(word);
+            }
+            SHA256Hash.compressWords(h, w);
+        }
+        buffered = end - pos;
+        for (int i = 0; i < buffered; i++) {
+            buffer[i] = data.get(pos + i);
+        }
+        data.position(end);
+        return this;
+    }
+
+    // The hash of everything passed to update since the last reset; resets the context
+    @Override
+    public byte[] digest() {
+        byte[] out = new byte[SHA256Hash.DIGEST_LENGTH];
+        digest(out, 0);
+        return out;
+    }
+
+    @Override
+    public void digest(byte[] out, int offset) {
+        int tailLength = SHA256Hash.padTail(buffer, buffer, 0, buffered, length << 3);
+        for (int i = 0; i < tailLength; i += BLOCK_SIZE) {
+            SHA256Hash.compress(h, w, buffer, i);
+        }
+        SHA256Hash.putDigest(h, out, offset);
+        reset();
+    }
+}
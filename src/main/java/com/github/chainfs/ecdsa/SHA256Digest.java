@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+/**
+ * An incremental SHA-256 from a {@link HashProvider}.
+ *
+ * Besides update and digest a digest can be copied, and reset to a copy with
+ * {@link #restore(SHA256Digest)}; HMAC and tagged hashes use that to start
+ * every hash from a saved midstate.  A digest is not thread safe.
+ */
+public interface SHA256Digest {
+
+    SHA256Digest update(byte b);
+
+    SHA256Digest update(byte[] data, int offset, int length);
+
+    default SHA256Digest update(byte[] data) {
+        return update(data, 0, data.length);
+    }
+
+    // Writes the 32-byte hash of everything since the last reset at out[offset], and resets
+    void digest(byte[] out, int offset);
+
+    default byte[] digest() {
+        byte[] out = new byte[SHA256Hash.DIGEST_LENGTH];
+        digest(out, 0);
+        return out;
+    }
+
+    void reset();
+
+    // An independent digest in the same state
+    SHA256Digest copy();
+
+    // Continues from the state of saved, a digest of the same provider
+    void restore(SHA256Digest saved);
+}
@@ -15,205 +15,182 @@
  */
 package com.github.chainfs.ecdsa;
 
-import java.math.BigInteger;
 import java.util.Arrays;
 
+/**
+ * SHA-256 (FIPS 180-4) on primitive ints.
+ *
+ * Full 64-byte blocks are compressed straight from the input; only the last
+ * one or two padded blocks are copied.  The message schedule and the padding
+ * buffer are kept per thread and reused, so {@link #sha256(byte[])} allocates
+ * nothing but its 32-byte result, and {@link #sha256(byte[], int, int, byte[], int)}
+ * allocates nothing at all.  The 64 rounds are unrolled eight at a time with
+ * the working variables renamed instead of shifted.
+ */
 public class SHA256Hash {
 
-    private static final int WORD_SIZE = 32;
-    private static final BigInteger MOD = BigInteger.ONE.shiftLeft(WORD_SIZE);
-    private static final BigInteger MASK = MOD.subtract(BigInteger.ONE);
+    static final int BLOCK_SIZE = 64;
+
+    public static final int DIGEST_LENGTH = 32;
 
     // Initial hash values h0..h7
-    private static final BigInteger[] H = {
-        new BigInteger("6a09e667", 16),
-        new BigInteger("bb67ae85", 16),
-        new BigInteger("3c6ef372", 16),
-        new BigInteger("a54ff53a", 16),
-        new BigInteger("510e527f", 16),
-        new BigInteger("9b05688c", 16),
-        new BigInteger("1f83d9ab", 16),
-        new BigInteger("5be0cd19", 16)
+    static final int[] H = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
     };
 
     // Constants K
-    private static final BigInteger[] K = {
-        new BigInteger("428a2f98",16), new BigInteger("71374491",16), new BigInteger("b5c0fbcf",16), new BigInteger("e9b5dba5",16),
-        new BigInteger("3956c25b",16), new BigInteger("59f111f1",16), new BigInteger("923f82a4",16), new BigInteger("ab1c5ed5",16),
-        new BigInteger("d807aa98",16), new BigInteger("12835b01",16), new BigInteger("243185be",16), new BigInteger("550c7dc3",16),
-        new BigInteger("72be5d74",16), new BigInteger("80deb1fe",16), new BigInteger("9bdc06a7",16), new BigInteger("c19bf174",16),
-        new BigInteger("e49b69c1",16), new BigInteger("efbe4786",16), new BigInteger("0fc19dc6",16), new BigInteger("240ca1cc",16),
-        new BigInteger("2de92c6f",16), new BigInteger("4a7484aa",16), new BigInteger("5cb0a9dc",16), new BigInteger("76f988da",16),
-        new BigInteger("983e5152",16), new BigInteger("a831c66d",16), new BigInteger("b00327c8",16), new BigInteger("bf597fc7",16),
-        new BigInteger("c6e00bf3",16), new BigInteger("d5a79147",16), new BigInteger("06ca6351",16), new BigInteger("14292967",16),
-        new BigInteger("27b70a85",16), new BigInteger("2e1b2138",16), new BigInteger("4d2c6dfc",16), new BigInteger("53380d13",16),
-        new BigInteger("650a7354",16), new BigInteger("766a0abb",16), new BigInteger("81c2c92e",16), new BigInteger("92722c85",16),
-        new BigInteger("a2bfe8a1",16), new BigInteger("a81a664b",16), new BigInteger("c24b8b70",16), new BigInteger("c76c51a3",16),
-        new BigInteger("d192e819",16), new BigInteger("d6990624",16), new BigInteger("f40e3585",16), new BigInteger("106aa070",16),
-        new BigInteger("19a4c116",16), new BigInteger("1e376c08",16), new BigInteger("2748774c",16), new BigInteger("34b0bcb5",16),
-        new BigInteger("391c0cb3",16), new BigInteger("4ed8aa4a",16), new BigInteger("5b9cca4f",16), new BigInteger("682e6ff3",16),
-        new BigInteger("748f82ee",16), new BigInteger("78a5636f",16), new BigInteger("84c87814",16), new BigInteger("8cc70208",16),
-        new BigInteger("90befffa",16), new BigInteger("a4506ceb",16), new BigInteger("bef9a3f7",16), new BigInteger("c67178f2",16)
+    static final int[] K = {
+        0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+        0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+        0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+        0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+        0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+        0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+        0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+        0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
     };
 
-    // Bitwise rotate right (circular right shift) for 32-bit word using BigInteger
-    private static BigInteger rotr(BigInteger x, int n) {
-        n = n % WORD_SIZE;
-        return x.shiftRight(n).or(x.shiftLeft(WORD_SIZE - n)).and(MASK);
-    }
-
-    // Right shift
-    private static BigInteger shr(BigInteger x, int n) {
-        return x.shiftRight(n);
-    }
-
-    // Choice function: ch(x,y,z) = (x & y) ^ (~x & z)
-    private static BigInteger ch(BigInteger x, BigInteger y, BigInteger z) {
-        return x.and(y).xor(x.not().and(z)).and(MASK);
-    }
+    // Reused state of the one-shot functions, one per thread
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
 
-    // Majority function: maj(x,y,z) = (x & y) ^ (x & z) ^ (y & z)
-    private static BigInteger maj(BigInteger x, BigInteger y, BigInteger z) {
-        return x.and(y).xor(x.and(z)).xor(y.and(z)).and(MASK);
+    private static final class Workspace {
+        final int[] h = new int[8];
+        final int[] w = new int[64];
+        final byte[] tail = new byte[2 * BLOCK_SIZE];
     }
 
-    // Big sigma0
-    private static BigInteger bigSigma0(BigInteger x) {
-        return rotr(x, 2).xor(rotr(x, 13)).xor(rotr(x, 22));
+    // Main hash function
+    public static byte[] sha256(byte[] message) {
+        return sha256(message, 0, message.length);
     }
 
-    // Big sigma1
-    private static BigInteger bigSigma1(BigInteger x) {
-        return rotr(x, 6).xor(rotr(x, 11)).xor(rotr(x, 25));
+    public static byte[] sha256(byte[] message, int offset, int length) {
+        byte[] hash = new byte[DIGEST_LENGTH];
+        sha256(message, offset, length, hash, 0);
+        return hash;
     }
 
-    // Small sigma0
-    private static BigInteger smallSigma0(BigInteger x) {
-        return rotr(x, 7).xor(rotr(x, 18)).xor(shr(x, 3));
-    }
+    // Hash of message[offset, offset + length) written to out[outOffset, outOffset + 32)
+    public static void sha256(byte[] message, int offset, int length, byte[] out, int outOffset) {
+        Workspace ws = WORKSPACE.get();
+        int[] h = ws.h;
+        System.arraycopy(H, 0, h, 0, 8);
 
-    // Small sigma1
-    private static BigInteger smallSigma1(BigInteger x) {
-        return rotr(x, 17).xor(rotr(x, 19)).xor(shr(x, 10));
+        int end = offset + length;
+        int pos = offset;
+        for (; end - pos >= BLOCK_SIZE; pos += BLOCK_SIZE) {
+            compress(h, ws.w, message, pos);
+        }
+        int remaining = end - pos;
+        int tailLength = padTail(ws.tail, message, pos, remaining, (long) length << 3);
+        for (int i = 0; i < tailLength; i += BLOCK_SIZE) {
+            compress(h, ws.w, ws.tail, i);
+        }
+        putDigest(h, out, outOffset);
     }
 
-    // Add mod 2^32
-    private static BigInteger addMod32(BigInteger... vals) {
-        BigInteger sum = BigInteger.ZERO;
-        for (BigInteger v : vals) {
-            sum = sum.add(v);
+    /**
+     * Copies the last partial block into tail and appends the padding: the
+     * 1 bit, zeros, and the 64-bit big-endian bit length.  Returns the padded
+     * length, 64 or 128 bytes.
+     */
+    static int padTail(byte[] tail, byte[] src, int offset, int remaining, long bitLength) {
+        System.arraycopy(src, offset, tail, 0, remaining);
+        tail[remaining] = (byte) 0x80;
+        int tailLength = remaining + 9 <= BLOCK_SIZE ? BLOCK_SIZE : 2 * BLOCK_SIZE;
+        Arrays.fill(tail, remaining + 1, tailLength - 8, (byte) 0);
+        for (int i = 0; i < 8; i++) {
+            tail[tailLength - 1 - i] = (byte) (bitLength >>> (8 * i));
         }
-        return sum.and(MASK);
+        return tailLength;
     }
 
-    // Preprocessing: pad input to multiples of 512 bits (64 bytes)
-    private static byte[] preprocess(byte[] input) {
-        int originalLength = input.length;
-        long bitLength = (long) originalLength * 8;
-
-        // Padding: 1 bit + k zero bits + 64 bits for length
-        int paddingLength = (56 - (originalLength + 1) % 64) % 64; // pad to 448 mod 512 bits
-        int totalLength = originalLength + 1 + paddingLength + 8;
-
-        byte[] padded = new byte[totalLength];
-        System.arraycopy(input, 0, padded, 0, originalLength);
-
-        padded[originalLength] = (byte) 0x80; // append '1' bit
-
-        // Append length in bits as 64-bit big-endian integer
+    static void putDigest(int[] h, byte[] out, int offset) {
         for (int i = 0; i < 8; i++) {
-            padded[totalLength - 1 - i] = (byte) ((bitLength >>> (8 * i)) & 0xff);
+            int v = h[i];
+            out[offset + 4 * i] = (byte) (v >>> 24);
+            out[offset + 4 * i + 1] = (byte) (v >>> 16);
+            out[offset + 4 * i + 2] = (byte) (v >>> 8);
+            out[offset + 4 * i + 3] = (byte) v;
         }
-
-        return padded;
     }
 
-    // Convert 4 bytes to BigInteger word (unsigned 32-bit)
-    private static BigInteger toWord(byte[] data, int offset) {
-        int val = ((data[offset] & 0xff) << 24) |
-                  ((data[offset + 1] & 0xff) << 16) |
-                  ((data[offset + 2] & 0xff) << 8) |
-                  ((data[offset + 3] & 0xff));
-        return new BigInteger(Integer.toUnsignedString(val));
+    // One 64-byte block at block[offset] into the chaining value h, with w as the schedule buffer
+    static void compress(int[] h, int[] w, byte[] block, int offset) {
+        for (int t = 0; t < 16; t++) {
+            int i = offset + 4 * t;
+            w[t] = (block[i] << 24) | ((block[i + 1] & 0xff) << 16) | ((block[i + 2] & 0xff) << 8) | (block[i + 3] & 0xff);
+        }
+        compressWords(h, w);
     }
 
-    // Main hash function
-    public static byte[] sha256(byte[] message) {
-        byte[] padded = preprocess(message);
-
-        BigInteger[] h = Arrays.copyOf(H, H.length);
-
-        int numBlocks = padded.length / 64;
-
-        for (int i = 0; i < numBlocks; i++) {
-            BigInteger[] w = new BigInteger[64];
-
-            // Prepare message schedule
-            for (int t = 0; t < 16; t++) {
-                w[t] = toWord(padded, i * 64 + t * 4);
-            }
-            for (int t = 16; t < 64; t++) {
-                BigInteger s0 = smallSigma0(w[t - 15]);
-                BigInteger s1 = smallSigma1(w[t - 2]);
-                w[t] = addMod32(w[t - 16], s0, w[t - 7], s1);
-            }
-
-            // Initialize working vars
-            BigInteger a = h[0];
-            BigInteger b = h[1];
-            BigInteger c = h[2];
-            BigInteger d = h[3];
-            BigInteger e = h[4];
-            BigInteger f = h[5];
-            BigInteger g = h[6];
-            BigInteger hh = h[7];
-
-            // Main compression loop
-            for (int t = 0; t < 64; t++) {
-                BigInteger S1 = bigSigma1(e);
-                BigInteger ch = ch(e, f, g);
-                BigInteger temp1 = addMod32(hh, S1, ch, K[t], w[t]);
-                BigInteger S0 = bigSigma0(a);
-                BigInteger maj = maj(a, b, c);
-                BigInteger temp2 = addMod32(S0, maj);
-
-                hh = g;
-                g = f;
-                f = e;
-                e = addMod32(d, temp1);
-                d = c;
-                c = b;
-                b = a;
-                a = addMod32(temp1, temp2);
-            }
-
-            // Add chunk to hash values
-            h[0] = addMod32(h[0], a);
-            h[1] = addMod32(h[1], b);
-            h[2] = addMod32(h[2], c);
-            h[3] = addMod32(h[3], d);
-            h[4] = addMod32(h[4], e);
-            h[5] = addMod32(h[5], f);
-            h[6] = addMod32(h[6], g);
-            h[7] = addMod32(h[7], hh);
+    // The block whose 16 big-endian words are already in w[0..15]
+    static void compressWords(int[] h, int[] w) {
+        // Prepare message schedule
+        for (int t = 16; t < 64; t++) {
+            int x = w[t - 15];
+            int y = w[t - 2];
+            int s0 = Integer.rotateRight(x, 7) ^ Integer.rotateRight(x, 18) ^ (x >>> 3);
+            int s1 = Integer.rotateRight(y, 17) ^ Integer.rotateRight(y, 19) ^ (y >>> 10);
+            w[t] = w[t - 16] + s0 + w[t - 7] + s1;
         }
 
-        // Produce final hash bytes
-        byte[] hash = new byte[32];
-        for (int i = 0; i < 8; i++) {
-            byte[] part = h[i].toByteArray();
-
-            // h[i] might be shorter than 4 bytes if leading zeros, so pad:
-            byte[] paddedPart = new byte[4];
-            int copyStart = Math.max(0, part.length - 4);
-            int copyLen = Math.min(part.length, 4);
-            System.arraycopy(part, copyStart, paddedPart, 4 - copyLen, copyLen);
-
-            // Copy to output
-            System.arraycopy(paddedPart, 0, hash, i * 4, 4);
+        int a = h[0], b = h[1], c = h[2], d = h[3];
+        int e = h[4], f = h[5], g = h[6], hh = h[7];
+
+        // Main compression loop, eight rounds per pass; each round adds into the variable that becomes the new a
+        for (int t = 0; t < 64; t += 8) {
+            hh += (Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25))
+                    + ((e & f) ^ (~e & g)) + K[t] + w[t];
+            d += hh;
+            hh += (Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22))
+                    + ((a & b) ^ (a & c) ^ (b & c));
+            g += (Integer.rotateRight(d, 6) ^ Integer.rotateRight(d, 11) ^ Integer.rotateRight(d, 25))
+                    + ((d & e) ^ (~d & f)) + K[t + 1] + w[t + 1];
+            c += g;
+            g += (Integer.rotateRight(hh, 2) ^ Integer.rotateRight(hh, 13) ^ Integer.rotateRight(hh, 22))
+                    + ((hh & a) ^ (hh & b) ^ (a & b));
+            f += (Integer.rotateRight(c, 6) ^ Integer.rotateRight(c, 11) ^ Integer.rotateRight(c, 25))
+                    + ((c & d) ^ (~c & e)) + K[t + 2] + w[t + 2];
+            b += f;
+            f += (Integer.rotateRight(g, 2) ^ Integer.rotateRight(g, 13) ^ Integer.rotateRight(g, 22))
+                    + ((g & hh) ^ (g & a) ^ (hh & a));
+            e += (Integer.rotateRight(b, 6) ^ Integer.rotateRight(b, 11) ^ Integer.rotateRight(b, 25))
+                    + ((b & c) ^ (~b & d)) + K[t + 3] + w[t + 3];
+            a += e;
+            e += (Integer.rotateRight(f, 2) ^ Integer.rotateRight(f, 13) ^ Integer.rotateRight(f, 22))
+                    + ((f & g) ^ (f & hh) ^ (g & hh));
+            d += (Integer.rotateRight(a, 6) ^ Integer.rotateRight(a, 11) ^ Integer.rotateRight(a, 25))
+                    + ((a & b) ^ (~a & c)) + K[t + 4] + w[t + 4];
+            hh += d;
+            d += (Integer.rotateRight(e, 2) ^ Integer.rotateRight(e, 13) ^ Integer.rotateRight(e, 22))
+                    + ((e & f) ^ (e & g) ^ (f & g));
+            c += (Integer.rotateRight(hh, 6) ^ Integer.rotateRight(hh, 11) ^ Integer.rotateRight(hh, 25))
+                    + ((hh & a) ^ (~hh & b)) + K[t + 5] + w[t + 5];
+            g += c;
+            c += (Integer.rotateRight(d, 2) ^ Integer.rotateRight(d, 13) ^ Integer.rotateRight(d, 22))
+                    + ((d & e) ^ (d & f) ^ (e & f));
+            b += (Integer.rotateRight(g, 6) ^ Integer.rotateRight(g, 11) ^ Integer.rotateRight(g, 25))
+                    + ((g & hh) ^ (~g & a)) + K[t + 6] + w[t + 6];
+            f += b;
+            b += (Integer.rotateRight(c, 2) ^ Integer.rotateRight(c, 13) ^ Integer.rotateRight(c, 22))
+                    + ((c & d) ^ (c & e) ^ (d & e));
+            a += (Integer.rotateRight(f, 6) ^ Integer.rotateRight(f, 11) ^ Integer.rotateRight(f, 25))
+                    + ((f & g) ^ (~f & hh)) + K[t + 7] + w[t + 7];
+            e += a;
+            a += (Integer.rotateRight(b, 2) ^ Integer.rotateRight(b, 13) ^ Integer.rotateRight(b, 22))
+                    + ((b & c) ^ (b & d) ^ (c & d));
         }
 
-        return hash;
+        // Add chunk to hash values
+        h[0] += a;
+        h[1] += b;
+        h[2] += c;
+        h[3] += d;
+        h[4] += e;
+        h[5] += f;
+        h[6] += g;
+        h[7] += hh;
     }
 
     // Helper to convert bytes to hex string
@@ -0,0 +1,238 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SHA-256 of many independent messages, several at a time in lockstep: the
+ * messages of one group share each compression call, one lane per message.
+ * Meant for large numbers of small inputs such as tree node metadata, map
+ * values and Merkle leaves, where a single-message hash leaves the SIMD
+ * units of the CPU idle.
+ *
+ * Two kernels do the compressions.  The vector kernel uses
+ * jdk.incubator.vector with the widest preferred species (4, 8 or 16 int
+ * lanes); it is compiled from src/main/java-vector by the {@code vector}
+ * Maven profile and needs {@code --add-modules jdk.incubator.vector} at run
+ * time.  The scalar kernel is plain Java and always available.
+ * {@link #getDefault()} takes the vector kernel when it can be loaded; the
+ * system property {@code chainfs.sha256.multiBuffer} set to {@code scalar}
+ * or {@code vector} overrides that.  A value that cannot be honoured, such
+ * as {@code vector} without the incubator module or an unknown name, logs a
+ * warning and leaves the default on the scalar kernel.
+ *
+ * Messages are grouped by their padded block count, so lanes never idle
+ * inside a group; a last, partly filled group runs with the unused lanes
+ * repeating a message.  Instances are thread safe, each thread using its
+ * own kernel and buffers.
+ */
+public final class SHA256MultiBuffer {
+
+    public static final String PROPERTY = "chainfs.sha256.multiBuffer";
+
+    private static final Logger logger = LoggerFactory.getLogger(SHA256MultiBuffer.class);
+
+    private static final String VECTOR_KERNEL = "com.github.chainfs.ecdsa.VectorMultiBufferKernel";
+
+    private static final int SCALAR_LANES = 8;
+
+    private static final int BLOCK_SIZE = SHA256Hash.BLOCK_SIZE;
+
+    private static final boolean VECTOR_AVAILABLE = newVectorKernel() != null;
+
+    private static final SHA256MultiBuffer DEFAULT = createDefault();
+
+    private final boolean vector;
+    private final int lanes;
+    private final ThreadLocal<Workspace> workspace;
+
+    private final class Workspace {
+        final MultiBufferKernel kernel = vector ? newVectorKernel() : new ScalarMultiBufferKernel(lanes);
+        final int[] state = new int[8 * lanes];
+        final int[] w = new int[64 * lanes];
+        final byte[][] tails = new byte[lanes][2 * BLOCK_SIZE];
+        final byte[][] messages = new byte[lanes][];
+        final int[] fullBlocks = new int[lanes];
+    }
+
+    private SHA256MultiBuffer(boolean vector, int lanes) {
+        this.vector = vector;
+        this.lanes = lanes;
+        this.workspace = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    // The vector kernel when it is available, unless chainfs.sha256.multiBuffer says otherwise
+    public static SHA256MultiBuffer getDefault() {
+        return DEFAULT;
+    }
+
+    public static SHA256MultiBuffer scalar() {
+        return scalar(SCALAR_LANES);
+    }
+
+    public static SHA256MultiBuffer scalar(int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Lane count must be positive");
+        }
+        return new SHA256MultiBuffer(false, lanes);
+    }
+
+    public static SHA256MultiBuffer vector() {
+        if (!VECTOR_AVAILABLE) {
+            throw new UnsupportedOperationException(
+                    "Vector kernel not available; build with -Pvector and run with --add-modules jdk.incubator.vector");
+        }
+        return new SHA256MultiBuffer(true, newVectorKernel().lanes());
+    }
+
+    /**
+     * The instance for auto, scalar or vector, in any case.  vector falls
+     * back to the scalar kernel, with a warning, when the vector kernel is
+     * not available; auto picks the vector kernel only when it is.
+     */
+    public static SHA256MultiBuffer forName(String name) {
+        String choice = name.trim().toLowerCase(Locale.ROOT);
+        if ("scalar".equals(choice)) {
+            return scalar();
+        }
+        if ("auto".equals(choice) || "vector".equals(choice)) {
+            if (VECTOR_AVAILABLE) {
+                return vector();
+            }
+            if ("vector".equals(choice)) {
+                logger.warn("Vector SHA-256 kernel not available, using the scalar kernel; build with -Pvector"
+                        + " and run with --add-modules jdk.incubator.vector");
+            }
+            return scalar();
+        }
+        throw new IllegalArgumentException("Unknown multi-buffer kernel " + name + ", expected auto, scalar or vector");
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    public boolean isVector() {
+        return vector;
+    }
+
+    // Messages hashed per compression call
+    public int lanes() {
+        return lanes;
+    }
+
+    public byte[][] sha256(byte[][] messages) {
+        byte[][] digests = new byte[messages.length][SHA256Hash.DIGEST_LENGTH];
+        sha256(messages, digests);
+        return digests;
+    }
+
+    // digests[i] = SHA-256(messages[i]); each digests[i] must hold at least 32 bytes
+    public void sha256(byte[][] messages, byte[][] digests) {
+        int count = messages.length;
+        if (digests.length != count) {
+            throw new IllegalArgumentException("Messages and digests differ in length");
+        }
+        // sort by block count, keeping the index in the low half
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) blockCount(messages[i].length) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        Workspace ws = workspace.get();
+        for (int start = 0; start < count;) {
+            int blocks = (int) (order[start] >>> 32);
+            int end = start + 1;
+            while (end < count && end - start < lanes && (int) (order[end] >>> 32) == blocks) {
+                end++;
+            }
+            hashGroup(ws, messages, digests, order, start, end, blocks);
+            start = end;
+        }
+    }
+
+    private void hashGroup(Workspace ws, byte[][] messages, byte[][] digests, long[] order, int start, int end,
+            int blocks) {
+        int n = lanes;
+        int used = end - start;
+        int[] state = ws.state;
+        int[] w = ws.w;
+        for (int l = 0; l < n; l++) {
+            byte[] m = messages[(int) order[start + Math.min(l, used - 1)]];
+            int full = m.length / BLOCK_SIZE;
+            ws.messages[l] = m;
+            ws.fullBlocks[l] = full;
+            SHA256Hash.padTail(ws.tails[l], m, full * BLOCK_SIZE, m.length - full * BLOCK_SIZE, (long) m.length << 3);
+        }
+        for (int j = 0; j < 8; j++) {
+            Arrays.fill(state, j * n, (j + 1) * n, SHA256Hash.H[j]);
+        }
+        for (int b = 0; b < blocks; b++) {
+            for (int l = 0; l < n; l++) {
+                int full = ws.fullBlocks[l];
+                byte[] src = b < full ? ws.messages[l] : ws.tails[l];
+                int off = (b < full ? b : b - full) * BLOCK_SIZE;
+                for (int t = 0; t < 16; t++, off += 4) {
+                    w[t * n + l] = (src[off] << 24) | ((src[off + 1] & 0xff) << 16)
+                            | ((src[off + 2] & 0xff) << 8) | (src[off + 3] & 0xff);
+                }
+            }
+            ws.kernel.compress(state, w);
+        }
+        for (int l = 0; l < used; l++) {
+            byte[] out = digests[(int) order[start + l]];
+            for (int j = 0; j < 8; j++) {
+                int v = state[j * n + l];
+                out[4 * j] = (byte) (v >>> 24);
+                out[4 * j + 1] = (byte) (v >>> 16);
+                out[4 * j + 2] = (byte) (v >>> 8);
+                out[4 * j + 3] = (byte) v;
+            }
+        }
+        Arrays.fill(ws.messages, null);
+    }
+
+    // Compressions for a message of length bytes, padding included
+    private static int blockCount(int length) {
+        return (length + 9 + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    // Never throws: this runs in the static initializer
+    private static SHA256MultiBuffer createDefault() {
+        String choice = System.getProperty(PROPERTY, "auto");
+        try {
+            return forName(choice);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring {}={}, using the scalar kernel: {}", PROPERTY, choice, e.getMessage());
+            return scalar();
+        }
+    }
+
+    // The vector kernel, or null when it was not compiled in or the incubator module is missing
+    private static MultiBufferKernel newVectorKernel() {
+        try {
+            return (MultiBufferKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+/**
+ * The portable {@link MultiBufferKernel}: every step of the compression is a
+ * loop over the lanes with no dependencies between iterations, a shape the
+ * JIT can turn into SIMD instructions by itself.  The eight working
+ * variables are arrays that rotate by reference after each round.
+ */
+final class ScalarMultiBufferKernel implements MultiBufferKernel {
+
+    private final int lanes;
+    private final int[][] vars;
+
+    ScalarMultiBufferKernel(int lanes) {
+        this.lanes = lanes;
+        this.vars = new int[8][lanes];
+    }
+
+    @Override
+    public int lanes() {
+        return lanes;
+    }
+
+    @Override
+    public void compress(int[] state, int[] w) {
+        int n = lanes;
+        for (int t = 16; t < 64; t++) {
+            int o = t * n;
+            for (int l = 0; l < n; l++) {
+                int w2 = w[o - 2 * n + l];
+                int w15 = w[o - 15 * n + l];
+                int s0 = Integer.rotateRight(w15, 7) ^ Integer.rotateRight(w15, 18) ^ (w15 >>> 3);
+                int s1 = Integer.rotateRight(w2, 17) ^ Integer.rotateRight(w2, 19) ^ (w2 >>> 10);
+                w[o + l] = w[o - 16 * n + l] + s0 + w[o - 7 * n + l] + s1;
+            }
+        }
+
+        int[] a = vars[0], b = vars[1], c = vars[2], d = vars[3];
+        int[] e = vars[4], f = vars[5], g = vars[6], h = vars[7];
+        System.arraycopy(state, 0, a, 0, n);
+        System.arraycopy(state, n, b, 0, n);
+        System.arraycopy(state, 2 * n, c, 0, n);
+        System.arraycopy(state, 3 * n, d, 0, n);
+        System.arraycopy(state, 4 * n, e, 0, n);
+        System.arraycopy(state, 5 * n, f, 0, n);
+        System.arraycopy(state, 6 * n, g, 0, n);
+        System.arraycopy(state, 7 * n, h, 0, n);
+
+        for (int t = 0; t < 64; t++) {
+            int k = SHA256Hash.K[t];
+            int o = t * n;
+            for (int l = 0; l < n; l++) {
+                int el = e[l];
+                int al = a[l];
+                int t1 = h[l] + (Integer.rotateRight(el, 6) ^ Integer.rotateRight(el, 11) ^ Integer.rotateRight(el, 25))
+                        + (g[l] ^ (el & (f[l] ^ g[l]))) + k + w[o + l];
+                int t2 = (Integer.rotateRight(al, 2) ^ Integer.rotateRight(al, 13) ^ Integer.rotateRight(al, 22))
+                        + ((al & b[l]) | (c[l] & (al | b[l])));
+                d[l] += t1;      // the new e
+                h[l] = t1 + t2;  // the new a
+            }
+            int[] oldH = h;
+            h = g;
+            g = f;
+            f = e;
+            e = d;
+            d = c;
+            c = b;
+            b = a;
+            a = oldH;
+        }
+
+        int[][] out = {a, b, c, d, e, f, g, h};
+        for (int j = 0; j < 8; j++) {
+            int[] v = out[j];
+            int o = j * n;
+            for (int l = 0; l < n; l++) {
+                state[o + l] += v[l];
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+import com.github.chainfs.ecc.JacobianArithmetic;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecc.StraussShamir;
+import com.github.chainfs.ecc.WnafTable;
+import com.github.chainfs.ecc9.Pippenger;
+import com.github.chainfs.ecc9.Secp256k1EC;
+
+/**
+ * BIP-340 Schnorr signatures over secp256k1.
+ *
+ * Public keys are 32-byte x-only points with even y; signatures are
+ * bytes(R.x) || bytes(s), 64 bytes.  Messages may have any length, as in the
+ * current revision of BIP-340.  The three tagged hashes start from
+ * precomputed midstates ({@link TaggedHash}), R = k * G comes from the
+ * shared fixed-base table and verification computes s * G - e * P with the
+ * GLV endomorphism.
+ *
+ * {@link #verifyBatch(byte[][], byte[][], byte[][])} is the batch check of
+ * BIP-340: with a_1 = 1 and random 128-bit a_2 .. a_u it tests
+ * (sum a_i s_i) G - sum a_i R_i - sum (a_i e_i) P_i = O in one
+ * multi-scalar multiplication, where R_i is lifted from r_i and signatures
+ * under the same key share one P term.  Unlike ECDSA no recovery id is
+ * needed: R has even y by construction.
+ */
+public final class SchnorrSigner {
+
+    private static final ECCurve CURVE = ECCurve.getSecp256k1();
+    private static final BigInteger P = CURVE.getP();
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+    private static final ECPoint G = CURVE.createPoint(Secp256k1EC.GX, Secp256k1EC.GY);
+    private static final BigInteger SQRT_EXPONENT = P.add(BigInteger.ONE).shiftRight(2);
+    private static final BigInteger SEVEN = BigInteger.valueOf(7);
+
+    // wNAF window for G in verify, as in ECDSASigner
+    private static final int G_WNAF_WINDOW = 7;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile FixedBaseTable gTable;
+    private static volatile WnafTable gWnafTable;
+
+    private SchnorrSigner() {
+    }
+
+    // The x-only public key of a 32-byte secret key
+    public static byte[] publicKey(byte[] secretKey) {
+        BigInteger d = secretScalar(secretKey);
+        return toBytes(generatorTable().multiply(d).getX());
+    }
+
+    /**
+     * Signs message with the 32-byte secret key and 32 bytes of auxiliary
+     * randomness; aux may be all zero, which makes the signature
+     * deterministic.  The signature is verified before it is returned.
+     */
+    public static byte[] sign(byte[] secretKey, byte[] message, byte[] auxRand) {
+        if (auxRand.length != 32) {
+            throw new IllegalArgumentException("Auxiliary randomness must be 32 bytes");
+        }
+        BigInteger d = secretScalar(secretKey);
+        ECPoint publicPoint = generatorTable().multiply(d);
+        if (publicPoint.getY().testBit(0)) {
+            d = N.subtract(d);
+        }
+        byte[] px = toBytes(publicPoint.getX());
+
+        byte[] t = toBytes(d);
+        byte[] auxHash = TaggedHash.BIP340_AUX.hash(auxRand);
+        for (int i = 0; i < 32; i++) {
+            t[i] ^= auxHash[i];
+        }
+        BigInteger k = new BigInteger(1, TaggedHash.BIP340_NONCE.hash(t, px, message)).mod(N);
+        if (k.signum() == 0) {
+            throw new IllegalStateException("Nonce is zero");
+        }
+        ECPoint R = generatorTable().multiply(k);
+        if (R.getY().testBit(0)) {
+            k = N.subtract(k);
+        }
+        byte[] rx = toBytes(R.getX());
+        BigInteger e = challenge(rx, px, message);
+
+        byte[] signature = new byte[64];
+        System.arraycopy(rx, 0, signature, 0, 32);
+        System.arraycopy(toBytes(k.add(e.multiply(d)).mod(N)), 0, signature, 32, 32);
+        // BIP-340 recommends this check: a fault in the arithmetic must not leak a bad signature
+        if (!verify(px, message, signature)) {
+            throw new IllegalStateException("Produced signature does not verify");
+        }
+        return signature;
+    }
+
+    public static boolean verify(byte[] publicKey, byte[] message, byte[] signature) {
+        if (publicKey.length != 32 || signature.length != 64) {
+            return false;
+        }
+        ECPoint p = liftX(new BigInteger(1, publicKey));
+        BigInteger r = new BigInteger(1, signature, 0, 32);
+        BigInteger s = new BigInteger(1, signature, 32, 32);
+        if (p == null || r.compareTo(P) >= 0 || s.compareTo(N) >= 0) {
+            return false;
+        }
+        BigInteger e = challenge(signature, publicKey, message);
+
+        // R = s * G - e * P
+        WnafTable[] tables = {generatorWnafTable(), new WnafTable(p, StraussShamir.DEFAULT_WINDOW)};
+        BigInteger[] scalars = {s, N.subtract(e).mod(N)};
+        ECPoint R = JacobianArithmetic.toAffine(CURVE, Secp256k1Endomorphism.multiplyJacobian(tables, scalars));
+        return !R.isInfinity() && !R.getY().testBit(0) && R.getX().equals(r);
+    }
+
+    /**
+     * true only if every signature verifies (up to probability 2^-128 of a
+     * false accept); the arrays are parallel and must have the same length.
+     * When it fails, {@link #verify(byte[], byte[], byte[])} finds the culprit.
+     */
+    public static boolean verifyBatch(byte[][] publicKeys, byte[][] messages, byte[][] signatures) {
+        int u = signatures.length;
+        if (publicKeys.length != u || messages.length != u) {
+            throw new IllegalArgumentException("publicKeys, messages and signatures differ in length");
+        }
+        BigInteger sumS = BigInteger.ZERO;
+        Map<BigInteger, BigInteger> keyScalars = new LinkedHashMap<>();
+        Map<BigInteger, ECPoint> keyPoints = new LinkedHashMap<>();
+        BigInteger[] rScalars = new BigInteger[u];
+        BigInteger[][] rPoints = new BigInteger[u][];
+        for (int i = 0; i < u; i++) {
+            byte[] publicKey = publicKeys[i];
+            byte[] signature = signatures[i];
+            if (publicKey.length != 32 || signature.length != 64) {
+                return false;
+            }
+            BigInteger px = new BigInteger(1, publicKey);
+            ECPoint p = keyPoints.get(px);
+            if (p == null) {
+                p = liftX(px);
+                if (p == null) {
+                    return false;
+                }
+                keyPoints.put(px, p);
+            }
+            BigInteger r = new BigInteger(1, signature, 0, 32);
+            BigInteger s = new BigInteger(1, signature, 32, 32);
+            ECPoint R = r.compareTo(P) < 0 ? liftX(r) : null;
+            if (R == null || s.compareTo(N) >= 0) {
+                return false;
+            }
+            BigInteger e = challenge(signature, publicKey, messages[i]);
+            BigInteger a = i == 0 ? BigInteger.ONE : randomCoefficient();
+
+            sumS = sumS.add(a.multiply(s));
+            keyScalars.merge(px, a.multiply(e), BigInteger::add);
+            rScalars[i] = a.negate();
+            rPoints[i] = new BigInteger[]{R.getX(), R.getY()};
+        }
+
+        int terms = 1 + keyScalars.size() + u;
+        BigInteger[] k = new BigInteger[terms];
+        BigInteger[][] points = new BigInteger[terms][];
+        k[0] = sumS.mod(N);
+        points[0] = new BigInteger[]{G.getX(), G.getY()};
+        int t = 1;
+        for (Map.Entry<BigInteger, BigInteger> entry : keyScalars.entrySet()) {
+            ECPoint p = keyPoints.get(entry.getKey());
+            k[t] = entry.getValue().mod(N).negate();
+            points[t++] = new BigInteger[]{p.getX(), p.getY()};
+        }
+        System.arraycopy(rScalars, 0, k, t, u);
+        System.arraycopy(rPoints, 0, points, t, u);
+        return Pippenger.multiply(CURVE, k, points) == null;
+    }
+
+    // e = int(hash_BIP0340/challenge(bytes(r) || bytes(P) || m)) mod n; only the first 32 bytes of rx are read
+    private static BigInteger challenge(byte[] rx, byte[] px, byte[] message) {
+        SHA256Digest context = TaggedHash.BIP340_CHALLENGE.newContext();
+        context.update(rx, 0, 32).update(px, 0, 32).update(message);
+        return new BigInteger(1, context.digest()).mod(N);
+    }
+
+    // The point with x coordinate x and even y, or null when x is not on the curve
+    private static ECPoint liftX(BigInteger x) {
+        if (x.compareTo(P) >= 0) {
+            return null;
+        }
+        BigInteger c = x.multiply(x).multiply(x).add(SEVEN).mod(P);
+        BigInteger y = c.modPow(SQRT_EXPONENT, P);
+        if (!y.multiply(y).mod(P).equals(c)) {
+            return null;
+        }
+        return CURVE.createPoint(x, y.testBit(0) ? P.subtract(y) : y);
+    }
+
+    private static BigInteger secretScalar(byte[] secretKey) {
+        if (secretKey.length != 32) {
+            throw new IllegalArgumentException("Secret key must be 32 bytes");
+        }
+        BigInteger d = new BigInteger(1, secretKey);
+        if (d.signum() == 0 || d.compareTo(N) >= 0) {
+            throw new IllegalArgumentException("Secret key out of range");
+        }
+        return d;
+    }
+
+    private static BigInteger randomCoefficient() {
+        BigInteger a;
+        do {
+            a = new BigInteger(128, RANDOM);
+        } while (a.signum() == 0);
+        return a;
+    }
+
+    // 32-byte big-endian encoding of 0 <= v < 2^256
+    private static byte[] toBytes(BigInteger v) {
+        byte[] bytes = v.toByteArray();
+        byte[] out = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, out, 32 - length, length);
+        return out;
+    }
+
+    private static FixedBaseTable generatorTable() {
+        FixedBaseTable table = gTable;
+        if (table == null) {
+            table = FixedBaseTable.forPoint(G, N.bitLength());
+            gTable = table;
+        }
+        return table;
+    }
+
+    private static WnafTable generatorWnafTable() {
+        WnafTable table = gWnafTable;
+        if (table == null) {
+            table = new WnafTable(G, G_WNAF_WINDOW);
+            gWnafTable = table;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.ecdsa;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The BIP-340 tagged hash SHA256(SHA256(tag) || SHA256(tag) || x).
+ *
+ * The prefix is exactly one 64-byte block, so it is hashed once when the tag
+ * is created and every hash restores that midstate: hashing a 96-byte
+ * challenge input costs two compressions instead of three.  The digests come
+ * from a {@link HashProvider}, by default {@link HashProviders#getDefault()}.
+ * Instances are immutable and thread safe.
+ */
+public final class TaggedHash {
+
+    public static final TaggedHash BIP340_AUX = new TaggedHash("BIP0340/aux");
+    public static final TaggedHash BIP340_NONCE = new TaggedHash("BIP0340/nonce");
+    public static final TaggedHash BIP340_CHALLENGE = new TaggedHash("BIP0340/challenge");
+
+    private final String tag;
+    private final HashProvider provider;
+    private final SHA256Digest midstate;
+    private final ThreadLocal<SHA256Digest> digests;
+
+    public TaggedHash(String tag) {
+        this(tag, HashProviders.getDefault());
+    }
+
+    public TaggedHash(String tag, HashProvider provider) {
+        this.tag = tag;
+        this.provider = provider;
+        byte[] tagHash = provider.sha256(tag.getBytes(StandardCharsets.UTF_8));
+        SHA256Digest prefix = provider.newSHA256();
+        prefix.update(tagHash).update(tagHash);
+        this.midstate = prefix;
+        this.digests = ThreadLocal.withInitial(provider::newSHA256);
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public HashProvider getProvider() {
+        return provider;
+    }
+
+    // A digest that has absorbed the tag prefix; feed x with update and finish with digest
+    public SHA256Digest newContext() {
+        return midstate.copy();
+    }
+
+    // hash_tag(parts[0] || parts[1] || ...)
+    public byte[] hash(byte[]... parts) {
+        SHA256Digest digest = digests.get();
+        digest.restore(midstate);
+        for (byte[] part : parts) {
+            digest.update(part);
+        }
+        return digest.digest();
+    }
+}
@@ -198,12 +198,13 @@ public class CreateNode3 {
     }
 
     private static String getFSNodeName(ECPoint current){
-        ECFieldElement affineYCoord = current.normalize().getAffineYCoord();
+        ECPoint normalized = current.normalize(); // one inversion for both coordinates
+        ECFieldElement affineYCoord = normalized.getAffineYCoord();
         if (affineYCoord == null) {
             return "infinity";
         }
         BigInteger y = affineYCoord.toBigInteger();
-        ECFieldElement affineXCoord = current.normalize().getAffineXCoord();
+        ECFieldElement affineXCoord = normalized.getAffineXCoord();
         BigInteger x = affineXCoord.toBigInteger();
         BigInteger LHS = y.pow(2).mod(P); // y^2 mod p = (x ^ 3 + 7) mod p
         BigInteger RHS = x.pow(3).add(SEVEN).mod(P);
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright (c) Arbitrary Number Project Team. All rights reserved.
+ */
+package com.github.chainfs.v2.map;
+
+/**
+ * A command handed out by {@link NLPCommandLogManager#take(String)}.
+ *
+ * The command stays leased to the consumer that took it until that consumer
+ * acknowledges it.  If the lease runs out first the command is handed to the
+ * next consumer that asks for work.
+ *
+ * The lease fields are written only by the manager, under its lock, and are
+ * volatile so that consumer threads see the current values.
+ */
+public class NLPCommand {
+
+    private final int fileNum;
+
+    private final int lineNum;
+
+    private final String command;
+
+    private volatile String consumerId;
+
+    private volatile long leaseDeadline;
+
+    private volatile int deliveryCount;
+
+    NLPCommand(int fileNum, int lineNum, String command) {
+        this.fileNum = fileNum;
+        this.lineNum = lineNum;
+        this.command = command;
+    }
+
+    // Position of the command in the log, unique for the lifetime of the log
+    public String getId() {
+        return fileNum + ":" + lineNum;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getConsumerId() {
+        return consumerId;
+    }
+
+    // Number of times this command has been handed to a consumer, including this one
+    public int getDeliveryCount() {
+        return deliveryCount;
+    }
+
+    long getLeaseDeadline() {
+        return leaseDeadline;
+    }
+
+    // Called with the manager's lock held, so the increment below does not race
+    void lease(String consumerId, long deadline) {
+        this.consumerId = consumerId;
+        this.leaseDeadline = deadline;
+        this.deliveryCount++;
+    }
+
+    @Override
+    public String toString() {
+        return "NLPCommand[" + getId() + ", delivery " + deliveryCount + "]: " + command;
+    }
+}
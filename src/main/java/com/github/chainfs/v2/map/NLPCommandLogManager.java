@@ -17,20 +17,46 @@ package com.github.chainfs.v2.map;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.github.chainfs.GenerateChainFSStructure;
 import com.github.chainfs.v4.InitParameters;
 
 public class NLPCommandLogManager {
 
+    private static final Logger logger =
+    		LoggerFactory.getLogger(NLPCommandLogManager.class);
+
     private static final int MAX_LINES_PER_FILE = 10000;
 
+    // Commands not acknowledged within this time are handed to another consumer
+    private static final long DEFAULT_ACK_TIMEOUT_MS = 60000;
+
+    // Upper bound on a wait when the watch service is unavailable or misses an event
+    private static final long MAX_WAIT_MS = 2000;
+
 	private static final NLPCommandLogManager INSTANCE = new NLPCommandLogManager();
 
     private Path stateWrite;
@@ -39,11 +65,29 @@ public class NLPCommandLogManager {
 
     private Path commandPath;
 
+    private long ackTimeoutMs = DEFAULT_ACK_TIMEOUT_MS;
+
+    // Commands handed out but not yet acknowledged, keyed by command id
+    private final Map<String, NLPCommand> inFlight = new LinkedHashMap<>();
+
+    // Commands whose lease expired, handed out again before new commands
+    private final Deque<NLPCommand> redelivery = new ArrayDeque<>();
+
+    private boolean watcherStarted;
+
+    private WatchService watchService;
+
+    private ExecutorService asyncExecutor;
+
     public NLPCommandLogManager() {
-        commandPath =
-        		new File(new File(
-    					GenerateChainFSStructure.getDataDirectoryPath(), "/g"),
-        				"commands to process").toPath();
+        this(new File(new File(
+        		GenerateChainFSStructure.getDataDirectoryPath(), "/g"),
+        		"commands to process").toPath());
+    }
+
+    // A log kept in the given directory, which must exist
+    public NLPCommandLogManager(Path commandPath) {
+        this.commandPath = commandPath;
 
         stateWrite = commandPath.resolve("state.write");
         stateRead = commandPath.resolve("state.read");
@@ -93,27 +137,215 @@ public class NLPCommandLogManager {
         }
 
         saveWriteState(fileNum, lineCount);
+
+        // wake up consumers blocked in take()
+        notifyAll();
     }
 
     // === Read next command ===
     public synchronized Optional<String> readNextCommand() throws IOException {
+        NLPCommand next = readNext();
+        if (next == null) return Optional.empty();
+        return Optional.of(next.getCommand());
+    }
+
+    // === Take next command, blocking until one is available ===
+    public NLPCommand take(String consumerId) throws IOException, InterruptedException {
+        return poll(consumerId, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    // === Take next command, waiting at most the given time, null on timeout ===
+    public synchronized NLPCommand poll(String consumerId, long timeout, TimeUnit unit)
+    		throws IOException, InterruptedException {
+        startWatcher();
+        long now = System.currentTimeMillis();
+        long timeoutMs = unit.toMillis(timeout);
+        long deadline = timeoutMs >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeoutMs;
+        while (true) {
+            now = System.currentTimeMillis();
+            requeueExpired(now);
+
+            NLPCommand command = redelivery.pollFirst();
+            if (command == null) {
+                command = readNext();
+            }
+            if (command != null) {
+                command.lease(consumerId, now + ackTimeoutMs);
+                inFlight.put(command.getId(), command);
+                if (command.getDeliveryCount() > 1) {
+                    logger.info("Redelivering {} to consumer {}", command, consumerId);
+                }
+                return command;
+            }
+
+            if (now >= deadline) return null;
+            // sleep until an append, a file system event, a lease expiry or the deadline
+            long waitMs = Math.min(MAX_WAIT_MS, deadline - now);
+            NLPCommand oldest = oldestInFlight();
+            if (oldest != null) {
+                waitMs = Math.min(waitMs, Math.max(1, oldest.getLeaseDeadline() - now));
+            }
+            wait(waitMs);
+        }
+    }
+
+    // === Take next command asynchronously ===
+    public CompletableFuture<NLPCommand> takeAsync(String consumerId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return take(consumerId);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, getAsyncExecutor());
+    }
+
+    // === Acknowledge a processed command ===
+    // Returns false if the lease had already expired and the command was handed to another consumer
+    public synchronized boolean acknowledge(String consumerId, NLPCommand command) {
+        NLPCommand leased = inFlight.get(command.getId());
+        if (leased == null || !consumerId.equals(leased.getConsumerId())) {
+            logger.warn("Late acknowledgement of {} from consumer {}", command, consumerId);
+            return false;
+        }
+        inFlight.remove(command.getId());
+        return true;
+    }
+
+    // === Give a leased command back without waiting for the lease to expire ===
+    // It is handed out again after the commands already waiting for redelivery.
+    // Returns false if the lease had already expired and the command was handed to another consumer
+    public synchronized boolean release(String consumerId, NLPCommand command) {
+        NLPCommand leased = inFlight.get(command.getId());
+        if (leased == null || !consumerId.equals(leased.getConsumerId())) {
+            logger.warn("Late release of {} from consumer {}", command, consumerId);
+            return false;
+        }
+        inFlight.remove(command.getId());
+        redelivery.addLast(leased);
+        notifyAll();
+        return true;
+    }
+
+    // === Stop the directory watcher and the takeAsync threads ===
+    // Both are started again if the manager is used afterwards
+    public synchronized void close() {
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdownNow();
+            asyncExecutor = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Unable to close the watch service for {}", commandPath, e);
+            }
+            watchService = null;
+        }
+        watcherStarted = false;
+    }
+
+    public synchronized void setAckTimeout(long timeout, TimeUnit unit) {
+        this.ackTimeoutMs = unit.toMillis(timeout);
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private NLPCommand readNext() throws IOException {
         int fileNum = getReadFileNumber();
         int lineNum = getReadLineNumber();
 
         Path file = getLogFile(fileNum);
-        if (!Files.exists(file)) return Optional.empty(); // nothing to read yet
+        if (!Files.exists(file)) return null; // nothing to read yet
 
         List<String> lines = Files.readAllLines(file);
         if (lineNum >= lines.size()) {
+            if (fileNum >= getWriteFileNumber()) {
+                return null; // writer is still appending to this file
+            }
             // done with this file
             Files.delete(file);
             saveReadState(fileNum + 1, 0);
-            return readNextCommand(); // try next file
+            return readNext(); // try next file
         }
 
         String command = lines.get(lineNum);
         saveReadState(fileNum, lineNum + 1);
-        return Optional.of(command);
+        return new NLPCommand(fileNum, lineNum, command);
+    }
+
+    private void requeueExpired(long now) {
+        Iterator<NLPCommand> it = inFlight.values().iterator();
+        while (it.hasNext()) {
+            NLPCommand command = it.next();
+            if (command.getLeaseDeadline() <= now) {
+                it.remove();
+                redelivery.addLast(command);
+            }
+        }
+    }
+
+    private NLPCommand oldestInFlight() {
+        NLPCommand oldest = null;
+        for (NLPCommand command : inFlight.values()) {
+            if (oldest == null || command.getLeaseDeadline() < oldest.getLeaseDeadline()) {
+                oldest = command;
+            }
+        }
+        return oldest;
+    }
+
+    // Watches the command directory so that appends from other processes wake up waiting consumers
+    private void startWatcher() {
+        if (watcherStarted) return;
+        watcherStarted = true;
+        WatchService service;
+        try {
+            service = commandPath.getFileSystem().newWatchService();
+            commandPath.register(service,
+            		StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Unable to watch {}, falling back to polling every {} ms", commandPath, MAX_WAIT_MS, e);
+            return;
+        }
+        watchService = service;
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    key.pollEvents();
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                    if (!key.reset()) {
+                        logger.warn("No longer watching {}", commandPath);
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                // closed by close()
+            }
+        }, "nlp-command-log-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private synchronized ExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "nlp-command-log-take");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return asyncExecutor;
     }
 
     // === Helper methods ===
@@ -18,8 +18,6 @@ package com.github.chainfs.v2.map;
 import java.io.*;
 import java.math.BigInteger;
 import java.nio.file.*;
-import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,35 +34,62 @@ public class NLPProcessor {
     		LoggerFactory.getLogger(NLPProcessor.class);
 
 
-    private static final long PROCESSING_DELAY_MS = 2000; // 2 seconds
+    // Number of competing consumers draining the command log
+    private static final int CONSUMER_COUNT = Integer.getInteger("chainfs.nlp.consumers", 1);
+
+    // A command that fails this many times is logged and dropped
+    private static final int MAX_DELIVERY_ATTEMPTS = 5;
 
     public static void main(String[] args) throws IOException, InterruptedException {
     	process();
     }
 
     public static void process() throws IOException, InterruptedException {
+        Thread[] consumers = new Thread[CONSUMER_COUNT];
+        for (int i = 0; i < consumers.length; i++) {
+            String consumerId = "nlp-consumer-" + i;
+            consumers[i] = new Thread(() -> consume(consumerId), consumerId);
+            consumers[i].start();
+        }
+        try {
+            for (Thread consumer : consumers) {
+                consumer.join();
+            }
+        } finally {
+            NLPCommandLogManager.getInstance().close();
+        }
+    }
 
-        File commandPath =
-        		new File(new File(
-    					GenerateChainFSStructure.getDataDirectoryPath(), "/g"),
-        				"commands to process");
-
-	        while (true) {
-	            processCommand();
-	   	     TimeUnit.MILLISECONDS.sleep(PROCESSING_DELAY_MS);
-	      }
-
-       }
-
-
-    private static void processCommand() throws IOException {
-        // Example: read and print command
-    	NLPCommandLogManager manager = NLPCommandLogManager.getInstance();
-        Optional<String> commandOptional = manager.readNextCommand();
-        if (commandOptional.isEmpty()) {
-        	return;
+    private static void consume(String consumerId) {
+        NLPCommandLogManager manager = NLPCommandLogManager.getInstance();
+        while (!Thread.currentThread().isInterrupted()) {
+            NLPCommand command;
+            try {
+                command = manager.take(consumerId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                logger.error("Unable to read the command log", e);
+                return;
+            }
+            try {
+                processCommand(command.getCommand());
+                manager.acknowledge(consumerId, command);
+            } catch (Exception e) {
+                if (command.getDeliveryCount() >= MAX_DELIVERY_ATTEMPTS) {
+                    logger.error("Dropping {} after {} attempts", command, command.getDeliveryCount(), e);
+                    manager.acknowledge(consumerId, command);
+                } else {
+                    // handed straight back rather than waiting for the lease to expire
+                    logger.warn("Failed to process {}", command, e);
+                    manager.release(consumerId, command);
+                }
+            }
         }
-        String command = commandOptional.get();
+    }
+
+    private static void processCommand(String command) throws IOException {
         System.out.println("Processing NLP command: " + command);
 
         String mapPrefix = "create a mapping from an x value of ";
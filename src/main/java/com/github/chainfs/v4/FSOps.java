@@ -17,6 +17,8 @@ package com.github.chainfs.v4;
 
 import java.math.BigInteger;
 
+import org.bouncycastle.math.ec.ECPoint;
+
 import com.github.chainfs.ASTNode;
 import com.github.chainfs.v2.CreateNode3;
 
@@ -28,15 +30,16 @@ public class FSOps {
 		ASTNode gASTNode = CreateNode3.process(modKeyNumber, null);
 		ASTNode sASTNode = CreateSatoshiNode.process(keyNumber, null);
 
+		// one inversion for both points
+		ECPoint[] points = FSUtils.normalizeAll(gASTNode.getEcPoint(), sASTNode.getEcPoint());
+
 		FS3DRef gRef = new FS3DRef();
-		gRef.x = gASTNode.getEcPoint().normalize()
-					.getAffineXCoord().toBigInteger();
+		gRef.x = points[0].getAffineXCoord().toBigInteger();
 		gRef.gNode = gASTNode.getgCount();
 		gRef.sNode = sASTNode.getgCount();
 
 		FS3DRef sRef = new FS3DRef();
-		sRef.x = sASTNode.getEcPoint().normalize()
-					.getAffineXCoord().toBigInteger();
+		sRef.x = points[1].getAffineXCoord().toBigInteger();
 		sRef.gNode = gASTNode.getgCount();
 		sRef.sNode = sASTNode.getgCount();
 
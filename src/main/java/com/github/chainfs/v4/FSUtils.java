@@ -67,4 +67,14 @@ public class FSUtils {
 	public static BigInteger modKeyNumberByOrderOfG(BigInteger keyNumber) {
 		return keyNumber.mod(CURVE_ORDER);
 	}
+
+	/**
+	 * Normalizes all points in place with one field inversion
+	 * (BouncyCastle's simultaneous inversion) instead of one per point.
+	 * Points at infinity are left as they are.
+	 */
+	public static ECPoint[] normalizeAll(ECPoint... points) {
+		CURVE.normalizeAll(points);
+		return points;
+	}
 }
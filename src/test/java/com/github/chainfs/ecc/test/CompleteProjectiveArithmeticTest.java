@@ -0,0 +1,111 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.CompleteProjectiveArithmetic;
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.LimbJacobianArithmetic;
+import com.github.chainfs.ecc9.NistP256Curve;
+
+public class CompleteProjectiveArithmeticTest {
+
+    private static final ECCurve P256 = new ECCurve(NistP256Curve.P, NistP256Curve.A, NistP256Curve.B);
+
+    private static final ECCurve P384 = new ECCurve(
+            new BigInteger("fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff", 16),
+            BigInteger.valueOf(-3),
+            new BigInteger("b3312fa7e23ee7e4988e056be3f82d19181d9c6efe8141120314088f5013875ac656398d8a2ed19d2a85c8edd3ec2aef", 16));
+    private static final BigInteger P384_GX = new BigInteger(
+            "aa87ca22be8b05378eb1c71ef320ad746e1d3b628ba79b9859f741e082542a385502f25dbf55296c3a545e3872760ab7", 16);
+    private static final BigInteger P384_GY = new BigInteger(
+            "3617de4a96262c6f5d9e98bf9292dc29f8f41dbd289a147ce9da3113b5f0b8c00a60b1ce1d7e819d7a431d7c90ea0e5f", 16);
+
+    // k * (x, y) on the Jacobian formulas, as the reference
+    private static BigInteger[] jacobianMultiply(ECCurve curve, BigInteger k, BigInteger x, BigInteger y) {
+        LimbJacobianArithmetic j = LimbJacobianArithmetic.forCurve(curve);
+        long[] x2 = j.getField().fromBigInteger(x);
+        long[] y2 = j.getField().fromBigInteger(y);
+        long[][] r = j.newPoint();
+        j.setInfinity(r);
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            j.doublePoint(r, r);
+            if (k.testBit(i)) {
+                j.addMixed(r, r, x2, y2);
+            }
+        }
+        return j.toAffineCoordinates(r);
+    }
+
+    @Test
+    public void testExceptionalCases() {
+        CompleteProjectiveArithmetic c = CompleteProjectiveArithmetic.forCurve(P256);
+        long[][] g = c.fromAffine(NistP256Curve.Gx, NistP256Curve.Gy);
+        long[][] minusG = c.fromAffine(NistP256Curve.Gx, NistP256Curve.P.subtract(NistP256Curve.Gy));
+        long[][] r = c.newPoint();
+
+        BigInteger[] twoG = jacobianMultiply(P256, BigInteger.TWO, NistP256Curve.Gx, NistP256Curve.Gy);
+        c.add(r, g, g);
+        assertArrayEquals(twoG, c.toAffineCoordinates(r));
+        c.doublePoint(r, g);
+        assertArrayEquals(twoG, c.toAffineCoordinates(r));
+
+        c.add(r, g, minusG);
+        assertTrue(c.isIdentity(r));
+        c.add(r, c.identity(), g);
+        assertArrayEquals(new BigInteger[]{NistP256Curve.Gx, NistP256Curve.Gy}, c.toAffineCoordinates(r));
+        c.add(r, g, c.identity());
+        assertArrayEquals(new BigInteger[]{NistP256Curve.Gx, NistP256Curve.Gy}, c.toAffineCoordinates(r));
+        c.add(r, c.identity(), c.identity());
+        assertTrue(c.isIdentity(r));
+        c.doublePoint(r, c.identity());
+        assertNull(c.toAffineCoordinates(r));
+    }
+
+    @Test
+    public void testConstantTimeMatchesJacobian() {
+        Random random = new Random(39);
+        ECCurve[] curves = {P256, P384};
+        BigInteger[][] bases = {{NistP256Curve.Gx, NistP256Curve.Gy}, {P384_GX, P384_GY}};
+        for (int n = 0; n < curves.length; n++) {
+            CompleteProjectiveArithmetic c = CompleteProjectiveArithmetic.forCurve(curves[n]);
+            int bits = curves[n].getP().bitLength();
+            BigInteger x = bases[n][0], y = bases[n][1];
+            for (int i = 0; i < 4; i++) {
+                BigInteger k = new BigInteger(bits - 1, random);
+                long[][] r = c.multiplyConstantTime(k, c.fromAffine(x, y), bits);
+                assertArrayEquals(jacobianMultiply(curves[n], k, x, y), c.toAffineCoordinates(r));
+            }
+            assertTrue(c.isIdentity(c.multiplyConstantTime(BigInteger.ZERO, c.fromAffine(x, y), bits)));
+        }
+    }
+
+    @Test
+    public void testNistP256ConstantTimeMode() {
+        NistP256Curve.ECPoint g = new NistP256Curve.ECPoint(NistP256Curve.Gx, NistP256Curve.Gy);
+        BigInteger k = new BigInteger("c51e4753afdec1e6b6c6a5b992f43f8dd0c7a8933072708b6522468b2ffb06fd", 16);
+        NistP256Curve.ECPoint expected = NistP256Curve.scalarMultiply(k, g);
+        assertEquals(expected, NistP256Curve.scalarMultiplyConstantTime(k, g));
+        NistP256Curve.setConstantTime(true);
+        try {
+            assertEquals(expected, NistP256Curve.scalarMultiply(k, g));
+            assertNull(NistP256Curve.scalarMultiply(NistP256Curve.N, g));
+        } finally {
+            NistP256Curve.setConstantTime(false);
+        }
+    }
+
+    @Test
+    public void testRejectsOtherA() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CompleteProjectiveArithmetic.forCurve(ECCurve.getSecp256k1()));
+    }
+}
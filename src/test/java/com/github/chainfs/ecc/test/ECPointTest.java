@@ -0,0 +1,86 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc9.Secp256k1EC;
+
+public class ECPointTest {
+
+    private static final BigInteger N = new BigInteger(
+            "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    private static final ECCurve CURVE = ECCurve.getSecp256k1();
+
+    private static final ECPoint G = CURVE.createPoint(Secp256k1EC.GX, Secp256k1EC.GY);
+
+    // NIST P-384, a = -3
+    private static final BigInteger P384 = new BigInteger(
+            "fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff", 16);
+
+    private static final BigInteger N384 = new BigInteger(
+            "ffffffffffffffffffffffffffffffffffffffffffffffffc7634d81f4372ddf581a0db248b0a77aecec196accc52973", 16);
+
+    private static final ECCurve CURVE_384 = new ECCurve(P384, P384.subtract(BigInteger.valueOf(3)), new BigInteger(
+            "b3312fa7e23ee7e4988e056be3f82d19181d9c6efe8141120314088f5013875ac656398d8a2ed19d2a85c8edd3ec2aef", 16));
+
+    private static final ECPoint G_384 = CURVE_384.createPoint(
+            new BigInteger("aa87ca22be8b05378eb1c71ef320ad746e1d3b628ba79b9859f741e082542a385502f25dbf55296c3a545e3872760ab7", 16),
+            new BigInteger("3617de4a96262c6f5d9e98bf9292dc29f8f41dbd289a147ce9da3113b5f0b8c00a60b1ce1d7e819d7a431d7c90ea0e5f", 16));
+
+    @Test
+    public void testMultiplyMatchesEcc9() {
+        Random random = new Random(32);
+        for (int i = 0; i < 10; i++) {
+            BigInteger k = new BigInteger(256, random).mod(N);
+            BigInteger[] expected = Secp256k1EC.scalarMultiplyDoubleAndAdd(k, Secp256k1EC.GX, Secp256k1EC.GY);
+            ECPoint r = G.multiply(k);
+            assertEquals(expected[0], r.getX());
+            assertEquals(expected[1], r.getY());
+            assertTrue(r.isOnCurve());
+        }
+    }
+
+    @Test
+    public void testGroupLaw() {
+        ECPoint twoG = G.doublePoint();
+        ECPoint threeG = twoG.add(G);
+        assertEquals(G.multiply(BigInteger.valueOf(3)), threeG);
+        assertEquals(G.add(twoG), threeG);
+        assertEquals(threeG.add(threeG), twoG.add(twoG).add(twoG));
+        assertEquals(threeG.hashCode(), G.multiply(BigInteger.valueOf(3)).hashCode());
+        assertEquals(twoG, G.add(G));
+        assertTrue(threeG.add(threeG.negate()).isInfinity());
+        assertTrue(G.multiply(N).isInfinity());
+        assertTrue(G.multiply(BigInteger.ZERO).isInfinity());
+        assertEquals(G.negate(), G.multiply(N.subtract(BigInteger.ONE)));
+        assertEquals(G.multiply(BigInteger.valueOf(5)).negate(), G.multiply(BigInteger.valueOf(-5)));
+        assertEquals(threeG, CURVE.getInfinity().add(threeG));
+        assertEquals(threeG, threeG.add(CURVE.getInfinity()));
+    }
+
+    @Test
+    public void testNonZeroA() {
+        ECPoint q = G_384.multiply(BigInteger.valueOf(1234567));
+        assertTrue(q.isOnCurve());
+        assertEquals(q.doublePoint(), G_384.multiply(BigInteger.valueOf(2 * 1234567)));
+        assertEquals(q.add(G_384), G_384.multiply(BigInteger.valueOf(1234568)));
+        assertTrue(G_384.multiply(N384).isInfinity());
+    }
+
+    @Test
+    public void testInfinity() {
+        ECPoint infinity = CURVE.getInfinity();
+        assertTrue(infinity.isInfinity());
+        assertNull(infinity.getX());
+        assertNull(infinity.getY());
+        assertEquals(infinity, G.add(G.negate()));
+        assertEquals("Point(Infinity)", G.add(G.negate()).toString());
+    }
+}
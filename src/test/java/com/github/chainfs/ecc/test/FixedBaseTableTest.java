@@ -0,0 +1,155 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+import com.github.chainfs.ecc.JacobianArithmetic;
+
+public class FixedBaseTableTest {
+
+    private static final BigInteger N = new BigInteger(
+            "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    private static final ECCurve CURVE = ECCurve.getSecp256k1();
+
+    private static final ECPoint G = CURVE.createPoint(
+            new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+            new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+    private static BigInteger[] scalars() {
+        Random random = new Random(29);
+        BigInteger[] values = new BigInteger[12];
+        values[0] = BigInteger.ZERO;
+        values[1] = BigInteger.ONE;
+        values[2] = BigInteger.valueOf(16);
+        values[3] = N.subtract(BigInteger.ONE);
+        values[4] = N;
+        values[5] = BigInteger.ONE.shiftLeft(255);
+        for (int i = 6; i < values.length; i++) {
+            values[i] = new BigInteger(256, random).mod(N);
+        }
+        return values;
+    }
+
+    @Test
+    public void testMatchesDoubleAndAdd() {
+        for (int window : new int[]{1, 3, 4, 5}) {
+            FixedBaseTable table = new FixedBaseTable(G, 256, window);
+            for (BigInteger k : scalars()) {
+                assertEquals(G.multiply(k), table.multiply(k), "w=" + window + " k=" + k.toString(16));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedTable() {
+        FixedBaseTable table = FixedBaseTable.forPoint(G, N.bitLength());
+        assertSame(table, FixedBaseTable.forPoint(G, N.bitLength()));
+        BigInteger k = new BigInteger("1E99423A4ED27608A15A2616E0A1340C18D5B3BD450796F83357D5B6A5A75E24", 16);
+        assertEquals(G.multiply(k), table.multiply(k));
+        // larger than the table covers
+        BigInteger big = BigInteger.ONE.shiftLeft(300).add(k);
+        assertEquals(G.multiply(big), table.multiply(big));
+    }
+
+    @Test
+    public void testJacobianOutsideTableRange() {
+        FixedBaseTable table = new FixedBaseTable(G, 256, 4);
+        BigInteger k = new BigInteger("1E99423A4ED27608A15A2616E0A1340C18D5B3BD450796F83357D5B6A5A75E24", 16);
+        for (BigInteger v : new BigInteger[]{k, k.negate(), BigInteger.ONE.shiftLeft(256).add(k), N.negate()}) {
+            assertEquals(G.multiply(v), JacobianArithmetic.toAffine(CURVE, table.multiplyJacobian(v)), v.toString(16));
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Path dir = Files.createTempDirectory("fixedbase");
+        Path file = dir.resolve("g.tbl");
+        try {
+            FixedBaseTable table = new FixedBaseTable(G, 256, 3);
+            table.save(file);
+
+            FixedBaseTable loaded = FixedBaseTable.load(file, G, 256, 3);
+            assertNotNull(loaded);
+            for (BigInteger k : scalars()) {
+                assertEquals(table.multiply(k), loaded.multiply(k));
+            }
+
+            assertNull(FixedBaseTable.load(file, G, 256, 4), "different window");
+            assertNull(FixedBaseTable.load(file, G.doublePoint(), 256, 3), "different base");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testCorruptedFileIsRejected() throws Exception {
+        Path dir = Files.createTempDirectory("fixedbase");
+        Path file = dir.resolve("g.tbl");
+        try {
+            new FixedBaseTable(G, 256, 3).save(file);
+            byte[] bytes = Files.readAllBytes(file);
+            // one bit of an entry in the middle of the table, which no structural check looks at
+            bytes[bytes.length / 2] ^= 0x10;
+            Files.write(file, bytes);
+            assertNull(FixedBaseTable.load(file, G, 256, 3));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testWrongMultiplesAreRejected() throws Exception {
+        Path dir = Files.createTempDirectory("fixedbase");
+        Path file = dir.resolve("g.tbl");
+        try {
+            new FixedBaseTable(G, 256, 3).save(file);
+            // swap two entries of one row: every point is still on the curve and the digest is redone
+            byte[] bytes = Files.readAllBytes(file);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 32));
+            ByteArrayOutputStream rewritten = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(rewritten);
+            out.writeInt(in.readInt());
+            out.writeUTF(in.readUTF());
+            int windows = in.readInt();
+            int entries = in.readInt();
+            out.writeInt(windows);
+            out.writeInt(entries);
+            byte[][] coordinates = new byte[2 * windows * entries][];
+            for (int i = 0; i < coordinates.length; i++) {
+                coordinates[i] = new byte[in.readUnsignedShort()];
+                in.readFully(coordinates[i]);
+            }
+            int a = 2 * (5 * entries + 2);
+            int b = 2 * (5 * entries + 3);
+            for (int i = 0; i < coordinates.length; i++) {
+                int j = i == a || i == a + 1 ? i - a + b : i == b || i == b + 1 ? i - b + a : i;
+                out.writeShort(coordinates[j].length);
+                out.write(coordinates[j]);
+            }
+            out.flush();
+            out.write(MessageDigest.getInstance("SHA-256").digest(rewritten.toByteArray()));
+            Files.write(file, rewritten.toByteArray());
+            assertNull(FixedBaseTable.load(file, G, 256, 3));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+import com.github.chainfs.ecc.StraussShamir;
+import com.github.chainfs.ecc9.NISTP384ECDSA;
+import com.github.chainfs.ecc9.NistP256Curve;
+import com.github.chainfs.ecdnist.NistP521EC;
+
+/**
+ * The NIST curve classes on the limb field engine against the plain
+ * BigInteger affine formulas they used before.
+ */
+public class NistCurveParityTest {
+
+    // Affine double-and-add with one modInverse per step, as the curve classes used to do it
+    private static BigInteger[] referenceMultiply(BigInteger k, BigInteger x, BigInteger y, BigInteger a, BigInteger p) {
+        BigInteger[] result = null;
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            result = referenceDouble(result, a, p);
+            if (k.testBit(i)) {
+                result = referenceAdd(result, new BigInteger[]{x, y}, a, p);
+            }
+        }
+        return result;
+    }
+
+    private static BigInteger[] referenceAdd(BigInteger[] p1, BigInteger[] p2, BigInteger a, BigInteger p) {
+        if (p1 == null) return p2;
+        if (p2 == null) return p1;
+        if (p1[0].equals(p2[0])) {
+            return p1[1].equals(p2[1]) ? referenceDouble(p1, a, p) : null;
+        }
+        BigInteger lambda = p2[1].subtract(p1[1]).multiply(p2[0].subtract(p1[0]).modInverse(p)).mod(p);
+        BigInteger x3 = lambda.multiply(lambda).subtract(p1[0]).subtract(p2[0]).mod(p);
+        BigInteger y3 = lambda.multiply(p1[0].subtract(x3)).subtract(p1[1]).mod(p);
+        return new BigInteger[]{x3, y3};
+    }
+
+    private static BigInteger[] referenceDouble(BigInteger[] q, BigInteger a, BigInteger p) {
+        if (q == null || q[1].signum() == 0) return null;
+        BigInteger lambda = q[0].multiply(q[0]).multiply(BigInteger.valueOf(3)).add(a)
+                .multiply(q[1].shiftLeft(1).modInverse(p)).mod(p);
+        BigInteger x3 = lambda.multiply(lambda).subtract(q[0].shiftLeft(1)).mod(p);
+        BigInteger y3 = lambda.multiply(q[0].subtract(x3)).subtract(q[1]).mod(p);
+        return new BigInteger[]{x3, y3};
+    }
+
+    @Test
+    public void testP256MatchesReference() {
+        Random random = new Random(35);
+        NistP256Curve.ECPoint g = new NistP256Curve.ECPoint(NistP256Curve.Gx, NistP256Curve.Gy);
+        NistP256Curve.ECPoint q = g;
+        for (int i = 0; i < 8; i++) {
+            BigInteger k = new BigInteger(256, random).mod(NistP256Curve.N);
+            BigInteger[] expected = referenceMultiply(k, q.x, q.y, NistP256Curve.A, NistP256Curve.P);
+            NistP256Curve.ECPoint actual = NistP256Curve.scalarMultiply(k, q);
+            assertEquals(expected[0], actual.x);
+            assertEquals(expected[1], actual.y);
+            assertTrue(NistP256Curve.isOnCurve(actual));
+
+            BigInteger[] sum = referenceAdd(new BigInteger[]{q.x, q.y}, expected, NistP256Curve.A, NistP256Curve.P);
+            assertEquals(new NistP256Curve.ECPoint(sum[0], sum[1]), NistP256Curve.pointAdd(q, actual));
+            BigInteger[] twice = referenceDouble(expected, NistP256Curve.A, NistP256Curve.P);
+            assertEquals(new NistP256Curve.ECPoint(twice[0], twice[1]), NistP256Curve.pointDouble(actual));
+            q = actual;
+        }
+        assertNull(NistP256Curve.scalarMultiply(NistP256Curve.N, g));
+        assertEquals(NistP256Curve.P.subtract(BigInteger.ONE),
+                NistP256Curve.modAdd(NistP256Curve.P.subtract(BigInteger.TWO), BigInteger.ONE));
+        assertEquals(BigInteger.valueOf(6), NistP256Curve.modMul(BigInteger.TWO, BigInteger.valueOf(3)));
+    }
+
+    @Test
+    public void testP521MatchesReference() {
+        Random random = new Random(35);
+        for (int i = 0; i < 3; i++) {
+            BigInteger k = new BigInteger(521, random).mod(NistP521EC.N);
+            BigInteger[] expected = referenceMultiply(k, NistP521EC.GX, NistP521EC.GY, NistP521EC.A, NistP521EC.P);
+            assertArrayEquals(expected, NistP521EC.scalarMultiply(k, NistP521EC.G));
+            assertArrayEquals(referenceDouble(expected, NistP521EC.A, NistP521EC.P), NistP521EC.pointDouble(expected));
+            assertArrayEquals(referenceAdd(expected, NistP521EC.G, NistP521EC.A, NistP521EC.P),
+                    NistP521EC.pointAdd(expected, NistP521EC.G));
+        }
+        assertNull(NistP521EC.scalarMultiply(NistP521EC.N, NistP521EC.G));
+    }
+
+    @Test
+    public void testP384MatchesReference() {
+        BigInteger p = new BigInteger(
+                "fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff", 16);
+        BigInteger a = p.subtract(BigInteger.valueOf(3));
+        ECCurve curve = new ECCurve(p, a, new BigInteger(
+                "b3312fa7e23ee7e4988e056be3f82d19181d9c6efe8141120314088f5013875ac656398d8a2ed19d2a85c8edd3ec2aef", 16));
+        ECPoint g = curve.createPoint(
+                new BigInteger("aa87ca22be8b05378eb1c71ef320ad746e1d3b628ba79b9859f741e082542a385502f25dbf55296c3a545e3872760ab7", 16),
+                new BigInteger("3617de4a96262c6f5d9e98bf9292dc29f8f41dbd289a147ce9da3113b5f0b8c00a60b1ce1d7e819d7a431d7c90ea0e5f", 16));
+
+        NISTP384ECDSA ecdsa = new NISTP384ECDSA();
+        BigInteger[] q = referenceMultiply(ecdsa.getPrivateKey(), g.getX(), g.getY(), a, p);
+        assertEquals(q[0], ecdsa.getPublicKeyX());
+        assertEquals(q[1], ecdsa.getPublicKeyY());
+
+        Random random = new Random(35);
+        for (int i = 0; i < 3; i++) {
+            BigInteger k1 = new BigInteger(384, random).mod(NISTP384ECDSA.n);
+            BigInteger k2 = new BigInteger(384, random).mod(NISTP384ECDSA.n);
+            ECPoint point = curve.createPoint(q[0], q[1]);
+            BigInteger[] expected = referenceAdd(referenceMultiply(k1, g.getX(), g.getY(), a, p),
+                    referenceMultiply(k2, q[0], q[1], a, p), a, p);
+            ECPoint actual = StraussShamir.multiply(g, k1, point, k2);
+            assertEquals(expected[0], actual.getX());
+            assertEquals(expected[1], actual.getY());
+            BigInteger[] fixed = referenceMultiply(k1, g.getX(), g.getY(), a, p);
+            assertEquals(fixed[0], FixedBaseTable.forPoint(g, 384).multiply(k1).getX());
+        }
+
+        BigInteger z = new BigInteger(384, random);
+        NISTP384ECDSA.Signature sig = ecdsa.sign(z);
+        assertTrue(ecdsa.verify(z, sig));
+        assertFalse(ecdsa.verify(z.add(BigInteger.ONE), sig));
+    }
+}
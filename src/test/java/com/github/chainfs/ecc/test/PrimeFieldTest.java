@@ -0,0 +1,126 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.Mersenne521Field;
+import com.github.chainfs.ecc.MontgomeryField;
+import com.github.chainfs.ecc.PrimeField;
+
+public class PrimeFieldTest {
+
+    private static final BigInteger[] MODULI = {
+        new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16),
+        new BigInteger("ffffffff00000001000000000000000000000000ffffffffffffffffffffffff", 16),
+        new BigInteger("fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff", 16),
+        BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE),
+        BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19)),
+        new BigInteger("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551", 16),
+        BigInteger.valueOf(1000003),
+        new BigInteger("ffffffffffffffc5", 16)
+    };
+
+    @Test
+    public void testArithmeticMatchesBigInteger() {
+        Random random = new Random(35);
+        for (BigInteger m : MODULI) {
+            PrimeField f = PrimeField.forModulus(m);
+            for (int i = 0; i < 200; i++) {
+                BigInteger a = new BigInteger(m.bitLength(), random).mod(m);
+                BigInteger b = i == 0 ? m.subtract(BigInteger.ONE) : new BigInteger(m.bitLength(), random).mod(m);
+                long[] x = f.fromBigInteger(a);
+                long[] y = f.fromBigInteger(b);
+                long[] r = f.newElement();
+
+                assertEquals(a, f.toBigInteger(x));
+                f.add(r, x, y);
+                assertEquals(a.add(b).mod(m), f.toBigInteger(r), m.toString(16));
+                f.sub(r, x, y);
+                assertEquals(a.subtract(b).mod(m), f.toBigInteger(r), m.toString(16));
+                f.mul(r, x, y);
+                assertEquals(a.multiply(b).mod(m), f.toBigInteger(r), m.toString(16));
+                f.sqr(r, x);
+                assertEquals(a.multiply(a).mod(m), f.toBigInteger(r), m.toString(16));
+                f.neg(r, x);
+                assertEquals(a.negate().mod(m), f.toBigInteger(r), m.toString(16));
+                if (a.signum() != 0) {
+                    f.invert(r, x);
+                    assertEquals(a.modInverse(m), f.toBigInteger(r), m.toString(16));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAliasingAndHelpers() {
+        BigInteger m = MODULI[1];
+        PrimeField f = PrimeField.forModulus(m);
+        assertSame(f, PrimeField.forModulus(m));
+        BigInteger a = new BigInteger("123456789abcdef0123456789abcdef0123456789abcdef", 16);
+        long[] x = f.fromBigInteger(a);
+        f.mul(x, x, x);
+        f.add(x, x, x);
+        assertEquals(a.multiply(a).shiftLeft(1).mod(m), f.toBigInteger(x));
+
+        assertEquals(BigInteger.valueOf(-3).mod(m), f.toBigInteger(f.fromBigInteger(BigInteger.valueOf(-3))));
+        assertEquals(a.modPow(BigInteger.valueOf(65537), m), f.modPow(a, BigInteger.valueOf(65537)));
+        assertEquals(a.modInverse(m), f.modInv(a));
+        assertEquals(BigInteger.ZERO, f.modInv(BigInteger.ZERO));
+        assertTrue(f.isZero(f.fromBigInteger(m)));
+        long[] one = f.newElement();
+        f.setOne(one);
+        assertTrue(f.equal(one, f.fromBigInteger(BigInteger.ONE)));
+        assertThrows(IllegalArgumentException.class, () -> new MontgomeryField(BigInteger.valueOf(1000)));
+    }
+
+    @Test
+    public void testMersenne521MatchesMontgomery() {
+        PrimeField mersenne = PrimeField.forModulus(Mersenne521Field.P);
+        assertTrue(mersenne instanceof Mersenne521Field);
+        PrimeField montgomery = new MontgomeryField(Mersenne521Field.P);
+        BigInteger p = Mersenne521Field.P;
+        Random random = new Random(36);
+        BigInteger[] values = new BigInteger[64];
+        values[0] = BigInteger.ZERO;
+        values[1] = BigInteger.ONE;
+        values[2] = p.subtract(BigInteger.ONE);
+        values[3] = BigInteger.ONE.shiftLeft(520);
+        for (int i = 4; i < values.length; i++) {
+            values[i] = new BigInteger(521, random).mod(p);
+        }
+        for (int i = 0; i < values.length; i++) {
+            BigInteger a = values[i];
+            BigInteger b = values[(i * 7 + 3) % values.length];
+            long[] x = mersenne.fromBigInteger(a);
+            long[] y = mersenne.fromBigInteger(b);
+            long[] r = mersenne.newElement();
+            mersenne.mul(r, x, y);
+            assertEquals(montgomery.modMul(a, b), mersenne.toBigInteger(r));
+            // a long chain without canonicalizing in between
+            for (int j = 0; j < 20; j++) {
+                mersenne.sqr(r, r);
+                mersenne.sub(r, r, x);
+                mersenne.add(r, r, y);
+                mersenne.add(r, r, r);
+            }
+            BigInteger expected = a.multiply(b).mod(p);
+            for (int j = 0; j < 20; j++) {
+                expected = expected.multiply(expected).subtract(a).add(b).shiftLeft(1).mod(p);
+            }
+            assertEquals(expected, mersenne.toBigInteger(r));
+            mersenne.sub(r, x, x);
+            assertTrue(mersenne.isZero(r));
+            if (a.signum() != 0) {
+                mersenne.invert(r, x);
+                assertEquals(a.modInverse(p), mersenne.toBigInteger(r));
+            }
+        }
+        long[] pAsLimbs = mersenne.newElement();
+        mersenne.sub(pAsLimbs, mersenne.fromBigInteger(BigInteger.ONE), mersenne.fromBigInteger(BigInteger.ONE));
+        assertTrue(mersenne.equal(pAsLimbs, mersenne.newElement()));
+    }
+}
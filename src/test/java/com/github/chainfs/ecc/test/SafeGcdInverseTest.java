@@ -0,0 +1,91 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.SafeGcdInverse;
+import com.github.chainfs.ecc9.Secp256k1FieldElement;
+
+public class SafeGcdInverseTest {
+
+    private static final BigInteger[] MODULI = {
+        new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16),
+        new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16),
+        new BigInteger("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551", 16),
+        new BigInteger("fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff", 16),
+        BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE),
+        BigInteger.valueOf(1000003)
+    };
+
+    @Test
+    public void testMatchesModInverse() {
+        Random random = new Random(34);
+        for (BigInteger m : MODULI) {
+            SafeGcdInverse inverse = SafeGcdInverse.forModulus(m);
+            BigInteger[] edge = {BigInteger.ONE, BigInteger.TWO, m.subtract(BigInteger.ONE), m.shiftRight(1)};
+            for (BigInteger x : edge) {
+                assertEquals(x.modInverse(m), inverse.invert(x), m.toString(16));
+            }
+            for (int i = 0; i < 200; i++) {
+                BigInteger x = new BigInteger(m.bitLength(), random).mod(m);
+                if (x.signum() == 0) continue;
+                assertEquals(x.modInverse(m), inverse.invert(x), x.toString(16));
+            }
+        }
+    }
+
+    @Test
+    public void testZeroAndNegative() {
+        SafeGcdInverse inverse = SafeGcdInverse.forModulus(MODULI[0]);
+        assertEquals(BigInteger.ZERO, inverse.invert(BigInteger.ZERO));
+        assertEquals(BigInteger.ZERO, inverse.invert(MODULI[0]));
+        BigInteger x = BigInteger.valueOf(-12345);
+        assertEquals(x.modInverse(MODULI[0]), inverse.invert(x));
+        assertThrows(IllegalArgumentException.class, () -> new SafeGcdInverse(BigInteger.valueOf(100)));
+    }
+
+    @Test
+    public void testCompositeModulus() {
+        for (int modulus : new int[]{15, 21, 3 * 5 * 7 * 11 * 13}) {
+            BigInteger m = BigInteger.valueOf(modulus);
+            SafeGcdInverse inverse = new SafeGcdInverse(m);
+            for (int x = 0; x < modulus; x++) {
+                BigInteger v = BigInteger.valueOf(x);
+                BigInteger expected = v.gcd(m).equals(BigInteger.ONE) ? v.modInverse(m) : BigInteger.ZERO;
+                assertEquals(expected, inverse.invert(v), x + " mod " + modulus);
+            }
+        }
+        SafeGcdInverse inverse = new SafeGcdInverse(BigInteger.valueOf(15));
+        long[] three = {3, 0};
+        assertFalse(inverse.invert(three, inverse.newScratch()));
+        assertArrayEquals(new long[]{0, 0}, three);
+        long[] seven = {7, 0};
+        assertTrue(inverse.invert(seven, inverse.newScratch()));
+        assertArrayEquals(new long[]{13, 0}, seven);
+        // p * q with 127- and 128-bit primes
+        BigInteger p = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+        BigInteger q = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.valueOf(159));
+        SafeGcdInverse pq = SafeGcdInverse.forModulus(p.multiply(q));
+        assertEquals(BigInteger.ZERO, pq.invert(p.shiftLeft(3)));
+        assertEquals(BigInteger.ZERO, pq.invert(q.multiply(BigInteger.TEN)));
+        assertEquals(BigInteger.valueOf(11).modInverse(p.multiply(q)), pq.invert(BigInteger.valueOf(11)));
+    }
+
+    @Test
+    public void testFieldElementInvert() {
+        BigInteger p = MODULI[0];
+        Random random = new Random(34);
+        for (int i = 0; i < 100; i++) {
+            BigInteger x = new BigInteger(256, random).mod(p);
+            Secp256k1FieldElement a = Secp256k1FieldElement.valueOf(x);
+            assertEquals(x.signum() == 0 ? BigInteger.ZERO : x.modInverse(p),
+                    new Secp256k1FieldElement().invert(a).toBigInteger());
+            a.invert(a);
+            assertEquals(x.signum() == 0 ? BigInteger.ZERO : x.modInverse(p), a.toBigInteger());
+        }
+    }
+}
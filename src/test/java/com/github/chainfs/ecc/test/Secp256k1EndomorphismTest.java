@@ -0,0 +1,107 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.JacobianArithmetic;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecc.StraussShamir;
+import com.github.chainfs.ecc.WnafTable;
+import com.github.chainfs.ecdsa.ECDSASigner;
+
+public class Secp256k1EndomorphismTest {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    private static final ECCurve CURVE = ECCurve.getSecp256k1();
+
+    private static final ECPoint G = CURVE.createPoint(
+            new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+            new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+    private static BigInteger[] scalars() {
+        Random random = new Random(31);
+        BigInteger[] values = new BigInteger[40];
+        values[0] = BigInteger.ZERO;
+        values[1] = BigInteger.ONE;
+        values[2] = N.subtract(BigInteger.ONE);
+        values[3] = Secp256k1Endomorphism.LAMBDA;
+        values[4] = N.shiftRight(1);
+        for (int i = 5; i < values.length; i++) {
+            values[i] = new BigInteger(256, random).mod(N);
+        }
+        return values;
+    }
+
+    @Test
+    public void testEndomorphismIsMultiplicationByLambda() {
+        assertEquals(G.multiply(Secp256k1Endomorphism.LAMBDA), Secp256k1Endomorphism.apply(G));
+        ECPoint q = G.multiply(BigInteger.valueOf(123456789));
+        assertEquals(q.multiply(Secp256k1Endomorphism.LAMBDA), Secp256k1Endomorphism.apply(q));
+        assertTrue(Secp256k1Endomorphism.apply(q).isOnCurve());
+    }
+
+    @Test
+    public void testDecomposition() {
+        for (BigInteger k : scalars()) {
+            BigInteger[] halves = Secp256k1Endomorphism.decompose(k);
+            assertEquals(k, halves[0].add(halves[1].multiply(Secp256k1Endomorphism.LAMBDA)).mod(N));
+            assertTrue(halves[0].abs().bitLength() <= 129, "k1 is short");
+            assertTrue(halves[1].abs().bitLength() <= 129, "k2 is short");
+        }
+    }
+
+    @Test
+    public void testMultiplyMatchesPlainPath() {
+        ECPoint q = G.multiply(new BigInteger("1E99423A4ED27608A15A2616E0A1340C18D5B3BD450796F83357D5B6A5A75E24", 16));
+        BigInteger[] values = scalars();
+        for (int i = 0; i < 12; i++) {
+            assertEquals(q.multiply(values[i]), Secp256k1Endomorphism.multiply(q, values[i]));
+        }
+        for (int i = 0; i + 1 < values.length; i += 2) {
+            WnafTable[] tables = {new WnafTable(G, 7), new WnafTable(q, 5)};
+            BigInteger[] k = {values[i], values[i + 1]};
+            assertEquals(JacobianArithmetic.toAffine(CURVE, StraussShamir.multiplyJacobian(tables, k)),
+                    JacobianArithmetic.toAffine(CURVE, Secp256k1Endomorphism.multiplyJacobian(tables, k)));
+        }
+    }
+
+    @Test
+    public void testMappedTableIsBuiltOnce() {
+        WnafTable table = new WnafTable(G, 7);
+        WnafTable mapped = table.mapX(Secp256k1Endomorphism.BETA);
+        assertSame(mapped, table.mapX(Secp256k1Endomorphism.BETA));
+        assertEquals(Secp256k1Endomorphism.apply(G), mapped.get(1));
+        assertNotEquals(mapped, table.mapX(Secp256k1Endomorphism.BETA.multiply(Secp256k1Endomorphism.BETA)));
+
+        WnafTable[] tables = {table};
+        for (BigInteger k : scalars()) {
+            assertEquals(G.multiply(k), JacobianArithmetic.toAffine(CURVE,
+                    Secp256k1Endomorphism.multiplyJacobian(tables, new BigInteger[]{k})));
+        }
+    }
+
+    @Test
+    public void testSignerGivesSameResultsEitherWay() {
+        ECDSASigner plain = new ECDSASigner(N, G, false);
+        ECDSASigner glv = new ECDSASigner(N, G, true);
+        BigInteger d = new BigInteger("1E99423A4ED27608A15A2616E0A1340C18D5B3BD450796F83357D5B6A5A75E24", 16);
+        ECPoint q = G.multiply(d);
+        Random random = new Random(31);
+        for (int i = 0; i < 5; i++) {
+            BigInteger z = new BigInteger(256, random);
+            BigInteger[] sig = plain.sign(d, z);
+            assertArrayEquals(sig, glv.sign(d, z));
+            assertTrue(plain.verify(z, q, sig[0], sig[1]));
+            assertTrue(glv.verify(z, q, sig[0], sig[1]));
+            assertFalse(glv.verify(z.add(BigInteger.ONE), q, sig[0], sig[1]));
+            assertFalse(glv.verify(z, q.negate(), sig[0], sig[1]));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.chainfs.ecc.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.JacobianArithmetic;
+import com.github.chainfs.ecc.StraussShamir;
+import com.github.chainfs.ecc.WnafTable;
+
+public class StraussShamirTest {
+
+    private static final BigInteger N = new BigInteger(
+            "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    private static final ECCurve CURVE = ECCurve.getSecp256k1();
+
+    private static final ECPoint G = CURVE.createPoint(
+            new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+            new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+    // NIST P-384, a = -3
+    private static final BigInteger P384 = new BigInteger(
+            "fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffeffffffff0000000000000000ffffffff", 16);
+
+    private static final ECCurve CURVE_384 = new ECCurve(P384, P384.subtract(BigInteger.valueOf(3)), new BigInteger(
+            "b3312fa7e23ee7e4988e056be3f82d19181d9c6efe8141120314088f5013875ac656398d8a2ed19d2a85c8edd3ec2aef", 16));
+
+    private static final ECPoint G_384 = CURVE_384.createPoint(
+            new BigInteger("aa87ca22be8b05378eb1c71ef320ad746e1d3b628ba79b9859f741e082542a385502f25dbf55296c3a545e3872760ab7", 16),
+            new BigInteger("3617de4a96262c6f5d9e98bf9292dc29f8f41dbd289a147ce9da3113b5f0b8c00a60b1ce1d7e819d7a431d7c90ea0e5f", 16));
+
+    @Test
+    public void testRecode() {
+        Random random = new Random(30);
+        for (int w = 2; w <= 8; w++) {
+            for (int i = 0; i < 50; i++) {
+                BigInteger k = new BigInteger(256, random);
+                if (i % 2 == 1) k = k.negate();
+                int[] digits = WnafTable.recode(k, w);
+                BigInteger sum = BigInteger.ZERO;
+                for (int j = digits.length - 1; j >= 0; j--) {
+                    sum = sum.shiftLeft(1).add(BigInteger.valueOf(digits[j]));
+                    assertTrue(digits[j] == 0 || (digits[j] & 1) == 1);
+                    assertTrue(Math.abs(digits[j]) < (1 << (w - 1)));
+                }
+                assertEquals(k, sum);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesSeparateMultiplications() {
+        Random random = new Random(30);
+        ECPoint q = G.multiply(new BigInteger(256, random));
+        for (int i = 0; i < 10; i++) {
+            BigInteger a = new BigInteger(256, random).mod(N);
+            BigInteger b = new BigInteger(256, random).mod(N);
+            assertEquals(G.multiply(a).add(q.multiply(b)), StraussShamir.multiply(G, a, q, b));
+        }
+        BigInteger[] edge = {BigInteger.ZERO, BigInteger.ONE, N.subtract(BigInteger.ONE)};
+        for (BigInteger a : edge) {
+            for (BigInteger b : edge) {
+                assertEquals(G.multiply(a).add(q.multiply(b)), StraussShamir.multiply(G, a, q, b));
+            }
+        }
+    }
+
+    @Test
+    public void testOnCurveWithNonZeroA() {
+        Random random = new Random(30);
+        ECPoint q = G_384.multiply(new BigInteger(384, random));
+        for (int i = 0; i < 5; i++) {
+            BigInteger a = new BigInteger(384, random);
+            BigInteger b = new BigInteger(384, random);
+            assertEquals(G_384.multiply(a).add(q.multiply(b)), StraussShamir.multiply(G_384, a, q, b));
+        }
+    }
+
+    @Test
+    public void testNegativeScalarsAndCancellation() {
+        BigInteger a = new BigInteger("1E99423A4ED27608A15A2616E0A1340C18D5B3BD450796F83357D5B6A5A75E24", 16);
+        WnafTable[] tables = {new WnafTable(G, 7), new WnafTable(G, 4)};
+        ECPoint sum = JacobianArithmetic.toAffine(CURVE,
+                StraussShamir.multiplyJacobian(tables, new BigInteger[]{a, a.negate()}));
+        assertTrue(sum.isInfinity());
+        ECPoint diff = JacobianArithmetic.toAffine(CURVE,
+                StraussShamir.multiplyJacobian(tables, new BigInteger[]{a.negate(), BigInteger.valueOf(5)}));
+        assertEquals(G.multiply(N.subtract(a).add(BigInteger.valueOf(5))), diff);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.chainfs.ecc9.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc9.Ed25519Signer;
+
+/**
+ * Ed25519 verification of a batch of signatures, one at a time against a
+ * single multi-scalar check.  Scores are per batch; divide by batchSize for
+ * the per-signature cost.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecc9.bench.Ed25519BatchVerifyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Ed25519BatchVerifyBenchmark {
+
+    @Param({"1", "4", "16", "64", "256", "1024"})
+    public int batchSize;
+
+    private byte[][] publicKeys;
+    private byte[][] messages;
+    private byte[][] signatures;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(38);
+        publicKeys = new byte[batchSize][];
+        messages = new byte[batchSize][];
+        signatures = new byte[batchSize][];
+        for (int i = 0; i < batchSize; i++) {
+            byte[] secretKey = new byte[32];
+            random.nextBytes(secretKey);
+            messages[i] = new byte[64];
+            random.nextBytes(messages[i]);
+            publicKeys[i] = Ed25519Signer.publicKey(secretKey);
+            signatures[i] = Ed25519Signer.sign(secretKey, messages[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean verifyEach() {
+        boolean ok = true;
+        for (int i = 0; i < batchSize; i++) {
+            ok &= Ed25519Signer.verify(publicKeys[i], messages[i], signatures[i]);
+        }
+        return ok;
+    }
+
+    @Benchmark
+    public boolean verifyBatch() {
+        return Ed25519Signer.verifyBatch(publicKeys, messages, signatures);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
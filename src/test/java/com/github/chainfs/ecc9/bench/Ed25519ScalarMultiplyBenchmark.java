@@ -0,0 +1,88 @@
+package com.github.chainfs.ecc9.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc9.Ed25519Curve;
+import com.github.chainfs.ecc9.Ed25519Curve.EdPoint;
+import com.github.chainfs.ecc9.Ed25519Extended;
+
+/**
+ * k * P on Ed25519: the affine BigInteger double-and-add loop (two inversions
+ * per step) against extended coordinates on the radix-2^51 field, and k * B
+ * from the fixed-base table.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecc9.bench.Ed25519ScalarMultiplyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Ed25519ScalarMultiplyBenchmark {
+
+    private static final BigInteger P = Ed25519Curve.P;
+
+    private BigInteger k;
+    private EdPoint point;
+    private long[][] extended;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(37);
+        k = new BigInteger(253, random);
+        point = Ed25519Curve.scalarMultiply(new BigInteger(253, random),
+                new EdPoint(Ed25519Curve.BASE_X, Ed25519Curve.BASE_Y));
+        extended = Ed25519Extended.fromAffine(point.x, point.y);
+    }
+
+    @Benchmark
+    public EdPoint affineDoubleAndAdd() {
+        EdPoint r = Ed25519Curve.IDENTITY;
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            r = affineAdd(r, r);
+            if (k.testBit(i)) {
+                r = affineAdd(r, point);
+            }
+        }
+        return r;
+    }
+
+    @Benchmark
+    public long[][] extendedVariableBase() {
+        return Ed25519Extended.multiply(k, extended);
+    }
+
+    @Benchmark
+    public long[][] extendedFixedBase() {
+        return Ed25519Extended.multiplyBase(k);
+    }
+
+    // The pre-extended-coordinates addition: one BigInteger inversion per coordinate
+    private static EdPoint affineAdd(EdPoint a, EdPoint b) {
+        BigInteger x1x2 = a.x.multiply(b.x).mod(P);
+        BigInteger y1y2 = a.y.multiply(b.y).mod(P);
+        BigInteger dxy = Ed25519Curve.D.multiply(x1x2).multiply(y1y2).mod(P);
+        BigInteger x3 = a.x.multiply(b.y).add(a.y.multiply(b.x)).multiply(BigInteger.ONE.add(dxy).modInverse(P));
+        BigInteger y3 = y1y2.add(x1x2).multiply(BigInteger.ONE.subtract(dxy).mod(P).modInverse(P));
+        return new EdPoint(x3, y3);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
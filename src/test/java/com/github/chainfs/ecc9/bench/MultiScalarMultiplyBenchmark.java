@@ -0,0 +1,119 @@
+package com.github.chainfs.ecc9.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.LimbJacobianArithmetic;
+import com.github.chainfs.ecc.PrimeField;
+import com.github.chainfs.ecc9.NistP256Curve;
+import com.github.chainfs.ecc9.Pippenger;
+import com.github.chainfs.ecc9.Secp256k1EC;
+
+/**
+ * sum k_i * P_i over n points: n separate scalar multiplications summed
+ * afterwards, against the Pippenger bucket method on one thread and on the
+ * fork/join pool.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecc9.bench.MultiScalarMultiplyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MultiScalarMultiplyBenchmark {
+
+    @Param({"SECP256K1", "P256"})
+    public String curve;
+
+    @Param({"16", "128", "1024"})
+    public int n;
+
+    private ECCurve ecCurve;
+    private BigInteger[] k;
+    private BigInteger[][] points;
+    private boolean secp;
+
+    @Setup
+    public void setUp() {
+        secp = curve.equals("SECP256K1");
+        ecCurve = secp ? ECCurve.getSecp256k1() : NistP256Curve.getCurve();
+        BigInteger order = secp ? Secp256k1EC.CURVE_ORDER : NistP256Curve.N;
+        BigInteger[] g = secp ? Secp256k1EC.G : new BigInteger[]{NistP256Curve.Gx, NistP256Curve.Gy};
+
+        Random random = new Random(40);
+        k = new BigInteger[n];
+        points = new BigInteger[n][];
+        BigInteger[] seeds = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = new BigInteger(256, random).mod(order);
+            seeds[i] = new BigInteger(256, random).mod(order);
+        }
+        for (int i = 0; i < n; i++) {
+            points[i] = Pippenger.multiply(ecCurve, new BigInteger[]{seeds[i]}, new BigInteger[][]{g});
+        }
+    }
+
+    // Each term with the curve's own scalarMultiply, summed in Jacobian coordinates
+    @Benchmark
+    public BigInteger[] naiveSum() {
+        LimbJacobianArithmetic arith = LimbJacobianArithmetic.forCurve(ecCurve);
+        PrimeField f = arith.getField();
+        long[][] sum = arith.newPoint();
+        arith.setInfinity(sum);
+        for (int i = 0; i < n; i++) {
+            BigInteger[] term;
+            if (secp) {
+                term = Secp256k1EC.scalarMultiply(k[i], points[i][0], points[i][1]);
+            } else {
+                NistP256Curve.ECPoint q = NistP256Curve.scalarMultiply(k[i],
+                        new NistP256Curve.ECPoint(points[i][0], points[i][1]));
+                term = new BigInteger[]{q.x, q.y};
+            }
+            arith.addMixed(sum, sum, f.fromBigInteger(term[0]), f.fromBigInteger(term[1]));
+        }
+        return arith.toAffineCoordinates(sum);
+    }
+
+    @Benchmark
+    public BigInteger[] pippengerSequential() {
+        int threshold = Pippenger.getParallelThreshold();
+        Pippenger.setParallelThreshold(Integer.MAX_VALUE);
+        try {
+            return Pippenger.multiply(ecCurve, k, points);
+        } finally {
+            Pippenger.setParallelThreshold(threshold);
+        }
+    }
+
+    @Benchmark
+    public BigInteger[] pippengerParallel() {
+        int threshold = Pippenger.getParallelThreshold();
+        Pippenger.setParallelThreshold(2);
+        try {
+            return Pippenger.multiply(ecCurve, k, points);
+        } finally {
+            Pippenger.setParallelThreshold(threshold);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.chainfs.ecc9.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc9.NistP256Curve;
+import com.github.chainfs.ecc9.NistP256Curve.ECPoint;
+
+/**
+ * P-256 point operations: affine add and double on the complete projective
+ * formulas, and k * P with the Jacobian double-and-add against the
+ * constant-time fixed-window ladder.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecc9.bench.NistP256Benchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NistP256Benchmark {
+
+    private BigInteger k;
+    private ECPoint p;
+    private ECPoint q;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(39);
+        ECPoint g = new ECPoint(NistP256Curve.Gx, NistP256Curve.Gy);
+        k = new BigInteger(256, random);
+        p = NistP256Curve.scalarMultiply(new BigInteger(256, random), g);
+        q = NistP256Curve.scalarMultiply(new BigInteger(256, random), g);
+    }
+
+    @Benchmark
+    public ECPoint pointAdd() {
+        return NistP256Curve.pointAdd(p, q);
+    }
+
+    @Benchmark
+    public ECPoint pointDouble() {
+        return NistP256Curve.pointDouble(p);
+    }
+
+    @Benchmark
+    public ECPoint scalarMultiply() {
+        return NistP256Curve.scalarMultiply(k, p);
+    }
+
+    @Benchmark
+    public ECPoint scalarMultiplyConstantTime() {
+        return NistP256Curve.scalarMultiplyConstantTime(k, p);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
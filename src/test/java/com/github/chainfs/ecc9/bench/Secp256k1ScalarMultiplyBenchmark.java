@@ -0,0 +1,67 @@
+package com.github.chainfs.ecc9.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc9.Secp256k1EC;
+import com.github.chainfs.ecc9.Secp256k1Wnaf;
+
+/**
+ * Variable-base k * P on secp256k1: the binary double-and-add loop against wNAF
+ * for several window widths, on both field backends.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecc9.bench.Secp256k1ScalarMultiplyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Secp256k1ScalarMultiplyBenchmark {
+
+    @Param({"BIG_INTEGER", "LIMB_4X64"})
+    public String backend;
+
+    @Param({"3", "4", "5", "6"})
+    public int window;
+
+    private BigInteger k;
+    private BigInteger[] p;
+
+    @Setup
+    public void setUp() {
+        Secp256k1EC.setFieldBackend(Secp256k1EC.FieldBackend.valueOf(backend));
+        Random random = new Random(28);
+        k = new BigInteger(256, random);
+        p = Secp256k1EC.scalarMultiplyDoubleAndAdd(new BigInteger(256, random), Secp256k1EC.GX, Secp256k1EC.GY);
+    }
+
+    @Benchmark
+    public BigInteger[] doubleAndAdd() {
+        return Secp256k1EC.scalarMultiplyDoubleAndAdd(k, p[0], p[1]);
+    }
+
+    @Benchmark
+    public BigInteger[] wnaf() {
+        return Secp256k1Wnaf.multiply(k, p[0], p[1], window);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.chainfs.ecc9.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.Curve25519Field;
+import com.github.chainfs.ecc9.Ed25519Curve;
+import com.github.chainfs.ecc9.Ed25519Curve.EdPoint;
+import com.github.chainfs.ecc9.Ed25519Extended;
+
+public class Ed25519ExtendedTest {
+
+    private static final BigInteger P = Ed25519Curve.P;
+    private static final EdPoint BASE = new EdPoint(Ed25519Curve.BASE_X, Ed25519Curve.BASE_Y);
+
+    // Affine a = -1 addition on BigIntegers, the textbook formula
+    private static EdPoint referenceAdd(EdPoint a, EdPoint b) {
+        BigInteger x1x2 = a.x.multiply(b.x).mod(P);
+        BigInteger y1y2 = a.y.multiply(b.y).mod(P);
+        BigInteger dxy = Ed25519Curve.D.multiply(x1x2).multiply(y1y2).mod(P);
+        BigInteger x3 = a.x.multiply(b.y).add(a.y.multiply(b.x))
+                .multiply(BigInteger.ONE.add(dxy).modInverse(P));
+        BigInteger y3 = y1y2.add(x1x2).multiply(BigInteger.ONE.subtract(dxy).mod(P).modInverse(P));
+        return new EdPoint(x3, y3);
+    }
+
+    private static EdPoint referenceMultiply(BigInteger k, EdPoint p) {
+        EdPoint r = Ed25519Curve.IDENTITY;
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            r = referenceAdd(r, r);
+            if (k.testBit(i)) {
+                r = referenceAdd(r, p);
+            }
+        }
+        return r;
+    }
+
+    private static EdPoint affine(long[][] p) {
+        BigInteger[] xy = Ed25519Extended.toAffine(p);
+        return new EdPoint(xy[0], xy[1]);
+    }
+
+    @Test
+    public void testAdditionStaysOnCurve() {
+        EdPoint p = BASE;
+        for (int i = 0; i < 20; i++) {
+            p = Ed25519Curve.pointAdd(p, BASE);
+            assertTrue(Ed25519Curve.isOnCurve(p));
+            assertEquals(referenceAdd(p, BASE), Ed25519Curve.pointAdd(p, BASE));
+        }
+    }
+
+    @Test
+    public void testDoublingMatchesAddition() {
+        EdPoint p = Ed25519Curve.scalarMultiply(BigInteger.valueOf(12345), BASE);
+        assertEquals(referenceAdd(p, p), Ed25519Curve.pointDouble(p));
+    }
+
+    @Test
+    public void testVariableBaseMatchesReference() {
+        Random random = new Random(37);
+        EdPoint q = referenceMultiply(BigInteger.valueOf(7), BASE);
+        for (int i = 0; i < 8; i++) {
+            BigInteger k = new BigInteger(253, random);
+            long[][] r = Ed25519Extended.multiply(k, Ed25519Extended.fromAffine(q.x, q.y));
+            assertEquals(referenceMultiply(k, q), affine(r));
+        }
+    }
+
+    @Test
+    public void testBaseTableMatchesVariableBase() {
+        Random random = new Random(38);
+        long[][] b = Ed25519Extended.fromAffine(Ed25519Curve.BASE_X, Ed25519Curve.BASE_Y);
+        for (int i = 0; i < 16; i++) {
+            BigInteger k = new BigInteger(256, random);
+            long[][] expected = Ed25519Extended.multiply(k.mod(Ed25519Extended.L), b);
+            assertTrue(Ed25519Extended.equal(expected, Ed25519Extended.multiplyBase(k)));
+        }
+    }
+
+    @Test
+    public void testOrderTimesBaseIsIdentity() {
+        long[][] b = Ed25519Extended.fromAffine(Ed25519Curve.BASE_X, Ed25519Curve.BASE_Y);
+        assertTrue(Ed25519Extended.isIdentity(Ed25519Extended.multiply(Ed25519Extended.L, b)));
+        assertTrue(Ed25519Extended.isIdentity(Ed25519Extended.multiplyBase(Ed25519Extended.L)));
+        assertEquals(Ed25519Curve.IDENTITY, Ed25519Curve.scalarMultiply(Ed25519Extended.L, BASE));
+    }
+
+    @Test
+    public void testNegativeScalar() {
+        long[][] b = Ed25519Extended.fromAffine(Ed25519Curve.BASE_X, Ed25519Curve.BASE_Y);
+        long[][] r = Ed25519Extended.multiply(BigInteger.valueOf(-5), b);
+        Ed25519Extended.add(r, r, Ed25519Extended.multiply(BigInteger.valueOf(5), b));
+        assertTrue(Ed25519Extended.isIdentity(r));
+    }
+
+    @Test
+    public void testMultiScalarMatchesSeparate() {
+        Random random = new Random(40);
+        for (int n : new int[]{1, 3, 20, 70}) {
+            BigInteger[] k = new BigInteger[n];
+            long[][][] p = new long[n][][];
+            long[][] expected = Ed25519Extended.identity();
+            for (int i = 0; i < n; i++) {
+                k[i] = new BigInteger(i % 5 == 0 ? 128 : 253, random);
+                p[i] = Ed25519Extended.multiplyBase(new BigInteger(253, random));
+                Ed25519Extended.add(expected, expected, Ed25519Extended.multiply(k[i], p[i]));
+            }
+            assertTrue(Ed25519Extended.equal(expected, Ed25519Extended.multiScalarMultiply(k, p)));
+        }
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        Random random = new Random(41);
+        for (int i = 0; i < 20; i++) {
+            long[][] p = Ed25519Extended.multiplyBase(new BigInteger(253, random));
+            byte[] encoded = Ed25519Extended.encode(p);
+            assertTrue(Ed25519Extended.equal(p, Ed25519Extended.decode(encoded, 0)));
+        }
+        // y = 2 gives x^2 = 3 / (4d + 1), which is not a square
+        byte[] bad = new byte[32];
+        bad[0] = 2;
+        assertNull(Ed25519Extended.decode(bad, 0));
+    }
+
+    @Test
+    public void testFieldBytesRoundTrip() {
+        Curve25519Field f = Ed25519Extended.FIELD;
+        Random random = new Random(39);
+        for (int i = 0; i < 50; i++) {
+            BigInteger v = new BigInteger(255, random).mod(P);
+            byte[] bytes = f.toBytes(f.fromBigInteger(v));
+            byte[] expected = new byte[32];
+            byte[] be = v.toByteArray();
+            for (int j = 0; j < be.length && j < 32; j++) {
+                expected[j] = be[be.length - 1 - j];
+            }
+            assertArrayEquals(expected, bytes);
+            assertEquals(v, f.toBigInteger(f.fromBytes(bytes, 0)));
+        }
+        // bit 255 is ignored and p itself decodes to zero
+        byte[] pBytes = f.toBytes(f.fromBigInteger(P.subtract(BigInteger.ONE)));
+        pBytes[0]++;
+        assertTrue(f.isZero(f.fromBytes(pBytes, 0)));
+        pBytes[31] |= (byte) 0x80;
+        assertTrue(f.isZero(f.fromBytes(pBytes, 0)));
+    }
+}
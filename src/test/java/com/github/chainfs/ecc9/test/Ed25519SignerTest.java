@@ -0,0 +1,120 @@
+package com.github.chainfs.ecc9.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc9.Ed25519Signer;
+
+public class Ed25519SignerTest {
+
+    // RFC 8032 section 7.1, TEST 1 to TEST 3: secret key, public key, message, signature
+    private static final String[][] VECTORS = {
+        {
+            "9d61b19deffd5a60ba844af492ec2cc44449c5697b326919703bac031cae7f60",
+            "d75a980182b10ab7d54bfed3c964073a0ee172f3daa62325af021a68f707511a",
+            "",
+            "e5564300c360ac729086e2cc806e828a84877f1eb8e5d974d873e06522490155"
+                + "5fb8821590a33bacc61e39701cf9b46bd25bf5f0595bbe24655141438e7a100b"
+        },
+        {
+            "4ccd089b28ff96da9db6c346ec114e0f5b8a319f35aba624da8cf6ed4fb8a6fb",
+            "3d4017c3e843895a92b70aa74d1b7ebc9c982ccf2ec4968cc0cd55f12af4660c",
+            "72",
+            "92a009a9f0d4cab8720e820b5f642540a2b27b5416503f8fb3762223ebdb69da"
+                + "085ac1e43e15996e458f3613d0f11d8c387b2eaeb4302aeeb00d291612bb0c00"
+        },
+        {
+            "c5aa8df43f9f837bedb7442f31dcb7b166d38535076f094b85ce3a2e0b4458f7",
+            "fc51cd8e6218a1a38da47ed00230f0580816ed13ba3303ac5deb911548908025",
+            "af82",
+            "6291d657deec24024827e69c3abe01a30ce548a284743a445e3680d7db5ac3ac"
+                + "18ff9b538d16f290ae67f760984dc6594a7c15e9716ed28dc027beceea1ec40a"
+        }
+    };
+
+    private static byte[] hex(String s) {
+        byte[] out = new byte[s.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(s.substring(2 * i, 2 * i + 2), 16);
+        }
+        return out;
+    }
+
+    @Test
+    public void testRfc8032Vectors() {
+        for (String[] v : VECTORS) {
+            byte[] secretKey = hex(v[0]);
+            byte[] publicKey = hex(v[1]);
+            byte[] message = hex(v[2]);
+            byte[] signature = hex(v[3]);
+            assertArrayEquals(publicKey, Ed25519Signer.publicKey(secretKey));
+            assertArrayEquals(signature, Ed25519Signer.sign(secretKey, message));
+            assertTrue(Ed25519Signer.verify(publicKey, message, signature));
+        }
+    }
+
+    @Test
+    public void testRejectsTamperedInput() {
+        String[] v = VECTORS[2];
+        byte[] publicKey = hex(v[1]);
+        byte[] message = hex(v[2]);
+        byte[] signature = hex(v[3]);
+
+        message[0] ^= 1;
+        assertFalse(Ed25519Signer.verify(publicKey, message, signature));
+        message[0] ^= 1;
+
+        signature[40] ^= 1;
+        assertFalse(Ed25519Signer.verify(publicKey, message, signature));
+        signature[40] ^= 1;
+
+        // S + L is the same scalar but must be refused as non-canonical
+        signature[63] |= (byte) 0xf0;
+        assertFalse(Ed25519Signer.verify(publicKey, message, signature));
+    }
+
+    @Test
+    public void testRejectsWrongSecretKeyLength() {
+        byte[] message = hex(VECTORS[1][2]);
+        for (int length : new int[]{0, 31, 33, 64}) {
+            byte[] secretKey = new byte[length];
+            assertThrows(IllegalArgumentException.class, () -> Ed25519Signer.publicKey(secretKey));
+            assertThrows(IllegalArgumentException.class, () -> Ed25519Signer.sign(secretKey, message));
+        }
+    }
+
+    @Test
+    public void testBatchVerify() {
+        Random random = new Random(38);
+        int n = 24;
+        byte[][] publicKeys = new byte[n][];
+        byte[][] messages = new byte[n][];
+        byte[][] signatures = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            byte[] secretKey = new byte[32];
+            random.nextBytes(secretKey);
+            messages[i] = new byte[i];
+            random.nextBytes(messages[i]);
+            publicKeys[i] = Ed25519Signer.publicKey(secretKey);
+            signatures[i] = Ed25519Signer.sign(secretKey, messages[i]);
+        }
+        assertTrue(Ed25519Signer.verifyBatch(publicKeys, messages, signatures));
+
+        // one bad S
+        signatures[11][33] ^= 4;
+        assertFalse(Ed25519Signer.verifyBatch(publicKeys, messages, signatures));
+        signatures[11][33] ^= 4;
+
+        // two signatures swapped between messages
+        byte[] t = signatures[3];
+        signatures[3] = signatures[4];
+        signatures[4] = t;
+        assertFalse(Ed25519Signer.verifyBatch(publicKeys, messages, signatures));
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.chainfs.ecc9.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc9.NistP256Curve;
+import com.github.chainfs.ecc9.Pippenger;
+import com.github.chainfs.ecc9.Secp256k1EC;
+
+public class PippengerTest {
+
+    private static BigInteger[] naiveSecp256k1(BigInteger[] k, BigInteger[][] points) {
+        BigInteger[] sum = {BigInteger.ZERO, BigInteger.ZERO};
+        for (int i = 0; i < k.length; i++) {
+            BigInteger[] term = Secp256k1EC.scalarMultiplyDoubleAndAdd(k[i], points[i][0], points[i][1]);
+            sum = Pippenger.secp256k1(new BigInteger[]{BigInteger.ONE, BigInteger.ONE}, new BigInteger[][]{sum, term});
+        }
+        return sum;
+    }
+
+    private static NistP256Curve.ECPoint naiveP256(BigInteger[] k, NistP256Curve.ECPoint[] points) {
+        NistP256Curve.ECPoint sum = NistP256Curve.INFINITY;
+        for (int i = 0; i < k.length; i++) {
+            sum = NistP256Curve.pointAdd(sum, NistP256Curve.scalarMultiply(k[i], points[i]));
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSecp256k1MatchesNaiveSum() {
+        Random random = new Random(40);
+        for (int n : new int[]{1, 2, 7, 40}) {
+            BigInteger[] k = new BigInteger[n];
+            BigInteger[][] points = new BigInteger[n][];
+            for (int i = 0; i < n; i++) {
+                k[i] = new BigInteger(256, random).mod(Secp256k1EC.CURVE_ORDER);
+                points[i] = Secp256k1EC.scalarMultiplyDoubleAndAdd(new BigInteger(64, random), Secp256k1EC.GX, Secp256k1EC.GY);
+            }
+            assertArrayEquals(naiveSecp256k1(k, points), Pippenger.secp256k1(k, points), "n = " + n);
+        }
+    }
+
+    @Test
+    public void testP256MatchesNaiveSum() {
+        Random random = new Random(41);
+        NistP256Curve.ECPoint g = new NistP256Curve.ECPoint(NistP256Curve.Gx, NistP256Curve.Gy);
+        int n = 30;
+        BigInteger[] k = new BigInteger[n];
+        NistP256Curve.ECPoint[] points = new NistP256Curve.ECPoint[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = new BigInteger(i % 3 == 0 ? 128 : 256, random);
+            points[i] = NistP256Curve.scalarMultiply(new BigInteger(64, random), g);
+        }
+        NistP256Curve.ECPoint expected = naiveP256(k, points);
+        assertEquals(expected, Pippenger.p256(k, points));
+        assertTrue(NistP256Curve.isOnCurve(expected));
+    }
+
+    @Test
+    public void testEdgeCases() {
+        NistP256Curve.ECPoint g = new NistP256Curve.ECPoint(NistP256Curve.Gx, NistP256Curve.Gy);
+        BigInteger five = BigInteger.valueOf(5);
+
+        // equal points landing in the same bucket, a point at infinity and a zero scalar
+        NistP256Curve.ECPoint[] points = {g, g, NistP256Curve.INFINITY, g};
+        BigInteger[] k = {five, five, BigInteger.TEN, BigInteger.ZERO};
+        assertEquals(NistP256Curve.scalarMultiply(BigInteger.TEN, g), Pippenger.p256(k, points));
+
+        // k G + (-k) G
+        assertNull(Pippenger.p256(new BigInteger[]{five, five.negate()}, new NistP256Curve.ECPoint[]{g, g}));
+        assertNull(Pippenger.p256(new BigInteger[0], new NistP256Curve.ECPoint[0]));
+        assertArrayEquals(new BigInteger[]{BigInteger.ZERO, BigInteger.ZERO},
+                Pippenger.secp256k1(new BigInteger[]{Secp256k1EC.CURVE_ORDER}, new BigInteger[][]{Secp256k1EC.G}));
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        Random random = new Random(42);
+        int n = 64;
+        BigInteger[] k = new BigInteger[n];
+        BigInteger[][] points = new BigInteger[n][];
+        for (int i = 0; i < n; i++) {
+            k[i] = new BigInteger(256, random);
+            points[i] = Secp256k1EC.scalarMultiplyDoubleAndAdd(new BigInteger(64, random), Secp256k1EC.GX, Secp256k1EC.GY);
+        }
+        BigInteger[] sequential = Pippenger.secp256k1(k, points);
+        int threshold = Pippenger.getParallelThreshold();
+        Pippenger.setParallelThreshold(4);
+        try {
+            assertArrayEquals(sequential, Pippenger.secp256k1(k, points));
+        } finally {
+            Pippenger.setParallelThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testWindowGrowsWithPointCount() {
+        int previous = 0;
+        for (int n = 1; n <= 1 << 16; n <<= 2) {
+            int c = Pippenger.windowFor(n, 256);
+            assertTrue(c >= previous, "n = " + n);
+            previous = c;
+        }
+        assertTrue(Pippenger.windowFor(1 << 16, 256) > Pippenger.windowFor(16, 256));
+    }
+}
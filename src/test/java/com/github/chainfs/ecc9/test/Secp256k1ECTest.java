@@ -7,6 +7,8 @@ import java.math.BigInteger;
 import org.junit.jupiter.api.Test;
 
 import com.github.chainfs.ecc9.Secp256k1EC;
+import com.github.chainfs.ecc9.Secp256k1FieldElement;
+import com.github.chainfs.ecc9.Secp256k1LimbArithmetic;
 
 public class Secp256k1ECTest {
 
@@ -98,4 +100,92 @@ public class Secp256k1ECTest {
         assertEquals(halfG[0], sum[0], "X coordinate of (1/3 + 1/6)G does not match 1/2 G");
         assertEquals(halfG[1], sum[1], "Y coordinate of (1/3 + 1/6)G does not match 1/2 G");
     }
+
+    @Test
+    public void testLimbBackendMatchesBigIntegerBackend() {
+        BigInteger[] p2 = Secp256k1EC.scalarMultiply(BigInteger.valueOf(2), G[0], G[1]);
+        BigInteger[] p7 = Secp256k1EC.scalarMultiply(BigInteger.valueOf(7), G[0], G[1]);
+        BigInteger[] jac = Secp256k1EC.pointAddMixed(p7[0], p7[1], BigInteger.ONE, G[0], G[1]);
+
+        BigInteger[][] expected = {
+            Secp256k1EC.pointDouble(jac[0], jac[1], jac[2]),
+            Secp256k1EC.pointAddMixed(jac[0], jac[1], jac[2], p2[0], p2[1]),
+            Secp256k1EC.pointAddMixed(G[0], G[1], BigInteger.ONE, G[0], G[1]),
+            Secp256k1EC.pointAddMixed(G[0], G[1], BigInteger.ONE, G[0], Secp256k1EC.negateY(G[1])),
+            Secp256k1EC.scalarMultiply(Secp256k1EC.CURVE_ORDER.subtract(BigInteger.ONE), G[0], G[1]),
+            Secp256k1EC.fraction(1, 3)
+        };
+
+        Secp256k1EC.FieldBackend previous = Secp256k1EC.getFieldBackend();
+        Secp256k1EC.setFieldBackend(Secp256k1EC.FieldBackend.LIMB_4X64);
+        try {
+            BigInteger[][] actual = {
+                limbDouble(jac),
+                limbAddMixed(jac, p2),
+                limbAddMixed(new BigInteger[]{G[0], G[1], BigInteger.ONE}, G),
+                limbAddMixed(new BigInteger[]{G[0], G[1], BigInteger.ONE}, new BigInteger[]{G[0], Secp256k1EC.negateY(G[1])}),
+                Secp256k1EC.scalarMultiply(Secp256k1EC.CURVE_ORDER.subtract(BigInteger.ONE), G[0], G[1]),
+                Secp256k1EC.fraction(1, 3)
+            };
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], actual[i], "Backends disagree on case " + i);
+            }
+        } finally {
+            Secp256k1EC.setFieldBackend(previous);
+        }
+    }
+
+    private static BigInteger[] limbDouble(BigInteger[] p) {
+        Secp256k1FieldElement[] r = Secp256k1LimbArithmetic.toLimbs(p);
+        Secp256k1LimbArithmetic.get().pointDouble(r, r);
+        return Secp256k1LimbArithmetic.toBigIntegers(r);
+    }
+
+    private static BigInteger[] limbAddMixed(BigInteger[] p, BigInteger[] q) {
+        Secp256k1FieldElement[] r = Secp256k1LimbArithmetic.toLimbs(p);
+        Secp256k1LimbArithmetic.get().pointAddMixed(r, r,
+                new Secp256k1FieldElement(q[0]), new Secp256k1FieldElement(q[1]));
+        return Secp256k1LimbArithmetic.toBigIntegers(r);
+    }
+
+    @Test
+    public void testExistingChecksOnLimbBackend() {
+        Secp256k1EC.FieldBackend previous = Secp256k1EC.getFieldBackend();
+        Secp256k1EC.setFieldBackend(Secp256k1EC.FieldBackend.LIMB_4X64);
+        try {
+            testHalfThenDoubleEqualsOriginalPoint();
+            testHalfGDistanceBetween8GAnd9G();
+            testHalfGDistanceBetween20GAnd21GWithRedoubling();
+            testFractionAdditionOneThirdPlusOneSixthEqualsOneHalf();
+        } finally {
+            Secp256k1EC.setFieldBackend(previous);
+        }
+    }
+
+    @Test
+    public void testNormalizeAllMatchesToAffine() {
+        BigInteger[] p7 = Secp256k1EC.scalarMultiply(BigInteger.valueOf(7), G[0], G[1]);
+        BigInteger[] jac = Secp256k1EC.pointAddMixed(p7[0], p7[1], BigInteger.ONE, G[0], G[1]);
+        BigInteger[][] points = {
+            Secp256k1EC.pointDouble(jac[0], jac[1], jac[2]),
+            new BigInteger[]{BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO}, // infinity
+            jac,
+            new BigInteger[]{G[0], G[1], BigInteger.ONE},
+            Secp256k1EC.pointDouble(G[0], G[1], BigInteger.ONE)
+        };
+
+        Secp256k1EC.FieldBackend previous = Secp256k1EC.getFieldBackend();
+        try {
+            for (Secp256k1EC.FieldBackend backend : Secp256k1EC.FieldBackend.values()) {
+                Secp256k1EC.setFieldBackend(backend);
+                BigInteger[][] affine = Secp256k1EC.normalizeAll(points);
+                for (int i = 0; i < points.length; i++) {
+                    assertArrayEquals(Secp256k1EC.toAffinePoint(points[i]), affine[i], backend + " point " + i);
+                }
+                assertEquals(0, Secp256k1EC.normalizeAll(new BigInteger[0][]).length);
+            }
+        } finally {
+            Secp256k1EC.setFieldBackend(previous);
+        }
+    }
 }
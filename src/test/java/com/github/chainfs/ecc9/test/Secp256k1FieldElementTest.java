@@ -0,0 +1,82 @@
+package com.github.chainfs.ecc9.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc9.Secp256k1EC;
+import com.github.chainfs.ecc9.Secp256k1FieldElement;
+
+public class Secp256k1FieldElementTest {
+
+    private static final BigInteger P = Secp256k1EC.P;
+
+    // Values that sit on limb and modulus boundaries, followed by random ones
+    private static BigInteger[] samples() {
+        Random random = new Random(27);
+        BigInteger[] values = new BigInteger[64];
+        values[0] = BigInteger.ZERO;
+        values[1] = BigInteger.ONE;
+        values[2] = P.subtract(BigInteger.ONE);
+        values[3] = P.subtract(BigInteger.TWO);
+        values[4] = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        values[5] = BigInteger.ONE.shiftLeft(255);
+        values[6] = BigInteger.ONE.shiftLeft(32).add(BigInteger.valueOf(977));
+        values[7] = Secp256k1EC.GX;
+        for (int i = 8; i < values.length; i++) {
+            values[i] = new BigInteger(256, random).mod(P);
+        }
+        return values;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (BigInteger v : samples()) {
+            assertEquals(v, new Secp256k1FieldElement(v).toBigInteger());
+        }
+        BigInteger above = P.add(BigInteger.valueOf(5));
+        assertEquals(BigInteger.valueOf(5), new Secp256k1FieldElement(above).toBigInteger());
+        assertEquals(P.subtract(BigInteger.ONE),
+                new Secp256k1FieldElement(BigInteger.ONE.negate()).toBigInteger());
+    }
+
+    @Test
+    public void testArithmeticMatchesBigInteger() {
+        BigInteger[] values = samples();
+        Secp256k1FieldElement r = new Secp256k1FieldElement();
+        for (BigInteger a : values) {
+            Secp256k1FieldElement fa = new Secp256k1FieldElement(a);
+            for (BigInteger b : values) {
+                Secp256k1FieldElement fb = new Secp256k1FieldElement(b);
+                assertEquals(a.add(b).mod(P), r.add(fa, fb).toBigInteger(), "add");
+                assertEquals(a.subtract(b).mod(P), r.sub(fa, fb).toBigInteger(), "sub");
+                assertEquals(a.multiply(b).mod(P), r.mul(fa, fb).toBigInteger(), "mul");
+            }
+            assertEquals(a.multiply(a).mod(P), r.sqr(fa).toBigInteger(), "sqr");
+            assertEquals(a.negate().mod(P), r.negate(fa).toBigInteger(), "negate");
+            assertEquals(a.multiply(BigInteger.valueOf(8)).mod(P), r.mulInt(fa, 8).toBigInteger(), "mulInt");
+        }
+    }
+
+    @Test
+    public void testInvert() {
+        for (BigInteger a : samples()) {
+            if (a.signum() == 0) continue;
+            assertEquals(a.modInverse(P), new Secp256k1FieldElement().invert(new Secp256k1FieldElement(a)).toBigInteger());
+        }
+    }
+
+    @Test
+    public void testOperandsMayAliasResult() {
+        BigInteger a = Secp256k1EC.GX;
+        BigInteger b = Secp256k1EC.GY;
+        Secp256k1FieldElement fa = new Secp256k1FieldElement(a);
+        fa.mul(fa, new Secp256k1FieldElement(b));
+        assertEquals(a.multiply(b).mod(P), fa.toBigInteger());
+        fa.sub(fa, fa);
+        assertTrue(fa.isZero());
+    }
+}
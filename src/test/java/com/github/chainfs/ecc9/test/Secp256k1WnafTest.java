@@ -0,0 +1,105 @@
+package com.github.chainfs.ecc9.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc9.Secp256k1EC;
+import com.github.chainfs.ecc9.Secp256k1EC.FieldBackend;
+import com.github.chainfs.ecc9.Secp256k1Wnaf;
+
+public class Secp256k1WnafTest {
+
+    private static final BigInteger N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+
+    private static BigInteger[] scalars() {
+        Random random = new Random(28);
+        BigInteger[] values = new BigInteger[24];
+        values[0] = BigInteger.ZERO;
+        values[1] = BigInteger.ONE;
+        values[2] = BigInteger.valueOf(2);
+        values[3] = BigInteger.valueOf(15);
+        values[4] = BigInteger.valueOf(255);
+        values[5] = N.subtract(BigInteger.ONE);
+        values[6] = N;
+        values[7] = N.add(BigInteger.valueOf(3));
+        values[8] = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+        for (int i = 9; i < values.length; i++) {
+            values[i] = new BigInteger(256, random);
+        }
+        return values;
+    }
+
+    @Test
+    public void testRecodingReconstructsScalar() {
+        for (int w = Secp256k1Wnaf.MIN_WINDOW; w <= Secp256k1Wnaf.MAX_WINDOW; w++) {
+            for (BigInteger k : scalars()) {
+                int[] digits = Secp256k1Wnaf.wnaf(k, w);
+                BigInteger sum = BigInteger.ZERO;
+                int lastNonZero = -w;
+                for (int i = digits.length - 1; i >= 0; i--) {
+                    sum = sum.shiftLeft(1).add(BigInteger.valueOf(digits[i]));
+                }
+                for (int i = 0; i < digits.length; i++) {
+                    if (digits[i] == 0) continue;
+                    assertTrue((digits[i] & 1) == 1, "digits are odd");
+                    assertTrue(Math.abs(digits[i]) < (1 << (w - 1)), "digit in window");
+                    assertTrue(i - lastNonZero >= w, "w-1 zeros between digits");
+                    lastNonZero = i;
+                }
+                assertEquals(k, sum, "w=" + w);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesDoubleAndAdd() {
+        BigInteger[] p = Secp256k1EC.scalarMultiplyDoubleAndAdd(BigInteger.valueOf(7), Secp256k1EC.GX, Secp256k1EC.GY);
+        FieldBackend previous = Secp256k1EC.getFieldBackend();
+        try {
+            for (FieldBackend backend : FieldBackend.values()) {
+                Secp256k1EC.setFieldBackend(backend);
+                for (BigInteger k : scalars()) {
+                    if (k.mod(N).signum() == 0) continue;
+                    BigInteger[] expectedG = Secp256k1EC.scalarMultiplyDoubleAndAdd(k, Secp256k1EC.GX, Secp256k1EC.GY);
+                    BigInteger[] expectedP = Secp256k1EC.scalarMultiplyDoubleAndAdd(k, p[0], p[1]);
+                    for (int w = Secp256k1Wnaf.MIN_WINDOW; w <= Secp256k1Wnaf.MAX_WINDOW; w++) {
+                        String message = backend + " w=" + w + " k=" + k.toString(16);
+                        assertArrayEquals(expectedG, Secp256k1Wnaf.multiply(k, Secp256k1EC.GX, Secp256k1EC.GY, w), message);
+                        assertArrayEquals(expectedP, Secp256k1Wnaf.multiply(k, p[0], p[1], w), message);
+                    }
+                }
+            }
+        } finally {
+            Secp256k1EC.setFieldBackend(previous);
+        }
+    }
+
+    @Test
+    public void testMultiplesOfOrderGiveInfinity() {
+        BigInteger[] infinity = {BigInteger.ZERO, BigInteger.ZERO};
+        for (int w = Secp256k1Wnaf.MIN_WINDOW; w <= Secp256k1Wnaf.MAX_WINDOW; w++) {
+            assertArrayEquals(infinity, Secp256k1Wnaf.multiply(BigInteger.ZERO, Secp256k1EC.GX, Secp256k1EC.GY, w));
+            assertArrayEquals(infinity, Secp256k1Wnaf.multiply(N, Secp256k1EC.GX, Secp256k1EC.GY, w));
+            assertArrayEquals(infinity, Secp256k1Wnaf.multiply(N.shiftLeft(1), Secp256k1EC.GX, Secp256k1EC.GY, w));
+        }
+    }
+
+    @Test
+    public void testScalarMultiplyUsesConfiguredWindow() {
+        int previous = Secp256k1EC.getWnafWindow();
+        try {
+            BigInteger k = new BigInteger("3f1c0ffee0ddf00d1234567890abcdef3f1c0ffee0ddf00d1234567890abcdef", 16);
+            Secp256k1EC.setWnafWindow(0);
+            BigInteger[] expected = Secp256k1EC.scalarMultiply(k, Secp256k1EC.GX, Secp256k1EC.GY);
+            Secp256k1EC.setWnafWindow(4);
+            assertArrayEquals(expected, Secp256k1EC.scalarMultiply(k, Secp256k1EC.GX, Secp256k1EC.GY));
+            assertThrows(IllegalArgumentException.class, () -> Secp256k1EC.setWnafWindow(12));
+        } finally {
+            Secp256k1EC.setWnafWindow(previous);
+        }
+    }
+}
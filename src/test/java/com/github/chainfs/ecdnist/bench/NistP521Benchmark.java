@@ -0,0 +1,120 @@
+package com.github.chainfs.ecdnist.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.Mersenne521Field;
+import com.github.chainfs.ecc.MontgomeryField;
+import com.github.chainfs.ecc.PrimeField;
+import com.github.chainfs.ecdnist.NistP521EC;
+
+/**
+ * P-521 field multiplication on the Mersenne limbs, Montgomery limbs and
+ * BigInteger, and k * G with the Jacobian scalarMultiply against the affine
+ * double-and-add it replaced.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdnist.bench.NistP521Benchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NistP521Benchmark {
+
+    private static final BigInteger P = NistP521EC.P;
+
+    @Param({"MERSENNE", "MONTGOMERY"})
+    public String field;
+
+    private PrimeField f;
+    private long[] x;
+    private long[] y;
+    private BigInteger a;
+    private BigInteger b;
+    private BigInteger k;
+
+    @Setup
+    public void setUp() {
+        f = "MERSENNE".equals(field) ? new Mersenne521Field() : new MontgomeryField(P);
+        Random random = new Random(36);
+        a = new BigInteger(521, random).mod(P);
+        b = new BigInteger(521, random).mod(P);
+        k = new BigInteger(521, random).mod(NistP521EC.N);
+        x = f.fromBigInteger(a);
+        y = f.fromBigInteger(b);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long[] fieldMultiply() {
+        f.mul(x, x, y);
+        return x;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BigInteger bigIntegerMultiply() {
+        a = a.multiply(b).mod(P);
+        return a;
+    }
+
+    // Uses the field PrimeField.forModulus picks, which is the Mersenne one
+    @Benchmark
+    public BigInteger[] scalarMultiply() {
+        return NistP521EC.scalarMultiply(k, NistP521EC.G);
+    }
+
+    @Benchmark
+    public BigInteger[] affineScalarMultiply() {
+        return affineMultiply(k, NistP521EC.G);
+    }
+
+    // The previous affine double-and-add, one modInverse per step
+    private static BigInteger[] affineMultiply(BigInteger k, BigInteger[] point) {
+        BigInteger[] result = null;
+        for (int i = k.bitLength() - 1; i >= 0; i--) {
+            if (result != null) result = affineDouble(result);
+            if (k.testBit(i)) result = affineAdd(result, point);
+        }
+        return result;
+    }
+
+    private static BigInteger[] affineAdd(BigInteger[] p1, BigInteger[] q) {
+        if (p1 == null) return q;
+        if (p1[0].equals(q[0])) {
+            return p1[1].equals(q[1]) ? affineDouble(p1) : null;
+        }
+        BigInteger lambda = q[1].subtract(p1[1]).multiply(q[0].subtract(p1[0]).modInverse(P)).mod(P);
+        BigInteger x3 = lambda.pow(2).subtract(p1[0]).subtract(q[0]).mod(P);
+        BigInteger y3 = lambda.multiply(p1[0].subtract(x3)).subtract(p1[1]).mod(P);
+        return new BigInteger[]{x3, y3};
+    }
+
+    private static BigInteger[] affineDouble(BigInteger[] q) {
+        BigInteger lambda = q[0].pow(2).multiply(BigInteger.valueOf(3)).add(NistP521EC.A)
+                .multiply(q[1].shiftLeft(1).modInverse(P)).mod(P);
+        BigInteger x3 = lambda.pow(2).subtract(q[0].shiftLeft(1)).mod(P);
+        BigInteger y3 = lambda.multiply(q[0].subtract(x3)).subtract(q[1]).mod(P);
+        return new BigInteger[]{x3, y3};
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
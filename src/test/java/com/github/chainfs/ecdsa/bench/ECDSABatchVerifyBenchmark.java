@@ -0,0 +1,90 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSABatchVerifier;
+import com.github.chainfs.ecdsa.ECDSASignature;
+import com.github.chainfs.ecdsa.ECDSASigner;
+
+/**
+ * secp256k1 ECDSA verification of a batch of signatures, each under its own
+ * key: one verify call per signature against the random linear combination
+ * of ECDSABatchVerifier.  Divide by size for the time per signature.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.ECDSABatchVerifyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ECDSABatchVerifyBenchmark {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    @Param({"16", "64", "256", "1024", "4096"})
+    public int size;
+
+    private ECDSASigner signer;
+    private ECDSABatchVerifier verifier;
+    private BigInteger[] z;
+    private ECPoint[] q;
+    private ECDSASignature[] signatures;
+
+    @Setup
+    public void setUp() {
+        ECCurve curve = ECCurve.getSecp256k1();
+        ECPoint g = curve.createPoint(
+                new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+                new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+        signer = new ECDSASigner(N, g);
+        verifier = new ECDSABatchVerifier(signer);
+        Random random = new Random(48);
+        z = new BigInteger[size];
+        q = new ECPoint[size];
+        signatures = new ECDSASignature[size];
+        for (int i = 0; i < size; i++) {
+            BigInteger d = new BigInteger(255, random).add(BigInteger.ONE);
+            z[i] = new BigInteger(256, random);
+            q[i] = g.multiply(d);
+            signatures[i] = signer.signRecoverable(d, z[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean verifyEach() {
+        boolean all = true;
+        for (int i = 0; i < size; i++) {
+            all &= signer.verify(z[i], q[i], signatures[i].getR(), signatures[i].getS());
+        }
+        return all;
+    }
+
+    @Benchmark
+    public boolean verifyBatch() {
+        return verifier.verifyAll(z, q, signatures);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSASigner;
+
+/**
+ * secp256k1 ECDSA signing of a batch of hashes: one sign call per hash
+ * against signBatch, whose R points and nonce inverses share inversions and
+ * which runs on the fork/join pool from the parallel threshold upwards.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.ECDSASignBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ECDSASignBenchmark {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    private ECDSASigner signer;
+    private BigInteger[] d;
+    private BigInteger[] z;
+
+    @Setup
+    public void setUp() {
+        ECCurve curve = ECCurve.getSecp256k1();
+        ECPoint g = curve.createPoint(
+                new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+                new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+        signer = new ECDSASigner(N, g);
+        Random random = new Random(46);
+        d = new BigInteger[size];
+        z = new BigInteger[size];
+        for (int i = 0; i < size; i++) {
+            d[i] = new BigInteger(255, random).add(BigInteger.ONE);
+            z[i] = new BigInteger(256, random);
+        }
+    }
+
+    @Benchmark
+    public BigInteger[][] signEach() {
+        BigInteger[][] result = new BigInteger[size][];
+        for (int i = 0; i < size; i++) {
+            result[i] = signer.sign(d[i], z[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BigInteger[][] signBatch() {
+        return signer.signBatch(d, z);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSASigner;
+
+/**
+ * secp256k1 ECDSA verification with and without the GLV endomorphism split,
+ * plus the variable-base multiplication on its own.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.ECDSAVerifyBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ECDSAVerifyBenchmark {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    @Param({"false", "true"})
+    public boolean endomorphism;
+
+    private ECDSASigner signer;
+    private ECPoint q;
+    private BigInteger z;
+    private BigInteger[] signature;
+    private BigInteger k;
+
+    @Setup
+    public void setUp() {
+        ECCurve curve = ECCurve.getSecp256k1();
+        ECPoint g = curve.createPoint(
+                new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+                new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+        signer = new ECDSASigner(N, g, endomorphism);
+        BigInteger d = new BigInteger("1E99423A4ED27608A15A2616E0A1340C18D5B3BD450796F83357D5B6A5A75E24", 16);
+        q = g.multiply(d);
+        z = new BigInteger("5F1D3C1A3E2E3D7A55D9E47642F5A7F684C5A60DEEF86B5E6AB0D5F1BBFE4936", 16);
+        signature = signer.sign(d, z);
+        k = z.multiply(d).mod(N);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return signer.verify(z, q, signature[0], signature[1]);
+    }
+
+    @Benchmark
+    public ECPoint variableBaseMultiply() {
+        return endomorphism ? Secp256k1Endomorphism.multiply(q, k) : q.multiply(k);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
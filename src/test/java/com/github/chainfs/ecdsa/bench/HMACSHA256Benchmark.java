@@ -0,0 +1,101 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.HMACSHA256;
+import com.github.chainfs.ecdsa.HashProviders;
+import com.github.chainfs.ecdsa.RFC6979Nonce;
+
+/**
+ * HMAC-SHA256 of a 32-byte message, the size of every MAC in RFC 6979:
+ * keyed once with the cached pad midstates, on the built-in and the JDK
+ * hash provider, against the one-shot hmac and the JDK Mac, and the whole
+ * RFC 6979 nonce derivation.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.HMACSHA256Benchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HMACSHA256Benchmark {
+
+    private byte[] key;
+    private byte[] message;
+    private byte[] out;
+    private HMACSHA256 keyed;
+    private HMACSHA256 keyedJdk;
+    private Mac jdkMac;
+    private BigInteger hash;
+    private BigInteger privateKey;
+    private BigInteger n;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        Random random = new Random(43);
+        key = new byte[32];
+        message = new byte[32];
+        random.nextBytes(key);
+        random.nextBytes(message);
+        out = new byte[HMACSHA256.MAC_LENGTH];
+        keyed = new HMACSHA256(HashProviders.builtin()).init(key);
+        keyedJdk = new HMACSHA256(HashProviders.jdk()).init(key);
+        jdkMac = Mac.getInstance("HmacSHA256");
+        jdkMac.init(new SecretKeySpec(key, "HmacSHA256"));
+        n = Secp256k1Endomorphism.N;
+        hash = new BigInteger(256, random);
+        privateKey = new BigInteger(255, random).add(BigInteger.ONE);
+    }
+
+    @Benchmark
+    public byte[] oneShot() {
+        return HMACSHA256.hmac(key, message);
+    }
+
+    @Benchmark
+    public byte[] keyedMidstates() {
+        keyed.update(message).doFinal(out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] keyedMidstatesJdkProvider() {
+        keyedJdk.update(message).doFinal(out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] jdkMac() {
+        return jdkMac.doFinal(message);
+    }
+
+    @Benchmark
+    public BigInteger rfc6979Nonce() {
+        return RFC6979Nonce.generateK(hash, privateKey, n);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecdsa.SHA256Hash;
+
+/**
+ * SHA-256 of one message: the int-word SHA256Hash against the BigInteger
+ * version it replaced and the JDK MessageDigest.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.SHA256Benchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SHA256Benchmark {
+
+    @Param({"32", "64", "256", "1024", "16384"})
+    public int size;
+
+    private byte[] message;
+    private byte[] out;
+    private MessageDigest messageDigest;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        message = new byte[size];
+        new Random(41).nextBytes(message);
+        out = new byte[SHA256Hash.DIGEST_LENGTH];
+        messageDigest = MessageDigest.getInstance("SHA-256");
+    }
+
+    @Benchmark
+    public byte[] bigIntegerWords() {
+        return BigIntegerSHA256Hash.sha256(message);
+    }
+
+    @Benchmark
+    public byte[] intWords() {
+        return SHA256Hash.sha256(message);
+    }
+
+    @Benchmark
+    public byte[] intWordsIntoBuffer() {
+        SHA256Hash.sha256(message, 0, message.length, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] messageDigest() {
+        return messageDigest.digest(message);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecdsa.SHA256Hash;
+import com.github.chainfs.ecdsa.SHA256MultiBuffer;
+
+/**
+ * SHA-256 of 1024 small messages, time per message: one at a time with
+ * SHA256Hash and MessageDigest against the multi-buffer scalar and default
+ * kernels.  The default kernel is the vector one only when the tree is
+ * built with -Pvector and the JVM runs with --add-modules
+ * jdk.incubator.vector (pass it with -jvmArgs).
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.SHA256MultiBufferBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SHA256MultiBufferBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    @Param({"32", "64", "128", "256"})
+    public int size;
+
+    private byte[][] messages;
+    private byte[][] digests;
+    private SHA256MultiBuffer scalar;
+    private SHA256MultiBuffer preferred;
+    private MessageDigest jdk;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        Random random = new Random(49);
+        messages = new byte[MESSAGES][size];
+        digests = new byte[MESSAGES][SHA256Hash.DIGEST_LENGTH];
+        for (byte[] message : messages) {
+            random.nextBytes(message);
+        }
+        scalar = SHA256MultiBuffer.scalar();
+        preferred = SHA256MultiBuffer.getDefault();
+        jdk = MessageDigest.getInstance("SHA-256");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] single() {
+        for (int i = 0; i < MESSAGES; i++) {
+            SHA256Hash.sha256(messages[i], 0, size, digests[i], 0);
+        }
+        return digests;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] multiBufferScalar() {
+        scalar.sha256(messages, digests);
+        return digests;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] multiBufferDefault() {
+        preferred.sha256(messages, digests);
+        return digests;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] messageDigest() {
+        for (int i = 0; i < MESSAGES; i++) {
+            digests[i] = jdk.digest(messages[i]);
+        }
+        return digests;
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.chainfs.ecdsa.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSABatchVerifier;
+import com.github.chainfs.ecdsa.ECDSASignature;
+import com.github.chainfs.ecdsa.ECDSASigner;
+import com.github.chainfs.ecdsa.SHA256Hash;
+import com.github.chainfs.ecdsa.SchnorrSigner;
+
+/**
+ * BIP-340 Schnorr against ECDSA on secp256k1, for a batch of messages each
+ * under its own key: signing, one verify per signature, and batch
+ * verification.  Divide by size for the time per signature.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.github.chainfs.ecdsa.bench.SchnorrBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SchnorrBenchmark {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    @Param({"1", "64", "1024"})
+    public int size;
+
+    private byte[][] secretKeys;
+    private byte[][] publicKeys;
+    private byte[][] messages;
+    private byte[][] signatures;
+    private byte[] aux;
+
+    private ECDSASigner ecdsa;
+    private ECDSABatchVerifier ecdsaBatch;
+    private BigInteger[] d;
+    private BigInteger[] z;
+    private ECPoint[] q;
+    private ECDSASignature[] ecdsaSignatures;
+
+    @Setup
+    public void setUp() {
+        ECCurve curve = ECCurve.getSecp256k1();
+        ECPoint g = curve.createPoint(
+                new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+                new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+        ecdsa = new ECDSASigner(N, g);
+        ecdsaBatch = new ECDSABatchVerifier(ecdsa);
+        Random random = new Random(53);
+        aux = new byte[32];
+        secretKeys = new byte[size][32];
+        publicKeys = new byte[size][];
+        messages = new byte[size][32];
+        signatures = new byte[size][];
+        d = new BigInteger[size];
+        z = new BigInteger[size];
+        q = new ECPoint[size];
+        ecdsaSignatures = new ECDSASignature[size];
+        for (int i = 0; i < size; i++) {
+            random.nextBytes(secretKeys[i]);
+            secretKeys[i][0] &= 0x7f;
+            random.nextBytes(messages[i]);
+            publicKeys[i] = SchnorrSigner.publicKey(secretKeys[i]);
+            signatures[i] = SchnorrSigner.sign(secretKeys[i], messages[i], aux);
+            d[i] = new BigInteger(1, secretKeys[i]);
+            z[i] = new BigInteger(1, SHA256Hash.sha256(messages[i]));
+            q[i] = g.multiply(d[i]);
+            ecdsaSignatures[i] = ecdsa.signRecoverable(d[i], z[i]);
+        }
+    }
+
+    @Benchmark
+    public byte[] schnorrSign() {
+        byte[] last = null;
+        for (int i = 0; i < size; i++) {
+            last = SchnorrSigner.sign(secretKeys[i], messages[i], aux);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public BigInteger[] ecdsaSign() {
+        BigInteger[] last = null;
+        for (int i = 0; i < size; i++) {
+            last = ecdsa.sign(d[i], z[i]);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public boolean schnorrVerify() {
+        boolean all = true;
+        for (int i = 0; i < size; i++) {
+            all &= SchnorrSigner.verify(publicKeys[i], messages[i], signatures[i]);
+        }
+        return all;
+    }
+
+    @Benchmark
+    public boolean ecdsaVerify() {
+        boolean all = true;
+        for (int i = 0; i < size; i++) {
+            all &= ecdsa.verify(z[i], q[i], ecdsaSignatures[i].getR(), ecdsaSignatures[i].getS());
+        }
+        return all;
+    }
+
+    @Benchmark
+    public boolean schnorrVerifyBatch() {
+        return SchnorrSigner.verifyBatch(publicKeys, messages, signatures);
+    }
+
+    @Benchmark
+    public boolean ecdsaVerifyBatch() {
+        return ecdsaBatch.verifyAll(z, q, ecdsaSignatures);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSASigner;
+
+public class ECDSABatchSignTest {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    private static final ECPoint G = ECCurve.getSecp256k1().createPoint(
+            new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+            new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+    private static BigInteger[] randomScalars(Random random, int count) {
+        BigInteger[] result = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = new BigInteger(256, random).mod(N.subtract(BigInteger.ONE)).add(BigInteger.ONE);
+        }
+        return result;
+    }
+
+    @Test
+    public void testBatchMatchesSingle() {
+        ECDSASigner signer = new ECDSASigner(N, G);
+        Random random = new Random(46);
+        for (int count : new int[]{0, 1, 3, 64, 65, 130}) {
+            BigInteger[] d = randomScalars(random, count);
+            BigInteger[] z = randomScalars(random, count);
+            BigInteger[][] batch = signer.signBatch(d, z);
+            assertEquals(count, batch.length);
+            for (int i = 0; i < count; i++) {
+                assertArrayEquals(signer.sign(d[i], z[i]), batch[i], "count " + count + ", entry " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelBatchVerifies() {
+        ECDSASigner signer = new ECDSASigner(N, G);
+        int threshold = ECDSASigner.getParallelThreshold();
+        ECDSASigner.setParallelThreshold(2);
+        try {
+            Random random = new Random(47);
+            BigInteger[] d = randomScalars(random, 300);
+            BigInteger[] z = randomScalars(random, 300);
+            BigInteger[][] batch = signer.signBatch(d, z);
+            for (int i = 0; i < d.length; i += 7) {
+                assertArrayEquals(signer.sign(d[i], z[i]), batch[i]);
+                assertTrue(signer.verify(z[i], G.multiply(d[i]), batch[i][0], batch[i][1]));
+            }
+        } finally {
+            ECDSASigner.setParallelThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void testLengthMismatch() {
+        ECDSASigner signer = new ECDSASigner(N, G);
+        assertThrows(IllegalArgumentException.class,
+                () -> signer.signBatch(new BigInteger[2], new BigInteger[1]));
+    }
+}
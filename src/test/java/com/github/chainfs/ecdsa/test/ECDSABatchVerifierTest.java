@@ -0,0 +1,105 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSABatchVerifier;
+import com.github.chainfs.ecdsa.ECDSASignature;
+import com.github.chainfs.ecdsa.ECDSASigner;
+
+public class ECDSABatchVerifierTest {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    private static final ECPoint G = ECCurve.getSecp256k1().createPoint(
+            new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+            new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+    private static final ECDSASigner SIGNER = new ECDSASigner(N, G);
+
+    private final BigInteger[] keys = new BigInteger[5];
+    private final BigInteger[] z;
+    private final ECPoint[] q;
+    private final ECDSASignature[] signatures;
+
+    public ECDSABatchVerifierTest() {
+        // 40 signatures under 5 keys
+        Random random = new Random(48);
+        ECPoint[] publicKeys = new ECPoint[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new BigInteger(255, random).add(BigInteger.ONE);
+            publicKeys[i] = G.multiply(keys[i]);
+        }
+        z = new BigInteger[40];
+        q = new ECPoint[z.length];
+        signatures = new ECDSASignature[z.length];
+        for (int i = 0; i < z.length; i++) {
+            z[i] = new BigInteger(256, random);
+            q[i] = publicKeys[i % keys.length];
+            signatures[i] = SIGNER.signRecoverable(keys[i % keys.length], z[i]);
+        }
+    }
+
+    private BigInteger keyOf(int i) {
+        return keys[i % keys.length];
+    }
+
+    @Test
+    public void testRecoveryIdMatchesR() {
+        for (int i = 0; i < z.length; i++) {
+            ECDSASignature sig = signatures[i];
+            assertArrayEquals(new BigInteger[]{sig.getR(), sig.getS()}, SIGNER.sign(keyOf(i), z[i]));
+            // R = u1 * G + u2 * Q with u1 = z / s, u2 = r / s
+            BigInteger w = sig.getS().modInverse(N);
+            ECPoint r = G.multiply(z[i].multiply(w).mod(N)).add(q[i].multiply(sig.getR().multiply(w).mod(N)));
+            assertEquals(r.getY().testBit(0) ? 1 : 0, sig.getRecoveryId() & 1);
+            assertEquals(r.getX().compareTo(N) >= 0 ? 2 : 0, sig.getRecoveryId() & 2);
+        }
+    }
+
+    @Test
+    public void testValidBatch() {
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(SIGNER);
+        assertTrue(verifier.verifyAll(z, q, signatures));
+        assertTrue(verifier.verifyAll(new BigInteger[0], new ECPoint[0], new ECDSASignature[0]));
+    }
+
+    @Test
+    public void testBisectionLocatesFailures() {
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(SIGNER);
+        ECDSASignature[] tampered = signatures.clone();
+        BigInteger[] hashes = z.clone();
+        // a wrong s, a wrong hash, and a valid signature with the wrong recovery id
+        tampered[3] = new ECDSASignature(tampered[3].getR(), tampered[3].getS().add(BigInteger.ONE), 0);
+        hashes[17] = hashes[17].add(BigInteger.ONE);
+        tampered[30] = new ECDSASignature(tampered[30].getR(), tampered[30].getS(), tampered[30].getRecoveryId() ^ 1);
+        tampered[31] = new ECDSASignature(tampered[31].getR(), tampered[31].getS());
+
+        boolean[] valid = verifier.verify(hashes, q, tampered);
+        for (int i = 0; i < valid.length; i++) {
+            assertEquals(SIGNER.verify(hashes[i], q[i], tampered[i].getR(), tampered[i].getS()), valid[i], "entry " + i);
+        }
+        assertFalse(valid[3]);
+        assertFalse(valid[17]);
+        assertTrue(valid[30]);
+        assertTrue(valid[31]);
+        assertFalse(verifier.verifyAll(hashes, q, tampered));
+    }
+
+    @Test
+    public void testOutOfRangeRejected() {
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(SIGNER);
+        ECDSASignature[] bad = {new ECDSASignature(N, BigInteger.ONE, 0), new ECDSASignature(BigInteger.ONE, BigInteger.ZERO, 0)};
+        assertArrayEquals(new boolean[]{false, false}, verifier.verify(new BigInteger[]{z[0], z[1]}, new ECPoint[]{q[0], q[1]}, bad));
+    }
+}
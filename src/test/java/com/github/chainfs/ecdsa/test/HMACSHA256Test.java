@@ -0,0 +1,89 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.HMACSHA256;
+import com.github.chainfs.ecdsa.RFC6979Nonce;
+import com.github.chainfs.ecdsa.SHA256Hash;
+
+public class HMACSHA256Test {
+
+    private static byte[] jdkMac(byte[] key, byte[] message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        // SecretKeySpec rejects empty keys, so an empty key goes in as one zero byte, which pads the same
+        mac.init(new SecretKeySpec(key.length == 0 ? new byte[1] : key, "HmacSHA256"));
+        return mac.doFinal(message);
+    }
+
+    @Test
+    public void testRfc4231Case2() {
+        byte[] mac = HMACSHA256.hmac("Jefe".getBytes(), "what do ya want for nothing?".getBytes());
+        assertEquals("5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843", SHA256Hash.toHex(mac));
+    }
+
+    @Test
+    public void testMatchesJdkMac() throws Exception {
+        Random random = new Random(43);
+        for (int keyLength : new int[]{0, 1, 32, 63, 64, 65, 100, 200}) {
+            byte[] key = new byte[keyLength];
+            random.nextBytes(key);
+            HMACSHA256 mac = new HMACSHA256(key);
+            for (int n : new int[]{0, 1, 32, 55, 56, 64, 119, 120, 300}) {
+                byte[] message = new byte[n];
+                random.nextBytes(message);
+                byte[] expected = jdkMac(key, message);
+                assertArrayEquals(expected, HMACSHA256.hmac(key, message), "key " + keyLength + ", length " + n);
+                // the keyed instance is reused across messages
+                assertArrayEquals(expected, mac.update(message).doFinal(), "key " + keyLength + ", length " + n);
+            }
+        }
+    }
+
+    @Test
+    public void testSplitUpdatesAndRekey() throws Exception {
+        Random random = new Random(44);
+        byte[] message = new byte[150];
+        random.nextBytes(message);
+        HMACSHA256 mac = new HMACSHA256();
+        for (int i = 0; i < 10; i++) {
+            byte[] key = new byte[32];
+            random.nextBytes(key);
+            int a = random.nextInt(151);
+            int b = a + random.nextInt(151 - a);
+            mac.init(key);
+            mac.update(message, 0, a).update(message, a, b - a);
+            if (b < message.length) {
+                mac.update(message[b]).update(message, b + 1, message.length - b - 1);
+            }
+            byte[] out = new byte[40];
+            mac.doFinal(out, 3);
+            assertArrayEquals(jdkMac(key, message), Arrays.copyOfRange(out, 3, 35));
+        }
+    }
+
+    @Test
+    public void testUnkeyedFails() {
+        assertThrows(IllegalStateException.class, () -> new HMACSHA256().doFinal());
+    }
+
+    @Test
+    public void testRfc6979P256Sample() {
+        // RFC 6979 A.2.5, P-256 with SHA-256, message "sample"
+        BigInteger n = new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+        BigInteger x = new BigInteger("C9AFA9D845BA75166B5C215767B1D6934E50C3DB36E89B127B8A622B120F6721", 16);
+        BigInteger h = new BigInteger(1, SHA256Hash.sha256("sample".getBytes()));
+        assertEquals(new BigInteger("A6E3C57DD01ABE90086538398355DD4C3B17AA873382B0F24D6129493D8AAD60", 16),
+                RFC6979Nonce.generateK(h, x, n));
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.HMACSHA256;
+import com.github.chainfs.ecdsa.HashProvider;
+import com.github.chainfs.ecdsa.HashProviders;
+import com.github.chainfs.ecdsa.SHA256Digest;
+import com.github.chainfs.ecdsa.TaggedHash;
+
+public class HashProviderTest {
+
+    private static final HashProvider[] PROVIDERS = {HashProviders.builtin(), HashProviders.jdk()};
+
+    @Test
+    public void testProvidersMatchMessageDigest() throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        Random random = new Random(50);
+        for (int length = 0; length < 200; length++) {
+            byte[] message = new byte[length];
+            random.nextBytes(message);
+            byte[] expected = md.digest(message);
+            for (HashProvider provider : PROVIDERS) {
+                assertArrayEquals(expected, provider.sha256(message), provider.getName() + ", length " + length);
+                int split = length / 3;
+                SHA256Digest digest = provider.newSHA256();
+                digest.update(message, 0, split).update(message, split, length - split);
+                assertArrayEquals(expected, digest.digest(), provider.getName() + ", length " + length);
+            }
+        }
+    }
+
+    @Test
+    public void testCopyAndRestore() {
+        byte[] prefix = new byte[100];
+        byte[] suffix = new byte[37];
+        new Random(51).nextBytes(prefix);
+        for (HashProvider provider : PROVIDERS) {
+            SHA256Digest saved = provider.newSHA256().update(prefix);
+            SHA256Digest copy = saved.copy();
+            byte[] first = copy.update(suffix).digest();
+            SHA256Digest other = provider.newSHA256().update(suffix);
+            other.restore(saved);
+            assertArrayEquals(first, other.update(suffix).digest(), provider.getName());
+            // the saved state is untouched by either
+            assertArrayEquals(first, saved.update(suffix).digest(), provider.getName());
+        }
+    }
+
+    @Test
+    public void testHmacAndTaggedHashAgreeAcrossProviders() {
+        Random random = new Random(52);
+        byte[] message = new byte[80];
+        random.nextBytes(message);
+        for (int keyLength : new int[]{1, 32, 64, 100}) {
+            byte[] key = new byte[keyLength];
+            random.nextBytes(key);
+            HMACSHA256 builtin = new HMACSHA256(HashProviders.builtin());
+            HMACSHA256 jdk = new HMACSHA256(HashProviders.jdk());
+            builtin.init(key);
+            jdk.init(key);
+            byte[] expected = builtin.update(message).doFinal();
+            assertArrayEquals(expected, jdk.update(message).doFinal(), "key " + keyLength);
+            // the second MAC restores the midstates
+            assertArrayEquals(expected, jdk.update(message).doFinal(), "key " + keyLength);
+        }
+        TaggedHash builtinTag = new TaggedHash("BIP0340/challenge", HashProviders.builtin());
+        TaggedHash jdkTag = new TaggedHash("BIP0340/challenge", HashProviders.jdk());
+        assertArrayEquals(builtinTag.hash(message), jdkTag.hash(message));
+        assertArrayEquals(builtinTag.hash(message), jdkTag.newContext().update(message).digest());
+    }
+
+    @Test
+    public void testSelection() {
+        assertSame(HashProviders.builtin(), HashProviders.forName(HashProviders.BUILTIN));
+        assertSame(HashProviders.jdk(), HashProviders.forName(HashProviders.JDK));
+        HashProvider probed = HashProviders.probe();
+        assertTrue(probed == HashProviders.builtin() || probed == HashProviders.jdk());
+        assertSame(HashProviders.jdk(), HashProviders.forName("JDK"));
+        assertSame(HashProviders.builtin(), HashProviders.forName(" Builtin "));
+        assertThrows(IllegalArgumentException.class, () -> HashProviders.forName("md5"));
+
+        HashProvider previous = HashProviders.getDefault();
+        try {
+            HashProviders.setDefault(HashProviders.builtin());
+            assertEquals(HashProviders.BUILTIN, new HMACSHA256().getProvider().getName());
+            HashProviders.setDefault(HashProviders.jdk());
+            assertEquals(HashProviders.JDK, new HMACSHA256().getProvider().getName());
+        } finally {
+            HashProviders.setDefault(previous);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecc.ECCurve;
+import com.github.chainfs.ecc.ECPoint;
+import com.github.chainfs.ecc.FixedBaseTable;
+import com.github.chainfs.ecc.Secp256k1Endomorphism;
+import com.github.chainfs.ecdsa.ECDSASigner;
+import com.github.chainfs.ecdsa.PublicKeyTableCache;
+
+public class PublicKeyTableCacheTest {
+
+    private static final BigInteger N = Secp256k1Endomorphism.N;
+
+    private static final ECPoint G = ECCurve.getSecp256k1().createPoint(
+            new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+            new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16));
+
+    @Test
+    public void testTableAfterThreshold() {
+        PublicKeyTableCache cache = new PublicKeyTableCache(4, 3, 256);
+        ECPoint q = G.multiply(BigInteger.valueOf(1234567));
+        assertNull(cache.lookup(q));
+        assertNull(cache.lookup(q));
+        FixedBaseTable table = cache.lookup(q);
+        assertNotNull(table);
+        assertSame(table, cache.lookup(q));
+        assertEquals(1, cache.getBuilds());
+        assertEquals(1, cache.getHits());
+        BigInteger k = new BigInteger(256, new Random(49)).mod(N);
+        assertEquals(q.multiply(k), table.multiply(k));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        PublicKeyTableCache cache = new PublicKeyTableCache(2, 1, 256);
+        ECPoint a = G.multiply(BigInteger.valueOf(2));
+        ECPoint b = G.multiply(BigInteger.valueOf(3));
+        ECPoint c = G.multiply(BigInteger.valueOf(5));
+        cache.lookup(a);
+        cache.lookup(b);
+        cache.lookup(a);
+        cache.lookup(c);
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b));
+        assertTrue(cache.contains(c));
+    }
+
+    @Test
+    public void testDisabled() {
+        PublicKeyTableCache cache = new PublicKeyTableCache(0, 1, 256);
+        assertNull(cache.lookup(G));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testVerifyWithCachedTable() {
+        ECDSASigner signer = new ECDSASigner(N, G);
+        signer.setKeyTableCache(new PublicKeyTableCache(4, 2, N.bitLength()));
+        Random random = new Random(50);
+        BigInteger d = new BigInteger(255, random).add(BigInteger.ONE);
+        ECPoint q = G.multiply(d);
+        for (int i = 0; i < 6; i++) {
+            BigInteger z = new BigInteger(256, random);
+            BigInteger[] sig = signer.sign(d, z);
+            assertTrue(signer.verify(z, q, sig[0], sig[1]));
+            assertFalse(signer.verify(z.add(BigInteger.ONE), q, sig[0], sig[1]));
+            assertFalse(signer.verify(z, q, sig[0], sig[1].add(BigInteger.ONE)));
+        }
+        assertTrue(signer.getKeyTableCache().contains(q));
+        assertTrue(signer.getKeyTableCache().getHits() > 0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import javax.crypto.Mac;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdnist.NistP521EC;
+import com.github.chainfs.ecdsa.KeyedMac;
+import com.github.chainfs.ecdsa.RFC6979Nonce;
+import com.github.chainfs.ecdsa.RFC6979NonceGenerator;
+import com.github.chainfs.ecdsa.SHA256Hash;
+import com.github.chainfs.ecdsa.SHA512Hash;
+
+public class RFC6979NonceGeneratorTest {
+
+    // RFC 6979 A.2.5, P-256
+    private static final BigInteger P256_N =
+            new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+    private static final BigInteger P256_X =
+            new BigInteger("C9AFA9D845BA75166B5C215767B1D6934E50C3DB36E89B127B8A622B120F6721", 16);
+
+    private static BigInteger sha256(String message) {
+        return new BigInteger(1, SHA256Hash.sha256(message.getBytes()));
+    }
+
+    @Test
+    public void testP256Sha256Vectors() {
+        RFC6979NonceGenerator generator = new RFC6979NonceGenerator(P256_N);
+        assertEquals(new BigInteger("A6E3C57DD01ABE90086538398355DD4C3B17AA873382B0F24D6129493D8AAD60", 16),
+                generator.generateK(sha256("sample"), P256_X));
+        assertEquals(new BigInteger("D16B6AE827F17175E040871A1C7EC3500192C4C92677336EC2537ACAEE0008E0", 16),
+                generator.generateK(sha256("test"), P256_X));
+    }
+
+    @Test
+    public void testJceHmacSha512Backend() throws Exception {
+        RFC6979NonceGenerator generator =
+                new RFC6979NonceGenerator(P256_N, KeyedMac.fromJce(Mac.getInstance("HmacSHA512")));
+        // bits2int keeps the leftmost 256 bits of the SHA-512 hash
+        BigInteger h1 = new BigInteger(1, SHA512Hash.sha512("sample".getBytes())).shiftRight(256);
+        assertEquals(new BigInteger("5FA81C63109BADB88C1F367B47DA606DA28CAD69AA22C4FE6AD7DF73A7173AA5", 16),
+                generator.generateK(h1, P256_X));
+    }
+
+    @Test
+    public void testP521OrderLongerThanMac() {
+        // RFC 6979 A.2.7, P-521 with SHA-256: T spans three HMAC outputs and is cut to 521 bits
+        BigInteger x = new BigInteger("0FAD06DAA62BA3B25D2FB40133DA757205DE67F5BB0018FEE8C86E1B68C7E75C"
+                + "AA896EB32F1F47C70855836A6D16FCC1466F6D8FBEC67DB89EC0C08B0E996B83538", 16);
+        RFC6979NonceGenerator generator = new RFC6979NonceGenerator(NistP521EC.N);
+        assertEquals(new BigInteger("0EDF38AFCAAECAB4383358B34D67C9F2216C8382AAEA44A3DAD5FDC9C32575761"
+                + "793FEF24EB0FC276DFC4F6E3EC476752F043CF01415387470BCBD8678ED2C7E1A0", 16),
+                generator.generateK(sha256("sample"), x));
+    }
+
+    @Test
+    public void testReuseMatchesStaticHelper() {
+        RFC6979NonceGenerator generator = new RFC6979NonceGenerator(P256_N);
+        Random random = new Random(45);
+        for (int i = 0; i < 20; i++) {
+            BigInteger h = new BigInteger(256, random);
+            BigInteger x = new BigInteger(255, random).add(BigInteger.ONE);
+            assertEquals(RFC6979Nonce.generateK(h, x, P256_N), generator.generateK(h, x));
+        }
+    }
+
+    @Test
+    public void testNegativeHashIsReducedModN() {
+        RFC6979NonceGenerator generator = new RFC6979NonceGenerator(P256_N);
+        BigInteger h1 = sha256("sample");
+        BigInteger expected = generator.generateK(h1, P256_X);
+        assertEquals(expected, generator.generateK(h1.subtract(P256_N), P256_X));
+        assertEquals(expected, generator.generateK(h1.add(P256_N), P256_X));
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.SHA256Context;
+
+public class SHA256ContextTest {
+
+    private static byte[] expected(byte[] data) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(data);
+    }
+
+    @Test
+    public void testRandomSplits() throws Exception {
+        Random random = new Random(42);
+        SHA256Context ctx = new SHA256Context();
+        for (int round = 0; round < 200; round++) {
+            byte[] data = new byte[random.nextInt(700)];
+            random.nextBytes(data);
+            int pos = 0;
+            while (pos < data.length) {
+                int n = Math.min(data.length - pos, random.nextInt(150));
+                if (n == 1) {
+                    ctx.update(data[pos]);
+                } else {
+                    ctx.update(data, pos, n);
+                }
+                pos += n;
+            }
+            // the context resets itself, so every round starts from scratch
+            assertArrayEquals(expected(data), ctx.digest(), "length " + data.length);
+        }
+    }
+
+    @Test
+    public void testByteBuffers() throws Exception {
+        Random random = new Random(43);
+        byte[] data = new byte[1000];
+        random.nextBytes(data);
+        byte[] expected = expected(data);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        ByteBuffer littleEndian = direct.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer heap = ByteBuffer.wrap(data);
+        ByteBuffer readOnly = ByteBuffer.wrap(data).asReadOnlyBuffer();
+
+        for (ByteBuffer b : new ByteBuffer[]{direct, littleEndian, heap, readOnly}) {
+            SHA256Context ctx = new SHA256Context();
+            // an unaligned start so the buffered path and the in-place path both run
+            ctx.update(data, 0, 13);
+            b.position(13).limit(500);
+            ctx.update(b);
+            assertEquals(500, b.position());
+            b.limit(data.length);
+            ctx.update(b);
+            assertArrayEquals(expected, ctx.digest());
+        }
+    }
+
+    @Test
+    public void testSlicedHeapBuffer() throws Exception {
+        byte[] data = new byte[300];
+        new Random(44).nextBytes(data);
+        ByteBuffer slice = ByteBuffer.wrap(data, 50, 200).slice();
+        byte[] part = new byte[200];
+        System.arraycopy(data, 50, part, 0, 200);
+        assertArrayEquals(expected(part), new SHA256Context().update(slice).digest());
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        byte[] data = new byte[100_000];
+        new Random(45).nextBytes(data);
+        File file = File.createTempFile("sha256", ".bin");
+        try {
+            Files.write(file.toPath(), data);
+            SHA256Context ctx = new SHA256Context();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+                long size = channel.size();
+                for (long pos = 0; pos < size; pos += 30_000) {
+                    MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(30_000, size - pos));
+                    ctx.update(region);
+                }
+            }
+            assertArrayEquals(expected(data), ctx.digest());
+        } finally {
+            file.delete();
+        }
+    }
+}
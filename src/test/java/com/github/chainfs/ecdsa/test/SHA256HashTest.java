@@ -0,0 +1,51 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.SHA256Hash;
+
+public class SHA256HashTest {
+
+    @Test
+    public void testKnownVectors() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                SHA256Hash.toHex(SHA256Hash.sha256(new byte[0])));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                SHA256Hash.toHex(SHA256Hash.sha256("abc".getBytes())));
+        assertEquals("248d6a61d20638b8e5c026930c3e6039a33ce45964ff2167f6ecedd419db06c1",
+                SHA256Hash.toHex(SHA256Hash.sha256("abcdbcdecdefdefgefghfghighijhijkijkljklmklmnlmnomnopnopq".getBytes())));
+    }
+
+    @Test
+    public void testMatchesMessageDigest() throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        Random random = new Random(41);
+        // every length across the one- and two-block padding boundaries
+        for (int n = 0; n < 300; n++) {
+            byte[] message = new byte[n];
+            random.nextBytes(message);
+            assertArrayEquals(md.digest(message), SHA256Hash.sha256(message), "length " + n);
+        }
+    }
+
+    @Test
+    public void testOffsetAndOutputBuffer() throws Exception {
+        byte[] data = new byte[500];
+        new Random(42).nextBytes(data);
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(Arrays.copyOfRange(data, 37, 237));
+        assertArrayEquals(expected, SHA256Hash.sha256(data, 37, 200));
+
+        byte[] out = new byte[40];
+        SHA256Hash.sha256(data, 37, 200, out, 5);
+        assertArrayEquals(expected, Arrays.copyOfRange(out, 5, 37));
+        assertEquals(0, out[4]);
+        assertEquals(0, out[37]);
+    }
+}
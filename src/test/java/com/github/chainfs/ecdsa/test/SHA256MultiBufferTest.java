@@ -0,0 +1,94 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.SHA256MultiBuffer;
+
+public class SHA256MultiBufferTest {
+
+    private static void assertMatchesMessageDigest(SHA256MultiBuffer hasher, byte[][] messages) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[][] digests = hasher.sha256(messages);
+        for (int i = 0; i < messages.length; i++) {
+            assertArrayEquals(md.digest(messages[i]), digests[i], "lanes " + hasher.lanes() + ", message " + i);
+        }
+    }
+
+    private static byte[][] randomMessages(Random random, int count, int maxLength) {
+        byte[][] messages = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            messages[i] = new byte[random.nextInt(maxLength + 1)];
+            random.nextBytes(messages[i]);
+        }
+        return messages;
+    }
+
+    @Test
+    public void testEveryLengthAcrossPaddingBoundaries() throws Exception {
+        byte[][] messages = new byte[300][];
+        Random random = new Random(54);
+        for (int n = 0; n < messages.length; n++) {
+            messages[n] = new byte[n];
+            random.nextBytes(messages[n]);
+        }
+        assertMatchesMessageDigest(SHA256MultiBuffer.scalar(), messages);
+        assertMatchesMessageDigest(SHA256MultiBuffer.getDefault(), messages);
+    }
+
+    @Test
+    public void testLaneCountsAndMixedSizes() throws Exception {
+        Random random = new Random(55);
+        for (int lanes : new int[]{1, 3, 4, 8, 16}) {
+            SHA256MultiBuffer hasher = SHA256MultiBuffer.scalar(lanes);
+            assertEquals(lanes, hasher.lanes());
+            for (int count : new int[]{0, 1, lanes - 1, lanes, 2 * lanes + 1, 100}) {
+                assertMatchesMessageDigest(hasher, randomMessages(random, Math.max(count, 0), 260));
+            }
+        }
+    }
+
+    @Test
+    public void testVectorKernelWhenAvailable() throws Exception {
+        if (!SHA256MultiBuffer.isVectorAvailable()) {
+            assertThrows(UnsupportedOperationException.class, SHA256MultiBuffer::vector);
+            return;
+        }
+        SHA256MultiBuffer hasher = SHA256MultiBuffer.vector();
+        assertMatchesMessageDigest(hasher, randomMessages(new Random(56), 200, 300));
+    }
+
+    @Test
+    public void testForName() {
+        assertFalse(SHA256MultiBuffer.forName("scalar").isVector());
+        assertFalse(SHA256MultiBuffer.forName(" Scalar ").isVector());
+        boolean vector = SHA256MultiBuffer.isVectorAvailable();
+        assertEquals(vector, SHA256MultiBuffer.forName("AUTO").isVector());
+        // vector without the kernel falls back to scalar instead of failing
+        assertEquals(vector, SHA256MultiBuffer.forName("Vector").isVector());
+        assertThrows(IllegalArgumentException.class, () -> SHA256MultiBuffer.forName("simd"));
+    }
+
+    @Test
+    public void testDigestsIntoCallerArrays() throws Exception {
+        byte[][] messages = randomMessages(new Random(57), 20, 100);
+        byte[][] digests = new byte[20][40];
+        SHA256MultiBuffer.getDefault().sha256(messages, digests);
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        for (int i = 0; i < messages.length; i++) {
+            byte[] expected = md.digest(messages[i]);
+            for (int j = 0; j < 32; j++) {
+                assertEquals(expected[j], digests[i][j]);
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> SHA256MultiBuffer.getDefault().sha256(messages, new byte[3][32]));
+    }
+}
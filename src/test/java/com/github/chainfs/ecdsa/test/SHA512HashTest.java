@@ -0,0 +1,50 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.SHA256Hash;
+import com.github.chainfs.ecdsa.SHA512Hash;
+
+public class SHA512HashTest {
+
+    @Test
+    public void testKnownVectors() {
+        assertEquals("cf83e1357eefb8bdf1542850d66d8007d620e4050b5715dc83f4a921d36ce9ce"
+                + "47d0d13c5d85f2b0ff8318d2877eec2f63b931bd47417a81a538327af927da3e",
+                SHA256Hash.toHex(SHA512Hash.sha512(new byte[0])));
+        assertEquals("ddaf35a193617abacc417349ae20413112e6fa4e89a97ea20a9eeee64b55d39a"
+                + "2192992a274fc1a836ba3c23a3feebbd454d4423643ce80e2a9ac94fa54ca49f",
+                SHA256Hash.toHex(SHA512Hash.sha512("abc".getBytes())));
+    }
+
+    @Test
+    public void testMatchesMessageDigest() throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-512");
+        Random random = new Random(38);
+        // every length around the one- and two-block padding boundaries
+        for (int n = 0; n < 300; n++) {
+            byte[] message = new byte[n];
+            random.nextBytes(message);
+            assertArrayEquals(md.digest(message), SHA512Hash.sha512(message), "length " + n);
+        }
+    }
+
+    @Test
+    public void testPartsAreConcatenated() throws Exception {
+        byte[] message = new byte[300];
+        new Random(39).nextBytes(message);
+        byte[] expected = MessageDigest.getInstance("SHA-512").digest(message);
+        assertArrayEquals(expected, SHA512Hash.sha512(
+                Arrays.copyOfRange(message, 0, 32),
+                new byte[0],
+                Arrays.copyOfRange(message, 32, 161),
+                Arrays.copyOfRange(message, 161, 300)));
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.chainfs.ecdsa.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.ecdsa.SHA256Hash;
+import com.github.chainfs.ecdsa.SchnorrSigner;
+import com.github.chainfs.ecdsa.TaggedHash;
+
+public class SchnorrSignerTest {
+
+    // BIP-340 test-vectors.csv indices 0, 1 and 3: secret key, public key, aux_rand, message, signature
+    private static final String[][] SIGNING_VECTORS = {
+        {"0000000000000000000000000000000000000000000000000000000000000003",
+         "F9308A019258C31049344F85F89D5229B531C845836F99B08601F113BCE036F9",
+         "0000000000000000000000000000000000000000000000000000000000000000",
+         "0000000000000000000000000000000000000000000000000000000000000000",
+         "E907831F80848D1069A5371B402410364BDF1C5F8307B0084C55F1CE2DCA8215"
+                 + "25F66A4A85EA8B71E482A74F382D2CE5EBEEE8FDB2172F477DF4900D310536C0"},
+        {"B7E151628AED2A6ABF7158809CF4F3C762E7160F38B4DA56A784D9045190CFEF",
+         "DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "0000000000000000000000000000000000000000000000000000000000000001",
+         "243F6A8885A308D313198A2E03707344A4093822299F31D0082EFA98EC4E6C89",
+         "6896BD60EEAE296DB48A229FF71DFE071BDE413E6D43F917DC8DCF8C78DE3341"
+                 + "8906D11AC976ABCCB20B091292BFF4EA897EFCB639EA871CFA95F6DE339E4B0A"},
+        {"0B432B2677937381AEF05BB02A66ECD012773062CF3FA2549E44F58ED2401710",
+         "25D1DFF95105F5253C4022F628A996AD3A0D95FBF21D468A1B33F8C160D8F517",
+         "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF",
+         "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF",
+         "7EB0509757E246F19449885651611CB965ECC1A187DD51B64FDA1EDC9637D5EC"
+                 + "97582B9CB13DB3933705B32BA982AF5AF25FD78881EBB32771FC5922EFC66EA3"},
+    };
+
+    // BIP-340 test-vectors.csv indices 6 to 14, all invalid: public key, signature, reason; message as in vector 1
+    private static final String[][] INVALID_VECTORS = {
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "FFF97BD5755EEEA420453A14355235D382F6472F8568A18B2F057A1460297556"
+                 + "3CC27944640AC607CD107AE10923D9EF7A73C643E166BE5EBEAFA34B1AC553E2",
+         "has_even_y(R) is false"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "1FA62E331EDBC21C394792D2AB1100A7B432B013DF3F6FF4F99FCB33E0E1515F"
+                 + "28890B3EDB6E7189B630448B515CE4F8622A954CFE545735AAEA5134FCCDB2BD",
+         "negated message"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "6CFF5C3BA86C69EA4B7376F31A9BCB4F74C1976089B2D9963DA2E5543E177769"
+                 + "961764B3AA9B2FFCB6EF947B6887A226E8D7C93E00C5ED0C1834FF0D0C2E6DA6",
+         "negated s value"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "0000000000000000000000000000000000000000000000000000000000000000"
+                 + "123DDA8328AF9C23A94C1FEECFD123BA4FB73476F0D594DCB65C6425BD186051",
+         "sG - eP is infinite, x(inf) taken as 0"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "0000000000000000000000000000000000000000000000000000000000000001"
+                 + "7615FBAF5AE28864013C099742DEADB4DBA87F11AC6754F93780D5A1837CF197",
+         "sG - eP is infinite, x(inf) taken as 1"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "4A298DACAE57395A15D0795DDBFD1DCB564DA82B0F269BC70A74F8220429BA1D"
+                 + "69E89B4C5564D00349106B8497785DD7D1D713A8AE82B32FA79D5F7FC407D39B",
+         "sig[0:32] is not an x coordinate on the curve"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F"
+                 + "69E89B4C5564D00349106B8497785DD7D1D713A8AE82B32FA79D5F7FC407D39B",
+         "sig[0:32] is equal to the field size"},
+        {"DFF1D77F2A671C5F36183726DB2341BE58FEAE1DA2DECED843240F7B502BA659",
+         "6CFF5C3BA86C69EA4B7376F31A9BCB4F74C1976089B2D9963DA2E5543E177769"
+                 + "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141",
+         "sig[32:64] is equal to the curve order"},
+        {"FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC30",
+         "6CFF5C3BA86C69EA4B7376F31A9BCB4F74C1976089B2D9963DA2E5543E177769"
+                 + "69E89B4C5564D00349106B8497785DD7D1D713A8AE82B32FA79D5F7FC407D39B",
+         "public key exceeds the field size"},
+    };
+
+    private static byte[] hex(String s) {
+        byte[] out = new byte[s.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(s.substring(2 * i, 2 * i + 2), 16);
+        }
+        return out;
+    }
+
+    @Test
+    public void testSigningVectors() {
+        for (String[] v : SIGNING_VECTORS) {
+            byte[] secretKey = hex(v[0]);
+            byte[] publicKey = hex(v[1]);
+            byte[] message = hex(v[3]);
+            assertArrayEquals(publicKey, SchnorrSigner.publicKey(secretKey), v[0]);
+            byte[] signature = SchnorrSigner.sign(secretKey, message, hex(v[2]));
+            assertArrayEquals(hex(v[4]), signature, v[0]);
+            assertTrue(SchnorrSigner.verify(publicKey, message, signature));
+        }
+    }
+
+    @Test
+    public void testVerificationVectors() {
+        // vector 4: R.x with many leading zero bytes, valid
+        assertTrue(SchnorrSigner.verify(
+                hex("D69C3509BB99E412E68B0FE8544E72837DFA30746D8BE2AA65975F29D22DC7B9"),
+                hex("4DF3C3F68FCC83B27E9D42C90431A72499F17875C81A599B566C9889B9696703"),
+                hex("00000000000000000000003B78CE563F89A0ED9414F5AA28AD0D96D6795F9C63"
+                        + "76AFB1548AF603B3EB45C9F8207DEE1060CB71C04E80F593060B07D28308D7F4")));
+        // vector 5: public key not on the curve
+        assertFalse(SchnorrSigner.verify(
+                hex("EEFDEA4CDB677750A420FEE807EACF21EB9898AE79B9768766E4FAA04A2D4A34"),
+                hex("243F6A8885A308D313198A2E03707344A4093822299F31D0082EFA98EC4E6C89"),
+                hex("6CFF5C3BA86C69EA4B7376F31A9BCB4F74C1976089B2D9963DA2E5543E177769"
+                        + "69E89B4C5564D00349106B8497785DD7D1D713A8AE82B32FA79D5F7FC407D39B")));
+    }
+
+    @Test
+    public void testInvalidVectors() {
+        byte[] message = hex(SIGNING_VECTORS[1][3]);
+        for (String[] v : INVALID_VECTORS) {
+            byte[][] publicKeys = {hex(v[0])};
+            byte[][] signatures = {hex(v[1])};
+            assertFalse(SchnorrSigner.verify(publicKeys[0], message, signatures[0]), v[2]);
+            assertFalse(SchnorrSigner.verifyBatch(publicKeys, new byte[][]{message}, signatures), v[2]);
+        }
+    }
+
+    @Test
+    public void testTamperedSignatures() {
+        String[] v = SIGNING_VECTORS[1];
+        byte[] publicKey = hex(v[1]);
+        byte[] message = hex(v[3]);
+        byte[] signature = hex(v[4]);
+        for (int i : new int[]{0, 31, 32, 63}) {
+            byte[] bad = signature.clone();
+            bad[i] ^= 1;
+            assertFalse(SchnorrSigner.verify(publicKey, message, bad), "byte " + i);
+        }
+        byte[] otherMessage = message.clone();
+        otherMessage[0] ^= 1;
+        assertFalse(SchnorrSigner.verify(publicKey, otherMessage, signature));
+        // s = n is out of range
+        byte[] highS = signature.clone();
+        System.arraycopy(hex("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141"), 0, highS, 32, 32);
+        assertFalse(SchnorrSigner.verify(publicKey, message, highS));
+    }
+
+    @Test
+    public void testTaggedHashMatchesDefinition() {
+        Random random = new Random(51);
+        byte[] tagHash = SHA256Hash.sha256("BIP0340/challenge".getBytes());
+        for (int n : new int[]{0, 32, 96, 200}) {
+            byte[] x = new byte[n];
+            random.nextBytes(x);
+            byte[] input = new byte[64 + n];
+            System.arraycopy(tagHash, 0, input, 0, 32);
+            System.arraycopy(tagHash, 0, input, 32, 32);
+            System.arraycopy(x, 0, input, 64, n);
+            assertArrayEquals(SHA256Hash.sha256(input), TaggedHash.BIP340_CHALLENGE.hash(x));
+            assertArrayEquals(SHA256Hash.sha256(input), TaggedHash.BIP340_CHALLENGE.newContext().update(x).digest());
+        }
+    }
+
+    @Test
+    public void testBatchVerify() {
+        Random random = new Random(52);
+        int count = 24;
+        byte[][] publicKeys = new byte[count][];
+        byte[][] messages = new byte[count][];
+        byte[][] signatures = new byte[count][];
+        byte[][] secretKeys = new byte[4][32];
+        for (byte[] sk : secretKeys) {
+            random.nextBytes(sk);
+            sk[0] &= 0x7f;
+        }
+        for (int i = 0; i < count; i++) {
+            byte[] sk = secretKeys[i % secretKeys.length];
+            byte[] aux = new byte[32];
+            random.nextBytes(aux);
+            messages[i] = new byte[i];
+            random.nextBytes(messages[i]);
+            publicKeys[i] = SchnorrSigner.publicKey(sk);
+            signatures[i] = SchnorrSigner.sign(sk, messages[i], aux);
+        }
+        assertTrue(SchnorrSigner.verifyBatch(publicKeys, messages, signatures));
+        assertTrue(SchnorrSigner.verifyBatch(new byte[0][], new byte[0][], new byte[0][]));
+
+        byte[][] tampered = signatures.clone();
+        tampered[17] = tampered[17].clone();
+        tampered[17][40] ^= 4;
+        assertFalse(SchnorrSigner.verifyBatch(publicKeys, messages, tampered));
+        assertEquals(false, SchnorrSigner.verify(publicKeys[17], messages[17], tampered[17]));
+
+        byte[][] swapped = messages.clone();
+        swapped[3] = messages[4];
+        swapped[4] = messages[3];
+        assertFalse(SchnorrSigner.verifyBatch(publicKeys, swapped, signatures));
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.chainfs.v2.map.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.chainfs.v2.map.NLPCommand;
+import com.github.chainfs.v2.map.NLPCommandLogManager;
+
+public class NLPCommandLogManagerTest {
+
+    private Path dir;
+    private NLPCommandLogManager manager;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("nlp-command-log");
+        manager = new NLPCommandLogManager(dir);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        manager.close();
+        for (File file : dir.toFile().listFiles()) {
+            file.delete();
+        }
+        dir.toFile().delete();
+    }
+
+    @Test
+    public void testAcknowledgeRemovesLease() throws Exception {
+        manager.appendCommand("a");
+        NLPCommand command = manager.take("c1");
+        assertEquals("a", command.getCommand());
+        assertEquals(1, command.getDeliveryCount());
+        assertEquals(1, manager.getInFlightCount());
+        assertTrue(manager.acknowledge("c1", command));
+        assertEquals(0, manager.getInFlightCount());
+        assertNull(manager.poll("c1", 50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testLeaseExpiryRedeliversToAnotherConsumer() throws Exception {
+        manager.setAckTimeout(50, TimeUnit.MILLISECONDS);
+        manager.appendCommand("a");
+        NLPCommand first = manager.take("c1");
+
+        NLPCommand second = manager.poll("c2", 5, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertEquals(first.getId(), second.getId());
+        assertEquals("c2", second.getConsumerId());
+        assertEquals(2, second.getDeliveryCount());
+
+        // the stale consumer no longer holds the lease
+        assertFalse(manager.acknowledge("c1", first));
+        assertFalse(manager.release("c1", first));
+        assertTrue(manager.acknowledge("c2", second));
+    }
+
+    @Test
+    public void testRedeliveryOrder() throws Exception {
+        manager.appendCommand("a");
+        manager.appendCommand("b");
+        manager.appendCommand("c");
+        manager.setAckTimeout(50, TimeUnit.MILLISECONDS);
+        manager.take("c1");
+        manager.take("c1");
+        Thread.sleep(100);
+
+        // expired commands come back in the order they were taken, before new ones
+        manager.setAckTimeout(60, TimeUnit.SECONDS);
+        assertEquals("a", manager.take("c2").getCommand());
+        assertEquals("b", manager.take("c2").getCommand());
+        assertEquals("c", manager.take("c2").getCommand());
+    }
+
+    @Test
+    public void testReleaseRedeliversImmediately() throws Exception {
+        manager.appendCommand("a");
+        manager.appendCommand("b");
+        NLPCommand command = manager.take("c1");
+        assertTrue(manager.release("c1", command));
+        assertEquals(0, manager.getInFlightCount());
+
+        NLPCommand again = manager.poll("c2", 0, TimeUnit.MILLISECONDS);
+        assertEquals("a", again.getCommand());
+        assertEquals(2, again.getDeliveryCount());
+        assertEquals("b", manager.take("c2").getCommand());
+    }
+
+    @Test
+    public void testTakeAsyncWaitsForAppend() throws Exception {
+        CompletableFuture<NLPCommand> future = manager.takeAsync("c1");
+        Thread.sleep(50);
+        assertFalse(future.isDone());
+        manager.appendCommand("a");
+        NLPCommand command = future.get(5, TimeUnit.SECONDS);
+        assertEquals("a", command.getCommand());
+        assertEquals("c1", command.getConsumerId());
+        assertTrue(manager.acknowledge("c1", command));
+    }
+}